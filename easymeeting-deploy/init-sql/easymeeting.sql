@@ -174,7 +174,7 @@ BEGIN
                 `file_suffix` VARCHAR(20) DEFAULT NULL COMMENT ''文件后缀'',
                 `status` TINYINT DEFAULT 1 COMMENT ''状态：0发送中，1已发送'',
                 PRIMARY KEY (`message_id`),
-                KEY `idx_meeting_id` (`meeting_id`),
+                KEY `idx_meeting_message_status` (`meeting_id`, `message_id`, `status`),
                 KEY `idx_send_time` (`send_time`),
                 KEY `idx_send_user_id` (`send_user_id`)
             ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT=''会议聊天消息分表', table_suffix, ''';
@@ -243,6 +243,39 @@ DELIMITER ;
 -- 执行创建分表
 CALL create_private_chat_message_tables();
 
+-- =====================================================
+-- 11. 分表桶目录
+-- 分表键哈希到 1024 个虚拟桶，未登记的桶按 bucket % 32 + 1 落表；
+-- 扩容迁移后的桶及迁移中的桶登记在此
+-- =====================================================
+CREATE TABLE IF NOT EXISTS `shard_bucket` (
+    `table_prefix` VARCHAR(50) NOT NULL COMMENT '分表前缀：message_chat_message / private_chat_message',
+    `bucket` INT NOT NULL COMMENT '虚拟桶编号（0-1023）',
+    `table_index` INT NOT NULL COMMENT '读取的物理表序号',
+    `dual_write_index` INT DEFAULT NULL COMMENT '需要同步写入的另一张表序号（迁移中/切换后）',
+    `state` TINYINT NOT NULL DEFAULT 0 COMMENT '状态：0正常，1迁移中（读旧表，双写），2已切换（读新表，双写旧表）',
+    `update_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (`table_prefix`, `bucket`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='分表桶目录';
+
+-- =====================================================
+-- 12. 聊天消息归档记录
+-- 已结束会议的聊天消息归档到分段文件后从分表中删除，此表记录归档进度
+-- =====================================================
+CREATE TABLE IF NOT EXISTS `chat_message_archive` (
+    `meeting_id` VARCHAR(10) NOT NULL COMMENT '会议ID',
+    `table_name` VARCHAR(64) NOT NULL COMMENT '归档时消息所在的分表',
+    `segment_path` VARCHAR(255) NOT NULL COMMENT '归档分段文件路径',
+    `message_count` INT NOT NULL DEFAULT 0 COMMENT '已归档消息数',
+    `min_message_id` BIGINT DEFAULT NULL COMMENT '已归档的最小消息ID',
+    `max_message_id` BIGINT DEFAULT NULL COMMENT '已归档的最大消息ID（不大于该ID的消息以归档文件为准）',
+    `purged_count` INT NOT NULL DEFAULT 0 COMMENT '已从分表删除的行数',
+    `state` TINYINT NOT NULL DEFAULT 0 COMMENT '状态：0归档中，1清理中（读归档），2已完成',
+    `update_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (`meeting_id`),
+    KEY `idx_state` (`state`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='聊天消息归档记录';
+
 -- =====================================================
 -- 清理存储过程
 -- =====================================================
@@ -0,0 +1,18 @@
+package com.easymeeting.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 只读查询路由到从库
+ * 标注在只读的 Service 方法上，方法内的非事务查询优先读取延迟未超限的从库；
+ * 当前用户刚写入过数据、没有可用从库或处于事务中时仍读主库
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReadOnlyRoute {
+}
@@ -0,0 +1,138 @@
+package com.easymeeting.archive;
+
+import com.easymeeting.entity.ChatMessage;
+import com.easymeeting.enums.ReceiveTypeEnum;
+import com.easymeeting.redis.codec.CompactReader;
+import com.easymeeting.redis.codec.CompactWriter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 归档分段文件的索引
+ * 记录每个数据块在分段文件中的位置、校验值和消息ID范围（数据块按消息ID升序追加），
+ * 以及统计总数用的消息计数：群发消息数和每个用户相关的私聊消息数
+ */
+public class ChatArchiveIndex {
+
+    private static final int VERSION = 1;
+
+    private final List<Block> blocks = new ArrayList<>();
+    private final Map<String, Integer> privateCounts = new HashMap<>();
+    /**
+     * 已提交的分段文件长度，之后的内容是未完成的追加，重新追加时截掉
+     */
+    private long segmentLength;
+    private int messageCount;
+    private int groupCount;
+
+    /**
+     * 数据块
+     *
+     * @param offset       在分段文件中的偏移
+     * @param length       压缩后的长度
+     * @param rawLength    压缩前的长度
+     * @param crc          压缩数据的 CRC32
+     * @param count        消息数
+     * @param minMessageId 最小消息ID
+     * @param maxMessageId 最大消息ID
+     */
+    public record Block(long offset, int length, int rawLength, long crc, int count,
+                        long minMessageId, long maxMessageId) {
+    }
+
+    public List<Block> getBlocks() {
+        return Collections.unmodifiableList(blocks);
+    }
+
+    public long getSegmentLength() {
+        return segmentLength;
+    }
+
+    public int getMessageCount() {
+        return messageCount;
+    }
+
+    public Long getMinMessageId() {
+        return blocks.isEmpty() ? null : blocks.get(0).minMessageId();
+    }
+
+    public Long getMaxMessageId() {
+        return blocks.isEmpty() ? null : blocks.get(blocks.size() - 1).maxMessageId();
+    }
+
+    /**
+     * 用户可见的消息数：群发消息 + 该用户发出或收到的私聊消息，userId 为空时为全部消息数
+     */
+    public int visibleCount(String userId) {
+        if (userId == null) {
+            return messageCount;
+        }
+        return groupCount + privateCounts.getOrDefault(userId, 0);
+    }
+
+    /**
+     * 登记新追加的数据块
+     */
+    void addBlock(Block block, List<ChatMessage> messages) {
+        blocks.add(block);
+        segmentLength = block.offset() + block.length();
+        messageCount += messages.size();
+        for (ChatMessage message : messages) {
+            if (!ReceiveTypeEnum.USER.getType().equals(message.getReceiveType())) {
+                groupCount++;
+                continue;
+            }
+            privateCounts.merge(message.getSendUserId(), 1, Integer::sum);
+            if (message.getReceiveUserId() != null && !message.getReceiveUserId().equals(message.getSendUserId())) {
+                privateCounts.merge(message.getReceiveUserId(), 1, Integer::sum);
+            }
+        }
+    }
+
+    byte[] encode() {
+        CompactWriter writer = new CompactWriter()
+                .writeByte(VERSION)
+                .writeLong(segmentLength)
+                .writeLong(messageCount)
+                .writeLong(groupCount)
+                .writeLong(blocks.size());
+        for (Block block : blocks) {
+            writer.writeLong(block.offset())
+                    .writeLong(block.length())
+                    .writeLong(block.rawLength())
+                    .writeLong(block.crc())
+                    .writeLong(block.count())
+                    .writeLong(block.minMessageId())
+                    .writeLong(block.maxMessageId());
+        }
+        writer.writeLong(privateCounts.size());
+        privateCounts.forEach((userId, count) -> writer.writeString(userId).writeLong(count));
+        return writer.toByteArray();
+    }
+
+    static ChatArchiveIndex decode(byte[] bytes) {
+        CompactReader reader = new CompactReader(bytes, 0);
+        int version = reader.readByte();
+        if (version != VERSION) {
+            throw new IllegalStateException("不支持的归档索引版本: " + version);
+        }
+        ChatArchiveIndex index = new ChatArchiveIndex();
+        index.segmentLength = reader.readLong();
+        index.messageCount = (int) reader.readLong();
+        index.groupCount = (int) reader.readLong();
+        long blockCount = reader.readLong();
+        for (long i = 0; i < blockCount; i++) {
+            index.blocks.add(new Block(reader.readLong(), (int) reader.readLong(), (int) reader.readLong(),
+                    reader.readLong(), (int) reader.readLong(), reader.readLong(), reader.readLong()));
+        }
+        long userCount = reader.readLong();
+        for (long i = 0; i < userCount; i++) {
+            index.privateCounts.put(reader.readString(), (int) reader.readLong());
+        }
+        return index;
+    }
+}
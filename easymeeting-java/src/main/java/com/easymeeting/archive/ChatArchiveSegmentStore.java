@@ -0,0 +1,372 @@
+package com.easymeeting.archive;
+
+import com.easymeeting.entity.ChatMessage;
+import com.easymeeting.enums.ReceiveTypeEnum;
+import com.easymeeting.exception.BusinessException;
+import com.easymeeting.redis.codec.CompactReader;
+import com.easymeeting.redis.codec.CompactWriter;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 聊天消息归档分段文件
+ * 每个会议一个只追加的分段文件（{dir}/{会议ID后两位}/{会议ID}.seg）：消息按消息ID升序每 block-messages 条
+ * 紧凑编码后 Deflate 压缩为一个数据块；旁边的 .idx 索引记录各数据块的位置与消息ID范围，
+ * 追加并刷盘后整体替换写入，未写入索引的追加内容在下次追加时截掉
+ */
+@Component
+@Slf4j
+public class ChatArchiveSegmentStore {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final Pattern MEETING_ID_PATTERN = Pattern.compile("[0-9A-Za-z]{2,32}");
+
+    /**
+     * 归档目录，多节点部署时需为各节点共享的存储；没有默认值，未配置时不归档
+     */
+    @Value("${chat.archive.dir:}")
+    private String archiveDir;
+
+    @Value("${chat.archive.block-messages:256}")
+    private int blockMessages;
+
+    @Value("${chat.archive.index-cache-size:1000}")
+    private int indexCacheSize;
+
+    /**
+     * 会议ID -> 已读取的索引（按文件修改时间和大小判断是否过期）
+     */
+    private Map<String, CachedIndex> indexCache;
+
+    @PostConstruct
+    public void init() {
+        indexCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedIndex> eldest) {
+                return size() > indexCacheSize;
+            }
+        });
+    }
+
+    /**
+     * 是否显式配置了归档目录
+     */
+    public boolean isConfigured() {
+        return archiveDir != null && !archiveDir.isBlank();
+    }
+
+    public Path segmentPath(String meetingId) {
+        if (!isConfigured()) {
+            throw new IllegalStateException("未配置归档目录 chat.archive.dir");
+        }
+        if (meetingId == null || !MEETING_ID_PATTERN.matcher(meetingId).matches()) {
+            throw new BusinessException("会议ID不正确");
+        }
+        return Paths.get(archiveDir, meetingId.substring(meetingId.length() - 2), meetingId + SEGMENT_SUFFIX);
+    }
+
+    private Path indexPath(String meetingId) {
+        Path segment = segmentPath(meetingId);
+        return segment.resolveSibling(meetingId + INDEX_SUFFIX);
+    }
+
+    /**
+     * 会议的归档索引
+     *
+     * @return 索引，未归档返回 null
+     */
+    public ChatArchiveIndex readIndex(String meetingId) throws IOException {
+        Path path = indexPath(meetingId);
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            indexCache.remove(meetingId);
+            return null;
+        }
+        long modified = attributes.lastModifiedTime().toMillis();
+        CachedIndex cached = indexCache.get(meetingId);
+        if (cached != null && cached.modified() == modified && cached.size() == attributes.size()) {
+            return cached.index();
+        }
+        ChatArchiveIndex index = ChatArchiveIndex.decode(Files.readAllBytes(path));
+        indexCache.put(meetingId, new CachedIndex(modified, attributes.size(), index));
+        return index;
+    }
+
+    /**
+     * 读取消息ID小于 beforeId 的归档消息（按消息ID倒序）
+     *
+     * @param userId 当前用户ID（不为空时过滤不相关的私聊消息）
+     * @param skip   跳过的条数（按页码分页时使用）
+     * @param limit  最多返回条数
+     */
+    public List<ChatMessage> readBefore(String meetingId, String userId, long beforeId, int skip, int limit) throws IOException {
+        ChatArchiveIndex index = readIndex(meetingId);
+        if (index == null || limit <= 0) {
+            return new ArrayList<>();
+        }
+        List<ChatMessage> result = new ArrayList<>(limit);
+        int skipped = 0;
+        try (FileChannel channel = FileChannel.open(segmentPath(meetingId), StandardOpenOption.READ)) {
+            List<ChatArchiveIndex.Block> blocks = index.getBlocks();
+            for (int i = blocks.size() - 1; i >= 0 && result.size() < limit; i--) {
+                ChatArchiveIndex.Block block = blocks.get(i);
+                if (block.minMessageId() >= beforeId) {
+                    continue;
+                }
+                List<ChatMessage> messages = readBlock(channel, block, meetingId);
+                for (int j = messages.size() - 1; j >= 0 && result.size() < limit; j--) {
+                    ChatMessage message = messages.get(j);
+                    if (message.getMessageId() >= beforeId || !visible(message, userId)) {
+                        continue;
+                    }
+                    if (skipped < skip) {
+                        skipped++;
+                    } else {
+                        result.add(message);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 打开会议的分段文件准备追加
+     */
+    public Appender openAppender(String meetingId) throws IOException {
+        Path segment = segmentPath(meetingId);
+        Files.createDirectories(segment.getParent());
+        Path indexFile = indexPath(meetingId);
+        ChatArchiveIndex index = Files.exists(indexFile)
+                ? ChatArchiveIndex.decode(Files.readAllBytes(indexFile)) : new ChatArchiveIndex();
+        FileChannel channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() > index.getSegmentLength()) {
+                log.warn("会议 {} 归档文件存在未完成的追加，截断到 {} 字节", meetingId, index.getSegmentLength());
+                channel.truncate(index.getSegmentLength());
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new Appender(meetingId, channel, index);
+    }
+
+    private List<ChatMessage> readBlock(FileChannel channel, ChatArchiveIndex.Block block, String meetingId) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(block.length());
+        long position = block.offset();
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("会议 " + meetingId + " 归档文件长度不足");
+            }
+            position += read;
+        }
+        byte[] compressed = buffer.array();
+        CRC32 crc = new CRC32();
+        crc.update(compressed);
+        if (crc.getValue() != block.crc()) {
+            throw new IOException("会议 " + meetingId + " 归档数据块校验失败，偏移 " + block.offset());
+        }
+        byte[] raw = new byte[block.rawLength()];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int length = inflater.inflate(raw);
+            if (length != raw.length) {
+                throw new IOException("会议 " + meetingId + " 归档数据块解压长度不符");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("会议 " + meetingId + " 归档数据块解压失败", e);
+        } finally {
+            inflater.end();
+        }
+        return decodeBlock(raw, meetingId);
+    }
+
+    private static byte[] encodeBlock(List<ChatMessage> messages) {
+        CompactWriter writer = new CompactWriter().writeLong(messages.size());
+        long previousId = 0;
+        for (ChatMessage message : messages) {
+            // 消息ID升序，只记录与上一条的差值
+            writer.writeLong(message.getMessageId() - previousId)
+                    .writeInteger(message.getMessageType())
+                    .writeString(message.getMessageContent())
+                    .writeString(message.getSendUserId())
+                    .writeString(message.getSendUserNickName())
+                    .writeNullableLong(message.getSendTime())
+                    .writeInteger(message.getReceiveType())
+                    .writeString(message.getReceiveUserId())
+                    .writeNullableLong(message.getFileSize())
+                    .writeString(message.getFileName())
+                    .writeInteger(message.getFileType())
+                    .writeString(message.getFileSuffix())
+                    .writeInteger(message.getStatus());
+            previousId = message.getMessageId();
+        }
+        return writer.toByteArray();
+    }
+
+    private static List<ChatMessage> decodeBlock(byte[] raw, String meetingId) {
+        CompactReader reader = new CompactReader(raw, 0);
+        int count = (int) reader.readLong();
+        List<ChatMessage> messages = new ArrayList<>(count);
+        long messageId = 0;
+        for (int i = 0; i < count; i++) {
+            messageId += reader.readLong();
+            ChatMessage message = new ChatMessage();
+            message.setMessageId(messageId);
+            message.setMeetingId(meetingId);
+            message.setMessageType(reader.readInteger());
+            message.setMessageContent(reader.readString());
+            message.setSendUserId(reader.readString());
+            message.setSendUserNickName(reader.readString());
+            message.setSendTime(reader.readNullableLong());
+            message.setReceiveType(reader.readInteger());
+            message.setReceiveUserId(reader.readString());
+            message.setFileSize(reader.readNullableLong());
+            message.setFileName(reader.readString());
+            message.setFileType(reader.readInteger());
+            message.setFileSuffix(reader.readString());
+            message.setStatus(reader.readInteger());
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    private static boolean visible(ChatMessage message, String userId) {
+        if (userId == null || !ReceiveTypeEnum.USER.getType().equals(message.getReceiveType())) {
+            return true;
+        }
+        return userId.equals(message.getSendUserId()) || userId.equals(message.getReceiveUserId());
+    }
+
+    private record CachedIndex(long modified, long size, ChatArchiveIndex index) {
+    }
+
+    /**
+     * 分段文件追加器：按消息ID升序追加，commit 后生效
+     */
+    public final class Appender implements Closeable {
+
+        private final String meetingId;
+        private final FileChannel channel;
+        private final ChatArchiveIndex index;
+        private final List<ChatMessage> pending = new ArrayList<>();
+        private long lastMessageId;
+
+        private Appender(String meetingId, FileChannel channel, ChatArchiveIndex index) {
+            this.meetingId = meetingId;
+            this.channel = channel;
+            this.index = index;
+            Long maxMessageId = index.getMaxMessageId();
+            this.lastMessageId = maxMessageId == null ? 0 : maxMessageId;
+        }
+
+        /**
+         * 已追加的最大消息ID（继续读取分表的起点），未归档过为 0
+         */
+        public long getLastMessageId() {
+            return lastMessageId;
+        }
+
+        public void append(ChatMessage message) throws IOException {
+            if (message.getMessageId() <= lastMessageId) {
+                return;
+            }
+            pending.add(message);
+            lastMessageId = message.getMessageId();
+            if (pending.size() >= blockMessages) {
+                writeBlock();
+            }
+        }
+
+        /**
+         * 写入剩余消息，刷盘后替换索引
+         *
+         * @return 新的索引
+         */
+        public ChatArchiveIndex commit() throws IOException {
+            writeBlock();
+            channel.force(true);
+            Path indexFile = indexPath(meetingId);
+            Path tempFile = indexFile.resolveSibling(meetingId + INDEX_SUFFIX + ".tmp");
+            try (FileChannel out = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(index.encode());
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                out.force(true);
+            }
+            Files.move(tempFile, indexFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            indexCache.remove(meetingId);
+            return index;
+        }
+
+        private void writeBlock() throws IOException {
+            if (pending.isEmpty()) {
+                return;
+            }
+            byte[] raw = encodeBlock(pending);
+            Deflater deflater = new Deflater();
+            byte[] compressed;
+            try {
+                deflater.setInput(raw);
+                deflater.finish();
+                ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 64);
+                byte[] chunk = new byte[8192];
+                while (!deflater.finished()) {
+                    out.write(chunk, 0, deflater.deflate(chunk));
+                }
+                compressed = out.toByteArray();
+            } finally {
+                deflater.end();
+            }
+            CRC32 crc = new CRC32();
+            crc.update(compressed);
+            long offset = index.getSegmentLength();
+            ByteBuffer buffer = ByteBuffer.wrap(compressed);
+            long position = offset;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            index.addBlock(new ChatArchiveIndex.Block(offset, compressed.length, raw.length, crc.getValue(),
+                    pending.size(), pending.get(0).getMessageId(), pending.get(pending.size() - 1).getMessageId()), pending);
+            pending.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
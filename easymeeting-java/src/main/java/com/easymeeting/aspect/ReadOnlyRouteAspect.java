@@ -0,0 +1,40 @@
+package com.easymeeting.aspect;
+
+import com.easymeeting.sharding.ReadRouteContext;
+import com.easymeeting.sharding.ReadYourWritesTracker;
+import com.easymeeting.sharding.ShardDataSourceProperties;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * 只读路由切面：执行 @ReadOnlyRoute 方法期间开启只读范围，
+ * 当前用户处于写入后的主库读取窗口时不开启
+ */
+@Component
+@Aspect
+@RequiredArgsConstructor
+public class ReadOnlyRouteAspect {
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final ShardDataSourceProperties shardDataSourceProperties;
+
+    @Around("@annotation(com.easymeeting.annotation.ReadOnlyRoute)")
+    public Object route(ProceedingJoinPoint point) throws Throwable {
+        if (shardDataSourceProperties.getReplicas().isEmpty() || ReadRouteContext.isReadOnly()) {
+            return point.proceed();
+        }
+        String userId = readYourWritesTracker.currentUserId();
+        if (userId != null && readYourWritesTracker.isSticky(userId)) {
+            return point.proceed();
+        }
+        boolean previous = ReadRouteContext.enter();
+        try {
+            return point.proceed();
+        } finally {
+            ReadRouteContext.restore(previous);
+        }
+    }
+}
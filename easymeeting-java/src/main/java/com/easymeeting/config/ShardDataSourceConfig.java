@@ -0,0 +1,105 @@
+package com.easymeeting.config;
+
+import com.easymeeting.sharding.ShardDataSourceProperties;
+import com.easymeeting.sharding.ShardDataSourceRouter;
+import com.easymeeting.sharding.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 分库数据源配置
+ * 默认数据源按 spring.datasource / spring.datasource.hikari 创建（与原自动配置一致），
+ * shard.datasource.nodes 下的每个实例及 shard.datasource.replicas 下的每个从库各建一个连接池，统一由路由数据源对外提供，
+ * MyBatis 与事务管理器仍只看到一个 DataSource
+ */
+@Configuration
+@Slf4j
+public class ShardDataSourceConfig {
+
+    @Bean
+    public ShardDataSourceProperties shardDataSourceProperties(Environment environment) {
+        return Binder.get(environment)
+                .bind("shard.datasource", ShardDataSourceProperties.class)
+                .orElseGet(ShardDataSourceProperties::new);
+    }
+
+    @Bean
+    public ShardDataSourceRouter shardDataSourceRouter(ShardDataSourceProperties shardDataSourceProperties) {
+        return new ShardDataSourceRouter(shardDataSourceProperties);
+    }
+
+    @Bean
+    @Primary
+    public ShardRoutingDataSource dataSource(DataSourceProperties dataSourceProperties,
+                                             ShardDataSourceProperties shardDataSourceProperties,
+                                             Environment environment) {
+        HikariDataSource defaultDataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(defaultDataSource));
+
+        Map<Object, Object> targets = new LinkedHashMap<>();
+        targets.put(ShardDataSourceRouter.DEFAULT_KEY, defaultDataSource);
+        shardDataSourceProperties.getNodes().forEach((key, node) -> {
+            targets.put(key, createPool(defaultDataSource, key, node.getUrl(), node.getUsername(), node.getPassword(),
+                    node.getDriverClassName(), node.getMaximumPoolSize(), node.getMinimumIdle()));
+            log.info("分库数据源 {}: {}，分表序号: {}", key, node.getUrl(), node.getTables());
+        });
+        shardDataSourceProperties.getReplicas().forEach((key, replica) -> {
+            if (targets.containsKey(key)) {
+                throw new IllegalStateException("从库名称 " + key + " 与已有数据源重复");
+            }
+            if (!targets.containsKey(replica.getPrimary())) {
+                throw new IllegalStateException("从库 " + key + " 所属的主库 " + replica.getPrimary() + " 不存在");
+            }
+            HikariDataSource dataSource = createPool(defaultDataSource, key, replica.getUrl(), replica.getUsername(),
+                    replica.getPassword(), replica.getDriverClassName(), replica.getMaximumPoolSize(), replica.getMinimumIdle());
+            dataSource.setReadOnly(true);
+            targets.put(key, dataSource);
+            log.info("从库数据源 {}: {}，主库: {}", key, replica.getUrl(), replica.getPrimary());
+        });
+
+        ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource();
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(defaultDataSource);
+        routingDataSource.setLenientFallback(false);
+        return routingDataSource;
+    }
+
+    /**
+     * 额外实例的连接池，连接超时、存活时间等沿用默认数据源的连接池配置
+     */
+    private static HikariDataSource createPool(HikariDataSource defaultDataSource, String key, String url,
+                                               String username, String password, String driverClassName,
+                                               Integer maximumPoolSize, Integer minimumIdle) {
+        if (url == null || url.isBlank()) {
+            throw new IllegalStateException("数据源 " + key + " 未配置 url");
+        }
+        HikariDataSource dataSource = new HikariDataSource();
+        defaultDataSource.copyStateTo(dataSource);
+        dataSource.setPoolName((defaultDataSource.getPoolName() == null ? "HikariPool" : defaultDataSource.getPoolName()) + "-" + key);
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        if (driverClassName != null) {
+            dataSource.setDriverClassName(driverClassName);
+        }
+        if (maximumPoolSize != null) {
+            dataSource.setMaximumPoolSize(maximumPoolSize);
+        }
+        if (minimumIdle != null) {
+            dataSource.setMinimumIdle(minimumIdle);
+        }
+        return dataSource;
+    }
+}
@@ -4,13 +4,13 @@ import com.easymeeting.dto.*;
 
 import com.easymeeting.exception.BusinessException;
 import com.easymeeting.redis.RedisComponent;
+import com.easymeeting.service.CaptchaService;
 import com.easymeeting.service.UserService;
 import com.easymeeting.vo.CheckCodeVo;
 
 
 import com.easymeeting.vo.ResponseVO;
 import com.easymeeting.vo.UserInfoVo;
-import com.wf.captcha.ArithmeticCaptcha;
 import jakarta.validation.Valid;
 
 import jakarta.validation.constraints.Null;
@@ -29,18 +29,11 @@ public class AccountController {
 
     private final UserService userService;
     private final RedisComponent redisComponent;
+    private final CaptchaService captchaService;
 
     @GetMapping("/checkCode")
     public ResponseVO<CheckCodeVo> checkCode() {
-        ArithmeticCaptcha captcha = new ArithmeticCaptcha(100, 42);
-        String code = captcha.text();//计算结果，不返回前端
-        String checkCodeKey = redisComponent.saveCheckCode(code);
-        String checkCodeBase64 = captcha.toBase64();//图片base64
-        log.info("code:{}", code);
-        CheckCodeVo checkCodeVo=new CheckCodeVo();
-        checkCodeVo.setCheckCode(checkCodeBase64);
-        checkCodeVo.setCheckCodeKey(checkCodeKey);
-        return ResponseVO.success(checkCodeVo);
+        return ResponseVO.success(captchaService.createCheckCode());
     }
     @PostMapping("/register")
     public ResponseVO<Null> register(@RequestBody @Valid UserRegisterDTO dto) {
@@ -1,14 +1,149 @@
 package com.easymeeting.controller;
 
+import com.easymeeting.entity.ChatMessageArchive;
+import com.easymeeting.entity.ShardBucket;
+import com.easymeeting.redis.RedisComponent;
+import com.easymeeting.redis.codec.CompactRedisSerializer;
+import com.easymeeting.service.CaptchaService;
+import com.easymeeting.service.ChatArchiveService;
+import com.easymeeting.service.ChatMessageService;
+import com.easymeeting.service.ShardMigrationService;
+import com.easymeeting.sharding.ReplicaLagMonitor;
+import com.easymeeting.vo.CaptchaStatsVo;
+import com.easymeeting.vo.ChatWriteStatsVo;
+import com.easymeeting.vo.CodecStatsVo;
+import com.easymeeting.vo.DeliveryStatsVo;
+import com.easymeeting.vo.ResponseVO;
+import com.easymeeting.vo.ShardMigrationStatusVo;
+import com.easymeeting.websocket.message.LocalDeliveryDispatcher;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/admin")
 @Validated
 @Slf4j
+@RequiredArgsConstructor
 public class AdminController {
 
+    private final LocalDeliveryDispatcher localDeliveryDispatcher;
+    private final RedisComponent redisComponent;
+    private final CompactRedisSerializer compactRedisSerializer;
+    private final CaptchaService captchaService;
+    private final ChatMessageService chatMessageService;
+    private final ShardMigrationService shardMigrationService;
+    private final ReplicaLagMonitor replicaLagMonitor;
+    private final ChatArchiveService chatArchiveService;
+
+    /**
+     * 本机消息投递队列指标（队列深度、投递延迟、丢弃数）
+     */
+    @GetMapping("/deliveryStats")
+    public ResponseVO<DeliveryStatsVo> deliveryStats() {
+        return ResponseVO.success(localDeliveryDispatcher.getStats());
+    }
+
+    /**
+     * 会议房间成员的编码对比报告（每个成员的 JSON/紧凑编码字节数与解码耗时）
+     */
+    @GetMapping("/roomCodecStats")
+    public ResponseVO<CodecStatsVo> roomCodecStats(@NotEmpty String meetingId) {
+        return ResponseVO.success(compactRedisSerializer.compare(redisComponent.getMeetingMemberList(meetingId)));
+    }
+
+    /**
+     * 验证码预生成池指标（可用数量、池空时同步生成次数）
+     */
+    @GetMapping("/captchaStats")
+    public ResponseVO<CaptchaStatsVo> captchaStats() {
+        return ResponseVO.success(captchaService.getStats());
+    }
+
+    /**
+     * 聊天消息批量写入指标（缓冲深度、批量次数、失败与拒绝数）
+     */
+    @GetMapping("/chatWriteStats")
+    public ResponseVO<ChatWriteStatsVo> chatWriteStats() {
+        return ResponseVO.success(chatMessageService.getWriteStats());
+    }
+
+    /**
+     * 分表桶目录（已迁移或迁移中的桶，未列出的桶按默认规则落表）
+     */
+    @GetMapping("/shard/directory")
+    public ResponseVO<List<ShardBucket>> shardDirectory(@NotEmpty String tablePrefix) {
+        return ResponseVO.success(shardMigrationService.getDirectory(tablePrefix));
+    }
+
+    /**
+     * 发起分表迁移：把指定桶迁移到目标表（buckets 逗号分隔）
+     */
+    @PostMapping("/shard/migrate")
+    public ResponseVO<Void> shardMigrate(@NotEmpty String tablePrefix,
+                                         @RequestParam List<Integer> buckets,
+                                         @NotNull Integer targetIndex) {
+        shardMigrationService.startMigration(tablePrefix, buckets, targetIndex);
+        return ResponseVO.success();
+    }
+
+    /**
+     * 清理分表中已迁走的数据
+     */
+    @PostMapping("/shard/cleanup")
+    public ResponseVO<Void> shardCleanup(@NotEmpty String tablePrefix, @NotNull Integer tableIndex) {
+        shardMigrationService.startCleanup(tablePrefix, tableIndex);
+        return ResponseVO.success();
+    }
+
+    /**
+     * 回滚分表迁移（取消执行中的任务，或在执行节点退出后把迁移中的桶恢复到旧表）
+     */
+    @PostMapping("/shard/abort")
+    public ResponseVO<Void> shardAbort(@NotEmpty String tablePrefix) {
+        shardMigrationService.abort(tablePrefix);
+        return ResponseVO.success();
+    }
+
+    /**
+     * 最近一次分表任务的进度
+     */
+    @GetMapping("/shard/status")
+    public ResponseVO<ShardMigrationStatusVo> shardStatus() {
+        return ResponseVO.success(shardMigrationService.getStatus());
+    }
+
+    /**
+     * 从库复制延迟（秒），null 表示不可用，不参与读路由
+     */
+    @GetMapping("/replicaStatus")
+    public ResponseVO<Map<String, Long>> replicaStatus() {
+        return ResponseVO.success(replicaLagMonitor.getLastLag());
+    }
+
+    /**
+     * 立即归档已结束会议的聊天消息并清理分表
+     */
+    @PostMapping("/archive/meeting")
+    public ResponseVO<ChatMessageArchive> archiveMeeting(@NotEmpty String meetingId) {
+        return ResponseVO.success(chatArchiveService.archiveMeeting(meetingId));
+    }
+
+    /**
+     * 会议聊天消息的归档记录
+     */
+    @GetMapping("/archive/status")
+    public ResponseVO<ChatMessageArchive> archiveStatus(@NotEmpty String meetingId) {
+        return ResponseVO.success(chatArchiveService.getArchive(meetingId));
+    }
 }
@@ -6,7 +6,9 @@ import com.easymeeting.entity.constants.Constants;
 import com.easymeeting.enums.ReceiveTypeEnum;
 import com.easymeeting.exception.BusinessException;
 import com.easymeeting.interceptor.TokenInterceptor;
+import com.easymeeting.service.ChatSearchService;
 import com.easymeeting.service.impl.ChatMessageServiceImpl;
+import com.easymeeting.vo.CursorPageResult;
 import com.easymeeting.vo.PageResult;
 import com.easymeeting.vo.ResponseVO;
 import jakarta.servlet.http.HttpServletRequest;
@@ -20,6 +22,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/chat")
 @Validated
@@ -27,6 +31,7 @@ import org.springframework.web.bind.annotation.RestController;
 @RequiredArgsConstructor
 public class ChatController {
     private final ChatMessageServiceImpl chatMessageService;
+    private final ChatSearchService chatSearchService;
     /**
      * 加载会议聊天消息
      *
@@ -61,10 +66,10 @@ public class ChatController {
         PageResult<ChatMessage> result;
         if (maxMessageId != null) {
             // 加载更多：查询比 maxMessageId 更早的消息
-            result = chatMessageService.getMessagesBeforeId(meetingId, maxMessageId, pageSize);
+            result = chatMessageService.getMessagesBeforeId(meetingId, tokenUserInfoDto.getUserId(), maxMessageId, pageSize);
         } else {
             // 首次加载：分页查询最新消息
-            result = chatMessageService.getMessagesByMeetingId(meetingId, pageNo, pageSize);
+            result = chatMessageService.getMessagesByMeetingId(meetingId, tokenUserInfoDto.getUserId(), pageNo, pageSize);
         }
         
         log.info("loadMessage 返回: meetingId={}, total={}, listSize={}", 
@@ -72,6 +77,52 @@ public class ChatController {
 
         return ResponseVO.success(result);
     }
+
+    /**
+     * 游标分页加载会议聊天消息（按消息ID倒序）
+     *
+     * 首次加载不传 cursor，之后传入上一页返回的 nextCursor；
+     * 只有首页返回近似总数，翻页不统计总数
+     *
+     * @param cursor   游标（可选）
+     * @param pageSize 每页数量
+     * @return 游标分页结果
+     */
+    @GetMapping("/loadHistory")
+    public ResponseVO<CursorPageResult<ChatMessage>> loadHistory(
+            Long cursor,
+            @RequestParam(defaultValue = "20") Integer pageSize,
+            HttpServletRequest request) {
+        TokenUserInfoDto tokenUserInfoDto = (TokenUserInfoDto) request.getAttribute(TokenInterceptor.CURRENT_USER);
+        String meetingId = tokenUserInfoDto.getCurrentMeetingId();
+        if (meetingId == null || meetingId.isEmpty()) {
+            throw new BusinessException("你当前不在会议中");
+        }
+        return ResponseVO.success(chatMessageService.getMessagesByCursor(meetingId, tokenUserInfoDto.getUserId(), cursor, pageSize));
+    }
+
+    /**
+     * 搜索当前会议的聊天消息（不返回与自己无关的私聊消息）
+     *
+     * @param keyword      关键词
+     * @param maxMessageId 只返回比该ID更早的消息（加载更多时传入上一页最后一条的ID）
+     * @param limit        最多返回条数
+     * @return 命中的消息ID（倒序）
+     */
+    @GetMapping("/searchMessage")
+    public ResponseVO<List<Long>> searchMessage(
+            @NotEmpty String keyword,
+            Long maxMessageId,
+            @RequestParam(defaultValue = "20") Integer limit,
+            HttpServletRequest request) {
+        TokenUserInfoDto tokenUserInfoDto = (TokenUserInfoDto) request.getAttribute(TokenInterceptor.CURRENT_USER);
+        String meetingId = tokenUserInfoDto.getCurrentMeetingId();
+        if (meetingId == null || meetingId.isEmpty()) {
+            throw new BusinessException("你当前不在会议中");
+        }
+        return ResponseVO.success(chatSearchService.searchMeeting(meetingId, tokenUserInfoDto.getUserId(), keyword, maxMessageId, limit));
+    }
+
     @GetMapping("/sendMessage")
     public ResponseVO<ChatMessage> sendMessage(
             String message,
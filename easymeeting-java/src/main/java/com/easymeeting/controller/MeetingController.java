@@ -105,7 +105,7 @@ public class MeetingController {
         currentUser.setCurrentMeetingId(meetingInfo.getMeetingId());
         currentUser.setCurrentNickName(currentUser.getNickName());
 
-        redisComponent.updateTokenUserInfo(currentUser);
+        redisComponent.updateCurrentMeeting(currentUser);
 
         return ResponseVO.success(meetingInfo.getMeetingId());
     }
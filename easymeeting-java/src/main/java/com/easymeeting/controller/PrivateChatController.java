@@ -4,6 +4,7 @@ import com.easymeeting.dto.TokenUserInfoDto;
 import com.easymeeting.entity.PrivateChatMessage;
 import com.easymeeting.entity.PrivateChatUnread;
 import com.easymeeting.interceptor.TokenInterceptor;
+import com.easymeeting.service.ChatSearchService;
 import com.easymeeting.service.PrivateChatService;
 import com.easymeeting.vo.PageResult;
 import com.easymeeting.vo.ResponseVO;
@@ -30,6 +31,7 @@ import java.util.Map;
 public class PrivateChatController {
 
     private final PrivateChatService privateChatService;
+    private final ChatSearchService chatSearchService;
 
     /**
      * 发送私聊消息
@@ -113,6 +115,29 @@ public class PrivateChatController {
         return ResponseVO.success(result);
     }
 
+    /**
+     * 搜索与联系人的私聊消息
+     *
+     * @param contactId    联系人ID
+     * @param keyword      关键词
+     * @param maxMessageId 只返回比该ID更早的消息（加载更多时传入上一页最后一条的ID）
+     * @param limit        最多返回条数
+     * @return 命中的消息ID（倒序）
+     */
+    @GetMapping("/search")
+    public ResponseVO<List<Long>> search(
+            @NotEmpty String contactId,
+            @NotEmpty String keyword,
+            Long maxMessageId,
+            @RequestParam(defaultValue = "20") Integer limit,
+            HttpServletRequest request) {
+
+        TokenUserInfoDto tokenUserInfoDto = (TokenUserInfoDto) request.getAttribute(TokenInterceptor.CURRENT_USER);
+        String userId = tokenUserInfoDto.getUserId();
+
+        return ResponseVO.success(chatSearchService.searchPrivate(userId, contactId, keyword, maxMessageId, limit));
+    }
+
     /**
      * 获取单个会话的未读消息数
      *
@@ -0,0 +1,16 @@
+package com.easymeeting.dto;
+
+import com.easymeeting.entity.ChatMessage;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 会议最近消息缓存广播事件（发到该会议的频道）
+ * message 不为空时追加到各节点的缓存，为空时清除该会议的缓存
+ */
+@Data
+public class ChatRecentEventDto implements Serializable {
+    private String meetingId;
+    private ChatMessage message;
+}
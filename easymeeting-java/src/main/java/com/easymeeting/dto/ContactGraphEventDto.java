@@ -0,0 +1,18 @@
+package com.easymeeting.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 联系人关系变更广播事件
+ */
+@Data
+public class ContactGraphEventDto implements Serializable {
+    /**
+     * 为 true 时清空全部缓存
+     */
+    private Boolean all;
+    private List<String> userIds;
+}
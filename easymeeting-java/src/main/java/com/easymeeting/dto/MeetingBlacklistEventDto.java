@@ -0,0 +1,14 @@
+package com.easymeeting.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 会议黑名单新增广播事件
+ */
+@Data
+public class MeetingBlacklistEventDto implements Serializable {
+    private String meetingId;
+    private String userId;
+}
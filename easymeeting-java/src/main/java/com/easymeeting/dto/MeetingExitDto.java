@@ -11,5 +11,9 @@ import java.util.List;
 public class MeetingExitDto implements Serializable {
     public String exitUserId;
     private List<MeetingMemberDto> meetingMemberList;
+    /**
+     * 成员列表对应的房间版本号
+     */
+    private Long roomVersion;
     private Integer exitStatus;
 }
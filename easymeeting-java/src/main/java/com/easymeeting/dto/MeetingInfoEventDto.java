@@ -0,0 +1,14 @@
+package com.easymeeting.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 会议信息变更广播事件
+ */
+@Data
+public class MeetingInfoEventDto implements Serializable {
+    private String meetingId;
+    private String meetingNo;
+}
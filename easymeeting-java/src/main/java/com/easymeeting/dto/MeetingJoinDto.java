@@ -8,4 +8,8 @@ import java.util.List;
 public class MeetingJoinDto {
     private MeetingMemberDto newMember;
     private List<MeetingMemberDto> meetingMemberList;
+    /**
+     * 成员列表对应的房间版本号
+     */
+    private Long roomVersion;
 }
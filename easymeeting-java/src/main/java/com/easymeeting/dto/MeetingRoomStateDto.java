@@ -0,0 +1,25 @@
+package com.easymeeting.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 会议房间成员变更结果
+ * 每次成员加入/退出/更新都会使房间版本号递增，客户端可据此丢弃过期的成员列表
+ */
+@Data
+public class MeetingRoomStateDto {
+    /**
+     * 变更后的房间版本号
+     */
+    private Long version;
+    /**
+     * 变更后的成员快照（更新单个成员时为空，只返回变更的成员）
+     */
+    private List<MeetingMemberDto> meetingMemberList;
+    /**
+     * 本次变更的成员
+     */
+    private MeetingMemberDto changedMember;
+}
@@ -0,0 +1,19 @@
+package com.easymeeting.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 在线状态变更广播事件
+ */
+@Data
+public class PresenceEventDto implements Serializable {
+    /**
+     * 连接所在节点
+     */
+    private String nodeId;
+    private Boolean online;
+    private List<String> userIds;
+}
@@ -0,0 +1,34 @@
+package com.easymeeting.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 消息搜索索引广播事件
+ * 各节点只更新已打开的分区，未打开的分区在打开时从数据库补录
+ */
+@Data
+public class SearchIndexEventDto implements Serializable {
+    /**
+     * 分区范围：meeting / private
+     */
+    private String scope;
+    /**
+     * 会议ID或私聊会话ID
+     */
+    private String partitionId;
+    private Long messageId;
+    private Integer receiveType;
+    private String sendUserId;
+    private String receiveUserId;
+    private String text;
+    /**
+     * 消息修改后重新索引，覆盖已有版本
+     */
+    private Boolean replace;
+    /**
+     * 消息已删除
+     */
+    private Boolean deleted;
+}
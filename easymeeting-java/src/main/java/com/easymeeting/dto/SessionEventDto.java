@@ -0,0 +1,17 @@
+package com.easymeeting.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 会话广播事件
+ * revoked=true：Token 已吊销（退出登录、踢下线、单设备登录顶号），各节点拒绝该 Token
+ * revoked=false：会话内容已变更（如进入/退出会议），各节点丢弃本地缓存
+ */
+@Data
+public class SessionEventDto implements Serializable {
+    private Boolean revoked;
+    private List<String> tokens;
+}
@@ -0,0 +1,13 @@
+package com.easymeeting.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 分表桶目录变更广播事件
+ */
+@Data
+public class ShardDirectoryEventDto implements Serializable {
+    private String tablePrefix;
+}
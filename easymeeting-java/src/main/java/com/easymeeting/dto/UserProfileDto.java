@@ -0,0 +1,21 @@
+package com.easymeeting.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 用户资料缓存（不含邮箱、密码等敏感字段）
+ */
+@Data
+public class UserProfileDto implements Serializable {
+    private String userId;
+    private String nickName;
+    /**
+     * 性别：0女，1男，2保密
+     */
+    private Integer sex;
+    private String meetingNo;
+    private Long lastLoginTime;
+    private Long lastOffTime;
+}
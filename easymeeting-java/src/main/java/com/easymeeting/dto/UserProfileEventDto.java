@@ -0,0 +1,14 @@
+package com.easymeeting.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 用户资料变更广播事件
+ */
+@Data
+public class UserProfileEventDto implements Serializable {
+    private List<String> userIds;
+}
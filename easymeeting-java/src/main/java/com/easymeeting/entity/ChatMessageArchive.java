@@ -0,0 +1,51 @@
+package com.easymeeting.entity;
+
+import lombok.Data;
+
+/**
+ * 聊天消息归档记录实体类
+ * 对应表 chat_message_archive
+ */
+@Data
+public class ChatMessageArchive {
+
+    /**
+     * 会议ID
+     */
+    private String meetingId;
+
+    /**
+     * 归档时消息所在的分表
+     */
+    private String tableName;
+
+    /**
+     * 归档分段文件路径
+     */
+    private String segmentPath;
+
+    /**
+     * 已归档消息数
+     */
+    private Integer messageCount;
+
+    /**
+     * 已归档的最小消息ID
+     */
+    private Long minMessageId;
+
+    /**
+     * 已归档的最大消息ID（不大于该ID的消息以归档文件为准）
+     */
+    private Long maxMessageId;
+
+    /**
+     * 已从分表删除的行数
+     */
+    private Integer purgedCount;
+
+    /**
+     * 状态，见 ChatArchiveStateEnum
+     */
+    private Integer state;
+}
@@ -0,0 +1,36 @@
+package com.easymeeting.entity;
+
+import lombok.Data;
+
+/**
+ * 分表桶目录实体类
+ * 对应表 shard_bucket
+ */
+@Data
+public class ShardBucket {
+
+    /**
+     * 分表前缀
+     */
+    private String tablePrefix;
+
+    /**
+     * 虚拟桶编号
+     */
+    private Integer bucket;
+
+    /**
+     * 读取的物理表序号
+     */
+    private Integer tableIndex;
+
+    /**
+     * 需要同步写入的另一张表序号（迁移中/切换后）
+     */
+    private Integer dualWriteIndex;
+
+    /**
+     * 状态，见 ShardBucketStateEnum
+     */
+    private Integer state;
+}
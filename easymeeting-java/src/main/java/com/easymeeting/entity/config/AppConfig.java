@@ -6,6 +6,7 @@ import org.springframework.stereotype.Component;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
 
 @Data
 @Component
@@ -16,6 +17,27 @@ public class AppConfig {
     @Value("${ws.port}")
     private Integer wsPort;
     
+    /**
+     * 当前节点ID，未配置时启动时随机生成
+     */
+    @Value("${node.id:}")
+    private String nodeId;
+    
+    /**
+     * 节点直连（Mesh）对外地址与端口
+     */
+    @Value("${mesh.host:127.0.0.1}")
+    private String meshHost;
+    @Value("${mesh.port:6062}")
+    private Integer meshPort;
+    
+    public synchronized String getNodeId() {
+        if (nodeId == null || nodeId.isEmpty()) {
+            nodeId = UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+        }
+        return nodeId;
+    }
+    
     /**
      * 判断邮箱是否为管理员
      */
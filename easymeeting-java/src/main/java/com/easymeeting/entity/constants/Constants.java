@@ -10,9 +10,9 @@ public class Constants {
     public static final String REDIS_KEY_CHECK_CODE = "easymeeting:checkcode:";
     
     /**
-     * 用户 token key 前缀 (token -> TokenUserInfoDto)
+     * 用户会话 key 前缀 (token -> 会话 Hash，字段与 TokenUserInfoDto 一致)
      */
-    public static final String REDIS_KEY_TOKEN = "easymeeting:token:";
+    public static final String REDIS_KEY_TOKEN = "easymeeting:session:";
     
     /**
      * 用户ID对应token key 前缀 (userId -> token)
@@ -36,7 +36,76 @@ public class Constants {
     /**
      * 会议房间 key 邀请人前缀
      */
-    public static final String REDIS_KEY_MEETING_INVITE = "easymeeting:meeting:invite";
+    public static final String REDIS_KEY_MEETING_INVITE = "easymeeting:meeting:invite:";
+    /**
+     * 会议会话索引 key 前缀 (meetingId -> 当前会议为该会议的会话 Token 集合)
+     */
+    public static final String REDIS_KEY_MEETING_SESSIONS = "easymeeting:meeting:session:";
+    /**
+     * 会议房间成员版本号 key 前缀
+     */
+    public static final String REDIS_KEY_MEETING_ROOM_VERSION = "easymeeting:meeting:room:version:";
+    /**
+     * 进行中会议的会议号索引 key 前缀 (meetingNo -> meetingId)
+     */
+    public static final String REDIS_KEY_MEETING_RUNNING_NO = "easymeeting:meeting:running:no:";
+    /**
+     * 会议黑名单布隆过滤器 key 前缀（位图）
+     */
+    public static final String REDIS_KEY_MEETING_BLACKLIST = "easymeeting:meeting:blacklist:";
+    /**
+     * 私聊未读计数 key 前缀（Hash，每个用户一个）
+     */
+    public static final String REDIS_KEY_UNREAD = "easymeeting:unread:";
+    /**
+     * 待写回数据库的未读计数集合（成员为 userId|contactId）
+     */
+    public static final String REDIS_KEY_UNREAD_DIRTY = "easymeeting:unread:dirty";
+    /**
+     * 未读计数写回锁（同一时间只有一个节点写回）
+     */
+    public static final String REDIS_KEY_UNREAD_FLUSH_LOCK = "easymeeting:unread:flush:lock";
+    /**
+     * 会议聊天消息数缓存 key 前缀（近似总数，短时缓存）
+     */
+    public static final String REDIS_KEY_CHAT_MESSAGE_COUNT = "easymeeting:chat:count:";
+
+    /**
+     * 各节点未落库聊天消息的最小消息ID (nodeId -> 消息ID|登记时间)
+     */
+    public static final String REDIS_KEY_CHAT_WRITE_PENDING = "easymeeting:chat:write:pending";
+    /**
+     * 读写分离：用户最近写入标记 key 前缀（存在期间该用户的读请求走主库）
+     */
+    public static final String REDIS_KEY_READ_STICKY = "easymeeting:read:sticky:";
+    /**
+     * 消息ID生成器 workerId 租约 key 前缀（值为 租约令牌|最后发出的毫秒时间戳，释放后令牌为空）
+     */
+    public static final String REDIS_KEY_ID_WORKER = "easymeeting:id:worker:";
+    /**
+     * 聊天消息归档锁（同一时间只有一个节点归档）
+     */
+    public static final String REDIS_KEY_CHAT_ARCHIVE_LOCK = "easymeeting:chat:archive:lock";
+    /**
+     * 分表桶目录版本号（每次变更目录加一）
+     */
+    public static final String REDIS_KEY_SHARD_DIRECTORY_VERSION = "easymeeting:shard:directory:version";
+    /**
+     * 各节点已加载的分表桶目录版本 (nodeId -> 版本号)
+     */
+    public static final String REDIS_KEY_SHARD_DIRECTORY_NODES = "easymeeting:shard:directory:nodes";
+    /**
+     * 分表桶目录节点存活 key 前缀（带过期时间，每次加载目录时续期）
+     */
+    public static final String REDIS_KEY_SHARD_DIRECTORY_NODE_ALIVE = "easymeeting:shard:directory:alive:";
+    /**
+     * 分表迁移/清理任务锁（整个集群同一时间只执行一个任务）
+     */
+    public static final String REDIS_KEY_SHARD_MIGRATION_LOCK = "easymeeting:shard:migration:lock";
+    /**
+     * 最近一次分表任务的进度
+     */
+    public static final String REDIS_KEY_SHARD_MIGRATION_TASK = "easymeeting:shard:migration:task";
     
     // ==================== 过期时间（秒） ====================
     
@@ -71,6 +140,11 @@ public class Constants {
      */
     public static final int REDIS_EXPIRE_MEETING = 24 * 60 * 60;
 
+    /**
+     * 私聊未读计数过期时间：7天（每次变更续期，过期后从数据库重新加载）
+     */
+    public static final int REDIS_EXPIRE_UNREAD = 7 * 24 * 60 * 60;
+
     
     // ==================== 分页默认值 ====================
     
@@ -123,6 +197,11 @@ public class Constants {
      */
     public static final String MESSAGE_CHANNEL_KAFKA = "kafka";
     
+    /**
+     * 消息处理通道类型：节点直连（Netty Mesh）
+     */
+    public static final String MESSAGE_CHANNEL_MESH = "mesh";
+    
     /**
      * Redis Pub/Sub 消息频道前缀
      */
@@ -143,6 +222,46 @@ public class Constants {
      */
     public static final String REDIS_CHANNEL_USER = "easymeeting:channel:user:";
     
+    /**
+     * Redis Pub/Sub 会话吊销/变更广播频道
+     */
+    public static final String REDIS_CHANNEL_SESSION = "easymeeting:channel:session";
+    
+    /**
+     * Redis Pub/Sub 联系人关系变更广播频道
+     */
+    public static final String REDIS_CHANNEL_CONTACT = "easymeeting:channel:contact";
+    
+    /**
+     * Redis Pub/Sub 会议信息变更广播频道
+     */
+    public static final String REDIS_CHANNEL_MEETING_INFO = "easymeeting:channel:meeting:info";
+    
+    /**
+     * Redis Pub/Sub 会议黑名单新增广播频道
+     */
+    public static final String REDIS_CHANNEL_MEETING_BLACKLIST = "easymeeting:channel:meeting:blacklist";
+    
+    /**
+     * Redis Pub/Sub 用户资料变更广播频道
+     */
+    public static final String REDIS_CHANNEL_USER_PROFILE = "easymeeting:channel:profile";
+
+    /**
+     * Redis Pub/Sub 分表桶目录变更广播频道
+     */
+    public static final String REDIS_CHANNEL_SHARD_DIRECTORY = "easymeeting:channel:shard:directory";
+
+    /**
+     * Redis Pub/Sub 会议最近消息缓存广播频道前缀（每个会议一个频道，追加新消息 / 清除会议缓存）
+     */
+    public static final String REDIS_CHANNEL_CHAT_RECENT = "easymeeting:channel:chat:recent:";
+
+    /**
+     * Redis Pub/Sub 消息搜索索引广播频道（新增 / 修改 / 删除消息）
+     */
+    public static final String REDIS_CHANNEL_SEARCH_INDEX = "easymeeting:channel:search:index";
+    
     // ==================== RabbitMQ 配置 ====================
     
     /**
@@ -192,6 +311,71 @@ public class Constants {
      */
     public static final String KAFKA_GROUP_ID = "easymeeting-group";
     
+    // ==================== 在线状态（Presence） ====================
+    // 同一 hash tag {presence}，Cluster 下位于同一 slot，便于 Lua 脚本原子更新
+    
+    /**
+     * 在线用户 Hash (userId -> 连接所在 nodeId)
+     */
+    public static final String REDIS_KEY_PRESENCE_USERS = "easymeeting:{presence}:users";
+    
+    /**
+     * 节点在线用户集合 key 前缀 (nodeId -> Set<userId>)
+     */
+    public static final String REDIS_KEY_PRESENCE_NODE = "easymeeting:{presence}:node:";
+    
+    /**
+     * 已登记在线状态的节点集合
+     */
+    public static final String REDIS_KEY_PRESENCE_NODES = "easymeeting:{presence}:nodes";
+    
+    /**
+     * 在线状态节点存活 key 前缀（带过期时间，由心跳续期）
+     */
+    public static final String REDIS_KEY_PRESENCE_NODE_ALIVE = "easymeeting:presence:alive:";
+    
+    /**
+     * 在线状态节点存活时间（秒）
+     */
+    public static final int REDIS_EXPIRE_PRESENCE_NODE = 30;
+    
+    /**
+     * Redis Pub/Sub 在线状态变更广播频道
+     */
+    public static final String REDIS_CHANNEL_PRESENCE = "easymeeting:channel:presence";
+    
+    // ==================== 节点直连（Mesh）配置 ====================
+    
+    /**
+     * Mesh 节点注册表 key (nodeId -> host:port)
+     */
+    public static final String REDIS_KEY_MESH_NODES = "easymeeting:mesh:nodes";
+    
+    /**
+     * Mesh 节点存活 key 前缀（带过期时间，由心跳续期）
+     */
+    public static final String REDIS_KEY_MESH_NODE_ALIVE = "easymeeting:mesh:node:alive:";
+    
+    /**
+     * Mesh 用户所在节点 key 前缀 (userId -> nodeId)
+     */
+    public static final String REDIS_KEY_MESH_USER = "easymeeting:mesh:user:";
+    
+    /**
+     * Mesh 会议房间所在节点 key 前缀 (meetingId -> Set<nodeId>)
+     */
+    public static final String REDIS_KEY_MESH_ROOM = "easymeeting:mesh:room:";
+    
+    /**
+     * Mesh 节点存活过期时间：30秒
+     */
+    public static final int REDIS_EXPIRE_MESH_NODE = 30;
+
+    /**
+     * Mesh 用户 / 会议房间路由记录过期时间：60秒（心跳续期）
+     */
+    public static final int REDIS_EXPIRE_MESH_ROUTE = 60;
+    
     // ==================== 消息配置属性名 ====================
     
     /**
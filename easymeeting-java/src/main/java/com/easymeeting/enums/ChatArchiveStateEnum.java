@@ -0,0 +1,27 @@
+package com.easymeeting.enums;
+
+public enum ChatArchiveStateEnum {
+    ARCHIVING(0, "归档中（读分表）"),
+    PURGING(1, "清理中（已归档部分读归档文件）"),
+    DONE(2, "已完成");
+    private Integer state;
+    private String desc;
+    ChatArchiveStateEnum(Integer state, String desc) {
+        this.state = state;
+        this.desc = desc;
+    }
+    public static ChatArchiveStateEnum getByState(Integer state) {
+        for (ChatArchiveStateEnum item : ChatArchiveStateEnum.values()) {
+            if (item.state.equals(state)) {
+                return item;
+            }
+        }
+        return null;
+    }
+    public Integer getState() {
+        return state;
+    }
+    public String getDesc() {
+        return desc;
+    }
+}
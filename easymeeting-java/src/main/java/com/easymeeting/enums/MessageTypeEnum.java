@@ -16,7 +16,8 @@ public enum MessageTypeEnum {
     // WebRTC 信令类型
     WEBRTC_OFFER(12,"WebRTC Offer"),
     WEBRTC_ANSWER(13,"WebRTC Answer"),
-    WEBRTC_ICE_CANDIDATE(14,"ICE Candidate");
+    WEBRTC_ICE_CANDIDATE(14,"ICE Candidate"),
+    CONTACT_PRESENCE_CHANGE(15,"好友在线状态变化");
     
     private final Integer type;
     private final String desc;
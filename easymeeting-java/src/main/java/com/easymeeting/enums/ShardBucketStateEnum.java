@@ -0,0 +1,27 @@
+package com.easymeeting.enums;
+
+public enum ShardBucketStateEnum {
+    NORMAL(0, "正常"),
+    MIGRATING(1, "迁移中（读旧表，双写）"),
+    SWITCHED(2, "已切换（读新表，双写旧表）");
+    private Integer state;
+    private String desc;
+    ShardBucketStateEnum(Integer state, String desc) {
+        this.state = state;
+        this.desc = desc;
+    }
+    public static ShardBucketStateEnum getByState(Integer state) {
+        for (ShardBucketStateEnum item : ShardBucketStateEnum.values()) {
+            if (item.state.equals(state)) {
+                return item;
+            }
+        }
+        return null;
+    }
+    public Integer getState() {
+        return state;
+    }
+    public String getDesc() {
+        return desc;
+    }
+}
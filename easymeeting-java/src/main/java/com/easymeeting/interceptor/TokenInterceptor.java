@@ -3,6 +3,8 @@ package com.easymeeting.interceptor;
 import com.alibaba.fastjson.JSON;
 import com.easymeeting.dto.TokenUserInfoDto;
 import com.easymeeting.redis.RedisComponent;
+import com.easymeeting.redis.SessionRevocationFilter;
+import io.jsonwebtoken.Claims;
 import com.easymeeting.vo.ResponseVO;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -18,6 +20,7 @@ import org.springframework.web.servlet.HandlerInterceptor;
 public class TokenInterceptor implements HandlerInterceptor {
 
     private final RedisComponent redisComponent;
+    private final SessionRevocationFilter sessionRevocationFilter;
     
     // 存储当前请求的用户信息，供 Controller 使用
     public static final String CURRENT_USER = "currentUser";
@@ -36,17 +39,18 @@ public class TokenInterceptor implements HandlerInterceptor {
             return false;
         }
         
-        // 验证 token 是否存在于 Redis
-        TokenUserInfoDto userInfo = redisComponent.getTokenUserInfo(token);
+        TokenUserInfoDto userInfo = sessionRevocationFilter.isStateless()
+                ? loadStatelessSession(token)
+                : redisComponent.getTokenUserInfo(token);
         if (userInfo == null) {
             // token 不存在，可能是被踢下线或已过期
             writeUnauthorized(response, "登录已失效，请重新登录");
             return false;
         }
         
-        // Token 自动续期：剩余时间小于 1 天时自动延长
-        boolean renewed = redisComponent.renewTokenIfNeeded(token, RENEW_THRESHOLD_SECONDS);
-        if (renewed) {
+        // Token 自动续期：剩余时间小于 1 天时自动延长（每个 Token 按间隔限频检查）
+        if (sessionRevocationFilter.shouldCheckRenew(token)
+                && redisComponent.renewTokenIfNeeded(token, RENEW_THRESHOLD_SECONDS)) {
             log.debug("Token 已自动续期，用户：{}", userInfo.getUserId());
         }
         
@@ -55,6 +59,27 @@ public class TokenInterceptor implements HandlerInterceptor {
         
         return true;
     }
+
+    /**
+     * 无状态会话：本地校验 JWT 与吊销状态，会话优先取本地缓存，未命中时才回源 Redis
+     */
+    private TokenUserInfoDto loadStatelessSession(String token) {
+        Claims claims = sessionRevocationFilter.verify(token);
+        if (claims == null) {
+            return null;
+        }
+        TokenUserInfoDto userInfo = sessionRevocationFilter.getSession(token);
+        if (userInfo != null) {
+            return userInfo;
+        }
+        long loadStamp = sessionRevocationFilter.currentStamp();
+        userInfo = redisComponent.getTokenUserInfo(token);
+        if (userInfo == null || !claims.getSubject().equals(userInfo.getUserId())) {
+            return null;
+        }
+        sessionRevocationFilter.cacheSession(token, userInfo, loadStamp);
+        return userInfo;
+    }
     
     private void writeUnauthorized(HttpServletResponse response, String message) throws Exception {
         response.setStatus(HttpStatus.UNAUTHORIZED.value());
@@ -0,0 +1,40 @@
+package com.easymeeting.mapper;
+
+import com.easymeeting.entity.ChatMessageArchive;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 聊天消息归档记录 Mapper 接口
+ */
+@Mapper
+public interface ChatMessageArchiveMapper {
+
+    /**
+     * 根据会议ID查询归档记录
+     *
+     * @param meetingId 会议ID
+     * @return 归档记录，未归档返回 null
+     */
+    ChatMessageArchive selectById(@Param("meetingId") String meetingId);
+
+    /**
+     * 写入归档记录，已存在则覆盖
+     *
+     * @param archive 归档记录
+     * @return 影响行数
+     */
+    int upsert(@Param("archive") ChatMessageArchive archive);
+
+    /**
+     * 更新清理进度与状态
+     *
+     * @param meetingId   会议ID
+     * @param purgedCount 已删除行数
+     * @param state       状态
+     * @return 影响行数
+     */
+    int updatePurge(@Param("meetingId") String meetingId,
+                    @Param("purgedCount") Integer purgedCount,
+                    @Param("state") Integer state);
+}
@@ -23,6 +23,16 @@ public interface ChatMessageMapper {
     int insert(@Param("tableName") String tableName,
                @Param("message") ChatMessage message);
 
+    /**
+     * 批量插入消息（多行 INSERT）
+     *
+     * @param tableName 分表名
+     * @param messages  消息列表（同一分表）
+     * @return 影响行数
+     */
+    int insertBatch(@Param("tableName") String tableName,
+                    @Param("messages") List<ChatMessage> messages);
+
     /**
      * 根据消息ID查询
      *
@@ -33,6 +43,16 @@ public interface ChatMessageMapper {
     ChatMessage selectById(@Param("tableName") String tableName,
                            @Param("messageId") Long messageId);
 
+    /**
+     * 根据消息ID批量查询（搜索结果校验）
+     *
+     * @param tableName  分表名
+     * @param messageIds 消息ID列表
+     * @return 消息列表（不含已不存在的消息，顺序不定）
+     */
+    List<ChatMessage> selectByIds(@Param("tableName") String tableName,
+                                  @Param("messageIds") List<Long> messageIds);
+
     /**
      * 根据会议ID查询消息列表（分页，按发送时间倒序）
      *
@@ -135,4 +155,96 @@ public interface ChatMessageMapper {
                                                               @Param("currentUserId") String currentUserId,
                                                               @Param("maxMessageId") Long maxMessageId,
                                                               @Param("limit") Integer limit);
+
+    /**
+     * 游标分页查询（按消息ID倒序）
+     *
+     * @param tableName     分表名
+     * @param meetingId     会议ID
+     * @param currentUserId 当前用户ID（不为空时只返回群发消息和与该用户相关的私聊消息）
+     * @param cursor        游标：上一页最后一条消息ID，为空时从最新消息开始
+     * @param limit         数量限制
+     * @return 消息列表
+     */
+    List<ChatMessage> selectByCursor(@Param("tableName") String tableName,
+                                     @Param("meetingId") String meetingId,
+                                     @Param("currentUserId") String currentUserId,
+                                     @Param("cursor") Long cursor,
+                                     @Param("limit") Integer limit);
+
+    /**
+     * 按消息ID顺序扫描（分表迁移/清理使用）
+     *
+     * @param tableName 分表名
+     * @param afterId   从该消息ID之后开始（不含）
+     * @param limit     数量限制
+     * @param forUpdate 是否加锁读（迁移复制时在事务中加锁，阻塞并发更新直到复制提交）
+     * @return 消息列表
+     */
+    List<ChatMessage> selectAfterId(@Param("tableName") String tableName,
+                            @Param("afterId") Long afterId,
+                            @Param("limit") Integer limit,
+                            @Param("forUpdate") boolean forUpdate);
+
+    /**
+     * 批量写入消息（已存在则覆盖，分表迁移复制使用）
+     *
+     * @param tableName 分表名
+     * @param messages  消息列表
+     * @return 影响行数
+     */
+    int upsertBatch(@Param("tableName") String tableName,
+                    @Param("messages") List<ChatMessage> messages);
+
+    /**
+     * 按消息ID批量物理删除（分表迁移后清理旧表使用）
+     *
+     * @param tableName  分表名
+     * @param messageIds 消息ID列表
+     * @return 影响行数
+     */
+    int deleteByIds(@Param("tableName") String tableName,
+                    @Param("messageIds") List<Long> messageIds);
+
+    /**
+     * 按消息ID升序读取会议消息（归档使用）
+     *
+     * @param tableName 分表名
+     * @param meetingId 会议ID
+     * @param afterId   从该消息ID之后开始（不含）
+     * @param limit     数量限制
+     * @return 消息列表
+     */
+    List<ChatMessage> selectByMeetingAfterId(@Param("tableName") String tableName,
+                                             @Param("meetingId") String meetingId,
+                                             @Param("afterId") Long afterId,
+                                             @Param("limit") Integer limit);
+
+    /**
+     * 按消息ID升序查询会议中不大于 maxMessageId 的消息ID（归档后分批删除使用）
+     *
+     * @param tableName    分表名
+     * @param meetingId    会议ID
+     * @param maxMessageId 最大消息ID（含）
+     * @param limit        数量限制
+     * @return 消息ID列表
+     */
+    List<Long> selectIdsUpTo(@Param("tableName") String tableName,
+                             @Param("meetingId") String meetingId,
+                             @Param("maxMessageId") Long maxMessageId,
+                             @Param("limit") Integer limit);
+
+    /**
+     * 统计消息ID大于 afterId 的会议消息数量（归档后仍在分表中的消息）
+     *
+     * @param tableName     分表名
+     * @param meetingId     会议ID
+     * @param currentUserId 当前用户ID（不为空时带私聊消息过滤）
+     * @param afterId       消息ID下限（不含）
+     * @return 消息数量
+     */
+    Long countAfterMessageId(@Param("tableName") String tableName,
+                             @Param("meetingId") String meetingId,
+                             @Param("currentUserId") String currentUserId,
+                             @Param("afterId") Long afterId);
 }
@@ -3,6 +3,8 @@ package com.easymeeting.mapper;
 import com.easymeeting.entity.MeetingInfo;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Mapper
@@ -27,6 +29,11 @@ public interface MeetingInfoMapper {
 
     int deleteById(@Param("meetingId") String meetingId);
 
+    /**
+     * 查询结束时间早于 endBefore、聊天消息尚未归档完成的会议ID（按结束时间升序）
+     */
+    List<String> selectArchivableMeetingIds(@Param("endBefore") LocalDateTime endBefore, @Param("limit") int limit);
+
     // ==================== 分页查询历史会议 ====================
 
     /**
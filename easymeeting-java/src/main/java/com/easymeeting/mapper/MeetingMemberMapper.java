@@ -12,6 +12,8 @@ public interface MeetingMemberMapper {
 
     int updateByMeetingIdAndUserId(MeetingMember meetingMember);
 
+    int updateMeetingStatusByMeetingId(@Param("meetingId") String meetingId, @Param("meetingStatus") Integer meetingStatus);
+
     MeetingMember selectByUserId(@Param("userId") String userId);
 
     MeetingMember selectByMeetingIdAndUserId(@Param("meetingId") String meetingId, @Param("userId") String userId);
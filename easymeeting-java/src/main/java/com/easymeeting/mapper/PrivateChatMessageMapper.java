@@ -71,6 +71,20 @@ public interface PrivateChatMessageMapper {
                                                     @Param("maxMessageId") Long maxMessageId,
                                                     @Param("limit") Integer limit);
 
+    /**
+     * 查询会话中指定消息ID之后的消息（按消息ID升序，搜索索引补录使用）
+     *
+     * @param tableName 分表名
+     * @param sessionId 会话ID
+     * @param afterId   从该消息ID之后开始（不含）
+     * @param limit     数量限制
+     * @return 消息列表
+     */
+    List<PrivateChatMessage> selectBySessionAfterId(@Param("tableName") String tableName,
+                                                     @Param("sessionId") String sessionId,
+                                                     @Param("afterId") Long afterId,
+                                                     @Param("limit") Integer limit);
+
     /**
      * 更新消息状态
      *
@@ -82,4 +96,38 @@ public interface PrivateChatMessageMapper {
     int updateStatus(@Param("tableName") String tableName,
                      @Param("messageId") Long messageId,
                      @Param("status") Integer status);
+
+    /**
+     * 按消息ID顺序扫描（分表迁移/清理使用）
+     *
+     * @param tableName 分表名
+     * @param afterId   从该消息ID之后开始（不含）
+     * @param limit     数量限制
+     * @param forUpdate 是否加锁读（迁移复制时在事务中加锁，阻塞并发更新直到复制提交）
+     * @return 消息列表
+     */
+    List<PrivateChatMessage> selectAfterId(@Param("tableName") String tableName,
+                            @Param("afterId") Long afterId,
+                            @Param("limit") Integer limit,
+                            @Param("forUpdate") boolean forUpdate);
+
+    /**
+     * 批量写入消息（已存在则覆盖，分表迁移复制使用）
+     *
+     * @param tableName 分表名
+     * @param messages  消息列表
+     * @return 影响行数
+     */
+    int upsertBatch(@Param("tableName") String tableName,
+                    @Param("messages") List<PrivateChatMessage> messages);
+
+    /**
+     * 按消息ID批量物理删除（分表迁移后清理旧表使用）
+     *
+     * @param tableName  分表名
+     * @param messageIds 消息ID列表
+     * @return 影响行数
+     */
+    int deleteByIds(@Param("tableName") String tableName,
+                    @Param("messageIds") List<Long> messageIds);
 }
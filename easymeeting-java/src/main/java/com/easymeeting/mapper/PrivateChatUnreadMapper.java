@@ -62,4 +62,12 @@ public interface PrivateChatUnreadMapper {
      * @return 总未读消息数
      */
     Integer getTotalUnreadCount(@Param("userId") String userId);
+
+    /**
+     * 批量写入未读计数（覆盖为给定值，记录不存在则插入）
+     *
+     * @param list 未读计数列表
+     * @return 影响行数
+     */
+    int upsertBatch(@Param("list") List<PrivateChatUnread> list);
 }
@@ -0,0 +1,39 @@
+package com.easymeeting.mapper;
+
+import com.easymeeting.entity.ShardBucket;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 分表桶目录 Mapper 接口
+ */
+@Mapper
+public interface ShardBucketMapper {
+
+    /**
+     * 查询全部已登记的桶
+     *
+     * @return 桶目录
+     */
+    List<ShardBucket> selectAll();
+
+    /**
+     * 批量写入桶目录（单条语句，多个桶同时生效）
+     *
+     * @param list 桶目录
+     * @return 影响行数
+     */
+    int upsertBatch(@Param("list") List<ShardBucket> list);
+
+    /**
+     * 按模板表创建新分表
+     *
+     * @param tableName     新表名
+     * @param templateTable 模板表名
+     * @return 影响行数
+     */
+    int createTableLike(@Param("tableName") String tableName,
+                        @Param("templateTable") String templateTable);
+}
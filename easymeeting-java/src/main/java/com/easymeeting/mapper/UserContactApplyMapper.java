@@ -1,7 +1,6 @@
 package com.easymeeting.mapper;
 
 import com.easymeeting.entity.UserContactApply;
-import com.easymeeting.vo.UserContactApplyVo;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
@@ -67,9 +66,4 @@ public interface UserContactApplyMapper {
      * 查询用户发出的申请
      */
     List<UserContactApply> selectSentByApplyUserId(@Param("applyUserId") String applyUserId);
-
-    /**
-     * 查询用户收到的申请（关联申请人昵称）
-     */
-    List<UserContactApplyVo> selectReceivedAppliesWithNickName(@Param("receiveUserId") String receiveUserId);
 }
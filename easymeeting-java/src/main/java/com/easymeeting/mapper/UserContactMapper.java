@@ -1,7 +1,6 @@
 package com.easymeeting.mapper;
 
 import com.easymeeting.entity.UserContact;
-import com.easymeeting.vo.UserContactVo;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
@@ -47,12 +46,12 @@ public interface UserContactMapper {
     List<UserContact> selectNormalContactsByUserId(@Param("userId") String userId);
 
     /**
-     * 更新联系人状态
+     * 批量查询 userIds 中每个用户对 contactId 的联系人记录（反向关系）
      */
-    int updateStatus(@Param("userId") String userId, @Param("contactId") String contactId, @Param("status") Integer status);
+    List<UserContact> selectByUserIdsAndContactId(@Param("userIds") List<String> userIds, @Param("contactId") String contactId);
 
     /**
-     * 查询用户的正常好友列表（关联用户昵称）
+     * 更新联系人状态
      */
-    List<UserContactVo> selectNormalContactsWithNickName(@Param("userId") String userId);
+    int updateStatus(@Param("userId") String userId, @Param("contactId") String contactId, @Param("status") Integer status);
 }
@@ -4,6 +4,7 @@ import com.easymeeting.dto.UserQueryDTO;
 import com.easymeeting.entity.UserInfo;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import java.util.Collection;
 import java.util.List;
 
 @Mapper
@@ -19,8 +20,14 @@ public interface UserMapper {
 
     int updateLastOffTime(@Param("userId") String userId, @Param("lastOffTime") Long lastOffTime);
 
+    int updateLastLoginTimeBatch(@Param("list") List<UserInfo> list);
+
+    int updateLastOffTimeBatch(@Param("list") List<UserInfo> list);
+
     UserInfo selectById(@Param("userId") String userId);
 
+    List<UserInfo> selectByIds(@Param("userIds") Collection<String> userIds);
+
     UserInfo selectByEmail(@Param("email") String email);
 
     List<UserInfo> selectList(UserQueryDTO dto);
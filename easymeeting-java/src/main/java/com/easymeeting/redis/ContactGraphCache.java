@@ -0,0 +1,216 @@
+package com.easymeeting.redis;
+
+import com.easymeeting.dto.ContactGraphEventDto;
+import com.easymeeting.entity.UserContact;
+import com.easymeeting.entity.constants.Constants;
+import com.easymeeting.enums.UserContactStatusEnum;
+import com.easymeeting.mapper.UserContactMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 联系人关系图本地缓存
+ * 按用户缓存其全部联系人及状态（userId -> contactId -> status），首次访问时从 user_contact 加载，
+ * 私聊好友校验、邀请入会校验、在线状态推送等热路径在内存中 O(1) 判断；
+ * 联系人关系写入后调用 invalidate，本地立即失效并通过 Redis Pub/Sub 通知其他节点失效，
+ * 缓存同时带存活时间，即使错过广播也会在过期后重新加载
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ContactGraphCache implements MessageListener {
+
+    /**
+     * 单次 IN 查询的最大用户数
+     */
+    private static final int DB_BATCH_SIZE = 500;
+
+    private final UserContactMapper userContactMapper;
+    private final RedisUtils redisUtils;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${contact.graph.cache-seconds:600}")
+    private long cacheSeconds;
+
+    @Value("${contact.graph.max-users:100000}")
+    private int maxUsers;
+
+    /**
+     * userId -> 联系人（访问顺序，超过 max-users 时淘汰最久未访问的用户）
+     */
+    private Map<String, Adjacency> graph;
+
+    /**
+     * 失效序号：加载期间发生过失效则不写入缓存，避免旧数据覆盖
+     */
+    private final AtomicLong invalidateSequence = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        graph = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Adjacency> eldest) {
+                return size() > maxUsers;
+            }
+        });
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(Constants.REDIS_CHANNEL_CONTACT));
+    }
+
+    /**
+     * 用户的全部联系人及状态（只读）
+     */
+    public Map<String, Integer> getContacts(String userId) {
+        Adjacency adjacency = graph.get(userId);
+        if (adjacency != null && System.currentTimeMillis() - adjacency.loadTime <= cacheSeconds * 1000) {
+            return adjacency.contacts;
+        }
+        long stamp = invalidateSequence.get();
+        List<UserContact> rows = userContactMapper.selectContactsByUserId(userId);
+        Map<String, Integer> contacts = new HashMap<>(rows.size() * 2);
+        for (UserContact row : rows) {
+            contacts.put(row.getContactId(), row.getStatus());
+        }
+        contacts = Collections.unmodifiableMap(contacts);
+        if (invalidateSequence.get() == stamp) {
+            graph.put(userId, new Adjacency(contacts, System.currentTimeMillis()));
+        }
+        return contacts;
+    }
+
+    /**
+     * 用户的正常好友ID
+     */
+    public List<String> getNormalContactIds(String userId) {
+        Map<String, Integer> contacts = getContacts(userId);
+        List<String> result = new ArrayList<>(contacts.size());
+        contacts.forEach((contactId, status) -> {
+            if (UserContactStatusEnum.NORMAL.getStatus().equals(status)) {
+                result.add(contactId);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * userId 对 contactId 的联系人状态，无记录返回 null
+     */
+    public Integer getStatus(String userId, String contactId) {
+        return getContacts(userId).get(contactId);
+    }
+
+    /**
+     * userId 的联系人中 contactId 是否为正常好友
+     */
+    public boolean isNormalContact(String userId, String contactId) {
+        return UserContactStatusEnum.NORMAL.getStatus().equals(getStatus(userId, contactId));
+    }
+
+    /**
+     * userIds 中把 contactId 设为正常好友的用户（反向关系）
+     * 已缓存的用户在内存中判断，其余用户一次 IN 查询，查询结果不写入缓存（只是对方联系人中的一条）
+     */
+    public List<String> filterNormalContactOf(Collection<String> userIds, String contactId) {
+        List<String> result = new ArrayList<>(userIds.size());
+        List<String> misses = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (String userId : userIds) {
+            Adjacency adjacency = graph.get(userId);
+            if (adjacency == null || now - adjacency.loadTime > cacheSeconds * 1000) {
+                misses.add(userId);
+            } else if (UserContactStatusEnum.NORMAL.getStatus().equals(adjacency.contacts.get(contactId))) {
+                result.add(userId);
+            }
+        }
+        for (int from = 0; from < misses.size(); from += DB_BATCH_SIZE) {
+            List<String> batch = misses.subList(from, Math.min(from + DB_BATCH_SIZE, misses.size()));
+            for (UserContact row : userContactMapper.selectByUserIdsAndContactId(batch, contactId)) {
+                if (UserContactStatusEnum.NORMAL.getStatus().equals(row.getStatus())) {
+                    result.add(row.getUserId());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 联系人关系已变更：本地立即失效并广播到其他节点
+     */
+    public void invalidate(String... userIds) {
+        List<String> list = List.of(userIds);
+        applyInvalidate(list);
+        ContactGraphEventDto event = new ContactGraphEventDto();
+        event.setUserIds(list);
+        publish(event);
+    }
+
+    /**
+     * 批量变更（如按联系人删除）无法确定受影响的用户时，清空全部缓存
+     */
+    public void invalidateAll() {
+        applyInvalidateAll();
+        ContactGraphEventDto event = new ContactGraphEventDto();
+        event.setAll(true);
+        publish(event);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            ContactGraphEventDto event = (ContactGraphEventDto) redisUtils.deserializeValue(message.getBody());
+            if (event == null) {
+                return;
+            }
+            if (Boolean.TRUE.equals(event.getAll())) {
+                applyInvalidateAll();
+            } else if (event.getUserIds() != null) {
+                applyInvalidate(event.getUserIds());
+            }
+        } catch (Exception e) {
+            log.error("联系人关系广播处理失败", e);
+        }
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void purge() {
+        long now = System.currentTimeMillis();
+        graph.values().removeIf(adjacency -> now - adjacency.loadTime > cacheSeconds * 1000);
+    }
+
+    private void applyInvalidate(Collection<String> userIds) {
+        invalidateSequence.incrementAndGet();
+        userIds.forEach(graph::remove);
+    }
+
+    private void applyInvalidateAll() {
+        invalidateSequence.incrementAndGet();
+        graph.clear();
+    }
+
+    private void publish(ContactGraphEventDto event) {
+        try {
+            redisUtils.publish(Constants.REDIS_CHANNEL_CONTACT, event);
+        } catch (Exception e) {
+            log.error("联系人关系广播发送失败，其他节点将在缓存过期后生效", e);
+        }
+    }
+
+    private record Adjacency(Map<String, Integer> contacts, long loadTime) {
+    }
+}
@@ -0,0 +1,267 @@
+package com.easymeeting.redis;
+
+import com.easymeeting.dto.MeetingBlacklistEventDto;
+import com.easymeeting.entity.MeetingMember;
+import com.easymeeting.entity.constants.Constants;
+import com.easymeeting.enums.MeetingMemberStatusEnum;
+import com.easymeeting.mapper.MeetingMemberMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 会议黑名单布隆过滤器
+ * 被拉黑的成员极少，入会校验先查过滤器，只有过滤器判定"可能被拉黑"时才查询数据库确认
+ *
+ * - Redis 中每个会议一个位图：前 FILTER_BITS 位为过滤器，第 FILTER_BITS 位为"已构建"标记
+ * - 位图不存在或未构建时，从 meeting_member 中的拉黑记录重建（按位或写入，不覆盖并发新增的位）
+ * - 拉黑时先写数据库再置位，并广播让各节点丢弃本地副本
+ * - 置位或广播失败时删除 Redis 位图（之后从数据库重建）并重新广播；修复完成前本节点该会议的过滤器不可用，
+ *   定时重试修复，过滤器不能漏判
+ * - Redis 不可用时判定为"可能被拉黑"，退化为查询数据库
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class MeetingBlacklistFilter implements MessageListener {
+
+    /**
+     * 过滤器位数：按每个会议拉黑不超过几十人设计，误判率远低于 0.1%
+     */
+    private static final int FILTER_BITS = 4096;
+
+    /**
+     * 哈希函数个数
+     */
+    private static final int HASH_COUNT = 4;
+
+    /**
+     * 置位（ARGV 为位偏移）并续期，不存在时创建但不设置"已构建"标记
+     */
+    private static final RedisScript<Long> SET_BITS_SCRIPT = new DefaultRedisScript<>("""
+            for i = 2, #ARGV do
+                redis.call('SETBIT', KEYS[1], ARGV[i], 1)
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            return 1
+            """, Long.class);
+
+    private final MeetingMemberMapper meetingMemberMapper;
+    private final RedisUtils redisUtils;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${meeting.blacklist.local-size:10000}")
+    private int localSize;
+
+    @Value("${meeting.blacklist.local-seconds:30}")
+    private long localSeconds;
+
+    /**
+     * meetingId -> 本地过滤器副本
+     */
+    private Map<String, LocalFilter> filters;
+
+    /**
+     * meetingId -> 正在读取 Redis 的令牌：读取期间该会议收到过拉黑广播（令牌被移除）则不写入本地副本，避免缓存拉黑前的位图
+     */
+    private final Map<String, Object> loading = new ConcurrentHashMap<>();
+
+    /**
+     * 拉黑后置位或广播失败、尚未修复的会议，修复前不使用过滤器
+     */
+    private final Set<String> repairing = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        filters = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LocalFilter> eldest) {
+                return size() > localSize;
+            }
+        });
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(Constants.REDIS_CHANNEL_MEETING_BLACKLIST));
+    }
+
+    /**
+     * 用户是否可能被该会议拉黑（false 表示一定未被拉黑）
+     */
+    public boolean mightContain(String meetingId, String userId) {
+        byte[] bits = getBits(meetingId);
+        if (bits == null) {
+            return true;
+        }
+        for (int offset : offsets(userId)) {
+            if ((bits[offset >>> 3] & (0x80 >>> (offset & 7))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 记录拉黑（调用前数据库中的成员状态应已更新）
+     */
+    public void add(String meetingId, String userId) {
+        invalidate(meetingId);
+        try {
+            List<String> args = new ArrayList<>(HASH_COUNT + 1);
+            args.add(String.valueOf(Constants.REDIS_EXPIRE_MEETING));
+            for (int offset : offsets(userId)) {
+                args.add(String.valueOf(offset));
+            }
+            redisUtils.executeStringScript(SET_BITS_SCRIPT, Collections.singletonList(key(meetingId)), args.toArray(new String[0]));
+            publish(meetingId, userId);
+        } catch (Exception e) {
+            log.error("会议黑名单过滤器写入失败，删除过滤器后重建，meetingId={}, userId={}", meetingId, userId, e);
+            repairing.add(meetingId);
+            repair(meetingId);
+        }
+        invalidate(meetingId);
+    }
+
+    /**
+     * 定时重试未完成的修复
+     */
+    @Scheduled(fixedDelayString = "${meeting.blacklist.repair-ms:1000}")
+    public void retryRepairs() {
+        for (String meetingId : new ArrayList<>(repairing)) {
+            repair(meetingId);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            MeetingBlacklistEventDto event = (MeetingBlacklistEventDto) redisUtils.deserializeValue(message.getBody());
+            if (event != null && event.getMeetingId() != null) {
+                invalidate(event.getMeetingId());
+            }
+        } catch (Exception e) {
+            log.error("会议黑名单广播处理失败", e);
+        }
+    }
+
+    /**
+     * 读取过滤器位图：本地副本 -> Redis -> 从数据库重建；失败或修复中返回 null
+     */
+    private byte[] getBits(String meetingId) {
+        if (repairing.contains(meetingId)) {
+            return null;
+        }
+        LocalFilter local = filters.get(meetingId);
+        if (local != null && System.currentTimeMillis() - local.loadTime <= localSeconds * 1000) {
+            return local.bits;
+        }
+        Object token = new Object();
+        loading.put(meetingId, token);
+        try {
+            byte[] bits = redisUtils.getBytes(key(meetingId));
+            if (!isBuilt(bits)) {
+                bits = rebuild(meetingId);
+            }
+            if (loading.remove(meetingId, token) && !repairing.contains(meetingId)) {
+                filters.put(meetingId, new LocalFilter(bits, System.currentTimeMillis()));
+            }
+            return bits;
+        } catch (Exception e) {
+            loading.remove(meetingId, token);
+            log.warn("读取会议黑名单过滤器失败，回源数据库: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void invalidate(String meetingId) {
+        loading.remove(meetingId);
+        filters.remove(meetingId);
+    }
+
+    /**
+     * 删除 Redis 位图（下次读取时从数据库重建）并广播让各节点丢弃本地副本，成功后恢复使用过滤器
+     */
+    private void repair(String meetingId) {
+        try {
+            redisUtils.delete(key(meetingId));
+            publish(meetingId, null);
+            repairing.remove(meetingId);
+            invalidate(meetingId);
+            log.info("会议 {} 黑名单过滤器已删除，之后从数据库重建", meetingId);
+        } catch (Exception e) {
+            log.warn("会议 {} 黑名单过滤器修复失败，稍后重试: {}", meetingId, e.getMessage());
+        }
+    }
+
+    private void publish(String meetingId, String userId) {
+        MeetingBlacklistEventDto event = new MeetingBlacklistEventDto();
+        event.setMeetingId(meetingId);
+        event.setUserId(userId);
+        redisUtils.publish(Constants.REDIS_CHANNEL_MEETING_BLACKLIST, event);
+    }
+
+    /**
+     * 按数据库中的拉黑记录重建（按位或写入并设置"已构建"标记）
+     */
+    private byte[] rebuild(String meetingId) {
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(Constants.REDIS_EXPIRE_MEETING));
+        args.add(String.valueOf(FILTER_BITS));
+        int blacklisted = 0;
+        for (MeetingMember member : meetingMemberMapper.selectByMeetingId(meetingId)) {
+            if (MeetingMemberStatusEnum.BLACKLIST.getStatus().equals(member.getStatus())) {
+                blacklisted++;
+                for (int offset : offsets(member.getUserId())) {
+                    args.add(String.valueOf(offset));
+                }
+            }
+        }
+        redisUtils.executeStringScript(SET_BITS_SCRIPT, Collections.singletonList(key(meetingId)), args.toArray(new String[0]));
+        log.debug("重建会议 {} 黑名单过滤器，拉黑人数: {}", meetingId, blacklisted);
+        return redisUtils.getBytes(key(meetingId));
+    }
+
+    private static boolean isBuilt(byte[] bits) {
+        return bits != null && bits.length > FILTER_BITS >>> 3 && (bits[FILTER_BITS >>> 3] & 0x80) != 0;
+    }
+
+    /**
+     * 双重哈希：FNV-1a 64 位哈希拆成两个 32 位值，第 i 个位置为 h1 + i * h2
+     */
+    private static int[] offsets(String userId) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : userId.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        int[] offsets = new int[HASH_COUNT];
+        for (int i = 0; i < HASH_COUNT; i++) {
+            offsets[i] = Math.floorMod(h1 + i * h2, FILTER_BITS);
+        }
+        return offsets;
+    }
+
+    private static String key(String meetingId) {
+        return Constants.REDIS_KEY_MEETING_BLACKLIST + RedisKeys.hashTag(meetingId);
+    }
+
+    private record LocalFilter(byte[] bits, long loadTime) {
+    }
+}
@@ -0,0 +1,282 @@
+package com.easymeeting.redis;
+
+import com.alibaba.fastjson.JSON;
+import com.easymeeting.dto.MeetingInfoEventDto;
+import com.easymeeting.entity.MeetingInfo;
+import com.easymeeting.entity.constants.Constants;
+import com.easymeeting.enums.MeetingStatusEnum;
+import com.easymeeting.mapper.MeetingInfoMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 会议信息两级缓存（本地 LRU + Redis），按会议ID和进行中会议的会议号索引
+ * - 读：本地 -> Redis -> 数据库，同一 key 并发未命中时只有一个线程回源（single-flight）
+ * - 写：会议创建/更新/结束/删除后调用 evict，删除 Redis 缓存并广播，各节点清除本地缓存；
+ *   在事务中调用时推迟到提交之后清除（提交前清除会被并发回源读到的旧数据重新填充）；
+ *   回源与写入并发时可能把旧数据写回，因此延迟一段时间再清除一次
+ * - 返回副本，调用方修改不影响缓存
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class MeetingInfoCache implements MessageListener {
+
+    /**
+     * 延迟二次清除的间隔（毫秒）
+     */
+    private static final long DELAYED_EVICT_MS = 1000;
+
+    private final MeetingInfoMapper meetingInfoMapper;
+    private final RedisUtils redisUtils;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final TaskScheduler taskScheduler;
+
+    @Value("${meeting.cache.local-size:10000}")
+    private int localSize;
+
+    @Value("${meeting.cache.local-seconds:60}")
+    private long localSeconds;
+
+    /**
+     * meetingId -> 会议信息
+     */
+    private Map<String, CachedMeeting> meetings;
+
+    /**
+     * 进行中会议 meetingNo -> meetingId
+     */
+    private Map<String, String> runningNos;
+
+    private final Map<String, CompletableFuture<MeetingInfo>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * 失效序号：回源期间发生过失效则不写入本地缓存
+     */
+    private final AtomicLong invalidateSequence = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        meetings = lruMap(localSize);
+        runningNos = lruMap(localSize);
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(Constants.REDIS_CHANNEL_MEETING_INFO));
+    }
+
+    /**
+     * 按会议ID查询
+     */
+    public MeetingInfo getById(String meetingId) {
+        if (meetingId == null) {
+            return null;
+        }
+        CachedMeeting cached = meetings.get(meetingId);
+        if (cached != null && System.currentTimeMillis() - cached.loadTime <= localSeconds * 1000) {
+            return copy(cached.meetingInfo);
+        }
+        return copy(singleFlight(meetingId, () -> loadById(meetingId)));
+    }
+
+    /**
+     * 按会议号查询进行中的会议
+     */
+    public MeetingInfo getRunningByNo(String meetingNo) {
+        if (meetingNo == null) {
+            return null;
+        }
+        String meetingId = runningNos.get(meetingNo);
+        if (meetingId == null) {
+            meetingId = readRedis(() -> redisUtils.getString(Constants.REDIS_KEY_MEETING_RUNNING_NO + meetingNo));
+        }
+        if (meetingId != null) {
+            MeetingInfo meetingInfo = getById(meetingId);
+            if (meetingInfo != null && meetingNo.equals(meetingInfo.getMeetingNo())
+                    && MeetingStatusEnum.RUNING.getStatus().equals(meetingInfo.getStatus())) {
+                runningNos.put(meetingNo, meetingId);
+                return meetingInfo;
+            }
+        }
+        return copy(singleFlight("no:" + meetingNo, () -> loadRunningByNo(meetingNo)));
+    }
+
+    /**
+     * 会议信息已变更：清除两级缓存并通知其他节点，稍后再清除一次；在事务中调用时于提交后执行，回滚则不清除
+     */
+    public void evict(String meetingId, String meetingNo) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictTwice(meetingId, meetingNo);
+                }
+            });
+            return;
+        }
+        evictTwice(meetingId, meetingNo);
+    }
+
+    public void evict(MeetingInfo meetingInfo) {
+        evict(meetingInfo.getMeetingId(), meetingInfo.getMeetingNo());
+    }
+
+    private void evictTwice(String meetingId, String meetingNo) {
+        evictNow(meetingId, meetingNo);
+        taskScheduler.schedule(() -> evictNow(meetingId, meetingNo), Instant.now().plusMillis(DELAYED_EVICT_MS));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            MeetingInfoEventDto event = (MeetingInfoEventDto) redisUtils.deserializeValue(message.getBody());
+            if (event != null) {
+                evictLocal(event.getMeetingId(), event.getMeetingNo());
+            }
+        } catch (Exception e) {
+            log.error("会议信息广播处理失败", e);
+        }
+    }
+
+    private MeetingInfo loadById(String meetingId) {
+        long stamp = invalidateSequence.get();
+        String key = Constants.REDIS_KEY_MEETING + meetingId;
+        String json = readRedis(() -> redisUtils.getString(key));
+        MeetingInfo meetingInfo = json == null ? null : JSON.parseObject(json, MeetingInfo.class);
+        if (meetingInfo == null) {
+            meetingInfo = meetingInfoMapper.selectById(meetingId);
+            if (meetingInfo == null) {
+                return null;
+            }
+            String value = JSON.toJSONString(meetingInfo);
+            writeRedis(() -> redisUtils.setString(key, value, Constants.REDIS_EXPIRE_MEETING, TimeUnit.SECONDS));
+        }
+        if (invalidateSequence.get() == stamp) {
+            meetings.put(meetingId, new CachedMeeting(meetingInfo, System.currentTimeMillis()));
+        }
+        return meetingInfo;
+    }
+
+    private MeetingInfo loadRunningByNo(String meetingNo) {
+        long stamp = invalidateSequence.get();
+        MeetingInfo meetingInfo = meetingInfoMapper.selectRunningMeetingByMeetingNo(meetingNo);
+        if (meetingInfo == null) {
+            return null;
+        }
+        String meetingId = meetingInfo.getMeetingId();
+        writeRedis(() -> redisUtils.setString(Constants.REDIS_KEY_MEETING_RUNNING_NO + meetingNo, meetingId,
+                Constants.REDIS_EXPIRE_MEETING, TimeUnit.SECONDS));
+        if (invalidateSequence.get() == stamp) {
+            runningNos.put(meetingNo, meetingId);
+        }
+        return meetingInfo;
+    }
+
+    private MeetingInfo singleFlight(String key, Supplier<MeetingInfo> loader) {
+        CompletableFuture<MeetingInfo> future = new CompletableFuture<>();
+        CompletableFuture<MeetingInfo> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException runtimeException ? runtimeException : e;
+            }
+        }
+        try {
+            MeetingInfo meetingInfo = loader.get();
+            future.complete(meetingInfo);
+            return meetingInfo;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    private void evictNow(String meetingId, String meetingNo) {
+        evictLocal(meetingId, meetingNo);
+        try {
+            redisUtils.delete(meetingNo == null
+                    ? Collections.singletonList(Constants.REDIS_KEY_MEETING + meetingId)
+                    : Arrays.asList(Constants.REDIS_KEY_MEETING + meetingId, Constants.REDIS_KEY_MEETING_RUNNING_NO + meetingNo));
+            MeetingInfoEventDto event = new MeetingInfoEventDto();
+            event.setMeetingId(meetingId);
+            event.setMeetingNo(meetingNo);
+            redisUtils.publish(Constants.REDIS_CHANNEL_MEETING_INFO, event);
+        } catch (Exception e) {
+            log.error("会议信息缓存清除失败，meetingId={}", meetingId, e);
+        }
+    }
+
+    private void evictLocal(String meetingId, String meetingNo) {
+        invalidateSequence.incrementAndGet();
+        if (meetingId != null) {
+            meetings.remove(meetingId);
+        }
+        if (meetingNo != null) {
+            runningNos.remove(meetingNo);
+        }
+    }
+
+    /**
+     * Redis 不可用时退化为直接查询数据库
+     */
+    private String readRedis(Supplier<String> reader) {
+        try {
+            return reader.get();
+        } catch (Exception e) {
+            log.warn("读取会议信息缓存失败，回源数据库: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeRedis(Runnable writer) {
+        try {
+            writer.run();
+        } catch (Exception e) {
+            log.warn("写入会议信息缓存失败: {}", e.getMessage());
+        }
+    }
+
+    private static MeetingInfo copy(MeetingInfo meetingInfo) {
+        if (meetingInfo == null) {
+            return null;
+        }
+        MeetingInfo copy = new MeetingInfo();
+        BeanUtils.copyProperties(meetingInfo, copy);
+        return copy;
+    }
+
+    private static <V> Map<String, V> lruMap(int maxSize) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    private record CachedMeeting(MeetingInfo meetingInfo, long loadTime) {
+    }
+}
@@ -1,15 +1,24 @@
 package com.easymeeting.redis;
 
 import com.easymeeting.dto.MeetingMemberDto;
+import com.easymeeting.dto.MeetingRoomStateDto;
 import com.easymeeting.dto.TokenUserInfoDto;
 import com.easymeeting.entity.constants.Constants;
 import com.easymeeting.enums.MeetingMemberStatusEnum;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -19,6 +28,7 @@ import java.util.stream.Collectors;
 public class RedisComponent {
     
     private final RedisUtils redisUtils;
+    private final SessionRevocationFilter sessionRevocationFilter;
     
     // ==================== 验证码相关 ====================
     
@@ -38,10 +48,46 @@ public class RedisComponent {
     }
     
     // ==================== Token相关 ====================
-    
+    // 会话以 Hash 存储（纯字符串字段），进入/退出会议只改 currentMeetingId/currentNickName 两个字段，
+    // 不再整体重写，避免并发写入互相覆盖；会议 -> 会话 Token 的索引用于结束会议时批量清理
+
+    private static final String FIELD_TOKEN = "token";
+    private static final String FIELD_USER_ID = "userId";
+    private static final String FIELD_NICK_NAME = "nickName";
+    private static final String FIELD_SEX = "sex";
+    private static final String FIELD_MEETING_NO = "meetingNo";
+    private static final String FIELD_CURRENT_MEETING_ID = "currentMeetingId";
+    private static final String FIELD_CURRENT_NICK_NAME = "currentNickName";
+    private static final String FIELD_ADMIN = "admin";
+
+    /**
+     * 设置当前会议字段（会话不存在时不写入，避免产生没有过期时间的 Hash）
+     * 返回原 currentMeetingId（无则为空串），会话不存在返回 nil
+     */
+    private static final RedisScript<String> SESSION_SET_MEETING_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return false end
+            local old = redis.call('HGET', KEYS[1], 'currentMeetingId')
+            if ARGV[1] == '' then redis.call('HDEL', KEYS[1], 'currentMeetingId')
+            else redis.call('HSET', KEYS[1], 'currentMeetingId', ARGV[1]) end
+            if ARGV[2] == '' then redis.call('HDEL', KEYS[1], 'currentNickName')
+            else redis.call('HSET', KEYS[1], 'currentNickName', ARGV[2]) end
+            return old or ''
+            """, String.class);
+
+    /**
+     * currentMeetingId 仍为指定会议时清除（结束会议时按索引逐个会话执行）
+     */
+    private static final String SESSION_CLEAR_MEETING_SCRIPT = """
+            if redis.call('HGET', KEYS[1], 'currentMeetingId') == ARGV[1] then
+                redis.call('HDEL', KEYS[1], 'currentMeetingId')
+                return 1
+            end
+            return 0
+            """;
+
     /**
      * 保存用户Token信息到Redis（双向映射）
-     * token -> TokenUserInfoDto
+     * token -> 会话 Hash
      * userId -> token
      */
     public void saveTokenUserInfo(TokenUserInfoDto tokenUserInfo) {
@@ -54,8 +100,13 @@ public class RedisComponent {
             removeToken(oldToken);
         }
         
-        // 保存 token -> TokenUserInfoDto
-        redisUtils.set(Constants.REDIS_KEY_TOKEN + token, tokenUserInfo, Constants.REDIS_EXPIRE_TOKEN, TimeUnit.SECONDS);
+        // 保存 token -> 会话 Hash（HSET + EXPIRE 一次往返）
+        String sessionKey = Constants.REDIS_KEY_TOKEN + token;
+        Map<String, String> fields = toSessionFields(tokenUserInfo);
+        redisUtils.stringPipelined(connection -> {
+            connection.hMSet(sessionKey, fields);
+            connection.expire(sessionKey, Constants.REDIS_EXPIRE_TOKEN);
+        });
         // 保存 userId -> token
         redisUtils.set(Constants.REDIS_KEY_USER_TOKEN + userId, token, Constants.REDIS_EXPIRE_TOKEN, TimeUnit.SECONDS);
     }
@@ -64,7 +115,7 @@ public class RedisComponent {
      * 根据Token获取用户会话信息
      */
     public TokenUserInfoDto getTokenUserInfo(String token) {
-        return (TokenUserInfoDto) redisUtils.get(Constants.REDIS_KEY_TOKEN + token);
+        return fromSessionFields(redisUtils.hGetAllString(Constants.REDIS_KEY_TOKEN + token));
     }
     
     /**
@@ -76,14 +127,111 @@ public class RedisComponent {
     }
     
     /**
-     * 更新Token用户信息（如进入会议时更新currentMeetingId）
+     * 更新会话中的当前会议（currentMeetingId、currentNickName，字段级写入）
+     * 同时维护 会议 -> 会话 Token 索引
      */
-    public void updateTokenUserInfo(TokenUserInfoDto tokenUserInfo) {
+    public void updateCurrentMeeting(TokenUserInfoDto tokenUserInfo) {
         String token = tokenUserInfo.getToken();
-        // 获取剩余过期时间，保持原有过期时间
-        Long ttl = redisUtils.getExpire(Constants.REDIS_KEY_TOKEN + token);
-        if (ttl != null && ttl > 0) {
-            redisUtils.set(Constants.REDIS_KEY_TOKEN + token, tokenUserInfo, ttl, TimeUnit.SECONDS);
+        String meetingId = tokenUserInfo.getCurrentMeetingId() == null ? "" : tokenUserInfo.getCurrentMeetingId();
+        String currentNickName = tokenUserInfo.getCurrentNickName() == null ? "" : tokenUserInfo.getCurrentNickName();
+        String oldMeetingId = redisUtils.executeStringScript(SESSION_SET_MEETING_SCRIPT,
+                Collections.singletonList(Constants.REDIS_KEY_TOKEN + token), meetingId, currentNickName);
+        if (oldMeetingId == null) {
+            // 会话已失效
+            return;
+        }
+        if (!oldMeetingId.equals(meetingId)) {
+            redisUtils.stringPipelined(connection -> {
+                if (!oldMeetingId.isEmpty()) {
+                    connection.sRem(RedisKeys.meetingSessions(oldMeetingId), token);
+                }
+                if (!meetingId.isEmpty()) {
+                    String indexKey = RedisKeys.meetingSessions(meetingId);
+                    connection.sAdd(indexKey, token);
+                    connection.expire(indexKey, Constants.REDIS_EXPIRE_TOKEN);
+                }
+            });
+        }
+        sessionRevocationFilter.invalidate(Collections.singletonList(token));
+    }
+
+    /**
+     * 批量根据userId获取token（MGET）
+     * @return userId -> token，不在线的用户不包含在结果中
+     */
+    public Map<String, String> getTokensByUserIds(List<String> userIds) {
+        List<String> keys = userIds.stream().map(userId -> Constants.REDIS_KEY_USER_TOKEN + userId).collect(Collectors.toList());
+        List<Object> values = redisUtils.multiGet(keys);
+        Map<String, String> result = new HashMap<>();
+        for (int i = 0; i < userIds.size(); i++) {
+            Object value = values.get(i);
+            if (value != null) {
+                result.put(userIds.get(i), value.toString());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 清除整个会议所有会话的当前会议（结束会议时使用）
+     * 按 会议 -> 会话 Token 索引一次管道完成，只清除 currentMeetingId 仍为该会议的会话
+     * @return 实际清除的会话数
+     */
+    public int clearCurrentMeeting(String meetingId) {
+        String indexKey = RedisKeys.meetingSessions(meetingId);
+        Set<String> tokens = redisUtils.sMembersString(indexKey);
+        if (tokens == null || tokens.isEmpty()) {
+            return 0;
+        }
+        List<Object> results = redisUtils.stringPipelined(connection -> {
+            for (String token : tokens) {
+                connection.eval(SESSION_CLEAR_MEETING_SCRIPT, ReturnType.INTEGER, 1, Constants.REDIS_KEY_TOKEN + token, meetingId);
+            }
+            connection.del(indexKey);
+        });
+        sessionRevocationFilter.invalidate(tokens);
+        int cleared = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            if (Long.valueOf(1L).equals(results.get(i))) {
+                cleared++;
+            }
+        }
+        return cleared;
+    }
+
+    private Map<String, String> toSessionFields(TokenUserInfoDto tokenUserInfo) {
+        Map<String, String> fields = new HashMap<>();
+        putIfNotNull(fields, FIELD_TOKEN, tokenUserInfo.getToken());
+        putIfNotNull(fields, FIELD_USER_ID, tokenUserInfo.getUserId());
+        putIfNotNull(fields, FIELD_NICK_NAME, tokenUserInfo.getNickName());
+        putIfNotNull(fields, FIELD_SEX, tokenUserInfo.getSex());
+        putIfNotNull(fields, FIELD_MEETING_NO, tokenUserInfo.getMeetingNo());
+        putIfNotNull(fields, FIELD_CURRENT_MEETING_ID, tokenUserInfo.getCurrentMeetingId());
+        putIfNotNull(fields, FIELD_CURRENT_NICK_NAME, tokenUserInfo.getCurrentNickName());
+        putIfNotNull(fields, FIELD_ADMIN, tokenUserInfo.getAdmin());
+        return fields;
+    }
+
+    private TokenUserInfoDto fromSessionFields(Map<String, String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return null;
+        }
+        TokenUserInfoDto tokenUserInfo = new TokenUserInfoDto();
+        tokenUserInfo.setToken(fields.get(FIELD_TOKEN));
+        tokenUserInfo.setUserId(fields.get(FIELD_USER_ID));
+        tokenUserInfo.setNickName(fields.get(FIELD_NICK_NAME));
+        String sex = fields.get(FIELD_SEX);
+        tokenUserInfo.setSex(sex == null ? null : Integer.valueOf(sex));
+        tokenUserInfo.setMeetingNo(fields.get(FIELD_MEETING_NO));
+        tokenUserInfo.setCurrentMeetingId(fields.get(FIELD_CURRENT_MEETING_ID));
+        tokenUserInfo.setCurrentNickName(fields.get(FIELD_CURRENT_NICK_NAME));
+        tokenUserInfo.setAdmin(Boolean.parseBoolean(fields.get(FIELD_ADMIN)));
+        return tokenUserInfo;
+    }
+
+    private void putIfNotNull(Map<String, String> fields, String field, Object value) {
+        if (value != null) {
+            fields.put(field, value.toString());
         }
     }
     
@@ -95,9 +243,15 @@ public class RedisComponent {
         if (tokenUserInfo != null) {
             // 删除 userId -> token
             redisUtils.delete(Constants.REDIS_KEY_USER_TOKEN + tokenUserInfo.getUserId());
+            // 从会议会话索引中移除
+            if (tokenUserInfo.getCurrentMeetingId() != null) {
+                String indexKey = RedisKeys.meetingSessions(tokenUserInfo.getCurrentMeetingId());
+                redisUtils.stringPipelined(connection -> connection.sRem(indexKey, token));
+            }
         }
         // 删除 token -> TokenUserInfoDto
         redisUtils.delete(Constants.REDIS_KEY_TOKEN + token);
+        sessionRevocationFilter.revoke(Collections.singletonList(token));
     }
     
     /**
@@ -107,6 +261,7 @@ public class RedisComponent {
         String token = getTokenByUserId(userId);
         if (token != null) {
             redisUtils.delete(Constants.REDIS_KEY_TOKEN + token);
+            sessionRevocationFilter.revoke(Collections.singletonList(token));
         }
         redisUtils.delete(Constants.REDIS_KEY_USER_TOKEN + userId);
     }
@@ -135,12 +290,10 @@ public class RedisComponent {
         
         // 如果剩余时间小于阈值，则续期
         if (ttl < renewThresholdSeconds) {
-            TokenUserInfoDto userInfo = getTokenUserInfo(token);
-            if (userInfo != null) {
-                // 续期 token -> UserInfo
-                redisUtils.expire(tokenKey, Constants.REDIS_EXPIRE_TOKEN, TimeUnit.SECONDS);
-                // 续期 userId -> token
-                redisUtils.expire(Constants.REDIS_KEY_USER_TOKEN + userInfo.getUserId(), 
+            String userId = redisUtils.hGetString(tokenKey, FIELD_USER_ID);
+            if (userId != null) {
+                // 续期 token -> 会话、userId -> token
+                redisUtils.multiExpire(Arrays.asList(tokenKey, Constants.REDIS_KEY_USER_TOKEN + userId),
                         Constants.REDIS_EXPIRE_TOKEN, TimeUnit.SECONDS);
                 return true;
             }
@@ -154,12 +307,81 @@ public class RedisComponent {
     public Long getTokenTTL(String token) {
         return redisUtils.getExpire(Constants.REDIS_KEY_TOKEN + token);
     }
-    public void addToMeeting(String meetingId, MeetingMemberDto meetingMemberDto) {
-        redisUtils.hSet(Constants.REDIS_KEY_MEETING_ROOM+meetingId, meetingMemberDto.getUserId(), meetingMemberDto);
+    // ==================== 会议房间相关 ====================
+    // 成员的加入/退出/更新通过 Lua 脚本在一次往返内原子完成，并递增房间版本号
+    // KEYS[1] 成员 Hash，KEYS[2] 版本号（同一 hash tag，Cluster 下位于同一 slot）
+
+    /**
+     * 加入或覆盖成员，返回 {版本号, 成员快照...}
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ROOM_UPSERT_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('HSET', KEYS[1], ARGV[1], ARGV[2])
+            local result = {redis.call('INCR', KEYS[2])}
+            local members = redis.call('HVALS', KEYS[1])
+            for i = 1, #members do result[i + 1] = members[i] end
+            return result
+            """, List.class);
+
+    /**
+     * 移除成员，成员不存在时返回空，否则返回 {版本号, 成员快照...}
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ROOM_REMOVE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('HDEL', KEYS[1], ARGV[1]) == 0 then return {} end
+            local result = {redis.call('INCR', KEYS[2])}
+            local members = redis.call('HVALS', KEYS[1])
+            for i = 1, #members do result[i + 1] = members[i] end
+            return result
+            """, List.class);
+
+    /**
+     * 读取一致的 {版本号, 成员快照...}
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ROOM_SNAPSHOT_SCRIPT = new DefaultRedisScript<>("""
+            local result = {tonumber(redis.call('GET', KEYS[2]) or '0')}
+            local members = redis.call('HVALS', KEYS[1])
+            for i = 1, #members do result[i + 1] = members[i] end
+            return result
+            """, List.class);
+
+    /**
+     * 加入会议房间（已存在则覆盖），返回新版本号与成员快照
+     */
+    public MeetingRoomStateDto addToMeeting(String meetingId, MeetingMemberDto meetingMemberDto) {
+        List<Object> result = redisUtils.executeScript(ROOM_UPSERT_SCRIPT, roomKeys(meetingId),
+                meetingMemberDto.getUserId(), meetingMemberDto);
+        return toRoomState(result, meetingMemberDto);
     }
+
+    /**
+     * 获取房间当前版本号与成员快照
+     */
+    public MeetingRoomStateDto getMeetingRoomState(String meetingId) {
+        return toRoomState(redisUtils.executeScript(ROOM_SNAPSHOT_SCRIPT, roomKeys(meetingId)), null);
+    }
+
+    private List<String> roomKeys(String meetingId) {
+        return Arrays.asList(RedisKeys.meetingRoom(meetingId), RedisKeys.meetingRoomVersion(meetingId));
+    }
+
+    private MeetingRoomStateDto toRoomState(List<Object> result, MeetingMemberDto changedMember) {
+        if (result.isEmpty()) {
+            return null;
+        }
+        MeetingRoomStateDto roomState = new MeetingRoomStateDto();
+        roomState.setVersion(((Number) result.get(0)).longValue());
+        roomState.setChangedMember(changedMember);
+        roomState.setMeetingMemberList(result.subList(1, result.size()).stream()
+                .map(obj -> (MeetingMemberDto) obj)
+                .collect(Collectors.toList()));
+        return roomState;
+    }
+
     public List<MeetingMemberDto> getMeetingMemberList(String meetingId) {
         // 获取会议室所有成员
-        Map<Object, Object> members = redisUtils.hGetAll(Constants.REDIS_KEY_MEETING_ROOM + meetingId);
+        Map<Object, Object> members = redisUtils.hGetAll(RedisKeys.meetingRoom(meetingId));
 
         if (members == null || members.isEmpty()) {
             return new ArrayList<>();
@@ -171,30 +393,39 @@ public class RedisComponent {
                 .collect(Collectors.toList());
     }
     public MeetingMemberDto getMeetingMember(String meetingId, String userId) {
-        return (MeetingMemberDto) redisUtils.hGet(Constants.REDIS_KEY_MEETING_ROOM + meetingId,userId);
+        return (MeetingMemberDto) redisUtils.hGet(RedisKeys.meetingRoom(meetingId),userId);
     }
-    
+
     /**
-     * 从会议中移除单个成员
+     * 批量获取会议成员（HMGET）
+     * @return userId -> MeetingMemberDto，不在房间中的用户不包含在结果中
      */
-    public void removeMeetingMember(String meetingId, String userId) {
-        redisUtils.hDelete(Constants.REDIS_KEY_MEETING_ROOM + meetingId, userId);
+    public Map<String, MeetingMemberDto> getMeetingMembers(String meetingId, List<String> userIds) {
+        List<Object> values = redisUtils.hMultiGet(RedisKeys.meetingRoom(meetingId), userIds);
+        Map<String, MeetingMemberDto> result = new HashMap<>();
+        for (int i = 0; i < userIds.size(); i++) {
+            Object value = values.get(i);
+            if (value != null) {
+                result.put(userIds.get(i), (MeetingMemberDto) value);
+            }
+        }
+        return result;
     }
     
     /**
      * 清理整个会议的成员数据（结束会议时使用）
      */
     public void removeMeetingMembers(String meetingId) {
-        redisUtils.delete(Constants.REDIS_KEY_MEETING_ROOM + meetingId);
+        redisUtils.delete(roomKeys(meetingId));
     }
-    public Boolean exitMeeting(String meetingId, String userId, MeetingMemberStatusEnum meetingMemberStatusEnum) {
-        MeetingMemberDto meetingMemberDto = getMeetingMember(meetingId, userId);
-        if (meetingMemberDto == null) {
-            return false;
-        }
-        // 从会议成员列表中移除该用户
-        removeMeetingMember(meetingId, userId);
-        return true;
+
+    /**
+     * 退出会议房间（检查与移除原子完成）
+     * @return 新版本号与剩余成员快照，用户不在房间中时返回 null
+     */
+    public MeetingRoomStateDto exitMeeting(String meetingId, String userId, MeetingMemberStatusEnum meetingMemberStatusEnum) {
+        List<Object> result = redisUtils.executeScript(ROOM_REMOVE_SCRIPT, roomKeys(meetingId), userId);
+        return toRoomState(result, null);
     }
     /**
      * 添加会议邀请信息
@@ -202,10 +433,23 @@ public class RedisComponent {
      * @param userId 被邀请用户ID
      */
     public void addInviteInfo(String meetingId, String userId) {
-        redisUtils.set(Constants.REDIS_KEY_MEETING_INVITE + userId + ":" + meetingId, 
+        redisUtils.set(RedisKeys.meetingInvite(meetingId, userId), 
                 meetingId, Constants.REDIS_EXPIRE_INVITE, TimeUnit.SECONDS);
     }
 
+    /**
+     * 批量添加会议邀请信息（管道 SET EX，一次往返）
+     * @param meetingId 会议ID
+     * @param userIds 被邀请用户ID列表
+     */
+    public void addInviteInfos(String meetingId, Collection<String> userIds) {
+        Map<String, Object> map = new HashMap<>();
+        for (String userId : userIds) {
+            map.put(RedisKeys.meetingInvite(meetingId, userId), meetingId);
+        }
+        redisUtils.multiSet(map, Constants.REDIS_EXPIRE_INVITE, TimeUnit.SECONDS);
+    }
+
     /**
      * 获取会议邀请信息
      * @param meetingId 会议ID
@@ -213,7 +457,7 @@ public class RedisComponent {
      * @return 会议ID（如果邀请存在）
      */
     public String getInviteInfo(String meetingId, String userId) {
-        return (String) redisUtils.get(Constants.REDIS_KEY_MEETING_INVITE + userId + ":" + meetingId);
+        return (String) redisUtils.get(RedisKeys.meetingInvite(meetingId, userId));
     }
     
     /**
@@ -222,6 +466,6 @@ public class RedisComponent {
      * @param userId 被邀请用户ID
      */
     public void removeInviteInfo(String meetingId, String userId) {
-        redisUtils.delete(Constants.REDIS_KEY_MEETING_INVITE + userId + ":" + meetingId);
+        redisUtils.delete(RedisKeys.meetingInvite(meetingId, userId));
     }
 }
@@ -1,17 +1,33 @@
 package com.easymeeting.redis;
 
+import com.easymeeting.redis.codec.CompactRedisSerializer;
+import com.easymeeting.redis.codec.MeetingMemberCodec;
+import com.easymeeting.redis.codec.UserProfileCodec;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 @Configuration
 public class RedisConfig {
 
+    /**
+     * Redis 值序列化器（读取总是兼容 JSON 与紧凑编码，写入是否使用紧凑编码由配置决定）
+     */
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+    public CompactRedisSerializer compactRedisSerializer(@Value("${redis.codec.compact-write:false}") boolean compactWrite) {
+        return new CompactRedisSerializer(new GenericJackson2JsonRedisSerializer(), compactWrite)
+                .register(new MeetingMemberCodec())
+                .register(new UserProfileCodec());
+    }
+
+    @Bean
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory,
+                                                       CompactRedisSerializer compactRedisSerializer) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
         
@@ -20,12 +36,21 @@ public class RedisConfig {
         template.setKeySerializer(stringSerializer);
         template.setHashKeySerializer(stringSerializer);
         
-        // Value 使用 JSON 序列化
-        GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
-        template.setValueSerializer(jsonSerializer);
-        template.setHashValueSerializer(jsonSerializer);
+        // Value：热点类型使用紧凑二进制编码，其他类型使用 JSON 序列化
+        template.setValueSerializer(compactRedisSerializer);
+        template.setHashValueSerializer(compactRedisSerializer);
         
         template.afterPropertiesSet();
         return template;
     }
+
+    /**
+     * Redis Pub/Sub 监听容器（会话吊销广播等控制面消息使用）
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
 }
@@ -0,0 +1,56 @@
+package com.easymeeting.redis;
+
+import com.easymeeting.entity.constants.Constants;
+
+/**
+ * Redis key 构建工具
+ * 同一会议的 key 使用 {meetingId} 作为 hash tag，保证在 Redis Cluster 中落在同一个 slot，
+ * 多 key 操作（管道、Lua 脚本）不会跨节点
+ */
+public class RedisKeys {
+
+    private RedisKeys() {
+    }
+
+    /**
+     * 包装为 hash tag，如 {123}
+     */
+    public static String hashTag(String id) {
+        return "{" + id + "}";
+    }
+
+    /**
+     * 会议房间成员 Hash：easymeeting:meeting:room:{meetingId}
+     */
+    public static String meetingRoom(String meetingId) {
+        return Constants.REDIS_KEY_MEETING_ROOM + hashTag(meetingId);
+    }
+
+    /**
+     * 会议房间成员版本号：easymeeting:meeting:room:version:{meetingId}
+     */
+    public static String meetingRoomVersion(String meetingId) {
+        return Constants.REDIS_KEY_MEETING_ROOM_VERSION + hashTag(meetingId);
+    }
+
+    /**
+     * 会议会话索引：easymeeting:meeting:session:{meetingId}
+     */
+    public static String meetingSessions(String meetingId) {
+        return Constants.REDIS_KEY_MEETING_SESSIONS + hashTag(meetingId);
+    }
+
+    /**
+     * 会议邀请：easymeeting:meeting:invite:{meetingId}:userId
+     */
+    public static String meetingInvite(String meetingId, String userId) {
+        return Constants.REDIS_KEY_MEETING_INVITE + hashTag(meetingId) + ":" + userId;
+    }
+
+    /**
+     * Mesh 会议房间所在节点：easymeeting:mesh:room:{meetingId}
+     */
+    public static String meshRoom(String meetingId) {
+        return Constants.REDIS_KEY_MESH_ROOM + hashTag(meetingId);
+    }
+}
@@ -1,14 +1,27 @@
 package com.easymeeting.redis;
 
 import jakarta.annotation.Resource;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Component
 public class RedisUtils {
@@ -16,6 +29,12 @@ public class RedisUtils {
     @Resource
     private RedisTemplate<String, Object> redisTemplate;
 
+    /**
+     * 纯字符串读写（值不做 JSON 序列化），用于需要在 Lua 脚本中直接比较字段值的结构
+     */
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
     // ==================== Key 操作 ====================
 
     /**
@@ -238,4 +257,180 @@ public class RedisUtils {
     public Long sSize(String key) {
         return redisTemplate.opsForSet().size(key);
     }
+
+    // ==================== 发布订阅 ====================
+
+    /**
+     * 发布消息（值按 JSON 序列化）
+     */
+    public void publish(String channel, Object message) {
+        redisTemplate.convertAndSend(channel, message);
+    }
+
+    /**
+     * 按值序列化方式反序列化订阅收到的消息体
+     */
+    public Object deserializeValue(byte[] bytes) {
+        return redisTemplate.getValueSerializer().deserialize(bytes);
+    }
+
+    // ==================== 批量 / 管道操作 ====================
+
+    /**
+     * 批量获取值（MGET），返回结果与 keys 顺序一致，不存在的 key 对应 null
+     */
+    public List<Object> multiGet(List<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+        return values == null ? new ArrayList<>(Collections.nCopies(keys.size(), null)) : values;
+    }
+
+    /**
+     * Hash 批量获取字段（HMGET），返回结果与 hashKeys 顺序一致
+     */
+    public List<Object> hMultiGet(String key, List<String> hashKeys) {
+        if (hashKeys == null || hashKeys.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return redisTemplate.opsForHash().multiGet(key, new ArrayList<>(hashKeys));
+    }
+
+    /**
+     * 管道批量设置值并设置过期时间（SET EX），一次往返
+     */
+    public void multiSet(Map<String, Object> map, long timeout, TimeUnit unit) {
+        if (map == null || map.isEmpty()) {
+            return;
+        }
+        Expiration expiration = Expiration.from(timeout, unit);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            map.forEach((key, value) -> connection.stringCommands()
+                    .set(rawKey(key), rawValue(value), expiration, RedisStringCommands.SetOption.upsert()));
+            return null;
+        });
+    }
+
+    /**
+     * 管道批量设置过期时间
+     */
+    public void multiExpire(Collection<String> keys, long timeout, TimeUnit unit) {
+        if (keys == null || keys.isEmpty()) {
+            return;
+        }
+        long seconds = unit.toSeconds(timeout);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            keys.forEach(key -> connection.keyCommands().expire(rawKey(key), seconds));
+            return null;
+        });
+    }
+
+    /**
+     * 执行 Lua 脚本（返回多值）
+     * String 参数按原文传入（可直接作为 Hash 字段名），其他参数按值序列化方式写入；
+     * 返回的字符串元素按值序列化方式反序列化，整数元素原样返回
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public List<Object> executeScript(RedisScript<List> script, List<String> keys, Object... args) {
+        // 键和参数预先编码为字节，按原样传给脚本
+        List rawKeys = keys.stream().map(this::rawKey).collect(Collectors.toList());
+        Object[] rawArgs = new Object[args.length];
+        for (int i = 0; i < args.length; i++) {
+            rawArgs[i] = args[i] instanceof String ? ((String) args[i]).getBytes(StandardCharsets.UTF_8) : rawValue(args[i]);
+        }
+        RedisSerializer resultSerializer = redisTemplate.getValueSerializer();
+        List<Object> result = (List<Object>) redisTemplate.execute(script, RedisSerializer.byteArray(), resultSerializer, rawKeys, rawArgs);
+        return result == null ? new ArrayList<>() : result;
+    }
+
+    // ==================== 原始字节 ====================
+
+    /**
+     * 获取原始字节值（不经过值序列化器，用于位图等结构）
+     */
+    public byte[] getBytes(String key) {
+        return redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.stringCommands().get(rawKey(key)));
+    }
+
+    // ==================== 字符串 / Hash / 脚本 / 管道（纯字符串） ====================
+
+    /**
+     * 获取字符串值（纯字符串）
+     */
+    public String getString(String key) {
+        return stringRedisTemplate.opsForValue().get(key);
+    }
+
+    /**
+     * 设置字符串值并指定过期时间（纯字符串）
+     */
+    public void setString(String key, String value, long timeout, TimeUnit unit) {
+        stringRedisTemplate.opsForValue().set(key, value, timeout, unit);
+    }
+
+    /**
+     * Hash 获取所有字段（纯字符串）
+     */
+    public Map<String, String> hGetAllString(String key) {
+        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(key);
+        Map<String, String> result = new HashMap<>(entries.size());
+        entries.forEach((field, value) -> result.put((String) field, (String) value));
+        return result;
+    }
+
+    /**
+     * Hash 获取单个字段（纯字符串）
+     */
+    public String hGetString(String key, String hashKey) {
+        return (String) stringRedisTemplate.opsForHash().get(key, hashKey);
+    }
+
+    /**
+     * Set 获取所有成员（纯字符串）
+     */
+    public Set<String> sMembersString(String key) {
+        return stringRedisTemplate.opsForSet().members(key);
+    }
+
+    /**
+     * Set 添加成员（纯字符串）
+     */
+    public Long sAddString(String key, String... values) {
+        return stringRedisTemplate.opsForSet().add(key, values);
+    }
+
+    /**
+     * Set 随机弹出最多 count 个成员（纯字符串）
+     */
+    public List<String> sPopString(String key, long count) {
+        return stringRedisTemplate.opsForSet().pop(key, count);
+    }
+
+    /**
+     * 执行 Lua 脚本（参数与返回值均为纯字符串）
+     */
+    public <T> T executeStringScript(RedisScript<T> script, List<String> keys, String... args) {
+        return stringRedisTemplate.execute(script, keys, (Object[]) args);
+    }
+
+    /**
+     * 纯字符串管道：回调中的命令一次性发送，返回各命令结果
+     */
+    public List<Object> stringPipelined(Consumer<StringRedisConnection> action) {
+        return stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            action.accept((StringRedisConnection) connection);
+            return null;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawKey(String key) {
+        return ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawValue(Object value) {
+        return ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(value);
+    }
 }
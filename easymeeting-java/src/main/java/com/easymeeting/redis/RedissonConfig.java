@@ -1,15 +1,20 @@
 package com.easymeeting.redis;
 
 import com.easymeeting.entity.constants.Constants;
+import com.easymeeting.utils.StringUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.Redisson;
 import org.redisson.api.RedissonClient;
+import org.redisson.config.ClusterServersConfig;
 import org.redisson.config.Config;
+import org.redisson.config.SentinelServersConfig;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Arrays;
+
 /**
  * Redisson 配置类
  * 当 messaging.handle.channel=redis 时启用
@@ -19,6 +24,11 @@ import org.springframework.context.annotation.Configuration;
  * - 发布/订阅（Pub/Sub）
  * - 分布式集合
  * - 异步操作
+ *
+ * 部署拓扑与 Spring Data Redis（Lettuce）共用配置：
+ * - 配置了 spring.data.redis.cluster.nodes 时使用 Cluster 模式
+ * - 配置了 spring.data.redis.sentinel.master 时使用 Sentinel 模式
+ * - 否则使用单节点模式
  */
 @Configuration
 @ConditionalOnProperty(name = Constants.MESSAGE_HANDLE_CHANNEL, havingValue = Constants.MESSAGE_CHANNEL_REDIS)
@@ -37,6 +47,15 @@ public class RedissonConfig {
     @Value("${spring.data.redis.database:0}")
     private int redisDatabase;
 
+    @Value("${spring.data.redis.cluster.nodes:}")
+    private String clusterNodes;
+
+    @Value("${spring.data.redis.sentinel.master:}")
+    private String sentinelMaster;
+
+    @Value("${spring.data.redis.sentinel.nodes:}")
+    private String sentinelNodes;
+
     /**
      * 创建 RedissonClient Bean
      * 用于消息发布/订阅、分布式锁等功能
@@ -44,30 +63,76 @@ public class RedissonConfig {
     @Bean(name="redissonClient",destroyMethod = "shutdown")
     public RedissonClient redissonClient() {
         Config config = new Config();
-        
-        // 构建 Redis 地址
-        String redisAddress = String.format("redis://%s:%d", redisHost, redisPort);
-        
-        // 单节点模式配置
-        config.useSingleServer()
-                .setAddress(redisAddress)
-                .setDatabase(redisDatabase)
-                .setConnectionMinimumIdleSize(5)      // 最小空闲连接数
-                .setConnectionPoolSize(20)            // 连接池大小
-                .setIdleConnectionTimeout(10000)      // 空闲连接超时（毫秒）
-                .setConnectTimeout(10000)             // 连接超时（毫秒）
-                .setTimeout(3000)                     // 命令等待超时（毫秒）
-                .setRetryAttempts(3)                  // 命令重试次数
-                .setRetryInterval(1500);              // 命令重试间隔（毫秒）
-        
-        // 设置密码（如果有）
-        if (redisPassword != null && !redisPassword.isEmpty()) {
-            config.useSingleServer().setPassword(redisPassword);
+        String mode;
+        if (!StringUtils.isEmpty(clusterNodes)) {
+            mode = "cluster " + clusterNodes;
+            ClusterServersConfig clusterConfig = config.useClusterServers()
+                    .addNodeAddress(toAddresses(clusterNodes))
+                    .setScanInterval(5000)                // 拓扑刷新间隔（毫秒）
+                    .setMasterConnectionMinimumIdleSize(5)
+                    .setMasterConnectionPoolSize(20)
+                    .setIdleConnectionTimeout(10000)
+                    .setConnectTimeout(10000)
+                    .setTimeout(3000)
+                    .setRetryAttempts(3)
+                    .setRetryInterval(1500);
+            if (!StringUtils.isEmpty(redisPassword)) {
+                clusterConfig.setPassword(redisPassword);
+            }
+        } else if (!StringUtils.isEmpty(sentinelMaster)) {
+            mode = "sentinel " + sentinelMaster + "@" + sentinelNodes;
+            SentinelServersConfig sentinelConfig = config.useSentinelServers()
+                    .setMasterName(sentinelMaster)
+                    .addSentinelAddress(toAddresses(sentinelNodes))
+                    .setDatabase(redisDatabase)
+                    .setCheckSentinelsList(false)
+                    .setMasterConnectionMinimumIdleSize(5)
+                    .setMasterConnectionPoolSize(20)
+                    .setIdleConnectionTimeout(10000)
+                    .setConnectTimeout(10000)
+                    .setTimeout(3000)
+                    .setRetryAttempts(3)
+                    .setRetryInterval(1500);
+            if (!StringUtils.isEmpty(redisPassword)) {
+                sentinelConfig.setPassword(redisPassword);
+            }
+        } else {
+            // 构建 Redis 地址
+            String redisAddress = String.format("redis://%s:%d", redisHost, redisPort);
+            mode = "single " + redisAddress;
+
+            // 单节点模式配置
+            config.useSingleServer()
+                    .setAddress(redisAddress)
+                    .setDatabase(redisDatabase)
+                    .setConnectionMinimumIdleSize(5)      // 最小空闲连接数
+                    .setConnectionPoolSize(20)            // 连接池大小
+                    .setIdleConnectionTimeout(10000)      // 空闲连接超时（毫秒）
+                    .setConnectTimeout(10000)             // 连接超时（毫秒）
+                    .setTimeout(3000)                     // 命令等待超时（毫秒）
+                    .setRetryAttempts(3)                  // 命令重试次数
+                    .setRetryInterval(1500);              // 命令重试间隔（毫秒）
+
+            // 设置密码（如果有）
+            if (!StringUtils.isEmpty(redisPassword)) {
+                config.useSingleServer().setPassword(redisPassword);
+            }
         }
-        
+
         RedissonClient redissonClient = Redisson.create(config);
-        log.info("Redisson 客户端初始化成功，连接地址: {}, 数据库: {}", redisAddress, redisDatabase);
-        
+        log.info("Redisson 客户端初始化成功，部署模式: {}, 数据库: {}", mode, redisDatabase);
+
         return redissonClient;
     }
+
+    /**
+     * 将 host:port,host:port 形式的节点列表转换为 Redisson 地址
+     */
+    private String[] toAddresses(String nodes) {
+        return Arrays.stream(nodes.split(","))
+                .map(String::trim)
+                .filter(node -> !node.isEmpty())
+                .map(node -> node.startsWith("redis://") || node.startsWith("rediss://") ? node : "redis://" + node)
+                .toArray(String[]::new);
+    }
 }
@@ -0,0 +1,242 @@
+package com.easymeeting.redis;
+
+import com.easymeeting.dto.SessionEventDto;
+import com.easymeeting.dto.TokenUserInfoDto;
+import com.easymeeting.entity.constants.Constants;
+import com.easymeeting.utils.JwtUtils;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地会话过滤器（无状态会话模式）
+ * 开启 session.stateless 后，HTTP 请求在本地校验 JWT 并读取本地会话缓存，常规请求不再访问 Redis：
+ * - 吊销（退出登录、踢下线、单设备登录顶号）通过 Redis Pub/Sub 广播到所有节点，写入本地吊销表
+ * - 会话变更（进入/退出会议等）同样广播，各节点丢弃本地缓存，下次请求重新从 Redis 加载
+ * - 本地缓存有存活时间，即使错过广播，过期后也会回源 Redis 重新校验
+ *
+ * Token 续期检查在两种模式下都按 Token 限频，避免每个请求都查询 TTL
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class SessionRevocationFilter implements MessageListener {
+
+    private final RedisUtils redisUtils;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${session.stateless:false}")
+    private boolean stateless;
+
+    @Value("${session.local-cache-seconds:300}")
+    private long localCacheSeconds;
+
+    @Value("${session.renew-check-interval-seconds:600}")
+    private long renewCheckIntervalSeconds;
+
+    /**
+     * 已吊销的 Token -> 条目过期时间（毫秒），不早于 JWT 过期时间与一个会话有效期
+     */
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+
+    /**
+     * Token -> 本地会话缓存
+     */
+    private final Map<String, CachedSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Token -> 最近一次失效时的序号，用于丢弃失效前开始加载的旧会话
+     */
+    private final Map<String, Long> invalidatedStamps = new ConcurrentHashMap<>();
+    private final AtomicLong stampSequence = new AtomicLong();
+    private volatile long purgeStamp;
+
+    /**
+     * Token -> 上次续期检查时间（毫秒）
+     */
+    private final Map<String, Long> renewChecks = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        if (!stateless) {
+            return;
+        }
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(Constants.REDIS_CHANNEL_SESSION));
+        log.info("无状态会话模式已开启，本地缓存 {} 秒，续期检查间隔 {} 秒", localCacheSeconds, renewCheckIntervalSeconds);
+    }
+
+    public boolean isStateless() {
+        return stateless;
+    }
+
+    /**
+     * 本地校验 JWT 签名与吊销状态
+     * 不校验 JWT 的过期时间：会话续期只延长 Redis 会话，有效期以 Redis 会话（本地缓存过期后回源）为准，与有状态模式一致
+     * @return 校验通过返回 Claims，否则返回 null
+     */
+    public Claims verify(String token) {
+        if (revokedTokens.containsKey(token)) {
+            return null;
+        }
+        return JwtUtils.parseClaimsIgnoringExpiry(token);
+    }
+
+    /**
+     * 读取本地会话缓存（返回副本，请求内修改不影响缓存）
+     */
+    public TokenUserInfoDto getSession(String token) {
+        CachedSession cached = sessions.get(token);
+        if (cached == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - cached.loadTime > localCacheSeconds * 1000) {
+            sessions.remove(token, cached);
+            return null;
+        }
+        TokenUserInfoDto copy = new TokenUserInfoDto();
+        BeanUtils.copyProperties(cached.userInfo, copy);
+        return copy;
+    }
+
+    /**
+     * 回源 Redis 前获取序号，写入缓存时据此判断加载期间会话是否已失效
+     */
+    public long currentStamp() {
+        return stampSequence.get();
+    }
+
+    /**
+     * 写入本地会话缓存（加载期间会话已失效或吊销则放弃写入）
+     */
+    public void cacheSession(String token, TokenUserInfoDto userInfo, long loadStamp) {
+        if (!stateless || revokedTokens.containsKey(token)) {
+            return;
+        }
+        Long invalidatedStamp = invalidatedStamps.get(token);
+        if (invalidatedStamp != null && invalidatedStamp > loadStamp) {
+            return;
+        }
+        TokenUserInfoDto copy = new TokenUserInfoDto();
+        BeanUtils.copyProperties(userInfo, copy);
+        sessions.put(token, new CachedSession(copy, System.currentTimeMillis()));
+    }
+
+    /**
+     * 是否需要做续期检查（每个 Token 在间隔内只检查一次）
+     */
+    public boolean shouldCheckRenew(String token) {
+        long now = System.currentTimeMillis();
+        Long last = renewChecks.get(token);
+        if (last != null && now - last < renewCheckIntervalSeconds * 1000) {
+            return false;
+        }
+        renewChecks.put(token, now);
+        return true;
+    }
+
+    /**
+     * 吊销 Token：本地立即生效并广播到其他节点
+     */
+    public void revoke(Collection<String> tokens) {
+        if (!stateless || tokens.isEmpty()) {
+            return;
+        }
+        applyRevoke(tokens);
+        publish(true, tokens);
+    }
+
+    /**
+     * 会话已变更：本地立即丢弃缓存并广播到其他节点
+     */
+    public void invalidate(Collection<String> tokens) {
+        if (!stateless || tokens.isEmpty()) {
+            return;
+        }
+        applyInvalidate(tokens);
+        publish(false, tokens);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            SessionEventDto event = (SessionEventDto) redisUtils.deserializeValue(message.getBody());
+            if (event == null || event.getTokens() == null) {
+                return;
+            }
+            if (Boolean.TRUE.equals(event.getRevoked())) {
+                applyRevoke(event.getTokens());
+            } else {
+                applyInvalidate(event.getTokens());
+            }
+        } catch (Exception e) {
+            log.error("会话广播处理失败", e);
+        }
+    }
+
+    /**
+     * 清理过期的吊销记录、会话缓存与续期检查记录
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void purge() {
+        long now = System.currentTimeMillis();
+        revokedTokens.values().removeIf(expireTime -> expireTime < now);
+        sessions.values().removeIf(cached -> now - cached.loadTime > localCacheSeconds * 1000);
+        renewChecks.values().removeIf(last -> now - last > renewCheckIntervalSeconds * 1000);
+        // 上一轮清理之前的失效记录已不会有在途的回源加载，可以清理
+        long stamp = purgeStamp;
+        purgeStamp = stampSequence.get();
+        invalidatedStamps.values().removeIf(invalidatedStamp -> invalidatedStamp <= stamp);
+    }
+
+    private void applyInvalidate(Collection<String> tokens) {
+        long stamp = stampSequence.incrementAndGet();
+        for (String token : tokens) {
+            invalidatedStamps.put(token, stamp);
+            sessions.remove(token);
+        }
+    }
+
+    private void applyRevoke(Collection<String> tokens) {
+        for (String token : tokens) {
+            // 续期后的会话可能比 JWT 活得久，吊销记录至少保留一个会话有效期
+            Claims claims = JwtUtils.parseClaimsIgnoringExpiry(token);
+            long expireTime = System.currentTimeMillis() + Constants.REDIS_EXPIRE_TOKEN_MS;
+            if (claims != null && claims.getExpiration() != null) {
+                expireTime = Math.max(expireTime, claims.getExpiration().getTime());
+            }
+            revokedTokens.put(token, expireTime);
+            invalidatedStamps.put(token, stampSequence.incrementAndGet());
+            sessions.remove(token);
+            renewChecks.remove(token);
+        }
+    }
+
+    private void publish(boolean revoked, Collection<String> tokens) {
+        SessionEventDto event = new SessionEventDto();
+        event.setRevoked(revoked);
+        event.setTokens(List.copyOf(tokens));
+        try {
+            redisUtils.publish(Constants.REDIS_CHANNEL_SESSION, event);
+        } catch (Exception e) {
+            log.error("会话广播发送失败，其他节点将在本地缓存过期后生效", e);
+        }
+    }
+
+    private record CachedSession(TokenUserInfoDto userInfo, long loadTime) {
+    }
+}
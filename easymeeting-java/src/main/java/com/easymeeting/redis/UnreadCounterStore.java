@@ -0,0 +1,382 @@
+package com.easymeeting.redis;
+
+import com.easymeeting.entity.PrivateChatUnread;
+import com.easymeeting.entity.constants.Constants;
+import com.easymeeting.mapper.PrivateChatUnreadMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 私聊未读计数（Redis 为准，定时写回 private_chat_unread）
+ * 每个用户一个 Hash：c:{contactId} 未读数，t:{contactId} 最后消息时间，p:{contactId} 最后消息预览，
+ * _loaded 标记已从数据库加载；首次访问时从数据库加载（HSETNX，不覆盖并发写入），之后读写都只访问 Redis
+ *
+ * - 变更时把 userId|contactId 加入待写回集合，写回任务批量弹出，读取 Hash 中的当前值覆盖写入数据库，
+ *   同一会话多次变更只写一次；写回失败时放回集合
+ * - 写回由分布式锁保证同一时间只有一个节点执行，避免旧值覆盖新值
+ * - Redis 不可用时退化为直接读写数据库，并删除该用户的 Hash（删除失败时记下，之后访问或写回前重试），
+ *   下次访问从数据库重新加载，避免旧的 Hash 覆盖直接写入数据库的值
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class UnreadCounterStore {
+
+    private static final String FIELD_LOADED = "_loaded";
+    private static final String FIELD_COUNT = "c:";
+    private static final String FIELD_TIME = "t:";
+    private static final String FIELD_PREVIEW = "p:";
+    private static final String MEMBER_SEPARATOR = "|";
+
+    /**
+     * 未读数加一并更新最后消息（时间不早于已有时间时），未加载返回 -1
+     */
+    private static final RedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('HEXISTS', KEYS[1], '_loaded') == 0 then
+                return -1
+            end
+            local count = redis.call('HINCRBY', KEYS[1], 'c:' .. ARGV[1], 1)
+            local time = tonumber(redis.call('HGET', KEYS[1], 't:' .. ARGV[1]) or '0')
+            if tonumber(ARGV[2]) >= time then
+                redis.call('HSET', KEYS[1], 't:' .. ARGV[1], ARGV[2], 'p:' .. ARGV[1], ARGV[3])
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[4])
+            return count
+            """, Long.class);
+
+    /**
+     * 未读数清零，未加载返回 -1，无该会话返回 0
+     */
+    private static final RedisScript<Long> CLEAR_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('HEXISTS', KEYS[1], '_loaded') == 0 then
+                return -1
+            end
+            if redis.call('HEXISTS', KEYS[1], 'c:' .. ARGV[1]) == 0 then
+                return 0
+            end
+            redis.call('HSET', KEYS[1], 'c:' .. ARGV[1], 0)
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+            return 1
+            """, Long.class);
+
+    /**
+     * 从数据库加载：ARGV[1] 为过期时间，之后每 4 个参数为 contactId、未读数、时间、预览
+     */
+    private static final RedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>("""
+            for i = 2, #ARGV, 4 do
+                redis.call('HSETNX', KEYS[1], 'c:' .. ARGV[i], ARGV[i + 1])
+                redis.call('HSETNX', KEYS[1], 't:' .. ARGV[i], ARGV[i + 2])
+                redis.call('HSETNX', KEYS[1], 'p:' .. ARGV[i], ARGV[i + 3])
+            end
+            redis.call('HSET', KEYS[1], '_loaded', 1)
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            return 1
+            """, Long.class);
+
+    private static final RedisScript<Long> LOCK_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then
+                return 1
+            end
+            return 0
+            """, Long.class);
+
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final PrivateChatUnreadMapper privateChatUnreadMapper;
+    private final RedisUtils redisUtils;
+
+    @Value("${unread.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    /**
+     * 写回锁持有者标识
+     */
+    private final String lockToken = UUID.randomUUID().toString();
+
+    /**
+     * 直接写过数据库、但 Hash 尚未删除的用户
+     */
+    private final Set<String> staleUsers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 接收者未读数加一并更新最后消息预览
+     */
+    public void increment(String userId, String contactId, Long messageTime, String preview) {
+        try {
+            dropStale(userId);
+            markDirty(userId, contactId);
+            String[] args = {contactId, String.valueOf(messageTime), preview == null ? "" : preview,
+                    String.valueOf(Constants.REDIS_EXPIRE_UNREAD)};
+            if (execute(INCREMENT_SCRIPT, userId, args) < 0) {
+                load(userId);
+                execute(INCREMENT_SCRIPT, userId, args);
+            }
+        } catch (Exception e) {
+            log.warn("未读计数写入 Redis 失败，直接写数据库: {}", e.getMessage());
+            privateChatUnreadMapper.incrementUnreadCount(userId, contactId, messageTime, preview);
+            invalidate(userId);
+        }
+    }
+
+    /**
+     * 会话未读数清零
+     */
+    public void clear(String userId, String contactId) {
+        try {
+            dropStale(userId);
+            markDirty(userId, contactId);
+            String[] args = {contactId, String.valueOf(Constants.REDIS_EXPIRE_UNREAD)};
+            if (execute(CLEAR_SCRIPT, userId, args) < 0) {
+                load(userId);
+                execute(CLEAR_SCRIPT, userId, args);
+            }
+        } catch (Exception e) {
+            log.warn("未读计数清零写入 Redis 失败，直接写数据库: {}", e.getMessage());
+            privateChatUnreadMapper.clearUnreadCount(userId, contactId);
+            invalidate(userId);
+        }
+    }
+
+    /**
+     * 用户所有未读数大于 0 的会话，按最后消息时间倒序
+     */
+    public List<PrivateChatUnread> getUnreadList(String userId) {
+        List<PrivateChatUnread> result = new ArrayList<>();
+        for (PrivateChatUnread unread : getConversations(userId)) {
+            if (unread.getUnreadCount() != null && unread.getUnreadCount() > 0) {
+                result.add(unread);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 用户所有会话的未读数与最后消息（包含已读的会话），按最后消息时间倒序
+     */
+    public List<PrivateChatUnread> getConversations(String userId) {
+        Map<String, String> hash;
+        try {
+            dropStale(userId);
+            hash = redisUtils.hGetAllString(key(userId));
+            if (!hash.containsKey(FIELD_LOADED)) {
+                load(userId);
+                hash = redisUtils.hGetAllString(key(userId));
+            }
+        } catch (Exception e) {
+            log.warn("读取未读计数失败，回源数据库: {}", e.getMessage());
+            return privateChatUnreadMapper.selectByUserId(userId);
+        }
+        List<PrivateChatUnread> result = new ArrayList<>();
+        for (String field : hash.keySet()) {
+            if (!field.startsWith(FIELD_COUNT)) {
+                continue;
+            }
+            PrivateChatUnread unread = toUnread(userId, field.substring(FIELD_COUNT.length()), hash);
+            if (unread != null) {
+                result.add(unread);
+            }
+        }
+        result.sort(Comparator.comparing(PrivateChatUnread::getLastMessageTime,
+                Comparator.nullsLast(Comparator.reverseOrder())));
+        return result;
+    }
+
+    /**
+     * 用户所有会话的未读数（只包含大于 0 的），按最后消息时间倒序
+     */
+    public Map<String, Integer> getUnreadCounts(String userId) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (PrivateChatUnread unread : getUnreadList(userId)) {
+            result.put(unread.getContactId(), unread.getUnreadCount());
+        }
+        return result;
+    }
+
+    /**
+     * 单个会话的未读数
+     */
+    public int getUnreadCount(String userId, String contactId) {
+        try {
+            dropStale(userId);
+            String value = redisUtils.hGetString(key(userId), FIELD_COUNT + contactId);
+            if (value == null && redisUtils.hGetString(key(userId), FIELD_LOADED) == null) {
+                load(userId);
+                value = redisUtils.hGetString(key(userId), FIELD_COUNT + contactId);
+            }
+            return value == null ? 0 : Integer.parseInt(value);
+        } catch (Exception e) {
+            log.warn("读取未读计数失败，回源数据库: {}", e.getMessage());
+            Integer count = privateChatUnreadMapper.getUnreadCount(userId, contactId);
+            return count == null ? 0 : count;
+        }
+    }
+
+    /**
+     * 定时把变更过的会话写回数据库
+     */
+    @Scheduled(fixedDelayString = "${unread.flush-interval-ms:2000}")
+    public void flush() {
+        for (String userId : staleUsers) {
+            try {
+                dropStale(userId);
+            } catch (Exception e) {
+                log.warn("删除用户 {} 的未读计数缓存失败: {}", userId, e.getMessage());
+            }
+        }
+        try {
+            Long locked = redisUtils.executeStringScript(LOCK_SCRIPT,
+                    Collections.singletonList(Constants.REDIS_KEY_UNREAD_FLUSH_LOCK), lockToken, "60000");
+            if (locked == null || locked != 1L) {
+                return;
+            }
+        } catch (Exception e) {
+            log.warn("未读计数写回加锁失败: {}", e.getMessage());
+            return;
+        }
+        try {
+            List<String> members;
+            while (!(members = redisUtils.sPopString(Constants.REDIS_KEY_UNREAD_DIRTY, flushBatchSize)).isEmpty()) {
+                writeBack(members);
+                if (members.size() < flushBatchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("未读计数写回失败", e);
+        } finally {
+            try {
+                redisUtils.executeStringScript(UNLOCK_SCRIPT, Collections.singletonList(Constants.REDIS_KEY_UNREAD_FLUSH_LOCK), lockToken);
+            } catch (Exception e) {
+                log.warn("未读计数写回解锁失败，锁将自动过期: {}", e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+
+    /**
+     * 读取弹出会话的当前值覆盖写入数据库，失败时放回待写回集合
+     */
+    private void writeBack(List<String> members) {
+        Map<String, List<String>> contactsByUser = new HashMap<>();
+        for (String member : members) {
+            int index = member.indexOf(MEMBER_SEPARATOR);
+            contactsByUser.computeIfAbsent(member.substring(0, index), k -> new ArrayList<>())
+                    .add(member.substring(index + 1));
+        }
+        List<PrivateChatUnread> rows = new ArrayList<>(members.size());
+        contactsByUser.forEach((userId, contactIds) -> {
+            if (staleUsers.contains(userId)) {
+                // 数据库中已是直接写入的值，Hash 删除前不写回
+                return;
+            }
+            Map<String, String> hash = redisUtils.hGetAllString(key(userId));
+            for (String contactId : contactIds) {
+                PrivateChatUnread unread = toUnread(userId, contactId, hash);
+                if (unread != null) {
+                    rows.add(unread);
+                }
+            }
+        });
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            privateChatUnreadMapper.upsertBatch(rows);
+        } catch (Exception e) {
+            log.error("未读计数写回数据库失败，数量: {}", rows.size(), e);
+            redisUtils.sAddString(Constants.REDIS_KEY_UNREAD_DIRTY, members.toArray(new String[0]));
+        }
+    }
+
+    /**
+     * 从数据库加载用户的未读计数（已有字段不覆盖）
+     */
+    private void load(String userId) {
+        List<PrivateChatUnread> rows = privateChatUnreadMapper.selectByUserId(userId);
+        List<String> args = new ArrayList<>(rows.size() * 4 + 1);
+        args.add(String.valueOf(Constants.REDIS_EXPIRE_UNREAD));
+        for (PrivateChatUnread row : rows) {
+            args.add(row.getContactId());
+            args.add(String.valueOf(row.getUnreadCount() == null ? 0 : row.getUnreadCount()));
+            args.add(String.valueOf(row.getLastMessageTime() == null ? 0 : row.getLastMessageTime()));
+            args.add(row.getLastMessageContent() == null ? "" : row.getLastMessageContent());
+        }
+        redisUtils.executeStringScript(LOAD_SCRIPT, Collections.singletonList(key(userId)), args.toArray(new String[0]));
+    }
+
+    /**
+     * 直接写数据库后删除用户的 Hash，失败时记下等待重试
+     */
+    private void invalidate(String userId) {
+        staleUsers.add(userId);
+        try {
+            dropStale(userId);
+        } catch (Exception e) {
+            log.warn("删除用户 {} 的未读计数缓存失败，稍后重试: {}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * 删除记下的旧 Hash，失败时抛出异常（调用方按 Redis 不可用处理）
+     */
+    private void dropStale(String userId) {
+        if (staleUsers.contains(userId)) {
+            redisUtils.delete(key(userId));
+            staleUsers.remove(userId);
+        }
+    }
+
+    private void markDirty(String userId, String contactId) {
+        redisUtils.sAddString(Constants.REDIS_KEY_UNREAD_DIRTY, userId + MEMBER_SEPARATOR + contactId);
+    }
+
+    private long execute(RedisScript<Long> script, String userId, String... args) {
+        Long result = redisUtils.executeStringScript(script, Collections.singletonList(key(userId)), args);
+        return result == null ? -1 : result;
+    }
+
+    private static PrivateChatUnread toUnread(String userId, String contactId, Map<String, String> hash) {
+        String count = hash.get(FIELD_COUNT + contactId);
+        if (count == null) {
+            return null;
+        }
+        String time = hash.get(FIELD_TIME + contactId);
+        PrivateChatUnread unread = new PrivateChatUnread();
+        unread.setUserId(userId);
+        unread.setContactId(contactId);
+        unread.setUnreadCount(Integer.parseInt(count));
+        unread.setLastMessageTime(time == null || "0".equals(time) ? null : Long.parseLong(time));
+        unread.setLastMessageContent(hash.get(FIELD_PREVIEW + contactId));
+        return unread;
+    }
+
+    private static String key(String userId) {
+        return Constants.REDIS_KEY_UNREAD + userId;
+    }
+}
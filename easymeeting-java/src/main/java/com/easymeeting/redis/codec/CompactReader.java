@@ -0,0 +1,67 @@
+package com.easymeeting.redis.codec;
+
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 紧凑编码读取器，与 CompactWriter 对应
+ */
+public class CompactReader {
+
+    private final byte[] bytes;
+    private int position;
+
+    public CompactReader(byte[] bytes, int offset) {
+        this.bytes = bytes;
+        this.position = offset;
+    }
+
+    public int readByte() {
+        if (position >= bytes.length) {
+            throw new SerializationException("紧凑编码数据不完整");
+        }
+        return bytes[position++] & 0xFF;
+    }
+
+    public long readLong() {
+        long zigzag = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift > 63) {
+                throw new SerializationException("紧凑编码变长整数过长");
+            }
+            b = readByte();
+            zigzag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    public Integer readInteger() {
+        return readByte() == 0 ? null : (int) readLong();
+    }
+
+    public Long readNullableLong() {
+        return readByte() == 0 ? null : readLong();
+    }
+
+    public Boolean readBoolean() {
+        int value = readByte();
+        return value == 0 ? null : value == 2;
+    }
+
+    public String readString() {
+        long length = readLong();
+        if (length < 0) {
+            return null;
+        }
+        if (length > bytes.length - position) {
+            throw new SerializationException("紧凑编码字符串长度越界");
+        }
+        String value = new String(bytes, position, (int) length, StandardCharsets.UTF_8);
+        position += (int) length;
+        return value;
+    }
+}
@@ -0,0 +1,127 @@
+package com.easymeeting.redis.codec;
+
+import com.easymeeting.vo.CodecStatsVo;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Redis 值序列化器：热点类型使用紧凑二进制编码，其他类型仍使用带 @class 的 JSON
+ *
+ * 二进制格式：[0xC1 标记][类型ID][模式版本][字段...]
+ * 0xC1 不是合法的 UTF-8 首字节，不会与 JSON 混淆，因此读取时可按首字节自动识别，
+ * 旧的 JSON 数据无需迁移脚本，读取正常，下次写入时自动转为二进制
+ *
+ * 滚动升级时先以 redis.codec.compact-write=false 部署（只读二进制），全部节点升级后再开启写入
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    private static final int MAGIC = 0xC1;
+    private static final int HEADER_LENGTH = 3;
+
+    private final GenericJackson2JsonRedisSerializer jsonSerializer;
+    private final boolean compactWrite;
+    private final Map<Class<?>, RedisValueCodec<?>> codecsByType = new HashMap<>();
+    private final RedisValueCodec<?>[] codecsById = new RedisValueCodec<?>[256];
+
+    public CompactRedisSerializer(GenericJackson2JsonRedisSerializer jsonSerializer, boolean compactWrite) {
+        this.jsonSerializer = jsonSerializer;
+        this.compactWrite = compactWrite;
+    }
+
+    /**
+     * 注册类型编解码器
+     */
+    public CompactRedisSerializer register(RedisValueCodec<?> codec) {
+        int id = codec.typeId() & 0xFF;
+        if (codecsById[id] != null) {
+            throw new IllegalStateException("紧凑编码类型ID重复: " + id);
+        }
+        codecsById[id] = codec;
+        codecsByType.put(codec.type(), codec);
+        return this;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        RedisValueCodec<?> codec = compactWrite ? codecsByType.get(value.getClass()) : null;
+        if (codec == null) {
+            return jsonSerializer.serialize(value);
+        }
+        return encode(codec, value);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if ((bytes[0] & 0xFF) != MAGIC) {
+            return jsonSerializer.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_LENGTH) {
+            throw new SerializationException("紧凑编码数据头不完整");
+        }
+        RedisValueCodec<?> codec = codecsById[bytes[1] & 0xFF];
+        if (codec == null) {
+            throw new SerializationException("未知的紧凑编码类型: " + (bytes[1] & 0xFF));
+        }
+        return codec.read(new CompactReader(bytes, HEADER_LENGTH), bytes[2]);
+    }
+
+    /**
+     * 对比同一批值在 JSON 与紧凑编码下的大小和解码耗时
+     */
+    public CodecStatsVo compare(Collection<?> values) {
+        List<byte[]> jsonValues = new ArrayList<>(values.size());
+        List<byte[]> compactValues = new ArrayList<>(values.size());
+        long jsonBytes = 0;
+        long compactBytes = 0;
+        for (Object value : values) {
+            byte[] json = jsonSerializer.serialize(value);
+            RedisValueCodec<?> codec = codecsByType.get(value.getClass());
+            byte[] compact = codec == null ? json : encode(codec, value);
+            jsonValues.add(json);
+            compactValues.add(compact);
+            jsonBytes += json.length;
+            compactBytes += compact.length;
+        }
+        long start = System.nanoTime();
+        jsonValues.forEach(jsonSerializer::deserialize);
+        long jsonDecodeNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        compactValues.forEach(this::deserialize);
+        long compactDecodeNanos = System.nanoTime() - start;
+
+        int count = values.size();
+        CodecStatsVo stats = new CodecStatsVo();
+        stats.setCount(count);
+        stats.setJsonBytes(jsonBytes);
+        stats.setCompactBytes(compactBytes);
+        stats.setJsonBytesPerValue(count == 0 ? 0D : (double) jsonBytes / count);
+        stats.setCompactBytesPerValue(count == 0 ? 0D : (double) compactBytes / count);
+        stats.setJsonDecodeNanos(jsonDecodeNanos);
+        stats.setCompactDecodeNanos(compactDecodeNanos);
+        stats.setCompactWrite(compactWrite);
+        return stats;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> byte[] encode(RedisValueCodec<T> codec, Object value) {
+        CompactWriter writer = new CompactWriter()
+                .writeByte(MAGIC)
+                .writeByte(codec.typeId())
+                .writeByte(codec.version());
+        codec.write((T) value, writer);
+        return writer.toByteArray();
+    }
+}
@@ -0,0 +1,62 @@
+package com.easymeeting.redis.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 紧凑编码写入器：整数使用 zigzag 变长编码，字符串为 变长长度 + UTF-8，可空值带存在标记
+ */
+public class CompactWriter {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+
+    public CompactWriter writeByte(int value) {
+        out.write(value);
+        return this;
+    }
+
+    public CompactWriter writeLong(long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.write((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.write((int) zigzag);
+        return this;
+    }
+
+    public CompactWriter writeInteger(Integer value) {
+        if (value == null) {
+            return writeByte(0);
+        }
+        writeByte(1);
+        return writeLong(value);
+    }
+
+    public CompactWriter writeNullableLong(Long value) {
+        if (value == null) {
+            return writeByte(0);
+        }
+        writeByte(1);
+        return writeLong(value);
+    }
+
+    public CompactWriter writeBoolean(Boolean value) {
+        // 0 = null，1 = false，2 = true
+        return writeByte(value == null ? 0 : (value ? 2 : 1));
+    }
+
+    public CompactWriter writeString(String value) {
+        if (value == null) {
+            return writeLong(-1);
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeLong(bytes.length);
+        out.write(bytes, 0, bytes.length);
+        return this;
+    }
+
+    public byte[] toByteArray() {
+        return out.toByteArray();
+    }
+}
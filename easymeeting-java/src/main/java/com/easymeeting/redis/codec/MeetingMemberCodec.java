@@ -0,0 +1,50 @@
+package com.easymeeting.redis.codec;
+
+import com.easymeeting.dto.MeetingMemberDto;
+
+/**
+ * 会议成员编解码（会议房间 Hash 的字段值）
+ *
+ * 版本 1：userId, nickName, joinTime, memberType, status, videoOpen, sex
+ */
+public class MeetingMemberCodec implements RedisValueCodec<MeetingMemberDto> {
+
+    @Override
+    public byte typeId() {
+        return 1;
+    }
+
+    @Override
+    public byte version() {
+        return 1;
+    }
+
+    @Override
+    public Class<MeetingMemberDto> type() {
+        return MeetingMemberDto.class;
+    }
+
+    @Override
+    public void write(MeetingMemberDto value, CompactWriter writer) {
+        writer.writeString(value.getUserId())
+                .writeString(value.getNickName())
+                .writeLong(value.getJoinTime())
+                .writeInteger(value.getMemberType())
+                .writeInteger(value.getStatus())
+                .writeBoolean(value.getVideoOpen())
+                .writeInteger(value.getSex());
+    }
+
+    @Override
+    public MeetingMemberDto read(CompactReader reader, byte version) {
+        MeetingMemberDto member = new MeetingMemberDto();
+        member.setUserId(reader.readString());
+        member.setNickName(reader.readString());
+        member.setJoinTime(reader.readLong());
+        member.setMemberType(reader.readInteger());
+        member.setStatus(reader.readInteger());
+        member.setVideoOpen(reader.readBoolean());
+        member.setSex(reader.readInteger());
+        return member;
+    }
+}
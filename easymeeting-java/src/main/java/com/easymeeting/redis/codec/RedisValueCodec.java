@@ -0,0 +1,28 @@
+package com.easymeeting.redis.codec;
+
+/**
+ * 紧凑二进制值编解码器
+ * 每个类型占用一个类型ID，编码结果带模式版本号；
+ * 新版本只允许在末尾追加字段，读取时按版本解码已知字段，忽略未知的尾部字段
+ */
+public interface RedisValueCodec<T> {
+
+    /**
+     * 类型ID（全局唯一，写入后不可修改）
+     */
+    byte typeId();
+
+    /**
+     * 当前写入的模式版本号
+     */
+    byte version();
+
+    Class<T> type();
+
+    void write(T value, CompactWriter writer);
+
+    /**
+     * @param version 数据写入时的模式版本号
+     */
+    T read(CompactReader reader, byte version);
+}
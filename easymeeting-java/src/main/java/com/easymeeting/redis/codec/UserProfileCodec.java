@@ -0,0 +1,48 @@
+package com.easymeeting.redis.codec;
+
+import com.easymeeting.dto.UserProfileDto;
+
+/**
+ * 用户资料编解码（用户资料缓存的值）
+ *
+ * 版本 1：userId, nickName, sex, meetingNo, lastLoginTime, lastOffTime
+ */
+public class UserProfileCodec implements RedisValueCodec<UserProfileDto> {
+
+    @Override
+    public byte typeId() {
+        return 2;
+    }
+
+    @Override
+    public byte version() {
+        return 1;
+    }
+
+    @Override
+    public Class<UserProfileDto> type() {
+        return UserProfileDto.class;
+    }
+
+    @Override
+    public void write(UserProfileDto value, CompactWriter writer) {
+        writer.writeString(value.getUserId())
+                .writeString(value.getNickName())
+                .writeInteger(value.getSex())
+                .writeString(value.getMeetingNo())
+                .writeNullableLong(value.getLastLoginTime())
+                .writeNullableLong(value.getLastOffTime());
+    }
+
+    @Override
+    public UserProfileDto read(CompactReader reader, byte version) {
+        UserProfileDto profile = new UserProfileDto();
+        profile.setUserId(reader.readString());
+        profile.setNickName(reader.readString());
+        profile.setSex(reader.readInteger());
+        profile.setMeetingNo(reader.readString());
+        profile.setLastLoginTime(reader.readNullableLong());
+        profile.setLastOffTime(reader.readNullableLong());
+        return profile;
+    }
+}
@@ -0,0 +1,92 @@
+package com.easymeeting.search;
+
+import java.text.Normalizer;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 聊天消息分词
+ * 文本先做 NFKC 归一化（全角转半角）并转小写，然后按字符类别切分：
+ * - 中日韩文字（汉字、假名、谚文）连续片段：索引时输出单字和相邻两字（二元组），查询时片段长度不少于 2 只用二元组，单字用单字；
+ *   查询词的每个二元组都出现在消息中即命中
+ * - 字母、数字连续片段：整词（过长截断）
+ * - 其他字符（标点、空白、表情）作为分隔符
+ */
+public final class ChatTokenizer {
+
+    private static final int MAX_WORD_LENGTH = 32;
+
+    private ChatTokenizer() {
+    }
+
+    /**
+     * 索引用的词
+     */
+    public static Set<String> indexTokens(String text) {
+        return tokenize(text, true);
+    }
+
+    /**
+     * 查询用的词（全部命中才算匹配）
+     */
+    public static Set<String> queryTokens(String text) {
+        return tokenize(text, false);
+    }
+
+    private static Set<String> tokenize(String text, boolean forIndex) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        int length = normalized.length();
+        int i = 0;
+        while (i < length) {
+            int codePoint = normalized.codePointAt(i);
+            if (isCjk(codePoint)) {
+                int end = i;
+                while (end < length && isCjk(normalized.codePointAt(end))) {
+                    end += Character.charCount(normalized.codePointAt(end));
+                }
+                addCjk(normalized.substring(i, end), forIndex, tokens);
+                i = end;
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                int end = i;
+                while (end < length) {
+                    int next = normalized.codePointAt(end);
+                    if (isCjk(next) || !Character.isLetterOrDigit(next)) {
+                        break;
+                    }
+                    end += Character.charCount(next);
+                }
+                String word = normalized.substring(i, end);
+                tokens.add(word.length() > MAX_WORD_LENGTH ? word.substring(0, MAX_WORD_LENGTH) : word);
+                i = end;
+            } else {
+                i += Character.charCount(codePoint);
+            }
+        }
+        return tokens;
+    }
+
+    private static void addCjk(String run, boolean forIndex, Set<String> tokens) {
+        int[] codePoints = run.codePoints().toArray();
+        if (forIndex || codePoints.length == 1) {
+            for (int codePoint : codePoints) {
+                tokens.add(new String(Character.toChars(codePoint)));
+            }
+        }
+        for (int i = 0; i + 1 < codePoints.length; i++) {
+            tokens.add(new String(codePoints, i, 2));
+        }
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
@@ -0,0 +1,13 @@
+package com.easymeeting.search;
+
+/**
+ * 被索引的消息
+ *
+ * @param messageId     消息ID
+ * @param receiveType   接收类型（会议消息：0群发，1私聊；私聊会话中的消息对会话双方都可见）
+ * @param sendUserId    发送者用户ID
+ * @param receiveUserId 接收者用户ID
+ * @param text          被索引的文本（文本消息内容或媒体消息文件名），只用于分词，不保存
+ */
+public record SearchDoc(long messageId, int receiveType, String sendUserId, String receiveUserId, String text) {
+}
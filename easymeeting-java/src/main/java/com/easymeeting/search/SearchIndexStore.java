@@ -0,0 +1,170 @@
+package com.easymeeting.search;
+
+import com.easymeeting.exception.BusinessException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongFunction;
+import java.util.regex.Pattern;
+
+/**
+ * 本节点的消息搜索索引
+ * 每个会议 / 私聊会话一个分区，目录为 {dir}/{范围}/{ID哈希低 8 位}/{ID}/；
+ * 最多同时打开 max-open-partitions 个分区（LRU），被淘汰的分区写完内存缓冲后关闭，关闭前再次打开时直接复用
+ */
+@Component
+@Slf4j
+public class SearchIndexStore {
+
+    public static final String SCOPE_MEETING = "meeting";
+    public static final String SCOPE_PRIVATE = "private";
+
+    /**
+     * 合并分级的基准文档数：不超过该值的段为第 0 级，之后每级乘以 merge-segments
+     */
+    private static final int MERGE_BASE_DOCS = 256;
+    private static final Pattern PARTITION_ID_PATTERN = Pattern.compile("[0-9A-Za-z_]{1,64}");
+
+    @Value("${search.dir:${project.folder}search-index/}")
+    private String indexDir;
+
+    @Value("${search.max-open-partitions:500}")
+    private int maxOpenPartitions;
+
+    @Value("${search.merge-segments:4}")
+    private int mergeSegments;
+
+    @Value("${search.catch-up-overlap-ms:10000}")
+    private long catchUpOverlapMs;
+
+    /**
+     * 范围:ID -> 已打开的分区（访问顺序）
+     */
+    private Map<String, SearchPartition> partitions;
+
+    /**
+     * 已被淘汰、正在写入内存缓冲的分区
+     */
+    private final Map<String, SearchPartition> closing = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        partitions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SearchPartition> eldest) {
+                if (size() > maxOpenPartitions) {
+                    closing.put(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 打开分区，首次打开时加载段文件并补录数据库中的消息
+     *
+     * @param catchUp 起始消息ID（不含） -> 需要补录的消息（按消息ID升序）
+     */
+    public SearchPartition open(String scope, String id, LongFunction<List<SearchDoc>> catchUp) throws IOException {
+        String key = key(scope, id);
+        SearchPartition partition;
+        synchronized (this) {
+            partition = partitions.get(key);
+            if (partition == null) {
+                partition = closing.get(key);
+                if (partition == null) {
+                    partition = new SearchPartition(key, partitionDir(scope, id));
+                }
+                partitions.put(key, partition);
+            }
+        }
+        closeEvicted();
+        try {
+            partition.load(catchUp, catchUpOverlapMs);
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                partitions.remove(key, partition);
+            }
+            throw e;
+        }
+        return partition;
+    }
+
+    /**
+     * 已打开（或正在打开）的分区，未打开返回 null（之后打开时从数据库补录）
+     */
+    public synchronized SearchPartition getIfOpen(String scope, String id) {
+        String key = key(scope, id);
+        SearchPartition partition = partitions.get(key);
+        return partition != null ? partition : closing.get(key);
+    }
+
+    /**
+     * 定时补录新打开的分区、写入内存缓冲并合并段
+     */
+    @Scheduled(fixedDelayString = "${search.flush-interval-ms:5000}")
+    public void maintain() {
+        closeEvicted();
+        for (SearchPartition partition : snapshot()) {
+            try {
+                partition.recheck(catchUpOverlapMs);
+                partition.flush();
+                partition.merge(mergeSegments, MERGE_BASE_DOCS);
+            } catch (IOException | RuntimeException e) {
+                log.warn("搜索索引 {} 写入失败: {}", partition.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        closeEvicted();
+        for (SearchPartition partition : snapshot()) {
+            try {
+                partition.flush();
+            } catch (IOException | RuntimeException e) {
+                log.warn("搜索索引 {} 关闭时写入失败: {}", partition.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private synchronized List<SearchPartition> snapshot() {
+        return new ArrayList<>(partitions.values());
+    }
+
+    private void closeEvicted() {
+        for (Map.Entry<String, SearchPartition> entry : new ArrayList<>(closing.entrySet())) {
+            try {
+                entry.getValue().flush();
+            } catch (IOException | RuntimeException e) {
+                log.warn("搜索索引 {} 关闭时写入失败: {}", entry.getKey(), e.getMessage());
+            }
+            closing.remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private Path partitionDir(String scope, String id) {
+        String bucket = String.format("%02x", id.hashCode() & 0xff);
+        return Paths.get(indexDir, scope, bucket, id);
+    }
+
+    private static String key(String scope, String id) {
+        if (id == null || !PARTITION_ID_PATTERN.matcher(id).matches()) {
+            throw new BusinessException("搜索范围不正确");
+        }
+        return scope + ":" + id;
+    }
+}
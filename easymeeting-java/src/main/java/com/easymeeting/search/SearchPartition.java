@@ -0,0 +1,475 @@
+package com.easymeeting.search;
+
+import com.easymeeting.enums.ReceiveTypeEnum;
+import com.easymeeting.service.impl.SnowflakeIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 单个会议或私聊会话的搜索索引
+ * 新消息先进入内存缓冲（可立即搜索），定时写成不可变的段文件 seg-{起始代}-{结束代}.idx；
+ * 代号相邻、大小同级的段达到 merge-segments 个时在后台合并为一个段。
+ * 同一消息的新版本（修改后重新索引）覆盖旧段中的版本；删除的消息追加到 deleted.ids 中（每条 8 字节），
+ * 合并时从段中清除，合并后已不在任何段中的删除记录随之移除并重写该文件。
+ *
+ * 打开时加载段文件，并从数据库补录已索引最大消息ID之后（回退一小段时间，覆盖乱序入库的消息）的消息，
+ * 稍后再补录一次；加载完成前收到的增量先排队，加载后按消息ID去重应用。
+ * 补录只覆盖新消息，分区未打开期间的修改 / 删除由调用方在返回结果前按消息当前内容校验，再通过 add / delete 修正
+ */
+@Slf4j
+public class SearchPartition {
+
+    private static final Pattern SEGMENT_FILE = Pattern.compile("seg-(\\d+)-(\\d+)\\.idx");
+    private static final String DELETED_FILE = "deleted.ids";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final String key;
+    private final Path dir;
+    private final Object loadLock = new Object();
+    /**
+     * 追加与重写 deleted.ids 互斥
+     */
+    private final Object deletedFileLock = new Object();
+
+    /**
+     * 按代号从旧到新
+     */
+    private List<SearchSegment> segments = new ArrayList<>();
+    private final Map<Long, SearchSegment.Entry> memory = new LinkedHashMap<>();
+    private Set<Long> deleted = new HashSet<>();
+    private final List<Runnable> pendingUpdates = new ArrayList<>();
+    private long nextGeneration = 1;
+    private volatile boolean ready;
+    private LongFunction<List<SearchDoc>> recheckCatchUp;
+    private long recheckAfterId;
+    private long loadedAt;
+    private boolean merging;
+
+    SearchPartition(String key, Path dir) {
+        this.key = key;
+        this.dir = dir;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * 加载段文件并补录数据库中尚未索引的消息（只执行一次）
+     *
+     * @param catchUp   起始消息ID（不含） -> 需要补录的消息
+     * @param overlapMs 补录起点从已索引的最大消息ID往前回退的时间
+     */
+    void load(LongFunction<List<SearchDoc>> catchUp, long overlapMs) throws IOException {
+        synchronized (loadLock) {
+            if (ready) {
+                return;
+            }
+            Files.createDirectories(dir);
+            List<SearchSegment> loaded;
+            try {
+                loaded = readSegments();
+            } catch (RuntimeException e) {
+                log.warn("搜索索引 {} 段文件损坏，重新建立: {}", key, e.getMessage());
+                clearFiles();
+                loaded = new ArrayList<>();
+            }
+            Set<Long> loadedDeleted = readDeleted();
+            long maxMessageId = loaded.stream().mapToLong(SearchSegment::maxMessageId).max().orElse(0);
+            long afterId = overlapAfter(maxMessageId, overlapMs);
+            List<SearchDoc> docs = catchUp.apply(afterId);
+            long newest = docs.isEmpty() ? maxMessageId : Math.max(maxMessageId, docs.get(docs.size() - 1).messageId());
+            synchronized (this) {
+                segments = loaded;
+                deleted = loadedDeleted;
+                nextGeneration = loaded.isEmpty() ? 1 : loaded.get(loaded.size() - 1).maxGeneration() + 1;
+                for (SearchDoc doc : docs) {
+                    addInternal(doc, false);
+                }
+                pendingUpdates.forEach(Runnable::run);
+                pendingUpdates.clear();
+                recheckCatchUp = catchUp;
+                recheckAfterId = overlapAfter(newest, overlapMs);
+                loadedAt = System.currentTimeMillis();
+                ready = true;
+            }
+        }
+    }
+
+    /**
+     * 加载后再补录一次（只执行一次）：打开分区时还在批量写入缓冲中、尚未入库的消息，其增量广播也早于分区打开
+     *
+     * @param delayMs 加载后等待的时间
+     */
+    void recheck(long delayMs) {
+        LongFunction<List<SearchDoc>> catchUp;
+        long afterId;
+        synchronized (this) {
+            if (!ready || recheckCatchUp == null || System.currentTimeMillis() - loadedAt < delayMs) {
+                return;
+            }
+            catchUp = recheckCatchUp;
+            afterId = recheckAfterId;
+            recheckCatchUp = null;
+        }
+        List<SearchDoc> docs = catchUp.apply(afterId);
+        synchronized (this) {
+            for (SearchDoc doc : docs) {
+                addInternal(doc, false);
+            }
+        }
+    }
+
+    /**
+     * 索引消息
+     *
+     * @param replace 已存在时是否覆盖（消息修改后重新索引）
+     */
+    public synchronized void add(SearchDoc doc, boolean replace) {
+        if (!ready) {
+            pendingUpdates.add(() -> addInternal(doc, replace));
+            return;
+        }
+        addInternal(doc, replace);
+    }
+
+    public void delete(long messageId) {
+        synchronized (this) {
+            if (!ready) {
+                pendingUpdates.add(() -> deleted.add(messageId));
+                return;
+            }
+            if (!deleted.add(messageId)) {
+                return;
+            }
+            memory.remove(messageId);
+        }
+        try {
+            appendDeleted(messageId);
+        } catch (IOException e) {
+            log.warn("搜索索引 {} 删除记录写入失败: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * 搜索同时包含全部词的消息
+     *
+     * @param terms    查询词
+     * @param userId   当前用户ID（过滤不相关的私聊消息）
+     * @param beforeId 只返回消息ID小于该值的消息，为空不限
+     * @param limit    最多返回条数
+     * @return 消息ID（倒序）
+     */
+    public synchronized List<Long> search(Set<String> terms, String userId, Long beforeId, int limit) {
+        long upper = beforeId == null ? Long.MAX_VALUE : beforeId;
+        List<Long> hits = new ArrayList<>();
+        for (SearchSegment.Entry entry : memory.values()) {
+            SearchDoc doc = entry.doc();
+            if (doc.messageId() < upper && entry.tokens().containsAll(terms)
+                    && visible(userId, doc.receiveType(), doc.sendUserId(), doc.receiveUserId())) {
+                hits.add(doc.messageId());
+            }
+        }
+        for (int s = segments.size() - 1; s >= 0; s--) {
+            SearchSegment segment = segments.get(s);
+            for (int ordinal : intersect(segment, terms)) {
+                long messageId = segment.messageId(ordinal);
+                if (messageId >= upper || deleted.contains(messageId) || memory.containsKey(messageId)
+                        || !visible(userId, segment.receiveType(ordinal), segment.sendUserId(ordinal), segment.receiveUserId(ordinal))
+                        || supersededAfter(s, messageId)) {
+                    continue;
+                }
+                hits.add(messageId);
+            }
+        }
+        hits.sort(Comparator.reverseOrder());
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+
+    /**
+     * 内存缓冲写成新段
+     */
+    void flush() throws IOException {
+        SearchSegment segment;
+        synchronized (this) {
+            if (!ready || memory.isEmpty()) {
+                return;
+            }
+            segment = SearchSegment.build(nextGeneration++, memory.values());
+            List<SearchSegment> updated = new ArrayList<>(segments);
+            updated.add(segment);
+            segments = updated;
+            memory.clear();
+        }
+        // 写入失败时段仍在内存中可搜索，之后随合并写入或重启后从数据库补录
+        writeSegment(segment);
+    }
+
+    /**
+     * 合并代号相邻、大小同级（按 factor 的幂分级）的 factor 个以上的段
+     */
+    void merge(int factor, int baseSize) throws IOException {
+        List<SearchSegment> run;
+        Set<Long> deletedSnapshot;
+        synchronized (this) {
+            if (!ready || merging) {
+                return;
+            }
+            run = pickMergeRun(factor, baseSize);
+            if (run == null) {
+                return;
+            }
+            merging = true;
+            deletedSnapshot = new HashSet<>(deleted);
+        }
+        try {
+            SearchSegment merged = SearchSegment.merge(run, deletedSnapshot);
+            writeSegment(merged);
+            synchronized (this) {
+                List<SearchSegment> updated = new ArrayList<>(segments.size());
+                boolean inserted = false;
+                for (SearchSegment segment : segments) {
+                    if (run.contains(segment)) {
+                        if (!inserted) {
+                            updated.add(merged);
+                            inserted = true;
+                        }
+                    } else {
+                        updated.add(segment);
+                    }
+                }
+                segments = updated;
+            }
+            for (SearchSegment segment : run) {
+                Files.deleteIfExists(segmentPath(segment));
+            }
+            pruneDeleted(run);
+        } finally {
+            synchronized (this) {
+                merging = false;
+            }
+        }
+    }
+
+    private void addInternal(SearchDoc doc, boolean replace) {
+        long messageId = doc.messageId();
+        if (deleted.contains(messageId)) {
+            return;
+        }
+        if (!replace && (memory.containsKey(messageId) || segments.stream().anyMatch(s -> s.contains(messageId)))) {
+            return;
+        }
+        memory.put(messageId, new SearchSegment.Entry(doc, ChatTokenizer.indexTokens(doc.text())));
+    }
+
+    private static long overlapAfter(long messageId, long overlapMs) {
+        return messageId == 0 ? 0
+                : SnowflakeIdGenerator.firstIdAt(SnowflakeIdGenerator.timestampOf(messageId) - overlapMs);
+    }
+
+    private boolean supersededAfter(int index, long messageId) {
+        for (int s = index + 1; s < segments.size(); s++) {
+            if (segments.get(s).contains(messageId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<SearchSegment> pickMergeRun(int factor, int baseSize) {
+        int start = 0;
+        for (int i = 1; i <= segments.size(); i++) {
+            if (i < segments.size() && level(segments.get(i), factor, baseSize) == level(segments.get(start), factor, baseSize)) {
+                continue;
+            }
+            if (i - start >= factor) {
+                return new ArrayList<>(segments.subList(start, i));
+            }
+            start = i;
+        }
+        return null;
+    }
+
+    private static int level(SearchSegment segment, int factor, int baseSize) {
+        int level = 0;
+        long size = Math.max(segment.size(), 1);
+        long bound = baseSize;
+        while (size > bound) {
+            bound *= factor;
+            level++;
+        }
+        return level;
+    }
+
+    private static int[] intersect(SearchSegment segment, Set<String> terms) {
+        List<int[]> lists = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            int[] postings = segment.postings(term);
+            if (postings == null) {
+                return new int[0];
+            }
+            lists.add(postings);
+        }
+        if (lists.isEmpty()) {
+            return new int[0];
+        }
+        lists.sort(Comparator.comparingInt(list -> list.length));
+        int[] smallest = lists.get(0);
+        int[] result = new int[smallest.length];
+        int count = 0;
+        outer:
+        for (int ordinal : smallest) {
+            for (int i = 1; i < lists.size(); i++) {
+                if (Arrays.binarySearch(lists.get(i), ordinal) < 0) {
+                    continue outer;
+                }
+            }
+            result[count++] = ordinal;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static boolean visible(String userId, int receiveType, String sendUserId, String receiveUserId) {
+        if (userId == null || !ReceiveTypeEnum.USER.getType().equals(receiveType)) {
+            return true;
+        }
+        return userId.equals(sendUserId) || userId.equals(receiveUserId);
+    }
+
+    /**
+     * 读取段文件：被其他文件的代号区间覆盖的文件是合并中断时残留的旧段，直接删除
+     */
+    private List<SearchSegment> readSegments() throws IOException {
+        List<long[]> ranges = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "seg-*.idx")) {
+            for (Path path : stream) {
+                Matcher matcher = SEGMENT_FILE.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    ranges.add(new long[]{Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2))});
+                }
+            }
+        }
+        List<SearchSegment> loaded = new ArrayList<>();
+        for (long[] range : ranges) {
+            boolean covered = ranges.stream().anyMatch(other -> other != range
+                    && other[0] <= range[0] && other[1] >= range[1] && (other[0] != range[0] || other[1] != range[1]));
+            Path path = dir.resolve(fileName(range[0], range[1]));
+            if (covered) {
+                Files.deleteIfExists(path);
+                continue;
+            }
+            loaded.add(SearchSegment.decode(Files.readAllBytes(path), range[0], range[1]));
+        }
+        loaded.sort(Comparator.comparingLong(SearchSegment::maxGeneration));
+        return loaded;
+    }
+
+    /**
+     * 移除合并时已从段中清除、且不在其他段中的删除记录（仍在其他段中的删除记录继续屏蔽旧版本）
+     */
+    private void pruneDeleted(List<SearchSegment> run) throws IOException {
+        synchronized (deletedFileLock) {
+            Set<Long> snapshot;
+            synchronized (this) {
+                boolean pruned = deleted.removeIf(messageId -> run.stream().anyMatch(s -> s.contains(messageId))
+                        && segments.stream().noneMatch(s -> s.contains(messageId)));
+                if (!pruned) {
+                    return;
+                }
+                snapshot = new HashSet<>(deleted);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(snapshot.size() * Long.BYTES);
+            snapshot.forEach(buffer::putLong);
+            writeAtomically(dir.resolve(DELETED_FILE), buffer.array());
+        }
+    }
+
+    /**
+     * 读取删除记录；末尾写了一半的记录截掉，之后追加的记录才能对齐
+     */
+    private Set<Long> readDeleted() throws IOException {
+        Path path = dir.resolve(DELETED_FILE);
+        Set<Long> result = new HashSet<>();
+        if (!Files.exists(path)) {
+            return result;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        while (buffer.remaining() >= Long.BYTES) {
+            result.add(buffer.getLong());
+        }
+        if (buffer.hasRemaining()) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(buffer.position());
+            }
+        }
+        return result;
+    }
+
+    private void appendDeleted(long messageId) throws IOException {
+        synchronized (deletedFileLock) {
+            try (FileChannel channel = FileChannel.open(dir.resolve(DELETED_FILE), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(messageId).flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+        }
+    }
+
+    private void writeSegment(SearchSegment segment) throws IOException {
+        writeAtomically(segmentPath(segment), segment.encode());
+    }
+
+    private Path segmentPath(SearchSegment segment) {
+        return dir.resolve(fileName(segment.minGeneration(), segment.maxGeneration()));
+    }
+
+    private static String fileName(long minGeneration, long maxGeneration) {
+        return "seg-" + minGeneration + "-" + maxGeneration + ".idx";
+    }
+
+    /**
+     * 先写临时文件并刷盘再原子替换，重启后不会读到写了一半的文件
+     */
+    private void writeAtomically(Path target, byte[] bytes) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void clearFiles() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "seg-*")) {
+            for (Path path : stream) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
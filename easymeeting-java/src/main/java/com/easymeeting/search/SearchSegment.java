@@ -0,0 +1,221 @@
+package com.easymeeting.search;
+
+import com.easymeeting.redis.codec.CompactReader;
+import com.easymeeting.redis.codec.CompactWriter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 搜索索引段（不可变，整体加载到内存）
+ * 文档表按消息ID升序保存每条消息的可见性信息（接收类型、发送者、接收者），倒排表为 词 -> 文档序号（升序、差值编码）；
+ * 代号越大越新，合并后的段覆盖参与合并的代号区间 [minGeneration, maxGeneration]
+ */
+final class SearchSegment {
+
+    private static final int VERSION = 1;
+
+    private final long minGeneration;
+    private final long maxGeneration;
+    private final long[] messageIds;
+    private final int[] receiveTypes;
+    private final String[] sendUserIds;
+    private final String[] receiveUserIds;
+    private final Map<String, int[]> postings;
+
+    /**
+     * 待写入段的消息及其分词结果
+     */
+    record Entry(SearchDoc doc, Set<String> tokens) {
+    }
+
+    private SearchSegment(long minGeneration, long maxGeneration, long[] messageIds, int[] receiveTypes,
+                          String[] sendUserIds, String[] receiveUserIds, Map<String, int[]> postings) {
+        this.minGeneration = minGeneration;
+        this.maxGeneration = maxGeneration;
+        this.messageIds = messageIds;
+        this.receiveTypes = receiveTypes;
+        this.sendUserIds = sendUserIds;
+        this.receiveUserIds = receiveUserIds;
+        this.postings = postings;
+    }
+
+    long minGeneration() {
+        return minGeneration;
+    }
+
+    long maxGeneration() {
+        return maxGeneration;
+    }
+
+    int size() {
+        return messageIds.length;
+    }
+
+    long maxMessageId() {
+        return messageIds.length == 0 ? 0 : messageIds[messageIds.length - 1];
+    }
+
+    boolean contains(long messageId) {
+        return Arrays.binarySearch(messageIds, messageId) >= 0;
+    }
+
+    long messageId(int ordinal) {
+        return messageIds[ordinal];
+    }
+
+    int receiveType(int ordinal) {
+        return receiveTypes[ordinal];
+    }
+
+    String sendUserId(int ordinal) {
+        return sendUserIds[ordinal];
+    }
+
+    String receiveUserId(int ordinal) {
+        return receiveUserIds[ordinal];
+    }
+
+    /**
+     * 包含该词的文档序号（升序），没有返回 null
+     */
+    int[] postings(String term) {
+        return postings.get(term);
+    }
+
+    /**
+     * 由内存中的新消息生成段（每条消息只有一个版本）
+     */
+    static SearchSegment build(long generation, Collection<Entry> entries) {
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparingLong(entry -> entry.doc().messageId()));
+        int size = sorted.size();
+        long[] messageIds = new long[size];
+        int[] receiveTypes = new int[size];
+        String[] sendUserIds = new String[size];
+        String[] receiveUserIds = new String[size];
+        Map<String, List<Integer>> terms = new HashMap<>();
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            SearchDoc doc = sorted.get(ordinal).doc();
+            messageIds[ordinal] = doc.messageId();
+            receiveTypes[ordinal] = doc.receiveType();
+            sendUserIds[ordinal] = doc.sendUserId();
+            receiveUserIds[ordinal] = doc.receiveUserId();
+            for (String token : sorted.get(ordinal).tokens()) {
+                terms.computeIfAbsent(token, k -> new ArrayList<>()).add(ordinal);
+            }
+        }
+        return new SearchSegment(generation, generation, messageIds, receiveTypes, sendUserIds, receiveUserIds, toArrays(terms));
+    }
+
+    /**
+     * 合并代号相邻的段（按代号从旧到新），同一消息保留最新的版本，去掉已删除的消息
+     */
+    static SearchSegment merge(List<SearchSegment> run, Set<Long> deleted) {
+        Map<Long, Integer> owner = new HashMap<>();
+        for (int s = 0; s < run.size(); s++) {
+            for (long messageId : run.get(s).messageIds) {
+                owner.put(messageId, s);
+            }
+        }
+        owner.keySet().removeAll(deleted);
+        long[] messageIds = owner.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        int size = messageIds.length;
+        int[] receiveTypes = new int[size];
+        String[] sendUserIds = new String[size];
+        String[] receiveUserIds = new String[size];
+        Map<Long, Integer> ordinals = new HashMap<>(size * 2);
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            SearchSegment segment = run.get(owner.get(messageIds[ordinal]));
+            int source = Arrays.binarySearch(segment.messageIds, messageIds[ordinal]);
+            receiveTypes[ordinal] = segment.receiveTypes[source];
+            sendUserIds[ordinal] = segment.sendUserIds[source];
+            receiveUserIds[ordinal] = segment.receiveUserIds[source];
+            ordinals.put(messageIds[ordinal], ordinal);
+        }
+        Map<String, List<Integer>> terms = new HashMap<>();
+        for (int s = 0; s < run.size(); s++) {
+            SearchSegment segment = run.get(s);
+            for (Map.Entry<String, int[]> posting : segment.postings.entrySet()) {
+                for (int source : posting.getValue()) {
+                    long messageId = segment.messageIds[source];
+                    Integer winner = owner.get(messageId);
+                    if (winner != null && winner == s) {
+                        terms.computeIfAbsent(posting.getKey(), k -> new ArrayList<>()).add(ordinals.get(messageId));
+                    }
+                }
+            }
+        }
+        terms.values().forEach(list -> list.sort(null));
+        return new SearchSegment(run.get(0).minGeneration, run.get(run.size() - 1).maxGeneration,
+                messageIds, receiveTypes, sendUserIds, receiveUserIds, toArrays(terms));
+    }
+
+    byte[] encode() {
+        CompactWriter writer = new CompactWriter().writeByte(VERSION).writeLong(messageIds.length);
+        long previousId = 0;
+        for (int ordinal = 0; ordinal < messageIds.length; ordinal++) {
+            writer.writeLong(messageIds[ordinal] - previousId)
+                    .writeLong(receiveTypes[ordinal])
+                    .writeString(sendUserIds[ordinal])
+                    .writeString(receiveUserIds[ordinal]);
+            previousId = messageIds[ordinal];
+        }
+        writer.writeLong(postings.size());
+        postings.forEach((term, ordinals) -> {
+            writer.writeString(term).writeLong(ordinals.length);
+            int previous = 0;
+            for (int ordinal : ordinals) {
+                writer.writeLong(ordinal - previous);
+                previous = ordinal;
+            }
+        });
+        return writer.toByteArray();
+    }
+
+    static SearchSegment decode(byte[] bytes, long minGeneration, long maxGeneration) {
+        CompactReader reader = new CompactReader(bytes, 0);
+        int version = reader.readByte();
+        if (version != VERSION) {
+            throw new IllegalStateException("不支持的搜索索引段版本: " + version);
+        }
+        int size = (int) reader.readLong();
+        long[] messageIds = new long[size];
+        int[] receiveTypes = new int[size];
+        String[] sendUserIds = new String[size];
+        String[] receiveUserIds = new String[size];
+        long messageId = 0;
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            messageId += reader.readLong();
+            messageIds[ordinal] = messageId;
+            receiveTypes[ordinal] = (int) reader.readLong();
+            sendUserIds[ordinal] = reader.readString();
+            receiveUserIds[ordinal] = reader.readString();
+        }
+        int termCount = (int) reader.readLong();
+        Map<String, int[]> postings = new HashMap<>(termCount * 2);
+        for (int t = 0; t < termCount; t++) {
+            String term = reader.readString();
+            int[] ordinals = new int[(int) reader.readLong()];
+            int ordinal = 0;
+            for (int i = 0; i < ordinals.length; i++) {
+                ordinal += (int) reader.readLong();
+                ordinals[i] = ordinal;
+            }
+            postings.put(term, ordinals);
+        }
+        return new SearchSegment(minGeneration, maxGeneration, messageIds, receiveTypes, sendUserIds, receiveUserIds, postings);
+    }
+
+    private static Map<String, int[]> toArrays(Map<String, List<Integer>> terms) {
+        Map<String, int[]> postings = new HashMap<>(terms.size() * 2);
+        terms.forEach((term, ordinals) -> postings.put(term, ordinals.stream().mapToInt(Integer::intValue).toArray()));
+        return postings;
+    }
+}
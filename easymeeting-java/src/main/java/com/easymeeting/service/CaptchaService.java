@@ -0,0 +1,14 @@
+package com.easymeeting.service;
+
+import com.easymeeting.vo.CaptchaStatsVo;
+import com.easymeeting.vo.CheckCodeVo;
+
+public interface CaptchaService {
+
+    /**
+     * 生成图片验证码，答案写入 Redis 并返回对应的 key
+     */
+    CheckCodeVo createCheckCode();
+
+    CaptchaStatsVo getStats();
+}
@@ -0,0 +1,59 @@
+package com.easymeeting.service;
+
+import com.easymeeting.entity.ChatMessage;
+import com.easymeeting.entity.ChatMessageArchive;
+
+import java.util.List;
+
+/**
+ * 聊天消息归档服务
+ * 已结束会议的聊天消息按会议写入压缩的只追加分段文件（附带数据块索引），随后从分表中按消息ID升序分批删除；
+ * 归档范围内（不大于归档最大消息ID）的消息以归档文件为准，查询时由 ChatMessageService 透明合并
+ */
+public interface ChatArchiveService {
+
+    /**
+     * 立即归档一个已结束的会议并清理分表
+     *
+     * @param meetingId 会议ID
+     * @return 归档记录
+     */
+    ChatMessageArchive archiveMeeting(String meetingId);
+
+    /**
+     * 归档记录
+     *
+     * @param meetingId 会议ID
+     * @return 归档记录，未归档返回 null
+     */
+    ChatMessageArchive getArchive(String meetingId);
+
+    /**
+     * 可以读取的归档（已写入归档文件、开始清理分表的会议）
+     *
+     * @param meetingId 会议ID
+     * @return 归档记录，尚不能读取归档时返回 null
+     */
+    ChatMessageArchive getReadableArchive(String meetingId);
+
+    /**
+     * 读取消息ID小于 beforeId 的归档消息（按消息ID倒序）
+     *
+     * @param meetingId     会议ID
+     * @param currentUserId 当前用户ID（不为空时过滤不相关的私聊消息）
+     * @param beforeId      消息ID上限（不含）
+     * @param skip          跳过的条数
+     * @param limit         最多返回条数
+     * @return 消息列表
+     */
+    List<ChatMessage> readArchived(String meetingId, String currentUserId, long beforeId, int skip, int limit);
+
+    /**
+     * 归档消息数
+     *
+     * @param meetingId     会议ID
+     * @param currentUserId 当前用户ID（不为空时只统计群发消息和与该用户相关的私聊消息）
+     * @return 消息数
+     */
+    long countArchived(String meetingId, String currentUserId);
+}
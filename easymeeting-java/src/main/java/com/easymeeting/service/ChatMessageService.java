@@ -1,8 +1,12 @@
 package com.easymeeting.service;
 
 import com.easymeeting.entity.ChatMessage;
+import com.easymeeting.vo.ChatWriteStatsVo;
+import com.easymeeting.vo.CursorPageResult;
 import com.easymeeting.vo.PageResult;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 聊天消息服务接口
  * 自动处理分表路由，调用方无需关心分表逻辑
@@ -11,13 +15,23 @@ public interface ChatMessageService {
 
     /**
      * 保存消息
-     * 自动生成 messageId 和 sendTime，自动路由到正确的分表
+     * 自动生成 messageId 和 sendTime，自动路由到正确的分表；
+     * 消息推送后立即返回，入库由后台按分表批量写入
      *
      * @param message 消息实体
      * @return 保存后的消息（包含生成的 messageId）
      */
     ChatMessage saveMessage(ChatMessage message);
 
+    /**
+     * 保存消息并返回落库确认
+     * 与 saveMessage 相同，返回的 Future 在消息写入数据库后完成（写入失败时异常完成）
+     *
+     * @param message 消息实体
+     * @return 落库后完成的 Future
+     */
+    CompletableFuture<ChatMessage> saveMessageWithAck(ChatMessage message);
+
     /**
      * 根据ID获取消息
      *
@@ -65,7 +79,7 @@ public interface ChatMessageService {
 
     /**
      * 获取会议消息列表（带私聊消息过滤）
-     * 返回群发消息 + 与当前用户相关的私聊消息
+     * 返回群发消息 + 与当前用户相关的私聊消息，首页优先从会议最近消息缓存返回
      *
      * @param meetingId     会议ID
      * @param currentUserId 当前用户ID
@@ -85,4 +99,30 @@ public interface ChatMessageService {
      * @return 分页结果
      */
     PageResult<ChatMessage> getMessagesBeforeId(String meetingId, String currentUserId, Long maxMessageId, Integer pageSize);
+
+    /**
+     * 游标分页查询会议消息（按消息ID倒序，带私聊消息过滤）
+     * 首页（cursor 为空）优先从会议最近消息缓存返回并附带近似总数，翻页不再统计总数
+     *
+     * @param meetingId     会议ID
+     * @param currentUserId 当前用户ID
+     * @param cursor        上一页返回的 nextCursor，首页传 null
+     * @param pageSize      每页数量
+     * @return 游标分页结果
+     */
+    CursorPageResult<ChatMessage> getMessagesByCursor(String meetingId, String currentUserId, Long cursor, Integer pageSize);
+
+    /**
+     * 清除会议最近消息缓存（会议结束时调用）
+     *
+     * @param meetingId 会议ID
+     */
+    void evictRecentMessages(String meetingId);
+
+    /**
+     * 消息批量写入运行指标
+     *
+     * @return 运行指标
+     */
+    ChatWriteStatsVo getWriteStats();
 }
@@ -0,0 +1,58 @@
+package com.easymeeting.service;
+
+import com.easymeeting.entity.ChatMessage;
+import com.easymeeting.entity.PrivateChatMessage;
+
+import java.util.List;
+
+/**
+ * 聊天消息搜索服务
+ * 每个节点在本地为会议聊天和私聊会话建立倒排索引（中日韩文字按二元组切分），首次搜索时从数据库和归档补录，
+ * 之后由 Redis 广播增量更新；搜索结果为消息ID（倒序），客户端按ID定位消息
+ */
+public interface ChatSearchService {
+
+    /**
+     * 索引新的会议消息
+     */
+    void indexMeetingMessage(ChatMessage message);
+
+    /**
+     * 会议消息修改后重新索引
+     */
+    void updateMeetingMessage(ChatMessage message);
+
+    /**
+     * 从索引中移除会议消息
+     */
+    void removeMeetingMessage(String meetingId, Long messageId);
+
+    /**
+     * 索引新的私聊消息
+     */
+    void indexPrivateMessage(PrivateChatMessage message);
+
+    /**
+     * 搜索会议聊天消息（不返回与当前用户无关的私聊消息）
+     *
+     * @param meetingId    会议ID
+     * @param userId       当前用户ID
+     * @param keyword      关键词
+     * @param maxMessageId 只返回比该ID更早的消息（翻页），为空从最新开始
+     * @param limit        最多返回条数
+     * @return 消息ID列表（倒序）
+     */
+    List<Long> searchMeeting(String meetingId, String userId, String keyword, Long maxMessageId, Integer limit);
+
+    /**
+     * 搜索与联系人的私聊消息
+     *
+     * @param userId       当前用户ID
+     * @param contactId    联系人ID
+     * @param keyword      关键词
+     * @param maxMessageId 只返回比该ID更早的消息（翻页），为空从最新开始
+     * @param limit        最多返回条数
+     * @return 消息ID列表（倒序）
+     */
+    List<Long> searchPrivate(String userId, String contactId, String keyword, Long maxMessageId, Integer limit);
+}
@@ -0,0 +1,54 @@
+package com.easymeeting.service;
+
+import com.easymeeting.entity.ShardBucket;
+import com.easymeeting.vo.ShardMigrationStatusVo;
+
+import java.util.List;
+
+/**
+ * 分表在线迁移服务
+ * 按虚拟桶把聊天消息/私聊消息迁移到新的分表：开启双写 -> 分批复制 -> 原子切换 -> 停止写旧表，
+ * 迁移完成后可清理旧表中已迁走的数据；整个集群同一时间只执行一个任务，任务在后台线程中运行
+ */
+public interface ShardMigrationService {
+
+    /**
+     * 已登记的桶目录
+     *
+     * @param tablePrefix 分表前缀
+     * @return 非默认位置或迁移中的桶
+     */
+    List<ShardBucket> getDirectory(String tablePrefix);
+
+    /**
+     * 发起迁移
+     *
+     * @param tablePrefix 分表前缀：message_chat_message / private_chat_message
+     * @param buckets     要迁移的桶
+     * @param targetIndex 目标表序号（不存在时按 01 表结构创建）
+     */
+    void startMigration(String tablePrefix, List<Integer> buckets, Integer targetIndex);
+
+    /**
+     * 清理表中不再路由到该表的数据（迁移完成后执行）
+     *
+     * @param tablePrefix 分表前缀
+     * @param tableIndex  表序号
+     */
+    void startCleanup(String tablePrefix, Integer tableIndex);
+
+    /**
+     * 回滚迁移：本节点执行中的任务取消并由任务恢复目录；
+     * 执行节点已退出（任务锁已过期）时，把迁移中/已切换的桶直接恢复到旧表
+     *
+     * @param tablePrefix 分表前缀
+     */
+    void abort(String tablePrefix);
+
+    /**
+     * 最近一次任务的进度
+     *
+     * @return 任务进度，未执行过任务返回 null
+     */
+    ShardMigrationStatusVo getStatus();
+}
@@ -73,6 +73,11 @@ public interface UserContactService {
      */
     boolean isContact(String userId, String contactId);
 
+    /**
+     * 查询 userId 对 contactId 的联系人状态（读取联系人关系图缓存），无记录返回 null
+     */
+    Integer getContactStatus(String userId, String contactId);
+
     /**
      * 搜索联系人
      */
@@ -0,0 +1,24 @@
+package com.easymeeting.service;
+
+import com.easymeeting.dto.UserProfileDto;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface UserProfileService {
+
+    /**
+     * 查询单个用户资料，不存在返回 null
+     */
+    UserProfileDto getProfile(String userId);
+
+    /**
+     * 批量查询用户资料（本地缓存 -> Redis MGET -> 数据库 IN 查询），不存在的用户不在结果中
+     */
+    Map<String, UserProfileDto> getProfiles(Collection<String> userIds);
+
+    /**
+     * 用户资料已变更：清除两级缓存并通知其他节点
+     */
+    void evict(Collection<String> userIds);
+}
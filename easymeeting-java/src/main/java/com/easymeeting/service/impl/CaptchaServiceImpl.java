@@ -0,0 +1,125 @@
+package com.easymeeting.service.impl;
+
+import com.easymeeting.redis.RedisComponent;
+import com.easymeeting.service.CaptchaService;
+import com.easymeeting.vo.CaptchaStatsVo;
+import com.easymeeting.vo.CheckCodeVo;
+import com.wf.captcha.ArithmeticCaptcha;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 图片验证码服务
+ * 验证码图片由后台线程预先生成放入有界池，请求线程只取出一张并把答案写入 Redis，
+ * 不在请求线程上渲染图片；突发流量先消耗池内存量，池空时退化为同步生成
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class CaptchaServiceImpl implements CaptchaService {
+
+    private static final int CAPTCHA_WIDTH = 100;
+    private static final int CAPTCHA_HEIGHT = 42;
+
+    private final RedisComponent redisComponent;
+
+    @Value("${captcha.pool.capacity:500}")
+    private int capacity;
+
+    private BlockingQueue<PreparedCaptcha> pool;
+    private Thread refillWorker;
+    private volatile boolean running = true;
+
+    private final LongAdder served = new LongAdder();
+    private final LongAdder fallback = new LongAdder();
+    private final LongAdder rendered = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        if (capacity <= 0) {
+            log.info("验证码预生成池已关闭，所有验证码同步生成");
+            return;
+        }
+        pool = new ArrayBlockingQueue<>(capacity);
+        refillWorker = new Thread(this::refill, "captcha-refill");
+        refillWorker.setDaemon(true);
+        refillWorker.start();
+        log.info("验证码预生成池已启动，容量: {}", capacity);
+    }
+
+    @Override
+    public CheckCodeVo createCheckCode() {
+        PreparedCaptcha captcha = pool == null ? null : pool.poll();
+        if (captcha != null) {
+            served.increment();
+        } else {
+            captcha = render();
+            fallback.increment();
+        }
+        CheckCodeVo checkCodeVo = new CheckCodeVo();
+        checkCodeVo.setCheckCode(captcha.base64);
+        checkCodeVo.setCheckCodeKey(redisComponent.saveCheckCode(captcha.code));
+        return checkCodeVo;
+    }
+
+    @Override
+    public CaptchaStatsVo getStats() {
+        CaptchaStatsVo stats = new CaptchaStatsVo();
+        stats.setCapacity(Math.max(capacity, 0));
+        stats.setAvailable(pool == null ? 0 : pool.size());
+        stats.setServed(served.sum());
+        stats.setFallback(fallback.sum());
+        stats.setRendered(rendered.sum());
+        return stats;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        running = false;
+        if (refillWorker != null) {
+            refillWorker.interrupt();
+        }
+    }
+
+    /**
+     * 后台补充：池满时阻塞在 put 上，被取走一张就补一张
+     */
+    private void refill() {
+        while (running) {
+            try {
+                PreparedCaptcha captcha = render();
+                rendered.increment();
+                pool.put(captcha);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("验证码预生成失败", e);
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private PreparedCaptcha render() {
+        ArithmeticCaptcha captcha = new ArithmeticCaptcha(CAPTCHA_WIDTH, CAPTCHA_HEIGHT);
+        // text() 为计算结果，不返回前端
+        String code = captcha.text();
+        return new PreparedCaptcha(code, captcha.toBase64());
+    }
+
+    private record PreparedCaptcha(String code, String base64) {
+    }
+}
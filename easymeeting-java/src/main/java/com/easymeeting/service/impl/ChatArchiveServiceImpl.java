@@ -0,0 +1,322 @@
+package com.easymeeting.service.impl;
+
+import com.easymeeting.archive.ChatArchiveIndex;
+import com.easymeeting.archive.ChatArchiveSegmentStore;
+import com.easymeeting.entity.ChatMessage;
+import com.easymeeting.entity.ChatMessageArchive;
+import com.easymeeting.entity.MeetingInfo;
+import com.easymeeting.entity.constants.Constants;
+import com.easymeeting.enums.ChatArchiveStateEnum;
+import com.easymeeting.enums.MeetingStatusEnum;
+import com.easymeeting.exception.BusinessException;
+import com.easymeeting.mapper.ChatMessageArchiveMapper;
+import com.easymeeting.mapper.ChatMessageMapper;
+import com.easymeeting.mapper.MeetingInfoMapper;
+import com.easymeeting.redis.RedisUtils;
+import com.easymeeting.service.ChatArchiveService;
+import com.easymeeting.sharding.ShardDirectory;
+import com.easymeeting.sharding.ShardRoute;
+import com.easymeeting.utils.TableSplitUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 聊天消息归档服务实现
+ *
+ * 归档流程（每个会议，分表所在的桶迁移中时跳过，下次再归档）：
+ * 1. 按消息ID升序分批读取分表中比归档文件更新的消息，追加到分段文件，刷盘后替换索引
+ * 2. 归档记录置为清理中，记录归档最大消息ID：此后不大于该ID的消息从归档文件读取
+ * 3. 按消息ID升序分批删除分表中已归档的行（按主键删除，每批自动提交，批间停顿），
+ *    分表中剩下的始终是较新的消息，查询可以直接拼接归档中更早的部分
+ * 4. 归档记录置为已完成
+ * 任意一步失败时下次从头重试：追加只处理比索引更新的消息，删除只处理已归档的消息
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ChatArchiveServiceImpl implements ChatArchiveService {
+
+    private static final RedisScript<Long> LOCK_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then
+                return 1
+            end
+            return 0
+            """, Long.class);
+
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            end
+            return 0
+            """, Long.class);
+
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private static final String LOCK_MILLIS = "600000";
+
+    private final ChatMessageArchiveMapper chatMessageArchiveMapper;
+    private final ChatMessageMapper chatMessageMapper;
+    private final MeetingInfoMapper meetingInfoMapper;
+    private final ChatArchiveSegmentStore chatArchiveSegmentStore;
+    private final ChatRecentMessageCache chatRecentMessageCache;
+    private final ShardDirectory shardDirectory;
+    private final RedisUtils redisUtils;
+
+    @Value("${chat.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${chat.archive.after-hours:24}")
+    private long afterHours;
+
+    @Value("${chat.archive.batch-meetings:50}")
+    private int batchMeetings;
+
+    @Value("${chat.archive.scan-size:1000}")
+    private int scanSize;
+
+    @Value("${chat.archive.purge-chunk-size:500}")
+    private int purgeChunkSize;
+
+    @Value("${chat.archive.purge-pause-ms:50}")
+    private long purgePauseMs;
+
+    private final String lockToken = UUID.randomUUID().toString();
+
+    @PostConstruct
+    public void init() {
+        if (enabled && !chatArchiveSegmentStore.isConfigured()) {
+            log.error("已开启聊天归档但未配置共享归档目录 chat.archive.dir，不执行归档");
+        }
+    }
+
+    /**
+     * 定时归档已结束超过 after-hours 小时的会议
+     */
+    @Scheduled(fixedDelayString = "${chat.archive.interval-ms:600000}", initialDelayString = "${chat.archive.interval-ms:600000}")
+    public void archiveFinishedMeetings() {
+        if (!enabled || !chatArchiveSegmentStore.isConfigured() || !lock()) {
+            return;
+        }
+        try {
+            List<String> meetingIds = meetingInfoMapper.selectArchivableMeetingIds(
+                    LocalDateTime.now().minusHours(afterHours), batchMeetings);
+            for (String meetingId : meetingIds) {
+                try {
+                    archive(meetingId);
+                } catch (Exception e) {
+                    log.error("会议 {} 聊天消息归档失败，下次重试", meetingId, e);
+                }
+                if (!renewLock()) {
+                    log.warn("聊天消息归档锁已丢失，停止本轮归档");
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("聊天消息归档失败", e);
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public ChatMessageArchive archiveMeeting(String meetingId) {
+        MeetingInfo meetingInfo = meetingInfoMapper.selectById(meetingId);
+        if (meetingInfo == null) {
+            throw new BusinessException("会议不存在");
+        }
+        if (!MeetingStatusEnum.FINISHED.getStatus().equals(meetingInfo.getStatus())) {
+            throw new BusinessException("会议尚未结束");
+        }
+        if (!chatArchiveSegmentStore.isConfigured()) {
+            // 归档后分表中的消息会被删除，目录不是各节点共享的存储时其他节点将读不到这些消息
+            throw new BusinessException("未配置共享归档目录 chat.archive.dir，不能归档");
+        }
+        if (!lock()) {
+            throw new BusinessException("归档任务正在执行，请稍后重试");
+        }
+        try {
+            return archive(meetingId);
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public ChatMessageArchive getArchive(String meetingId) {
+        return chatMessageArchiveMapper.selectById(meetingId);
+    }
+
+    @Override
+    public ChatMessageArchive getReadableArchive(String meetingId) {
+        ChatMessageArchive archive = chatMessageArchiveMapper.selectById(meetingId);
+        if (archive == null || ChatArchiveStateEnum.ARCHIVING.getState().equals(archive.getState())
+                || archive.getMaxMessageId() == null) {
+            return null;
+        }
+        return archive;
+    }
+
+    @Override
+    public List<ChatMessage> readArchived(String meetingId, String currentUserId, long beforeId, int skip, int limit) {
+        try {
+            return chatArchiveSegmentStore.readBefore(meetingId, currentUserId, beforeId, skip, limit);
+        } catch (IOException e) {
+            log.error("读取会议 {} 归档消息失败", meetingId, e);
+            throw new BusinessException("历史消息读取失败，请稍后重试");
+        }
+    }
+
+    @Override
+    public long countArchived(String meetingId, String currentUserId) {
+        try {
+            ChatArchiveIndex index = chatArchiveSegmentStore.readIndex(meetingId);
+            return index == null ? 0 : index.visibleCount(currentUserId);
+        } catch (IOException e) {
+            log.error("读取会议 {} 归档索引失败", meetingId, e);
+            throw new BusinessException("历史消息读取失败，请稍后重试");
+        }
+    }
+
+    private ChatMessageArchive archive(String meetingId) {
+        ChatMessageArchive archive = chatMessageArchiveMapper.selectById(meetingId);
+        if (archive != null && ChatArchiveStateEnum.DONE.getState().equals(archive.getState())) {
+            return archive;
+        }
+        ShardRoute route = shardDirectory.route(TableSplitUtils.SPLIT_TABLE_CHAT_MESSAGE, meetingId);
+        if (route.dualWrite()) {
+            log.info("会议 {} 所在的分表桶正在迁移，暂不归档", meetingId);
+            return archive;
+        }
+        String tableName = route.readTable();
+
+        List<ChatMessage> rows = null;
+        if (archive == null) {
+            // 没有消息的会议只登记归档记录，不创建文件
+            rows = chatMessageMapper.selectByMeetingAfterId(tableName, meetingId, 0L, scanSize);
+            if (rows.isEmpty()) {
+                archive = new ChatMessageArchive();
+                archive.setMeetingId(meetingId);
+                archive.setTableName(tableName);
+                archive.setSegmentPath("");
+                archive.setMessageCount(0);
+                archive.setPurgedCount(0);
+                archive.setState(ChatArchiveStateEnum.DONE.getState());
+                chatMessageArchiveMapper.upsert(archive);
+                return archive;
+            }
+        }
+
+        ChatArchiveIndex index;
+        try (ChatArchiveSegmentStore.Appender appender = chatArchiveSegmentStore.openAppender(meetingId)) {
+            if (rows == null) {
+                rows = chatMessageMapper.selectByMeetingAfterId(tableName, meetingId, appender.getLastMessageId(), scanSize);
+            }
+            while (true) {
+                for (ChatMessage row : rows) {
+                    appender.append(row);
+                }
+                if (rows.size() < scanSize) {
+                    break;
+                }
+                rows = chatMessageMapper.selectByMeetingAfterId(tableName, meetingId, appender.getLastMessageId(), scanSize);
+            }
+            index = appender.commit();
+        } catch (IOException e) {
+            throw new IllegalStateException("会议 " + meetingId + " 聊天消息写入归档文件失败", e);
+        }
+
+        int purged = archive == null || archive.getPurgedCount() == null ? 0 : archive.getPurgedCount();
+        archive = new ChatMessageArchive();
+        archive.setMeetingId(meetingId);
+        archive.setTableName(tableName);
+        archive.setSegmentPath(chatArchiveSegmentStore.segmentPath(meetingId).toString());
+        archive.setMessageCount(index.getMessageCount());
+        archive.setMinMessageId(index.getMinMessageId());
+        archive.setMaxMessageId(index.getMaxMessageId());
+        archive.setPurgedCount(purged);
+        archive.setState(ChatArchiveStateEnum.PURGING.getState());
+        chatMessageArchiveMapper.upsert(archive);
+        // 最近消息缓存按分表加载，清理后不再可用，各节点清除后由缓存自行识别为已归档会议
+        chatRecentMessageCache.evict(meetingId);
+
+        purged += purge(tableName, meetingId, archive.getMaxMessageId());
+        archive.setPurgedCount(purged);
+        archive.setState(ChatArchiveStateEnum.DONE.getState());
+        chatMessageArchiveMapper.updatePurge(meetingId, purged, archive.getState());
+        log.info("会议 {} 聊天消息归档完成：{} 条，{} 个数据块，分表删除 {} 行", meetingId,
+                index.getMessageCount(), index.getBlocks().size(), purged);
+        return archive;
+    }
+
+    /**
+     * 从最早的消息开始按主键分批删除已归档的行，每批单独提交，避免长时间持有行锁
+     */
+    private int purge(String tableName, String meetingId, Long maxMessageId) {
+        int purged = 0;
+        List<Long> messageIds;
+        do {
+            messageIds = chatMessageMapper.selectIdsUpTo(tableName, meetingId, maxMessageId, purgeChunkSize);
+            if (!messageIds.isEmpty()) {
+                purged += chatMessageMapper.deleteByIds(tableName, messageIds);
+                pause(purgePauseMs);
+            }
+        } while (messageIds.size() == purgeChunkSize);
+        return purged;
+    }
+
+    private boolean lock() {
+        try {
+            Long locked = redisUtils.executeStringScript(LOCK_SCRIPT,
+                    Collections.singletonList(Constants.REDIS_KEY_CHAT_ARCHIVE_LOCK), lockToken, LOCK_MILLIS);
+            return locked != null && locked == 1L;
+        } catch (Exception e) {
+            log.warn("聊天消息归档加锁失败: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean renewLock() {
+        try {
+            Long renewed = redisUtils.executeStringScript(RENEW_SCRIPT,
+                    Collections.singletonList(Constants.REDIS_KEY_CHAT_ARCHIVE_LOCK), lockToken, LOCK_MILLIS);
+            return renewed != null && renewed == 1L;
+        } catch (Exception e) {
+            log.warn("聊天消息归档锁续期失败: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void unlock() {
+        try {
+            redisUtils.executeStringScript(UNLOCK_SCRIPT, Collections.singletonList(Constants.REDIS_KEY_CHAT_ARCHIVE_LOCK), lockToken);
+        } catch (Exception e) {
+            log.warn("聊天消息归档解锁失败，锁将自动过期: {}", e.getMessage());
+        }
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("归档任务被中断");
+        }
+    }
+}
@@ -1,28 +1,46 @@
 package com.easymeeting.service.impl;
 
+import com.easymeeting.annotation.ReadOnlyRoute;
 import com.easymeeting.dto.MessageSendDto;
 import com.easymeeting.entity.ChatMessage;
+import com.easymeeting.entity.ChatMessageArchive;
+import com.easymeeting.entity.constants.Constants;
 import com.easymeeting.enums.ChatMessageStatusEnum;
 import com.easymeeting.enums.MessageTypeEnum;
 import com.easymeeting.enums.ReceiveTypeEnum;
 import com.easymeeting.exception.BusinessException;
 import com.easymeeting.mapper.ChatMessageMapper;
+import com.easymeeting.redis.RedisUtils;
+import com.easymeeting.service.ChatArchiveService;
+import com.easymeeting.service.ChatSearchService;
 import com.easymeeting.service.ChatMessageService;
+import com.easymeeting.sharding.ReadYourWritesTracker;
+import com.easymeeting.sharding.ShardDirectory;
+import com.easymeeting.sharding.ShardRoute;
 import com.easymeeting.utils.MessageSendDtoBuilder;
 import com.easymeeting.utils.StringUtils;
 import com.easymeeting.utils.TableSplitUtils;
+import com.easymeeting.vo.ChatWriteStatsVo;
+import com.easymeeting.vo.CursorPageResult;
 import com.easymeeting.vo.PageResult;
 import com.easymeeting.websocket.message.MessageHandler;
 import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 聊天消息服务实现类
- * 自动处理分表路由、消息ID生成、时间戳设置等
+ * 自动处理分表路由、消息ID生成、时间戳设置等，消息先推送再由 ChatMessageWriter 批量入库；
+ * 已结束会议的消息归档后从分表删除，历史查询在分表结果不足一页时透明合并归档中的消息
  */
 @Service
+@Slf4j
 public class ChatMessageServiceImpl implements ChatMessageService {
 
     @Resource
@@ -31,15 +49,57 @@ public class ChatMessageServiceImpl implements ChatMessageService {
     @Resource
     private MessageHandler messageHandler;
 
+    @Resource
+    private ChatMessageWriter chatMessageWriter;
+
+    @Resource
+    private RedisUtils redisUtils;
+
+    @Resource
+    private ShardDirectory shardDirectory;
+
+    @Resource
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    @Resource
+    private ChatRecentMessageCache chatRecentMessageCache;
+
+    @Resource
+    private SnowflakeIdGenerator snowflakeIdGenerator;
+
+    @Resource
+    private ChatArchiveService chatArchiveService;
+
+    @Resource
+    private ChatSearchService chatSearchService;
+
     /**
-     * 雪花算法相关参数
+     * 消息总数缓存时间（秒），分页只返回近似总数，避免每页 COUNT(*)
      */
-    private static long lastTimestamp = -1L;
-    private static long sequence = 0L;
-    private static final long SEQUENCE_MASK = 4095L; // 12位序列号掩码
+    @Value("${chat.history.count-cache-seconds:30}")
+    private long countCacheSeconds;
+
+    /**
+     * 单页最大消息数
+     */
+    private static final int MAX_PAGE_SIZE = 100;
 
     @Override
     public ChatMessage saveMessage(ChatMessage message) {
+        submitMessage(message);
+        return message;
+    }
+
+    @Override
+    public CompletableFuture<ChatMessage> saveMessageWithAck(ChatMessage message) {
+        return submitMessage(message).thenApply(ignored -> message);
+    }
+
+    /**
+     * 校验并补全消息，放入批量写入缓冲后推送给客户端
+     * 缓冲已满时抛出异常，此时消息既不推送也不入库
+     */
+    private CompletableFuture<Void> submitMessage(ChatMessage message) {
         // 参数校验
         if (message.getMeetingId() == null || message.getMeetingId().isEmpty()) {
             throw new BusinessException("会议ID不能为空");
@@ -53,7 +113,7 @@ public class ChatMessageServiceImpl implements ChatMessageService {
 
         // 生成消息ID
         if (message.getMessageId() == null) {
-            message.setMessageId(generateMessageId());
+            message.setMessageId(snowflakeIdGenerator.nextId());
         }
 
         // 设置发送时间
@@ -76,15 +136,19 @@ public class ChatMessageServiceImpl implements ChatMessageService {
             message.setStatus(ChatMessageStatusEnum.SENDING.getStatus());
         }
 
-        // 获取分表名并插入
-        String tableName = TableSplitUtils.getTableName(message.getMeetingId());
-        chatMessageMapper.insert(tableName, message);
+        // 获取分表名并放入写入缓冲，由后台合并为批量 INSERT
+        ShardRoute route = shardDirectory.route(TableSplitUtils.SPLIT_TABLE_CHAT_MESSAGE, message.getMeetingId());
+        CompletableFuture<Void> written = chatMessageWriter.submit(route.writeTables(), message);
+        // 入库在后台线程执行，在此记录发送者的写入，使其随后的历史查询读主库
+        readYourWritesTracker.markWrite(message.getSendUserId());
+        chatRecentMessageCache.add(message);
+        chatSearchService.indexMeetingMessage(message);
 
         // 构建 WebSocket 推送 DTO 并发送消息
         MessageSendDto<String> messageSendDto = MessageSendDtoBuilder.fromChatMessage(message);
         messageHandler.sendMessage(messageSendDto);
 
-        return message;
+        return written;
     }
 
     /**
@@ -123,11 +187,13 @@ public class ChatMessageServiceImpl implements ChatMessageService {
             throw new BusinessException("消息ID不能为空");
         }
 
-        String tableName = TableSplitUtils.getTableName(meetingId);
+        chatMessageWriter.awaitWritten(messageId);
+        String tableName = getReadTable(meetingId);
         return chatMessageMapper.selectById(tableName, messageId);
     }
 
     @Override
+    @ReadOnlyRoute
     public PageResult<ChatMessage> getMessagesByMeetingId(String meetingId, Integer pageNo, Integer pageSize) {
         if (meetingId == null || meetingId.isEmpty()) {
             throw new BusinessException("会议ID不能为空");
@@ -139,11 +205,12 @@ public class ChatMessageServiceImpl implements ChatMessageService {
             pageSize = 20;
         }
 
-        String tableName = TableSplitUtils.getTableName(meetingId);
+        String tableName = getReadTable(meetingId);
         int offset = (pageNo - 1) * pageSize;
 
-        Long total = chatMessageMapper.countByMeetingId(tableName, meetingId);
+        Long total = cachedCount(tableName, meetingId, null);
         List<ChatMessage> list = chatMessageMapper.selectByMeetingId(tableName, meetingId, offset, pageSize);
+        list = withArchived(tableName, meetingId, null, null, offset, list, pageSize);
 
         return PageResult.of(pageNo, pageSize, total, list);
     }
@@ -157,8 +224,17 @@ public class ChatMessageServiceImpl implements ChatMessageService {
             throw new BusinessException("消息ID不能为空");
         }
 
-        String tableName = TableSplitUtils.getTableName(message.getMeetingId());
-        chatMessageMapper.updateById(tableName, message);
+        chatMessageWriter.awaitWritten(message.getMessageId());
+        // 分表迁移期间需要同时更新新旧两张表
+        for (String tableName : shardDirectory.route(TableSplitUtils.SPLIT_TABLE_CHAT_MESSAGE, message.getMeetingId()).writeTables()) {
+            chatMessageMapper.updateById(tableName, message);
+        }
+        chatRecentMessageCache.evict(message.getMeetingId());
+        // 请求中可能只有修改的字段，按库中的完整消息重新索引
+        ChatMessage updated = chatMessageMapper.selectById(getReadTable(message.getMeetingId()), message.getMessageId());
+        if (updated != null) {
+            chatSearchService.updateMeetingMessage(updated);
+        }
 
         return message;
     }
@@ -172,11 +248,16 @@ public class ChatMessageServiceImpl implements ChatMessageService {
             throw new BusinessException("消息ID不能为空");
         }
 
-        String tableName = TableSplitUtils.getTableName(meetingId);
-        chatMessageMapper.deleteById(tableName, messageId);
+        chatMessageWriter.awaitWritten(messageId);
+        for (String tableName : shardDirectory.route(TableSplitUtils.SPLIT_TABLE_CHAT_MESSAGE, meetingId).writeTables()) {
+            chatMessageMapper.deleteById(tableName, messageId);
+        }
+        chatRecentMessageCache.evict(meetingId);
+        chatSearchService.removeMeetingMessage(meetingId, messageId);
     }
 
     @Override
+    @ReadOnlyRoute
     public PageResult<ChatMessage> getMessagesBeforeId(String meetingId, Long maxMessageId, Integer pageSize) {
         if (meetingId == null || meetingId.isEmpty()) {
             throw new BusinessException("会议ID不能为空");
@@ -188,14 +269,16 @@ public class ChatMessageServiceImpl implements ChatMessageService {
             pageSize = 20;
         }
 
-        String tableName = TableSplitUtils.getTableName(meetingId);
+        String tableName = getReadTable(meetingId);
         List<ChatMessage> list = chatMessageMapper.selectBeforeMessageId(tableName, meetingId, maxMessageId, pageSize);
-        Long total = chatMessageMapper.countByMeetingId(tableName, meetingId);
+        list = withArchived(tableName, meetingId, null, maxMessageId, 0, list, pageSize);
+        Long total = cachedCount(tableName, meetingId, null);
 
         return PageResult.of(1, pageSize, total, list);
     }
 
     @Override
+    @ReadOnlyRoute
     public PageResult<ChatMessage> getMessagesByMeetingId(String meetingId, String currentUserId, Integer pageNo, Integer pageSize) {
         if (meetingId == null || meetingId.isEmpty()) {
             throw new BusinessException("会议ID不能为空");
@@ -210,16 +293,26 @@ public class ChatMessageServiceImpl implements ChatMessageService {
             pageSize = 20;
         }
 
-        String tableName = TableSplitUtils.getTableName(meetingId);
+        // 首页优先从会议最近消息缓存返回
+        if (pageNo == 1) {
+            ChatRecentMessageCache.RecentPage recent = chatRecentMessageCache.getLatest(meetingId, currentUserId, pageSize);
+            if (recent != null) {
+                return PageResult.of(pageNo, pageSize, recent.total(), recent.list());
+            }
+        }
+
+        String tableName = getReadTable(meetingId);
         int offset = (pageNo - 1) * pageSize;
 
-        Long total = chatMessageMapper.countByMeetingIdWithPrivateFilter(tableName, meetingId, currentUserId);
+        Long total = cachedCount(tableName, meetingId, currentUserId);
         List<ChatMessage> list = chatMessageMapper.selectByMeetingIdWithPrivateFilter(tableName, meetingId, currentUserId, offset, pageSize);
+        list = withArchived(tableName, meetingId, currentUserId, null, offset, list, pageSize);
 
         return PageResult.of(pageNo, pageSize, total, list);
     }
 
     @Override
+    @ReadOnlyRoute
     public PageResult<ChatMessage> getMessagesBeforeId(String meetingId, String currentUserId, Long maxMessageId, Integer pageSize) {
         if (meetingId == null || meetingId.isEmpty()) {
             throw new BusinessException("会议ID不能为空");
@@ -234,59 +327,145 @@ public class ChatMessageServiceImpl implements ChatMessageService {
             pageSize = 20;
         }
 
-        String tableName = TableSplitUtils.getTableName(meetingId);
+        String tableName = getReadTable(meetingId);
         List<ChatMessage> list = chatMessageMapper.selectBeforeMessageIdWithPrivateFilter(tableName, meetingId, currentUserId, maxMessageId, pageSize);
-        Long total = chatMessageMapper.countByMeetingIdWithPrivateFilter(tableName, meetingId, currentUserId);
+        list = withArchived(tableName, meetingId, currentUserId, maxMessageId, 0, list, pageSize);
+        Long total = cachedCount(tableName, meetingId, currentUserId);
 
         return PageResult.of(1, pageSize, total, list);
     }
 
+    @Override
+    @ReadOnlyRoute
+    public CursorPageResult<ChatMessage> getMessagesByCursor(String meetingId, String currentUserId, Long cursor, Integer pageSize) {
+        if (meetingId == null || meetingId.isEmpty()) {
+            throw new BusinessException("会议ID不能为空");
+        }
+        if (currentUserId == null || currentUserId.isEmpty()) {
+            throw new BusinessException("当前用户ID不能为空");
+        }
+        if (pageSize == null || pageSize < 1) {
+            pageSize = 20;
+        }
+        pageSize = Math.min(pageSize, MAX_PAGE_SIZE);
+
+        // 多查一条判断是否还有下一页；首页优先从会议最近消息缓存返回
+        ChatRecentMessageCache.RecentPage recent = cursor == null
+                ? chatRecentMessageCache.getLatest(meetingId, currentUserId, pageSize + 1) : null;
+        String tableName = getReadTable(meetingId);
+        List<ChatMessage> list = recent != null
+                ? recent.list()
+                : withArchived(tableName, meetingId, currentUserId, cursor, 0,
+                        chatMessageMapper.selectByCursor(tableName, meetingId, currentUserId, cursor, pageSize + 1), pageSize + 1);
+        Long nextCursor = null;
+        if (list.size() > pageSize) {
+            list = list.subList(0, pageSize);
+            nextCursor = list.get(list.size() - 1).getMessageId();
+        }
+        Long total = null;
+        if (recent != null) {
+            total = recent.total();
+        } else if (cursor == null) {
+            total = cachedCount(tableName, meetingId, currentUserId);
+        }
+
+        return CursorPageResult.of(list, nextCursor, total);
+    }
+
     /**
-     * 验证消息类型
-     * 只允许聊天消息类型（文本消息和媒体消息）
+     * 会议消息所在的分表（按桶目录路由）
      */
-    private void validateMessageType(Integer messageType) {
-        if (messageType == null) {
-            throw new BusinessException("消息类型不能为空");
+    private String getReadTable(String meetingId) {
+        return shardDirectory.route(TableSplitUtils.SPLIT_TABLE_CHAT_MESSAGE, meetingId).readTable();
+    }
+
+    /**
+     * 会议消息数（短时缓存在 Redis 中的近似值）
+     * currentUserId 不为空时统计带私聊过滤的数量
+     */
+    private Long cachedCount(String tableName, String meetingId, String currentUserId) {
+        String key = Constants.REDIS_KEY_CHAT_MESSAGE_COUNT + meetingId + (currentUserId == null ? "" : ":" + currentUserId);
+        try {
+            String cached = redisUtils.getString(key);
+            if (cached != null) {
+                return Long.parseLong(cached);
+            }
+        } catch (Exception e) {
+            log.warn("读取消息数缓存失败: {}", e.getMessage());
         }
-        // 只允许聊天消息类型：5-文本消息，6-媒体消息
-        if (!MessageTypeEnum.CHAT_TEXT_MESSAGE.getType().equals(messageType)
-                && !MessageTypeEnum.CHAT_MEDIA_MESSAGE.getType().equals(messageType)) {
-            throw new BusinessException("不支持的消息类型");
+        Long count;
+        ChatMessageArchive archive = chatArchiveService.getReadableArchive(meetingId);
+        if (archive != null) {
+            // 归档范围内的消息以归档索引的计数为准，分表中只统计比归档更新的消息
+            Long newer = chatMessageMapper.countAfterMessageId(tableName, meetingId, currentUserId, archive.getMaxMessageId());
+            count = chatArchiveService.countArchived(meetingId, currentUserId) + (newer == null ? 0 : newer);
+        } else {
+            count = currentUserId == null
+                    ? chatMessageMapper.countByMeetingId(tableName, meetingId)
+                    : chatMessageMapper.countByMeetingIdWithPrivateFilter(tableName, meetingId, currentUserId);
+        }
+        try {
+            redisUtils.setString(key, String.valueOf(count), countCacheSeconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("写入消息数缓存失败: {}", e.getMessage());
         }
+        return count;
     }
 
     /**
-     * 生成消息ID（简化版雪花算法）
-     * 生产环境建议使用 Hutool 或专门的分布式 ID 生成器
+     * 分表中的消息不足一页时补充归档中的消息
+     * 归档会议中不大于归档最大消息ID的消息以归档文件为准：分表结果只保留比归档更新的消息，其余从归档文件按消息ID倒序补足。
+     * 清理从最早的消息开始删除，分表中尚未删除的已归档消息就是归档中最新的部分，结果满一页时无需合并；
+     * 按页码分页时，偏移量先扣除分表中比归档更新的消息数
      */
-    private synchronized long generateMessageId() {
-        long timestamp = System.currentTimeMillis();
-
-        if (timestamp == lastTimestamp) {
-            sequence = (sequence + 1) & SEQUENCE_MASK;
-            if (sequence == 0) {
-                // 当前毫秒序列号用完，等待下一毫秒
-                timestamp = waitNextMillis(lastTimestamp);
+    private List<ChatMessage> withArchived(String tableName, String meetingId, String currentUserId,
+                                           Long beforeId, int offset, List<ChatMessage> list, int limit) {
+        if (list.size() >= limit) {
+            return list;
+        }
+        ChatMessageArchive archive = chatArchiveService.getReadableArchive(meetingId);
+        if (archive == null) {
+            return list;
+        }
+        long archivedMaxId = archive.getMaxMessageId();
+        List<ChatMessage> merged = new ArrayList<>(limit);
+        for (ChatMessage message : list) {
+            if (message.getMessageId() > archivedMaxId) {
+                merged.add(message);
             }
-        } else {
-            sequence = 0L;
         }
+        long skip = 0;
+        if (offset > 0) {
+            Long newer = chatMessageMapper.countAfterMessageId(tableName, meetingId, currentUserId, archivedMaxId);
+            skip = Math.max(0, offset - (newer == null ? 0 : newer));
+        }
+        long before = beforeId == null ? archivedMaxId + 1 : Math.min(beforeId, archivedMaxId + 1);
+        merged.addAll(chatArchiveService.readArchived(meetingId, currentUserId, before, (int) skip, limit - merged.size()));
+        return merged;
+    }
 
-        lastTimestamp = timestamp;
+    @Override
+    public void evictRecentMessages(String meetingId) {
+        chatRecentMessageCache.evict(meetingId);
+    }
 
-        // 简化版：时间戳左移22位 + 序列号
-        return (timestamp << 22) | sequence;
+    @Override
+    public ChatWriteStatsVo getWriteStats() {
+        return chatMessageWriter.getStats();
     }
 
     /**
-     * 等待下一毫秒
+     * 验证消息类型
+     * 只允许聊天消息类型（文本消息和媒体消息）
      */
-    private long waitNextMillis(long lastTimestamp) {
-        long timestamp = System.currentTimeMillis();
-        while (timestamp <= lastTimestamp) {
-            timestamp = System.currentTimeMillis();
+    private void validateMessageType(Integer messageType) {
+        if (messageType == null) {
+            throw new BusinessException("消息类型不能为空");
+        }
+        // 只允许聊天消息类型：5-文本消息，6-媒体消息
+        if (!MessageTypeEnum.CHAT_TEXT_MESSAGE.getType().equals(messageType)
+                && !MessageTypeEnum.CHAT_MEDIA_MESSAGE.getType().equals(messageType)) {
+            throw new BusinessException("不支持的消息类型");
         }
-        return timestamp;
     }
 }
@@ -0,0 +1,454 @@
+package com.easymeeting.service.impl;
+
+import com.easymeeting.entity.ChatMessage;
+import com.easymeeting.entity.config.AppConfig;
+import com.easymeeting.entity.constants.Constants;
+import com.easymeeting.exception.BusinessException;
+import com.easymeeting.mapper.ChatMessageMapper;
+import com.easymeeting.redis.RedisUtils;
+import com.easymeeting.sharding.ReadRouteContext;
+import com.easymeeting.vo.ChatWriteStatsVo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 聊天消息批量写入（group commit）
+ * 消息先推送给客户端，入库按分表缓冲，攒够一批或到达时间间隔后合并为一条多行 INSERT 写入
+ *
+ * - 每张分表由固定的写入线程负责，保证同一分表内按提交顺序写入；写入线程数即聊天写入占用的最大连接数
+ * - 所有分表共用一个容量上限，缓冲满时短暂等待，仍无空位则拒绝发送（MySQL 变慢时向发送方施加背压）
+ * - 数据错误（约束冲突、字段超长等）导致批量写入失败时逐条重试以隔离异常行，超过重试次数的消息标记失败并记录日志；
+ *   主键冲突时回查已有的行，与待写入消息一致才视为已写入（上次写入已成功但未收到响应），否则标记失败
+ * - 连接、超时等其他错误时整批放回队首，按指数退避间隔重试该分表（逐条重试只会放大对故障数据库的压力）
+ * - 需要确认落库的调用方可等待 submit 返回的 Future
+ * - 各节点定时把本节点未落库消息的最小消息ID登记到 Redis，从数据库加载快照或校验消息是否存在的调用方据此判断
+ *   某消息ID之前的消息是否已全部落库（hasPendingBefore）
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ChatMessageWriter {
+
+    private final ChatMessageMapper chatMessageMapper;
+    private final RedisUtils redisUtils;
+    private final AppConfig appConfig;
+
+    @Value("${chat.write.threads:2}")
+    private int threadCount;
+
+    @Value("${chat.write.batch-size:200}")
+    private int batchSize;
+
+    @Value("${chat.write.flush-interval-ms:50}")
+    private long flushIntervalMs;
+
+    @Value("${chat.write.buffer-capacity:20000}")
+    private int bufferCapacity;
+
+    @Value("${chat.write.offer-timeout-ms:500}")
+    private long offerTimeoutMs;
+
+    @Value("${chat.write.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${chat.write.retry-delay-ms:1000}")
+    private long retryDelayMs;
+
+    @Value("${chat.write.max-retry-delay-ms:30000}")
+    private long maxRetryDelayMs;
+
+    @Value("${chat.write.report-ms:1000}")
+    private long reportMs;
+
+    /**
+     * 分表名 -> 缓冲区
+     */
+    private final Map<String, ShardBuffer> shards = new ConcurrentHashMap<>();
+
+    /**
+     * 尚未落库的消息：messageId -> 会议ID与落库 Future
+     */
+    private final Map<Long, PendingMessage> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 每个写入线程的唤醒信号（某个分表攒够一批时放入）
+     */
+    private final List<BlockingQueue<ShardBuffer>> signals = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private Semaphore capacity;
+    private volatile boolean running = true;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        capacity = new Semaphore(bufferCapacity);
+        for (int i = 0; i < threadCount; i++) {
+            BlockingQueue<ShardBuffer> signal = new LinkedBlockingQueue<>();
+            signals.add(signal);
+            int workerIndex = i;
+            Thread worker = new Thread(() -> drain(workerIndex, signal), "chat-writer-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        log.info("聊天消息批量写入已启动，线程数: {}，批量大小: {}，缓冲容量: {}", threadCount, batchSize, bufferCapacity);
+    }
+
+    /**
+     * 提交一条待写入的消息，返回落库完成的 Future
+     * 分表迁移期间需要双写时传入多张表，全部写入后 Future 才完成；
+     * 缓冲区已满且等待超时时抛出 BusinessException
+     */
+    public CompletableFuture<Void> submit(List<String> tableNames, ChatMessage message) {
+        try {
+            if (!capacity.tryAcquire(tableNames.size(), offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                rejected.increment();
+                log.warn("聊天消息写入缓冲已满，拒绝发送 meetingId={}", message.getMeetingId());
+                throw new BusinessException("消息发送过于频繁，请稍后重试");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("消息发送失败");
+        }
+        List<CompletableFuture<Void>> futures = new ArrayList<>(tableNames.size());
+        for (String tableName : tableNames) {
+            PendingWrite write = new PendingWrite(message);
+            futures.add(write.future);
+            ShardBuffer shard = shards.computeIfAbsent(tableName,
+                    name -> new ShardBuffer(name, Math.floorMod(name.hashCode(), threadCount)));
+            if (shard.add(write) == batchSize) {
+                signals.get(shard.workerIndex).offer(shard);
+            }
+        }
+        CompletableFuture<Void> ack = futures.size() == 1
+                ? futures.get(0)
+                : CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+        Long messageId = message.getMessageId();
+        PendingMessage pendingMessage = new PendingMessage(message.getMeetingId(), ack);
+        pending.put(messageId, pendingMessage);
+        ack.whenComplete((result, e) -> pending.remove(messageId, pendingMessage));
+        submitted.add(tableNames.size());
+        return ack;
+    }
+
+    /**
+     * 等待指定消息落库（更新、删除消息前调用，避免更新到尚未写入的行）
+     * 等待超时（数据库故障时消息可能在缓冲中退避重试更久）或写入失败时抛出 BusinessException，
+     * 否则之后写入的原始内容会覆盖这次修改
+     */
+    public void awaitWritten(Long messageId) {
+        PendingMessage pendingMessage = messageId == null ? null : pending.get(messageId);
+        if (pendingMessage == null) {
+            return;
+        }
+        try {
+            pendingMessage.future().get(offerTimeoutMs + flushIntervalMs + retryDelayMs * maxRetries, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("操作失败，请稍后重试");
+        } catch (TimeoutException e) {
+            log.warn("等待消息 {} 落库超时", messageId);
+            throw new BusinessException("消息尚未保存完成，请稍后重试");
+        } catch (ExecutionException e) {
+            log.warn("消息 {} 写入失败，无法修改: {}", messageId, e.getCause() == null ? e.getMessage() : e.getCause().getMessage());
+            throw new BusinessException("消息不存在");
+        }
+    }
+
+    /**
+     * 集群中是否可能还有该会议消息ID小于 messageId、尚未落库的消息
+     * 消息生成ID后最多在缓冲满时等待 offer-timeout-ms 才进入缓冲，因此该ID的时间戳之后不足这段时间时视为可能有；
+     * 本节点按会议精确判断，其他节点按登记的最小未落库消息ID判断（登记时间不够晚时也视为可能有），
+     * 超过 3 个登记间隔未更新的节点视为已下线；读取 Redis 失败时视为可能有
+     */
+    public boolean hasPendingBefore(String meetingId, long messageId) {
+        long confirmedFrom = SnowflakeIdGenerator.timestampOf(messageId) + offerTimeoutMs;
+        long now = System.currentTimeMillis();
+        if (now < confirmedFrom) {
+            return true;
+        }
+        for (Map.Entry<Long, PendingMessage> entry : pending.entrySet()) {
+            if (entry.getKey() < messageId && Objects.equals(entry.getValue().meetingId(), meetingId)) {
+                return true;
+            }
+        }
+        try {
+            String self = appConfig.getNodeId();
+            for (Map.Entry<String, String> entry : redisUtils.hGetAllString(Constants.REDIS_KEY_CHAT_WRITE_PENDING).entrySet()) {
+                if (entry.getKey().equals(self)) {
+                    continue;
+                }
+                String[] parts = entry.getValue().split("\\|");
+                long oldest = Long.parseLong(parts[0]);
+                long reportedAt = Long.parseLong(parts[1]);
+                if (now - reportedAt > reportMs * 3) {
+                    continue;
+                }
+                if (reportedAt < confirmedFrom || oldest > 0 && oldest < messageId) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (Exception e) {
+            log.warn("读取聊天消息写入登记失败: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * 登记本节点未落库消息的最小消息ID（没有时为 0）与登记时间
+     */
+    @Scheduled(fixedDelayString = "${chat.write.report-ms:1000}")
+    public void report() {
+        long now = System.currentTimeMillis();
+        long oldest = pending.keySet().stream().mapToLong(Long::longValue).min().orElse(0);
+        try {
+            redisUtils.stringPipelined(connection -> connection.hSet(Constants.REDIS_KEY_CHAT_WRITE_PENDING,
+                    appConfig.getNodeId(), oldest + "|" + now));
+        } catch (Exception e) {
+            log.warn("登记聊天消息写入状态失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 采集运行指标
+     */
+    public ChatWriteStatsVo getStats() {
+        ChatWriteStatsVo stats = new ChatWriteStatsVo();
+        stats.setThreads(threadCount);
+        stats.setBufferCapacity(bufferCapacity);
+        stats.setBuffered(bufferCapacity - capacity.availablePermits());
+        stats.setSubmitted(submitted.sum());
+        stats.setWritten(written.sum());
+        stats.setBatches(batches.sum());
+        stats.setFailed(failed.sum());
+        stats.setRejected(rejected.sum());
+        return stats;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+        for (Thread worker : workers) {
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        // 写入线程退出后在关闭线程上写完剩余消息
+        shards.values().forEach(this::flush);
+        try {
+            redisUtils.hDelete(Constants.REDIS_KEY_CHAT_WRITE_PENDING, appConfig.getNodeId());
+        } catch (Exception e) {
+            log.warn("注销聊天消息写入登记失败，将按登记时间过期: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 写入线程：被唤醒或等待满一个间隔后，写出自己负责的全部分表
+     */
+    private void drain(int workerIndex, BlockingQueue<ShardBuffer> signal) {
+        while (running) {
+            try {
+                signal.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                signal.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            for (ShardBuffer shard : shards.values()) {
+                if (shard.workerIndex == workerIndex) {
+                    flush(shard);
+                }
+            }
+        }
+    }
+
+    private void flush(ShardBuffer shard) {
+        if (running && System.currentTimeMillis() < shard.retryAt) {
+            return;
+        }
+        List<PendingWrite> batch;
+        while (!(batch = shard.poll(batchSize)).isEmpty()) {
+            if (!write(shard, batch)) {
+                // 存在需要重试的消息，按连续失败次数退避后再写该分表，避免数据库故障时空转
+                shard.retryAt = System.currentTimeMillis() + backoff(shard.failures++);
+                return;
+            }
+            shard.failures = 0;
+        }
+    }
+
+    private long backoff(int failures) {
+        return Math.min(retryDelayMs << Math.min(failures, 16), maxRetryDelayMs);
+    }
+
+    /**
+     * 写出一批消息，返回 false 表示有消息放回缓冲等待重试
+     */
+    private boolean write(ShardBuffer shard, List<PendingWrite> batch) {
+        try {
+            List<ChatMessage> messages = new ArrayList<>(batch.size());
+            batch.forEach(write -> messages.add(write.message));
+            chatMessageMapper.insertBatch(shard.tableName, messages);
+            batches.increment();
+            batch.forEach(this::complete);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            log.warn("聊天消息批量写入 {} 存在异常数据，逐条重试，数量: {}，原因: {}", shard.tableName, batch.size(), e.getMessage());
+        } catch (Exception e) {
+            log.warn("聊天消息批量写入 {} 失败，整批等待重试，数量: {}，原因: {}", shard.tableName, batch.size(), e.getMessage());
+            shard.requeue(batch);
+            return false;
+        }
+        List<PendingWrite> retry = new ArrayList<>();
+        for (PendingWrite write : batch) {
+            try {
+                chatMessageMapper.insert(shard.tableName, write.message);
+                complete(write);
+            } catch (DuplicateKeyException e) {
+                try {
+                    completeDuplicate(shard, write, e);
+                } catch (Exception queryError) {
+                    if (++write.attempts < maxRetries) {
+                        retry.add(write);
+                    } else {
+                        fail(write, queryError);
+                    }
+                }
+            } catch (Exception e) {
+                if (++write.attempts < maxRetries) {
+                    retry.add(write);
+                } else {
+                    fail(write, e);
+                }
+            }
+        }
+        if (retry.isEmpty()) {
+            return true;
+        }
+        shard.requeue(retry);
+        return false;
+    }
+
+    private void complete(PendingWrite write) {
+        capacity.release();
+        written.increment();
+        write.future.complete(null);
+    }
+
+    /**
+     * 主键冲突：已有的行与待写入消息一致时视为已写入，否则说明消息ID重复，放弃写入；回查失败时抛出异常，按普通写入失败重试
+     */
+    private void completeDuplicate(ShardBuffer shard, PendingWrite write, DuplicateKeyException e) {
+        ChatMessage message = write.message;
+        ChatMessage stored = ReadRouteContext.onPrimary(() -> chatMessageMapper.selectById(shard.tableName, message.getMessageId()));
+        if (stored != null && Objects.equals(stored.getMeetingId(), message.getMeetingId())
+                && Objects.equals(stored.getSendUserId(), message.getSendUserId())
+                && Objects.equals(stored.getSendTime(), message.getSendTime())) {
+            complete(write);
+            return;
+        }
+        log.error("聊天消息ID冲突，已有的行不是同一条消息 table={}, messageId={}", shard.tableName, message.getMessageId());
+        fail(write, e);
+    }
+
+    private void fail(PendingWrite write, Exception e) {
+        capacity.release();
+        failed.increment();
+        ChatMessage message = write.message;
+        log.error("聊天消息写入失败，已放弃 messageId={}, meetingId={}, sendUserId={}",
+                message.getMessageId(), message.getMeetingId(), message.getSendUserId(), e);
+        write.future.completeExceptionally(e);
+    }
+
+    /**
+     * 单张分表的待写入队列
+     */
+    private static class ShardBuffer {
+        private final String tableName;
+        private final int workerIndex;
+        private final ArrayDeque<PendingWrite> queue = new ArrayDeque<>();
+        /**
+         * 写入失败后下次重试的时间（仅由负责该分表的写入线程读写）
+         */
+        private volatile long retryAt;
+        /**
+         * 连续写入失败次数（仅由负责该分表的写入线程读写）
+         */
+        private int failures;
+
+        private ShardBuffer(String tableName, int workerIndex) {
+            this.tableName = tableName;
+            this.workerIndex = workerIndex;
+        }
+
+        /**
+         * 加入队尾，返回加入后的队列长度
+         */
+        private synchronized int add(PendingWrite write) {
+            queue.addLast(write);
+            return queue.size();
+        }
+
+        private synchronized List<PendingWrite> poll(int max) {
+            List<PendingWrite> batch = new ArrayList<>(Math.min(max, queue.size()));
+            while (batch.size() < max && !queue.isEmpty()) {
+                batch.add(queue.pollFirst());
+            }
+            return batch;
+        }
+
+        /**
+         * 放回队首，保持原有顺序
+         */
+        private synchronized void requeue(List<PendingWrite> writes) {
+            for (int i = writes.size() - 1; i >= 0; i--) {
+                queue.addFirst(writes.get(i));
+            }
+        }
+    }
+
+    private record PendingMessage(String meetingId, CompletableFuture<Void> future) {
+    }
+
+    private static class PendingWrite {
+        private final ChatMessage message;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private int attempts;
+
+        private PendingWrite(ChatMessage message) {
+            this.message = message;
+        }
+    }
+}
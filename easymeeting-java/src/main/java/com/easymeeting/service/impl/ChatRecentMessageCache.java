@@ -0,0 +1,357 @@
+package com.easymeeting.service.impl;
+
+import com.easymeeting.dto.ChatRecentEventDto;
+import com.easymeeting.entity.ChatMessage;
+import com.easymeeting.entity.constants.Constants;
+import com.easymeeting.enums.ReceiveTypeEnum;
+import com.easymeeting.mapper.ChatMessageArchiveMapper;
+import com.easymeeting.mapper.ChatMessageMapper;
+import com.easymeeting.redis.RedisUtils;
+import com.easymeeting.sharding.ReadRouteContext;
+import com.easymeeting.sharding.ShardDirectory;
+import com.easymeeting.utils.TableSplitUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 会议最近消息缓存
+ * 每个会议在内存中保留最近 N 条消息（按消息ID有序的环形缓冲），首页加载直接从内存过滤私聊消息后返回，
+ * 更早的页仍查询 MySQL；会议结束、消息修改或删除时清除
+ *
+ * - 新消息由 saveMessage 追加，并广播到该会议的频道；各节点只维护自己被查询过的会议，
+ *   缓存会议时订阅该会议的频道、清除时退订，消息只发给缓存了该会议的节点
+ *   （订阅生效前发出的消息由之后的加载补齐）
+ * - 缓存创建 settle-ms（订阅生效所需的时间）后，等到集群中在此之前提交的该会议消息全部落库
+ *   （ChatMessageWriter.hasPendingBefore，数据库变慢、写入退避重试时会等待更久），再从数据库加载一次，
+ *   加载结果与期间追加的消息合并后缓存才开始提供查询
+ * - 会议数按 LRU 限制，超出时淘汰最久未访问的会议
+ * - 已归档的会议（分表中的消息会被删除）不缓存，首页由 ChatMessageService 合并归档查询
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ChatRecentMessageCache implements MessageListener {
+
+    private final ChatMessageMapper chatMessageMapper;
+    private final ChatMessageArchiveMapper chatMessageArchiveMapper;
+    private final ShardDirectory shardDirectory;
+    private final RedisUtils redisUtils;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final ChatMessageWriter chatMessageWriter;
+
+    /**
+     * 每个会议缓存的消息数，0 表示关闭
+     */
+    @Value("${chat.recent.size:100}")
+    private int capacity;
+
+    @Value("${chat.recent.max-meetings:2000}")
+    private int maxMeetings;
+
+    @Value("${chat.recent.settle-ms:1000}")
+    private long settleMs;
+
+    private Map<String, RecentMessages> buffers;
+
+    @PostConstruct
+    public void init() {
+        buffers = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RecentMessages> eldest) {
+                if (size() > maxMeetings) {
+                    unsubscribe(eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        });
+    }
+
+    /**
+     * 用户可见的最新消息
+     *
+     * @param meetingId 会议ID
+     * @param userId    当前用户ID（过滤不相关的私聊消息）
+     * @param limit     最多返回条数
+     * @return 最新的 limit 条可见消息，缓存未就绪或内存中不足 limit 条且会议还有更早的消息时返回 null
+     */
+    public RecentPage getLatest(String meetingId, String userId, int limit) {
+        if (capacity <= 0 || limit > capacity) {
+            return null;
+        }
+        RecentMessages recent = buffers.get(meetingId);
+        if (recent == null) {
+            if (buffers.putIfAbsent(meetingId, new RecentMessages(capacity)) == null) {
+                subscribe(meetingId);
+            }
+            return null;
+        }
+        if (recent.archived || !recent.trusted && !seed(meetingId, recent)) {
+            return null;
+        }
+        return recent.latest(userId, limit);
+    }
+
+    /**
+     * 追加新消息（本节点及其他节点已有该会议缓存时生效）
+     */
+    public void add(ChatMessage message) {
+        if (capacity <= 0) {
+            return;
+        }
+        append(message);
+        ChatRecentEventDto event = new ChatRecentEventDto();
+        event.setMeetingId(message.getMeetingId());
+        event.setMessage(message);
+        publish(event);
+    }
+
+    /**
+     * 清除会议缓存（所有节点）
+     */
+    public void evict(String meetingId) {
+        if (capacity <= 0 || meetingId == null) {
+            return;
+        }
+        drop(meetingId);
+        ChatRecentEventDto event = new ChatRecentEventDto();
+        event.setMeetingId(meetingId);
+        publish(event);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            ChatRecentEventDto event = (ChatRecentEventDto) redisUtils.deserializeValue(message.getBody());
+            if (event == null || event.getMeetingId() == null) {
+                return;
+            }
+            if (event.getMessage() == null) {
+                drop(event.getMeetingId());
+            } else {
+                append(event.getMessage());
+            }
+        } catch (Exception e) {
+            log.error("会议最近消息广播处理失败", e);
+        }
+    }
+
+    private void append(ChatMessage message) {
+        RecentMessages recent = buffers.get(message.getMeetingId());
+        if (recent != null) {
+            recent.add(copy(message));
+        }
+    }
+
+    private void publish(ChatRecentEventDto event) {
+        try {
+            redisUtils.publish(Constants.REDIS_CHANNEL_CHAT_RECENT + event.getMeetingId(), event);
+        } catch (Exception e) {
+            // 广播失败时其他节点的缓存可能缺少该消息，直接清除本会议缓存由各节点重新加载
+            log.warn("会议最近消息广播失败 meetingId={}: {}", event.getMeetingId(), e.getMessage());
+            drop(event.getMeetingId());
+        }
+    }
+
+    private void drop(String meetingId) {
+        if (buffers.remove(meetingId) != null) {
+            unsubscribe(meetingId);
+        }
+    }
+
+    private void subscribe(String meetingId) {
+        try {
+            redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(Constants.REDIS_CHANNEL_CHAT_RECENT + meetingId));
+            if (!buffers.containsKey(meetingId)) {
+                // 订阅期间已被清除或淘汰
+                unsubscribe(meetingId);
+            }
+        } catch (Exception e) {
+            // 收不到其他节点的消息，不能提供查询
+            log.warn("订阅会议最近消息频道失败 meetingId={}: {}", meetingId, e.getMessage());
+            buffers.remove(meetingId);
+        }
+    }
+
+    private void unsubscribe(String meetingId) {
+        try {
+            redisMessageListenerContainer.removeMessageListener(this, new ChannelTopic(Constants.REDIS_CHANNEL_CHAT_RECENT + meetingId));
+        } catch (Exception e) {
+            log.warn("退订会议最近消息频道失败 meetingId={}: {}", meetingId, e.getMessage());
+        }
+    }
+
+    /**
+     * 订阅生效且之前提交的消息全部落库后，从主库加载最近消息并与已追加的消息合并，同一会议只有一个线程加载
+     */
+    private boolean seed(String meetingId, RecentMessages recent) {
+        if (System.currentTimeMillis() - recent.createTime < settleMs || !recent.loading.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            if (chatMessageWriter.hasPendingBefore(meetingId, SnowflakeIdGenerator.firstIdAt(recent.createTime + settleMs))) {
+                return false;
+            }
+            if (chatMessageArchiveMapper.selectById(meetingId) != null) {
+                recent.archived = true;
+                return false;
+            }
+            String tableName = shardDirectory.route(TableSplitUtils.SPLIT_TABLE_CHAT_MESSAGE, meetingId).readTable();
+            List<ChatMessage> rows = ReadRouteContext.onPrimary(
+                    () -> chatMessageMapper.selectByCursor(tableName, meetingId, null, null, capacity));
+            Long count = ReadRouteContext.onPrimary(() -> chatMessageMapper.countByMeetingId(tableName, meetingId));
+            recent.seed(rows, count == null ? 0 : count, rows.size() < capacity);
+            return buffers.get(meetingId) == recent;
+        } catch (Exception e) {
+            log.warn("加载会议最近消息失败 meetingId={}: {}", meetingId, e.getMessage());
+            return false;
+        } finally {
+            recent.loading.set(false);
+        }
+    }
+
+    private static boolean visible(ChatMessage message, String userId) {
+        if (!ReceiveTypeEnum.USER.getType().equals(message.getReceiveType())) {
+            return true;
+        }
+        return userId.equals(message.getSendUserId()) || userId.equals(message.getReceiveUserId());
+    }
+
+    private static ChatMessage copy(ChatMessage message) {
+        ChatMessage copy = new ChatMessage();
+        BeanUtils.copyProperties(message, copy);
+        return copy;
+    }
+
+    /**
+     * 首页结果
+     *
+     * @param list  最新消息（按消息ID倒序）
+     * @param total 消息总数：缓存包含会议全部消息时为该用户可见的精确数量，否则为会议消息总数的近似值
+     */
+    public record RecentPage(List<ChatMessage> list, long total) {
+    }
+
+    /**
+     * 单个会议的最近消息（按消息ID升序的环形缓冲）
+     */
+    private static class RecentMessages {
+        private final ChatMessage[] ring;
+        private final long createTime = System.currentTimeMillis();
+        private final AtomicBoolean loading = new AtomicBoolean();
+        /**
+         * 最旧一条所在的下标
+         */
+        private int head;
+        private int size;
+        /**
+         * 已从数据库加载，可以提供查询
+         */
+        private volatile boolean trusted;
+        /**
+         * 会议已归档，不提供查询
+         */
+        private volatile boolean archived;
+        /**
+         * 加载时数据库中的消息不足容量（缓存包含会议全部消息）
+         */
+        private boolean complete;
+        /**
+         * 是否淘汰过旧消息
+         */
+        private boolean trimmed;
+        private long total;
+
+        private RecentMessages(int capacity) {
+            this.ring = new ChatMessage[capacity];
+        }
+
+        private ChatMessage get(int index) {
+            return ring[(head + index) % ring.length];
+        }
+
+        private void set(int index, ChatMessage message) {
+            ring[(head + index) % ring.length] = message;
+        }
+
+        /**
+         * 按消息ID插入（通常追加在末尾），重复的消息忽略，满时淘汰最旧的一条
+         */
+        private synchronized void add(ChatMessage message) {
+            if (insert(message)) {
+                total++;
+            }
+        }
+
+        private boolean insert(ChatMessage message) {
+            long messageId = message.getMessageId();
+            int pos = size;
+            while (pos > 0 && get(pos - 1).getMessageId() >= messageId) {
+                if (get(pos - 1).getMessageId() == messageId) {
+                    return false;
+                }
+                pos--;
+            }
+            if (size == ring.length) {
+                trimmed = true;
+                if (pos == 0) {
+                    // 比缓存中所有消息都旧，不保留
+                    return true;
+                }
+                ring[head] = null;
+                head = (head + 1) % ring.length;
+                size--;
+                pos--;
+            }
+            for (int i = size; i > pos; i--) {
+                set(i, get(i - 1));
+            }
+            set(pos, message);
+            size++;
+            return true;
+        }
+
+        private synchronized void seed(List<ChatMessage> rows, long count, boolean complete) {
+            for (ChatMessage row : rows) {
+                insert(row);
+            }
+            this.total = Math.max(count, size);
+            this.complete = complete;
+            this.trusted = true;
+        }
+
+        private synchronized RecentPage latest(String userId, int limit) {
+            List<ChatMessage> list = new ArrayList<>(limit);
+            int visibleCount = 0;
+            for (int i = size - 1; i >= 0; i--) {
+                ChatMessage message = get(i);
+                if (visible(message, userId)) {
+                    if (list.size() < limit) {
+                        list.add(copy(message));
+                    }
+                    visibleCount++;
+                }
+            }
+            boolean all = complete && !trimmed;
+            if (list.size() < limit && !all) {
+                return null;
+            }
+            return new RecentPage(list, all ? visibleCount : total);
+        }
+    }
+}
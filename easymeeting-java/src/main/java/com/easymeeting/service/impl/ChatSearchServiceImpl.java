@@ -0,0 +1,361 @@
+package com.easymeeting.service.impl;
+
+import com.easymeeting.dto.SearchIndexEventDto;
+import com.easymeeting.entity.ChatMessage;
+import com.easymeeting.entity.ChatMessageArchive;
+import com.easymeeting.entity.PrivateChatMessage;
+import com.easymeeting.entity.constants.Constants;
+import com.easymeeting.enums.MessageTypeEnum;
+import com.easymeeting.enums.ReceiveTypeEnum;
+import com.easymeeting.exception.BusinessException;
+import com.easymeeting.mapper.ChatMessageMapper;
+import com.easymeeting.mapper.PrivateChatMessageMapper;
+import com.easymeeting.redis.RedisUtils;
+import com.easymeeting.search.ChatTokenizer;
+import com.easymeeting.search.SearchDoc;
+import com.easymeeting.search.SearchIndexStore;
+import com.easymeeting.search.SearchPartition;
+import com.easymeeting.service.ChatArchiveService;
+import com.easymeeting.service.ChatSearchService;
+import com.easymeeting.sharding.ReadRouteContext;
+import com.easymeeting.sharding.ShardDirectory;
+import com.easymeeting.utils.SessionIdUtils;
+import com.easymeeting.utils.StringUtils;
+import com.easymeeting.utils.TableSplitUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongFunction;
+
+/**
+ * 聊天消息搜索服务实现
+ * 新增 / 修改 / 删除消息时先更新本节点已打开的分区，再通过 Redis 广播给其他节点（本节点收到自己的广播时按消息ID去重）；
+ * 索引失败只记录日志，不影响消息发送。
+ *
+ * 分区未打开期间的修改 / 删除不会补录，会议消息的命中结果返回前按库中（已归档的按归档文件中）的当前内容校验：
+ * 已不存在的消息记为删除，内容已不包含查询词的消息按当前内容重新索引，两者都不返回，不足一页时继续往前搜索。
+ * 私聊消息不支持修改和删除，不需要校验
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ChatSearchServiceImpl implements ChatSearchService, MessageListener {
+
+    private static final int MAX_LIMIT = 100;
+    private static final int MAX_KEYWORD_LENGTH = 50;
+    /**
+     * 命中结果校验后不足一页时，最多再往前搜索的次数
+     */
+    private static final int MAX_VERIFY_ROUNDS = 3;
+
+    private final SearchIndexStore searchIndexStore;
+    private final ChatMessageMapper chatMessageMapper;
+    private final PrivateChatMessageMapper privateChatMessageMapper;
+    private final ChatArchiveService chatArchiveService;
+    private final ChatMessageWriter chatMessageWriter;
+    private final ShardDirectory shardDirectory;
+    private final RedisUtils redisUtils;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${search.enabled:true}")
+    private boolean enabled;
+
+    @Value("${search.catch-up-batch:1000}")
+    private int catchUpBatch;
+
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(Constants.REDIS_CHANNEL_SEARCH_INDEX));
+        }
+    }
+
+    @Override
+    public void indexMeetingMessage(ChatMessage message) {
+        submit(meetingEvent(message, false));
+    }
+
+    @Override
+    public void updateMeetingMessage(ChatMessage message) {
+        submit(meetingEvent(message, true));
+    }
+
+    @Override
+    public void removeMeetingMessage(String meetingId, Long messageId) {
+        SearchIndexEventDto event = new SearchIndexEventDto();
+        event.setScope(SearchIndexStore.SCOPE_MEETING);
+        event.setPartitionId(meetingId);
+        event.setMessageId(messageId);
+        event.setDeleted(true);
+        submit(event);
+    }
+
+    @Override
+    public void indexPrivateMessage(PrivateChatMessage message) {
+        SearchIndexEventDto event = new SearchIndexEventDto();
+        event.setScope(SearchIndexStore.SCOPE_PRIVATE);
+        event.setPartitionId(message.getSessionId());
+        event.setMessageId(message.getMessageId());
+        event.setReceiveType(ReceiveTypeEnum.ALL.getType());
+        event.setSendUserId(message.getSendUserId());
+        event.setReceiveUserId(message.getReceiveUserId());
+        event.setText(searchText(message.getMessageType(), message.getMessageContent(), message.getFileName()));
+        submit(event);
+    }
+
+    @Override
+    public List<Long> searchMeeting(String meetingId, String userId, String keyword, Long maxMessageId, Integer limit) {
+        if (StringUtils.isEmpty(meetingId)) {
+            throw new BusinessException("会议ID不能为空");
+        }
+        Set<String> terms = queryTerms(keyword);
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+        SearchPartition partition = open(SearchIndexStore.SCOPE_MEETING, meetingId, afterId -> catchUpMeeting(meetingId, afterId));
+        int size = normalizeLimit(limit);
+        List<Long> result = new ArrayList<>();
+        Long beforeId = maxMessageId;
+        for (int round = 0; round <= MAX_VERIFY_ROUNDS && result.size() < size; round++) {
+            int wanted = size - result.size();
+            List<Long> hits = partition.search(terms, userId, beforeId, wanted);
+            result.addAll(verifyMeetingHits(meetingId, partition, terms, hits));
+            if (hits.size() < wanted) {
+                break;
+            }
+            beforeId = hits.get(hits.size() - 1);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Long> searchPrivate(String userId, String contactId, String keyword, Long maxMessageId, Integer limit) {
+        if (StringUtils.isEmpty(contactId)) {
+            throw new BusinessException("联系人ID不能为空");
+        }
+        Set<String> terms = queryTerms(keyword);
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String sessionId = SessionIdUtils.generateSessionId(userId, contactId);
+        SearchPartition partition = open(SearchIndexStore.SCOPE_PRIVATE, sessionId, afterId -> catchUpPrivate(sessionId, afterId));
+        return partition.search(terms, userId, maxMessageId, normalizeLimit(limit));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            SearchIndexEventDto event = (SearchIndexEventDto) redisUtils.deserializeValue(message.getBody());
+            if (event != null && event.getPartitionId() != null && event.getMessageId() != null) {
+                apply(event);
+            }
+        } catch (Exception e) {
+            log.error("消息搜索索引广播处理失败", e);
+        }
+    }
+
+    private void submit(SearchIndexEventDto event) {
+        if (!enabled || event.getPartitionId() == null || event.getMessageId() == null) {
+            return;
+        }
+        try {
+            apply(event);
+            redisUtils.publish(Constants.REDIS_CHANNEL_SEARCH_INDEX, event);
+        } catch (Exception e) {
+            // 其他节点的分区缺少该消息，重启后从数据库补录
+            log.warn("消息搜索索引更新失败 {}:{} messageId={}: {}",
+                    event.getScope(), event.getPartitionId(), event.getMessageId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 只更新已打开的分区，未打开的分区在打开时从数据库补录
+     */
+    private void apply(SearchIndexEventDto event) {
+        SearchPartition partition = searchIndexStore.getIfOpen(event.getScope(), event.getPartitionId());
+        if (partition == null) {
+            return;
+        }
+        if (Boolean.TRUE.equals(event.getDeleted())) {
+            partition.delete(event.getMessageId());
+            return;
+        }
+        SearchDoc doc = new SearchDoc(event.getMessageId(), event.getReceiveType() == null ? ReceiveTypeEnum.ALL.getType() : event.getReceiveType(),
+                event.getSendUserId(), event.getReceiveUserId(), event.getText());
+        partition.add(doc, Boolean.TRUE.equals(event.getReplace()));
+    }
+
+    private SearchPartition open(String scope, String partitionId, LongFunction<List<SearchDoc>> catchUp) {
+        try {
+            return searchIndexStore.open(scope, partitionId, catchUp);
+        } catch (IOException e) {
+            log.error("打开搜索索引 {}:{} 失败", scope, partitionId, e);
+            throw new BusinessException("搜索失败，请稍后重试");
+        }
+    }
+
+    private Set<String> queryTerms(String keyword) {
+        if (!enabled) {
+            throw new BusinessException("消息搜索未开启");
+        }
+        if (StringUtils.isEmpty(keyword) || keyword.isBlank()) {
+            throw new BusinessException("搜索关键词不能为空");
+        }
+        if (keyword.length() > MAX_KEYWORD_LENGTH) {
+            throw new BusinessException("搜索关键词不能超过" + MAX_KEYWORD_LENGTH + "个字符");
+        }
+        return ChatTokenizer.queryTokens(keyword);
+    }
+
+    private static int normalizeLimit(Integer limit) {
+        if (limit == null || limit < 1) {
+            return 20;
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    /**
+     * 补录会议消息：先读归档文件中消息ID大于 afterId 的部分，再读分表（清理中的会议两边都有，按消息ID去重）
+     */
+    private List<SearchDoc> catchUpMeeting(String meetingId, long afterId) {
+        List<SearchDoc> docs = new ArrayList<>();
+        ChatMessageArchive archive = chatArchiveService.getReadableArchive(meetingId);
+        if (archive != null && archive.getMaxMessageId() > afterId) {
+            List<ChatMessage> archived = new ArrayList<>();
+            long beforeId = archive.getMaxMessageId() + 1;
+            boolean more = true;
+            while (more) {
+                List<ChatMessage> page = chatArchiveService.readArchived(meetingId, null, beforeId, 0, catchUpBatch);
+                more = page.size() == catchUpBatch;
+                for (ChatMessage message : page) {
+                    if (message.getMessageId() <= afterId) {
+                        more = false;
+                        break;
+                    }
+                    archived.add(message);
+                    beforeId = message.getMessageId();
+                }
+            }
+            Collections.reverse(archived);
+            archived.forEach(message -> docs.add(meetingDoc(message)));
+        }
+        String tableName = shardDirectory.route(TableSplitUtils.SPLIT_TABLE_CHAT_MESSAGE, meetingId).readTable();
+        long cursor = afterId;
+        while (true) {
+            long from = cursor;
+            List<ChatMessage> rows = ReadRouteContext.onPrimary(
+                    () -> chatMessageMapper.selectByMeetingAfterId(tableName, meetingId, from, catchUpBatch));
+            rows.forEach(message -> docs.add(meetingDoc(message)));
+            if (rows.size() < catchUpBatch) {
+                return docs;
+            }
+            cursor = rows.get(rows.size() - 1).getMessageId();
+        }
+    }
+
+    private List<SearchDoc> catchUpPrivate(String sessionId, long afterId) {
+        List<SearchDoc> docs = new ArrayList<>();
+        String tableName = shardDirectory.route(TableSplitUtils.SPLIT_TABLE_PRIVATE_CHAT_MESSAGE, sessionId).readTable();
+        long cursor = afterId;
+        while (true) {
+            long from = cursor;
+            List<PrivateChatMessage> rows = ReadRouteContext.onPrimary(
+                    () -> privateChatMessageMapper.selectBySessionAfterId(tableName, sessionId, from, catchUpBatch));
+            for (PrivateChatMessage message : rows) {
+                docs.add(new SearchDoc(message.getMessageId(), ReceiveTypeEnum.ALL.getType(), message.getSendUserId(),
+                        message.getReceiveUserId(), searchText(message.getMessageType(), message.getMessageContent(), message.getFileName())));
+            }
+            if (rows.size() < catchUpBatch) {
+                return docs;
+            }
+            cursor = rows.get(rows.size() - 1).getMessageId();
+        }
+    }
+
+    /**
+     * 按消息当前内容校验命中结果（保持倒序）：已不存在的记为删除，不再包含查询词的按当前内容重新索引。
+     * 库中查不到、但可能还在批量写入缓冲中（集群中有更早的消息未落库）的消息照常返回
+     */
+    private List<Long> verifyMeetingHits(String meetingId, SearchPartition partition, Set<String> terms, List<Long> hits) {
+        if (hits.isEmpty()) {
+            return hits;
+        }
+        String tableName = shardDirectory.route(TableSplitUtils.SPLIT_TABLE_CHAT_MESSAGE, meetingId).readTable();
+        Map<Long, ChatMessage> current = new HashMap<>();
+        ReadRouteContext.onPrimary(() -> chatMessageMapper.selectByIds(tableName, hits))
+                .forEach(message -> current.put(message.getMessageId(), message));
+        ChatMessageArchive archive = current.size() < hits.size() ? chatArchiveService.getReadableArchive(meetingId) : null;
+        List<Long> verified = new ArrayList<>(hits.size());
+        for (Long messageId : hits) {
+            ChatMessage message = current.get(messageId);
+            if (message == null && archive != null && messageId <= archive.getMaxMessageId()) {
+                message = archivedMessage(meetingId, messageId);
+            }
+            if (message == null) {
+                if (chatMessageWriter.hasPendingBefore(meetingId, messageId + 1)) {
+                    verified.add(messageId);
+                } else {
+                    partition.delete(messageId);
+                }
+                continue;
+            }
+            SearchDoc doc = meetingDoc(message);
+            if (!ChatTokenizer.indexTokens(doc.text()).containsAll(terms)) {
+                partition.add(doc, true);
+                continue;
+            }
+            verified.add(messageId);
+        }
+        return verified;
+    }
+
+    private ChatMessage archivedMessage(String meetingId, long messageId) {
+        List<ChatMessage> page = chatArchiveService.readArchived(meetingId, null, messageId + 1, 0, 1);
+        return !page.isEmpty() && page.get(0).getMessageId() == messageId ? page.get(0) : null;
+    }
+
+    private SearchIndexEventDto meetingEvent(ChatMessage message, boolean replace) {
+        SearchIndexEventDto event = new SearchIndexEventDto();
+        event.setScope(SearchIndexStore.SCOPE_MEETING);
+        event.setPartitionId(message.getMeetingId());
+        event.setMessageId(message.getMessageId());
+        event.setReceiveType(message.getReceiveType());
+        event.setSendUserId(message.getSendUserId());
+        event.setReceiveUserId(message.getReceiveUserId());
+        event.setText(searchText(message.getMessageType(), message.getMessageContent(), message.getFileName()));
+        event.setReplace(replace);
+        return event;
+    }
+
+    private static SearchDoc meetingDoc(ChatMessage message) {
+        return new SearchDoc(message.getMessageId(),
+                message.getReceiveType() == null ? ReceiveTypeEnum.ALL.getType() : message.getReceiveType(),
+                message.getSendUserId(), message.getReceiveUserId(),
+                searchText(message.getMessageType(), message.getMessageContent(), message.getFileName()));
+    }
+
+    /**
+     * 文件消息按文件名搜索，其他消息按内容搜索
+     */
+    private static String searchText(Integer messageType, String content, String fileName) {
+        if (MessageTypeEnum.CHAT_MEDIA_MESSAGE.getType().equals(messageType)) {
+            return fileName;
+        }
+        return content;
+    }
+}
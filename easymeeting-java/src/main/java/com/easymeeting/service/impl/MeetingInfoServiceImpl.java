@@ -1,14 +1,18 @@
 package com.easymeeting.service.impl;
 
+import com.easymeeting.annotation.ReadOnlyRoute;
 import com.easymeeting.dto.*;
 import com.easymeeting.entity.MeetingInfo;
 import com.easymeeting.entity.MeetingMember;
 import com.easymeeting.entity.MeetingReserve;
-import com.easymeeting.entity.UserContact;
 import com.easymeeting.enums.*;
 import com.easymeeting.exception.BusinessException;
 import com.easymeeting.mapper.*;
+import com.easymeeting.redis.ContactGraphCache;
+import com.easymeeting.redis.MeetingBlacklistFilter;
+import com.easymeeting.redis.MeetingInfoCache;
 import com.easymeeting.redis.RedisComponent;
+import com.easymeeting.service.ChatMessageService;
 import com.easymeeting.service.MeetingInfoService;
 import com.easymeeting.utils.StringUtils;
 import com.easymeeting.vo.PageResult;
@@ -18,7 +22,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -38,23 +45,31 @@ public class MeetingInfoServiceImpl implements MeetingInfoService {
     @Resource
     private MeetingReserveMapper meetingReserveMapper;
     @Resource
-    private UserContactMapper userContactMapper;
+    private MeetingInfoCache meetingInfoCache;
+    @Resource
+    private ContactGraphCache contactGraphCache;
+    @Resource
+    private MeetingBlacklistFilter meetingBlacklistFilter;
+    @Resource
+    private ChatMessageService chatMessageService;
 
     @Override
     public MeetingInfo createMeeting(MeetingInfo meetingInfo) {
         meetingInfoMapper.insert(meetingInfo);
+        meetingInfoCache.evict(meetingInfo);
         return meetingInfo;
     }
 
     @Override
     public MeetingInfo updateMeeting(MeetingInfo meetingInfo) {
         meetingInfoMapper.updateById(meetingInfo);
+        meetingInfoCache.evict(meetingInfo);
         return meetingInfo;
     }
 
     @Override
     public MeetingInfo getMeetingById(String meetingId) {
-        return meetingInfoMapper.selectById(meetingId);
+        return meetingInfoCache.getById(meetingId);
     }
 
     @Override
@@ -74,10 +89,13 @@ public class MeetingInfoServiceImpl implements MeetingInfoService {
 
     @Override
     public void deleteMeeting(String meetingId) {
+        MeetingInfo meetingInfo = meetingInfoCache.getById(meetingId);
         meetingInfoMapper.deleteById(meetingId);
+        meetingInfoCache.evict(meetingId, meetingInfo == null ? null : meetingInfo.getMeetingNo());
     }
 
     @Override
+    @ReadOnlyRoute
     public PageResult<MeetingInfo> loadAllMeetings(String userId, Integer pageNo, Integer pageSize) {
         int offset = (pageNo - 1) * pageSize;
         Long total = meetingInfoMapper.countAllMeetings(userId);
@@ -86,6 +104,7 @@ public class MeetingInfoServiceImpl implements MeetingInfoService {
     }
 
     @Override
+    @ReadOnlyRoute
     public PageResult<MeetingInfo> loadCreatedMeetings(String userId, Integer pageNo, Integer pageSize) {
         int offset = (pageNo - 1) * pageSize;
         Long total = meetingInfoMapper.countCreatedMeetings(userId);
@@ -94,6 +113,7 @@ public class MeetingInfoServiceImpl implements MeetingInfoService {
     }
 
     @Override
+    @ReadOnlyRoute
     public PageResult<MeetingInfo> loadJoinedMeetings(String userId, Integer pageNo, Integer pageSize) {
         int offset = (pageNo - 1) * pageSize;
         Long total = meetingInfoMapper.countJoinedMeetings(userId);
@@ -112,6 +132,7 @@ public class MeetingInfoServiceImpl implements MeetingInfoService {
         meetingInfo.setStartTime(LocalDateTime.now());
         meetingInfo.setStatus(MeetingStatusEnum.RUNING.getStatus());
         meetingInfoMapper.insert(meetingInfo);
+        meetingInfoCache.evict(meetingInfo);
     }
     private void addMeetingMember(String meetingId, String userId,String nickName,Integer memberType) {
         MeetingMember meetingMember=new MeetingMember();
@@ -128,7 +149,7 @@ public class MeetingInfoServiceImpl implements MeetingInfoService {
             meetingMemberMapper.updateByMeetingIdAndUserId(meetingMember);
         }
     }
-    private void addToMeeting(String meetingId, String userId,String nickName,Integer sex,Integer memberType,Boolean videoOpen) {
+    private MeetingRoomStateDto addToMeeting(String meetingId, String userId,String nickName,Integer sex,Integer memberType,Boolean videoOpen) {
         MeetingMemberDto meetingMemberDto=new MeetingMemberDto();
         meetingMemberDto.setUserId(userId);
         meetingMemberDto.setNickName(nickName);
@@ -137,10 +158,14 @@ public class MeetingInfoServiceImpl implements MeetingInfoService {
         meetingMemberDto.setStatus(MeetingMemberStatusEnum.NORMAL.getStatus());
         meetingMemberDto.setVideoOpen(videoOpen);
         meetingMemberDto.setSex(sex);
-        redisComponent.addToMeeting(meetingId,meetingMemberDto);
-
+        return redisComponent.addToMeeting(meetingId,meetingMemberDto);
     }
     private void checkMeetingJoin(String meetingId, String userId) {
+        // 0. 布隆过滤器判定一定未被拉黑时直接放行（绝大多数请求）
+        if (!meetingBlacklistFilter.mightContain(meetingId, userId)) {
+            return;
+        }
+
         // 1. 先检查 Redis 中的状态（如果用户还在会议中）
         MeetingMemberDto meetingMemberDto = redisComponent.getMeetingMember(meetingId, userId);
         if (meetingMemberDto != null && MeetingMemberStatusEnum.BLACKLIST.getStatus().equals(meetingMemberDto.getStatus())) {
@@ -175,7 +200,7 @@ public class MeetingInfoServiceImpl implements MeetingInfoService {
         
         // 轻量级检查：只检查会议是否存在和状态
         // 注意：不再调用 checkMeetingJoin()，因为 preJoinMeeting 已经校验过了
-        MeetingInfo meetingInfo = meetingInfoMapper.selectById(meetingId);
+        MeetingInfo meetingInfo = meetingInfoCache.getById(meetingId);
         if (meetingInfo == null) {
             throw new BusinessException("会议不存在");
         }
@@ -188,8 +213,8 @@ public class MeetingInfoServiceImpl implements MeetingInfoService {
                 ? MemberTypeEnum.COMPERE : MemberTypeEnum.NORMAL;
         addMeetingMember(meetingId, userId, joinMeetingDto.getNickName(), memberTypeEnum.getType());
         
-        // 加入会议（Redis）
-        addToMeeting(meetingId, userId, joinMeetingDto.getNickName(), 
+        // 加入会议（Redis，原子写入并返回新版本号与成员快照）
+        MeetingRoomStateDto roomState = addToMeeting(meetingId, userId, joinMeetingDto.getNickName(),
                 joinMeetingDto.getSex(), memberTypeEnum.getType(), joinMeetingDto.getVideoOpen());
         
         // 加入 WebSocket 房间
@@ -197,8 +222,9 @@ public class MeetingInfoServiceImpl implements MeetingInfoService {
         
         // 发送 WebSocket 消息通知其他成员
         MeetingJoinDto meetingJoinDto = new MeetingJoinDto();
-        meetingJoinDto.setNewMember(redisComponent.getMeetingMember(meetingId, userId));
-        meetingJoinDto.setMeetingMemberList(redisComponent.getMeetingMemberList(meetingId));
+        meetingJoinDto.setNewMember(roomState.getChangedMember());
+        meetingJoinDto.setMeetingMemberList(roomState.getMeetingMemberList());
+        meetingJoinDto.setRoomVersion(roomState.getVersion());
 
         MessageSendDto<MeetingJoinDto> messageSendDto = new MessageSendDto<>();
         messageSendDto.setMessageType(MessageTypeEnum.ADD_MEETING_ROOM.getType());
@@ -212,7 +238,7 @@ public class MeetingInfoServiceImpl implements MeetingInfoService {
     @Override
     public String preJoinMeeting(String meetingNo, TokenUserInfoDto tokenUserInfoDto, String password) {
         String userId=tokenUserInfoDto.getUserId();
-        MeetingInfo meetingInfo = meetingInfoMapper.selectRunningMeetingByMeetingNo(meetingNo);
+        MeetingInfo meetingInfo = meetingInfoCache.getRunningByNo(meetingNo);
         if(meetingInfo==null){
             throw new BusinessException("会议不存在");
         }
@@ -224,7 +250,7 @@ public class MeetingInfoServiceImpl implements MeetingInfoService {
             throw new BusinessException("密码错误");
         }
         tokenUserInfoDto.setCurrentMeetingId(meetingInfo.getMeetingId());
-        redisComponent.updateTokenUserInfo(tokenUserInfoDto);
+        redisComponent.updateCurrentMeeting(tokenUserInfoDto);
         return meetingInfo.getMeetingId();
     }
 
@@ -236,14 +262,14 @@ public class MeetingInfoServiceImpl implements MeetingInfoService {
         }
         String userId = tokenUserInfoDto.getUserId();
         
-        // 1. 从 Redis 会议成员列表中移除
-        Boolean exit = redisComponent.exitMeeting(meetingId, userId, statusEnum);
+        // 1. 从 Redis 会议成员列表中移除（原子完成，返回剩余成员快照）
+        MeetingRoomStateDto roomState = redisComponent.exitMeeting(meetingId, userId, statusEnum);
         
         // 2. 清除用户的当前会议ID（Redis 中的 token 信息）
         tokenUserInfoDto.setCurrentMeetingId(null);
-        redisComponent.updateTokenUserInfo(tokenUserInfoDto);
+        redisComponent.updateCurrentMeeting(tokenUserInfoDto);
         
-        if (!exit) {
+        if (roomState == null) {
             return;
         }
         
@@ -254,12 +280,14 @@ public class MeetingInfoServiceImpl implements MeetingInfoService {
                 meetingMember.setStatus(MeetingMemberStatusEnum.BLACKLIST.getStatus());
                 meetingMemberMapper.updateByMeetingIdAndUserId(meetingMember);
             }
+            meetingBlacklistFilter.add(meetingId, userId);
         }
         
         // 4. 构建退出消息
-        List<MeetingMemberDto> meetingMemberDtoList = redisComponent.getMeetingMemberList(meetingId);
+        List<MeetingMemberDto> meetingMemberDtoList = roomState.getMeetingMemberList();
         MeetingExitDto meetingExitDto = new MeetingExitDto();
         meetingExitDto.setMeetingMemberList(meetingMemberDtoList);
+        meetingExitDto.setRoomVersion(roomState.getVersion());
         meetingExitDto.setExitUserId(userId);
         meetingExitDto.setExitStatus(statusEnum.getStatus());
 
@@ -292,7 +320,7 @@ public class MeetingInfoServiceImpl implements MeetingInfoService {
     @Override
     public void forceExitMeetingRoom(TokenUserInfoDto tokenUserInfoDto, String userId,MeetingMemberStatusEnum meetingMemberStatusEnum) {
         //检验操作的是不是会议创建者，不是就不能踢人和拉黑
-        MeetingInfo meetingInfo=meetingInfoMapper.selectById(tokenUserInfoDto.getCurrentMeetingId());
+        MeetingInfo meetingInfo=meetingInfoCache.getById(tokenUserInfoDto.getCurrentMeetingId());
         if(!meetingInfo.getCreateUserId().equals(tokenUserInfoDto.getUserId())){
             throw new BusinessException("你没有权限");
         }
@@ -311,7 +339,7 @@ public class MeetingInfoServiceImpl implements MeetingInfoService {
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void finishMeeting(String meetingId, String userId) {
-        MeetingInfo meetingInfo = meetingInfoMapper.selectById(meetingId);
+        MeetingInfo meetingInfo = meetingInfoCache.getById(meetingId);
         if (meetingInfo == null) {
             throw new BusinessException("会议不存在");
         }
@@ -328,6 +356,7 @@ public class MeetingInfoServiceImpl implements MeetingInfoService {
         meetingInfo.setStatus(MeetingStatusEnum.FINISHED.getStatus());
         meetingInfo.setEndTime(LocalDateTime.now());
         meetingInfoMapper.updateById(meetingInfo);
+        meetingInfoCache.evict(meetingInfo);
         
         // 2. 获取会议中的所有成员（从 Redis）
         List<MeetingMemberDto> memberList = redisComponent.getMeetingMemberList(meetingId);
@@ -344,11 +373,7 @@ public class MeetingInfoServiceImpl implements MeetingInfoService {
         }
         
         // 4. 批量更新 MeetingMember 表（更新会议状态为已结束）
-        List<MeetingMember> dbMembers = meetingMemberMapper.selectByMeetingId(meetingId);
-        for (MeetingMember member : dbMembers) {
-            member.setMeetingStatus(MeetingStatusEnum.FINISHED.getStatus());
-            meetingMemberMapper.updateByMeetingIdAndUserId(member);
-        }
+        meetingMemberMapper.updateMeetingStatusByMeetingId(meetingId, MeetingStatusEnum.FINISHED.getStatus());
         
         // 4.1 更新预约会议状态为已结束（如果该会议是从预约会议开始的）
         MeetingReserve meetingReserve = meetingReserveMapper.selectByRealMeetingId(meetingId);
@@ -357,20 +382,14 @@ public class MeetingInfoServiceImpl implements MeetingInfoService {
             meetingReserveMapper.updateById(meetingReserve);
         }
         
-        // 5. 批量更新 TokenUserInfo（清除 currentMeetingId）并清理 WebSocket 房间
+        // 5. 按 会议 -> 会话 索引批量清除 currentMeetingId（包含已预加入但未进入房间的会话）
+        redisComponent.clearCurrentMeeting(meetingId);
+
+        // 5.1 清理 WebSocket 房间
         if (memberList != null) {
             for (MeetingMemberDto member : memberList) {
-                String memberUserId = member.getUserId();
-                String token = redisComponent.getTokenByUserId(memberUserId);
-                if (token != null) {
-                    TokenUserInfoDto tokenUserInfo = redisComponent.getTokenUserInfo(token);
-                    if (tokenUserInfo != null && meetingId.equals(tokenUserInfo.getCurrentMeetingId())) {
-                        tokenUserInfo.setCurrentMeetingId(null);
-                        redisComponent.updateTokenUserInfo(tokenUserInfo);
-                    }
-                }
                 // 从 WebSocket 房间移除（需要检查 channel 是否存在）
-                io.netty.channel.Channel channel = channelContextUtils.getChannel(memberUserId);
+                io.netty.channel.Channel channel = channelContextUtils.getChannel(member.getUserId());
                 if (channel != null) {
                     channelContextUtils.leaveMeetingRoom(meetingId, channel);
                 }
@@ -379,6 +398,9 @@ public class MeetingInfoServiceImpl implements MeetingInfoService {
         
         // 6. 清理 Redis 中的会议成员数据
         redisComponent.removeMeetingMembers(meetingId);
+
+        // 7. 清除会议最近消息缓存
+        chatMessageService.evictRecentMessages(meetingId);
     }
 
     @Override
@@ -386,7 +408,7 @@ public class MeetingInfoServiceImpl implements MeetingInfoService {
         String userId = tokenUserInfoDto.getUserId();
         
         // 1. 查询会议是否存在
-        MeetingInfo meetingInfo = meetingInfoMapper.selectById(meetingId);
+        MeetingInfo meetingInfo = meetingInfoCache.getById(meetingId);
         if (meetingInfo == null) {
             throw new BusinessException("会议不存在");
         }
@@ -413,7 +435,7 @@ public class MeetingInfoServiceImpl implements MeetingInfoService {
         
         // 6. 设置 currentMeetingId 到 token
         tokenUserInfoDto.setCurrentMeetingId(meetingId);
-        redisComponent.updateTokenUserInfo(tokenUserInfoDto);
+        redisComponent.updateCurrentMeeting(tokenUserInfoDto);
     }
 
     /**
@@ -439,21 +461,15 @@ public class MeetingInfoServiceImpl implements MeetingInfoService {
 
         String userId = tokenUserInfoDto.getUserId();
 
-        // 获取当前用户的所有正常状态的联系人ID
-        Set<String> myContactIds = userContactMapper.selectNormalContactsByUserId(userId)
-                .stream()
-                .map(UserContact::getContactId)
-                .collect(Collectors.toSet());
-
-        // 验证并过滤出有效的联系人
+        // 验证被邀请者均为正常好友（读取联系人关系图缓存）
         for (String contactId : contactsId) {
-            if (!myContactIds.contains(contactId)) {
+            if (!contactGraphCache.isNormalContact(userId, contactId)) {
                 throw new BusinessException("用户 " + contactId + " 不是您的好友");
             }
         }
 
         // 获取会议信息
-        MeetingInfo meetingInfo = meetingInfoMapper.selectById(currentMeetingId);
+        MeetingInfo meetingInfo = meetingInfoCache.getById(currentMeetingId);
         if (meetingInfo == null) {
             throw new BusinessException("会议不存在");
         }
@@ -461,25 +477,39 @@ public class MeetingInfoServiceImpl implements MeetingInfoService {
             throw new BusinessException("会议已结束");
         }
         
-        // 邀请每个联系人
+        // 批量查询房间成员与黑名单，避免逐个联系人访问 Redis 和数据库
+        // 只有布隆过滤器判定可能被拉黑的联系人存在时才查询数据库
+        Map<String, MeetingMemberDto> roomMembers = redisComponent.getMeetingMembers(currentMeetingId, contactsId);
+        boolean mayHaveBlacklisted = contactsId.stream()
+                .anyMatch(contactId -> meetingBlacklistFilter.mightContain(currentMeetingId, contactId));
+        Set<String> blacklistUserIds = !mayHaveBlacklisted ? Collections.emptySet()
+                : meetingMemberMapper.selectByMeetingId(currentMeetingId)
+                .stream()
+                .filter(member -> MeetingMemberStatusEnum.BLACKLIST.getStatus().equals(member.getStatus()))
+                .map(MeetingMember::getUserId)
+                .collect(Collectors.toSet());
+
+        List<String> inviteUserIds = new ArrayList<>();
         for (String contactId : contactsId) {
             // 检查用户是否已在会议中
-            MeetingMemberDto meetingMemberDto = redisComponent.getMeetingMember(currentMeetingId, contactId);
+            MeetingMemberDto meetingMemberDto = roomMembers.get(contactId);
             if (meetingMemberDto != null && MeetingMemberStatusEnum.NORMAL.getStatus().equals(meetingMemberDto.getStatus())) {
                 // 用户已在会议中，跳过
                 continue;
             }
-            
             // 检查用户是否被拉黑
-            MeetingMember dbMember = meetingMemberMapper.selectByMeetingIdAndUserId(currentMeetingId, contactId);
-            if (dbMember != null && MeetingMemberStatusEnum.BLACKLIST.getStatus().equals(dbMember.getStatus())) {
+            if (blacklistUserIds.contains(contactId)) {
                 // 用户被拉黑，跳过
                 continue;
             }
-            
-            // 保存邀请信息到 Redis
-            redisComponent.addInviteInfo(currentMeetingId, contactId);
-            
+            inviteUserIds.add(contactId);
+        }
+
+        // 保存邀请信息到 Redis（管道批量写入）
+        redisComponent.addInviteInfos(currentMeetingId, inviteUserIds);
+
+        // 邀请每个联系人
+        for (String contactId : inviteUserIds) {
             // 构建邀请消息
             MeetingInviteDto meetingInviteDto = new MeetingInviteDto();
             meetingInviteDto.setMeetingId(currentMeetingId);
@@ -523,7 +553,7 @@ public class MeetingInfoServiceImpl implements MeetingInfoService {
         }
         
         // 2. 验证会议是否存在且进行中
-        MeetingInfo meetingInfo = meetingInfoMapper.selectById(meetingId);
+        MeetingInfo meetingInfo = meetingInfoCache.getById(meetingId);
         if (meetingInfo == null) {
             throw new BusinessException("会议不存在");
         }
@@ -543,7 +573,7 @@ public class MeetingInfoServiceImpl implements MeetingInfoService {
         // 5. 设置 currentMeetingId 到 token（类似 preJoinMeeting 的效果）
         // 这样用户后续调用 joinMeeting 时可以直接加入
         tokenUserInfoDto.setCurrentMeetingId(meetingId);
-        redisComponent.updateTokenUserInfo(tokenUserInfoDto);
+        redisComponent.updateCurrentMeeting(tokenUserInfoDto);
         
         // 6. 删除邀请信息（一次性使用）
         redisComponent.removeInviteInfo(meetingId, userId);
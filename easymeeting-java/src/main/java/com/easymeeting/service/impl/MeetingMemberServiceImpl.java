@@ -1,5 +1,6 @@
 package com.easymeeting.service.impl;
 
+import com.easymeeting.annotation.ReadOnlyRoute;
 import com.easymeeting.entity.MeetingMember;
 import com.easymeeting.mapper.MeetingMemberMapper;
 import com.easymeeting.service.MeetingMemberService;
@@ -36,6 +37,7 @@ public class MeetingMemberServiceImpl implements MeetingMemberService {
     }
 
     @Override
+    @ReadOnlyRoute
     public List<MeetingMember> getMembersByMeetingId(String meetingId) {
         return meetingMemberMapper.selectByMeetingId(meetingId);
     }
@@ -1,5 +1,6 @@
 package com.easymeeting.service.impl;
 
+import com.easymeeting.annotation.ReadOnlyRoute;
 import com.easymeeting.dto.TokenUserInfoDto;
 import com.easymeeting.entity.MeetingInfo;
 import com.easymeeting.entity.MeetingReserve;
@@ -159,11 +160,13 @@ public class MeetingReserveServiceImpl implements MeetingReserveService {
     }
 
     @Override
+    @ReadOnlyRoute
     public List<MeetingReserve> loadCreatedReservesByStatus(String userId, Integer status) {
         return meetingReserveMapper.selectCreatedReservesByStatus(userId, status);
     }
 
     @Override
+    @ReadOnlyRoute
     public List<MeetingReserve> loadTodayReserves(String userId) {
         return meetingReserveMapper.selectTodayReserves(userId);
     }
@@ -188,7 +191,7 @@ public class MeetingReserveServiceImpl implements MeetingReserveService {
             // 设置 currentMeetingId 到 token
             currentUser.setCurrentMeetingId(reserve.getRealMeetingId());
             currentUser.setCurrentNickName(currentUser.getNickName());
-            redisComponent.updateTokenUserInfo(currentUser);
+            redisComponent.updateCurrentMeeting(currentUser);
             return reserve.getRealMeetingId();
         }
 
@@ -210,7 +213,7 @@ public class MeetingReserveServiceImpl implements MeetingReserveService {
         // 6. 设置 currentMeetingId 到 token
         currentUser.setCurrentMeetingId(realMeetingId);
         currentUser.setCurrentNickName(currentUser.getNickName());
-        redisComponent.updateTokenUserInfo(currentUser);
+        redisComponent.updateCurrentMeeting(currentUser);
 
         log.info("开始预约会议成功: reserveId={}, realMeetingId={}", reserveId, realMeetingId);
         return realMeetingId;
@@ -232,7 +235,7 @@ public class MeetingReserveServiceImpl implements MeetingReserveService {
         // 3. 设置 currentMeetingId 到 token
         currentUser.setCurrentMeetingId(reserve.getRealMeetingId());
         currentUser.setCurrentNickName(currentUser.getNickName());
-        redisComponent.updateTokenUserInfo(currentUser);
+        redisComponent.updateCurrentMeeting(currentUser);
 
         // 4. 返回实际会议ID
         return reserve.getRealMeetingId();
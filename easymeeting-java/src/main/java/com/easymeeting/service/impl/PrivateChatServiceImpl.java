@@ -1,24 +1,27 @@
 package com.easymeeting.service.impl;
 
+import com.easymeeting.annotation.ReadOnlyRoute;
 import com.easymeeting.dto.MessageSendDto;
 import com.easymeeting.entity.PrivateChatMessage;
 import com.easymeeting.entity.PrivateChatUnread;
-import com.easymeeting.entity.UserContact;
 import com.easymeeting.enums.ChatMessageStatusEnum;
 import com.easymeeting.enums.MessageSendToTypeEnum;
 import com.easymeeting.enums.MessageTypeEnum;
 import com.easymeeting.enums.UserContactStatusEnum;
 import com.easymeeting.exception.BusinessException;
 import com.easymeeting.mapper.PrivateChatMessageMapper;
-import com.easymeeting.mapper.PrivateChatUnreadMapper;
+import com.easymeeting.redis.UnreadCounterStore;
+import com.easymeeting.service.ChatSearchService;
 import com.easymeeting.service.PrivateChatService;
 import com.easymeeting.service.UserContactService;
+import com.easymeeting.sharding.ShardDirectory;
 import com.easymeeting.utils.SessionIdUtils;
 import com.easymeeting.utils.StringUtils;
 import com.easymeeting.utils.TableSplitUtils;
 import com.easymeeting.vo.PageResult;
 import com.easymeeting.websocket.message.MessageHandler;
 import jakarta.annotation.Resource;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
@@ -32,11 +35,6 @@ import java.util.Map;
 @Service
 public class PrivateChatServiceImpl implements PrivateChatService {
 
-    /**
-     * 私聊消息分表前缀
-     */
-    private static final String PRIVATE_CHAT_TABLE_PREFIX = "private_chat_message";
-
     /**
      * 消息内容最大长度
      */
@@ -46,7 +44,7 @@ public class PrivateChatServiceImpl implements PrivateChatService {
     private PrivateChatMessageMapper privateChatMessageMapper;
 
     @Resource
-    private PrivateChatUnreadMapper privateChatUnreadMapper;
+    private UnreadCounterStore unreadCounterStore;
 
     @Resource
     private UserContactService userContactService;
@@ -54,12 +52,14 @@ public class PrivateChatServiceImpl implements PrivateChatService {
     @Resource
     private MessageHandler messageHandler;
 
-    /**
-     * 雪花算法相关参数
-     */
-    private static long lastTimestamp = -1L;
-    private static long sequence = 0L;
-    private static final long SEQUENCE_MASK = 4095L;
+    @Resource
+    private ShardDirectory shardDirectory;
+
+    @Resource
+    private SnowflakeIdGenerator snowflakeIdGenerator;
+
+    @Resource
+    private ChatSearchService chatSearchService;
 
 
     @Override
@@ -76,7 +76,7 @@ public class PrivateChatServiceImpl implements PrivateChatService {
 
         // 生成消息ID
         if (message.getMessageId() == null) {
-            message.setMessageId(generateMessageId());
+            message.setMessageId(snowflakeIdGenerator.nextId());
         }
 
         // 设置发送时间
@@ -96,13 +96,21 @@ public class PrivateChatServiceImpl implements PrivateChatService {
             message.setStatus(ChatMessageStatusEnum.SENDING.getStatus());
         }
 
-        // 获取分表名并保存消息
-        String tableName = getPrivateChatTableName(sessionId);
-        privateChatMessageMapper.insert(tableName, message);
+        // 按桶目录路由并保存消息（分表迁移期间同时写入新旧两张表）
+        List<String> tableNames = shardDirectory.route(TableSplitUtils.SPLIT_TABLE_PRIVATE_CHAT_MESSAGE, sessionId).writeTables();
+        privateChatMessageMapper.insert(tableNames.get(0), message);
+        for (int i = 1; i < tableNames.size(); i++) {
+            try {
+                privateChatMessageMapper.insert(tableNames.get(i), message);
+            } catch (DuplicateKeyException e) {
+                // 迁移复制已先一步写入
+            }
+        }
+        chatSearchService.indexPrivateMessage(message);
 
-        // 增加接收者的未读计数
+        // 增加接收者的未读计数（写入 Redis，定时批量写回数据库）
         String messagePreview = getMessagePreview(message);
-        privateChatUnreadMapper.incrementUnreadCount(
+        unreadCounterStore.increment(
                 message.getReceiveUserId(),
                 message.getSendUserId(),
                 message.getSendTime(),
@@ -154,15 +162,16 @@ public class PrivateChatServiceImpl implements PrivateChatService {
      * 验证好友关系
      */
     private void validateFriendship(String sendUserId, String receiveUserId) {
+        // 两次检查均读取联系人关系图缓存，不查询数据库
         // 检查发送者是否有接收者为好友
-        UserContact senderContact = userContactService.getByUserIdAndContactId(sendUserId, receiveUserId);
-        if (senderContact == null || !UserContactStatusEnum.NORMAL.getStatus().equals(senderContact.getStatus())) {
+        Integer senderStatus = userContactService.getContactStatus(sendUserId, receiveUserId);
+        if (!UserContactStatusEnum.NORMAL.getStatus().equals(senderStatus)) {
             throw new BusinessException("只能给好友发送消息");
         }
 
         // 检查接收者是否将发送者拉黑
-        UserContact receiverContact = userContactService.getByUserIdAndContactId(receiveUserId, sendUserId);
-        if (receiverContact != null && UserContactStatusEnum.BLACK.getStatus().equals(receiverContact.getStatus())) {
+        Integer receiverStatus = userContactService.getContactStatus(receiveUserId, sendUserId);
+        if (UserContactStatusEnum.BLACK.getStatus().equals(receiverStatus)) {
             throw new BusinessException("对方已将你拉黑，无法发送消息");
         }
     }
@@ -208,6 +217,7 @@ public class PrivateChatServiceImpl implements PrivateChatService {
     }
 
     @Override
+    @ReadOnlyRoute
     public PageResult<PrivateChatMessage> getChatHistory(String userId, String contactId, Integer pageNo, Integer pageSize) {
         if (StringUtils.isEmpty(userId)) {
             throw new BusinessException("用户ID不能为空");
@@ -233,6 +243,7 @@ public class PrivateChatServiceImpl implements PrivateChatService {
     }
 
     @Override
+    @ReadOnlyRoute
     public PageResult<PrivateChatMessage> getMessagesBeforeId(String userId, String contactId, Long maxMessageId, Integer pageSize) {
         if (StringUtils.isEmpty(userId)) {
             throw new BusinessException("用户ID不能为空");
@@ -262,8 +273,7 @@ public class PrivateChatServiceImpl implements PrivateChatService {
         if (StringUtils.isEmpty(userId) || StringUtils.isEmpty(contactId)) {
             return 0;
         }
-        Integer count = privateChatUnreadMapper.getUnreadCount(userId, contactId);
-        return count != null ? count : 0;
+        return unreadCounterStore.getUnreadCount(userId, contactId);
     }
 
     @Override
@@ -271,21 +281,15 @@ public class PrivateChatServiceImpl implements PrivateChatService {
         if (StringUtils.isEmpty(userId) || StringUtils.isEmpty(contactId)) {
             return;
         }
-        privateChatUnreadMapper.clearUnreadCount(userId, contactId);
+        unreadCounterStore.clear(userId, contactId);
     }
 
     @Override
     public Map<String, Integer> getAllUnreadCounts(String userId) {
-        Map<String, Integer> result = new HashMap<>();
         if (StringUtils.isEmpty(userId)) {
-            return result;
-        }
-
-        List<PrivateChatUnread> unreadList = privateChatUnreadMapper.selectByUserId(userId);
-        for (PrivateChatUnread unread : unreadList) {
-            result.put(unread.getContactId(), unread.getUnreadCount());
+            return new HashMap<>();
         }
-        return result;
+        return unreadCounterStore.getUnreadCounts(userId);
     }
 
     @Override
@@ -293,43 +297,13 @@ public class PrivateChatServiceImpl implements PrivateChatService {
         if (StringUtils.isEmpty(userId)) {
             return List.of();
         }
-        return privateChatUnreadMapper.selectByUserId(userId);
+        return unreadCounterStore.getUnreadList(userId);
     }
 
     /**
      * 获取私聊消息分表名
      */
     private String getPrivateChatTableName(String sessionId) {
-        return TableSplitUtils.getTableName(PRIVATE_CHAT_TABLE_PREFIX, TableSplitUtils.DEFAULT_TABLE_COUNT, sessionId);
-    }
-
-    /**
-     * 生成消息ID（简化版雪花算法）
-     */
-    private synchronized long generateMessageId() {
-        long timestamp = System.currentTimeMillis();
-
-        if (timestamp == lastTimestamp) {
-            sequence = (sequence + 1) & SEQUENCE_MASK;
-            if (sequence == 0) {
-                timestamp = waitNextMillis(lastTimestamp);
-            }
-        } else {
-            sequence = 0L;
-        }
-
-        lastTimestamp = timestamp;
-        return (timestamp << 22) | sequence;
-    }
-
-    /**
-     * 等待下一毫秒
-     */
-    private long waitNextMillis(long lastTimestamp) {
-        long timestamp = System.currentTimeMillis();
-        while (timestamp <= lastTimestamp) {
-            timestamp = System.currentTimeMillis();
-        }
-        return timestamp;
+        return shardDirectory.route(TableSplitUtils.SPLIT_TABLE_PRIVATE_CHAT_MESSAGE, sessionId).readTable();
     }
 }
@@ -0,0 +1,633 @@
+package com.easymeeting.service.impl;
+
+import com.easymeeting.entity.ChatMessage;
+import com.easymeeting.entity.PrivateChatMessage;
+import com.easymeeting.entity.ShardBucket;
+import com.easymeeting.entity.config.AppConfig;
+import com.easymeeting.entity.constants.Constants;
+import com.easymeeting.enums.ShardBucketStateEnum;
+import com.easymeeting.exception.BusinessException;
+import com.easymeeting.mapper.ChatMessageMapper;
+import com.easymeeting.mapper.PrivateChatMessageMapper;
+import com.easymeeting.mapper.ShardBucketMapper;
+import com.easymeeting.redis.RedisUtils;
+import com.easymeeting.service.ShardMigrationService;
+import com.easymeeting.sharding.ShardDataSourceRouter;
+import com.easymeeting.sharding.ShardDirectory;
+import com.easymeeting.sharding.ShardRoutingDataSource;
+import com.easymeeting.utils.TableSplitUtils;
+import com.easymeeting.vo.ShardMigrationStatusVo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分表在线迁移服务实现
+ *
+ * 迁移流程（每次变更目录后等待所有存活节点上报已加载新版本目录，再等待 settle-ms 让按旧目录路由的请求执行完）：
+ * 1. PREPARE：按 01 表结构创建目标表
+ * 2. DUAL_WRITE：桶状态置为迁移中，读旧表，新写入同时写旧表和目标表
+ * 3. COPY：按消息ID分批扫描旧表，每批在事务中加锁读取并覆盖写入目标表，
+ *    复制期间的并发更新会等待该批提交后再写两张表，不会被旧值覆盖；
+ *    目标表在其他实例上时，在持有旧表行锁期间用独立事务写入目标实例
+ * 4. SWITCH：桶状态置为已切换，读目标表，仍双写旧表，等待所有节点切换
+ * 5. DONE：桶状态恢复正常，只读写目标表；旧表数据保留，由清理任务删除
+ *
+ * - 任务由 Redis 锁保证整个集群同一时间只执行一个，执行中定时续期；任务进度保存在 Redis 中，任意节点可查询
+ * - DONE 之前失败、被取消或本节点关闭时，桶恢复到旧表（旧表一直双写，数据完整），目标表中已复制的数据由再次迁移覆盖
+ * - 执行节点异常退出时目录会停留在迁移中/已切换，锁过期后可调用回滚把这些桶恢复到旧表
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ShardMigrationServiceImpl implements ShardMigrationService {
+
+    private static final RedisScript<Long> LOCK_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then
+                return 1
+            end
+            return 0
+            """, Long.class);
+
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            end
+            return 0
+            """, Long.class);
+
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private static final String LOCK_MILLIS = "60000";
+    private static final long PROPAGATION_POLL_MS = 1000;
+
+    private final ShardDirectory shardDirectory;
+    private final ShardDataSourceRouter shardDataSourceRouter;
+    private final ShardBucketMapper shardBucketMapper;
+    private final ChatMessageMapper chatMessageMapper;
+    private final PrivateChatMessageMapper privateChatMessageMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final RedisUtils redisUtils;
+    private final AppConfig appConfig;
+
+    @Value("${shard.migration.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${shard.migration.chunk-pause-ms:20}")
+    private long chunkPauseMs;
+
+    @Value("${shard.migration.propagation-timeout-ms:120000}")
+    private long propagationTimeoutMs;
+
+    @Value("${shard.migration.settle-ms:5000}")
+    private long settleMs;
+
+    /**
+     * 目标表在其他实例上时写入目标表使用的独立事务
+     */
+    private TransactionTemplate targetTransactionTemplate;
+
+    /**
+     * 本节点最近一次执行的任务
+     */
+    private volatile Task task;
+
+    @PostConstruct
+    public void init() {
+        targetTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        targetTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 关闭时取消本节点执行中的任务并等待其恢复目录
+     */
+    @PreDestroy
+    public void destroy() {
+        Task current = task;
+        if (current == null || current.finishTime != null) {
+            return;
+        }
+        current.cancelled = true;
+        current.worker.interrupt();
+        try {
+            current.worker.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public List<ShardBucket> getDirectory(String tablePrefix) {
+        getOps(tablePrefix);
+        return shardDirectory.getRegistered(tablePrefix);
+    }
+
+    @Override
+    public synchronized void startMigration(String tablePrefix, List<Integer> buckets, Integer targetIndex) {
+        MessageTableOps<?> ops = getOps(tablePrefix);
+        if (targetIndex == null || targetIndex < 1) {
+            throw new BusinessException("目标表序号不正确");
+        }
+        if (shardDataSourceRouter.getTemplateIndex(targetIndex) == null) {
+            throw new BusinessException("目标表所在数据源上没有可作为模板的分表");
+        }
+        if (buckets == null || buckets.isEmpty()) {
+            throw new BusinessException("请指定要迁移的桶");
+        }
+        Task newTask = newTask("MIGRATE", tablePrefix, new ArrayList<>(new TreeSet<>(buckets)), targetIndex);
+        lockOrThrow(newTask);
+        Map<Integer, Integer> sourceByBucket = new LinkedHashMap<>();
+        try {
+            // 持有锁后按最新目录校验，避免与其他节点刚结束的任务冲突
+            shardDirectory.reload();
+            for (Integer bucket : newTask.buckets) {
+                if (bucket == null || bucket < 0 || bucket >= TableSplitUtils.BUCKET_COUNT) {
+                    throw new BusinessException("桶编号超出范围: " + bucket);
+                }
+                ShardBucket current = shardDirectory.getBucket(tablePrefix, bucket);
+                if (!ShardBucketStateEnum.NORMAL.getState().equals(current.getState())) {
+                    throw new BusinessException("桶 " + bucket + " 正在迁移中");
+                }
+                if (current.getTableIndex().equals(targetIndex)) {
+                    throw new BusinessException("桶 " + bucket + " 已在目标表中");
+                }
+                sourceByBucket.put(bucket, current.getTableIndex());
+            }
+        } catch (RuntimeException e) {
+            unlock(newTask.lockToken);
+            throw e;
+        }
+        startWorker(newTask, () -> migrate(newTask, ops, sourceByBucket));
+    }
+
+    @Override
+    public synchronized void startCleanup(String tablePrefix, Integer tableIndex) {
+        MessageTableOps<?> ops = getOps(tablePrefix);
+        if (tableIndex == null || tableIndex < 1) {
+            throw new BusinessException("表序号不正确");
+        }
+        Task newTask = newTask("CLEANUP", tablePrefix, List.of(), tableIndex);
+        lockOrThrow(newTask);
+        startWorker(newTask, () -> cleanup(newTask, ops));
+    }
+
+    @Override
+    public synchronized void abort(String tablePrefix) {
+        getOps(tablePrefix);
+        Task current = task;
+        if (current != null && current.finishTime == null) {
+            // 本节点执行中的任务：通知任务在下一次检查时失败，由任务自己恢复目录
+            current.cancelled = true;
+            log.warn("分表任务已取消: {} {}", current.type, current.tablePrefix);
+            return;
+        }
+        String token = newLockToken();
+        if (!lock(token)) {
+            throw new BusinessException("分表任务正在其他节点执行，请在该节点回滚，或等待该节点退出后锁自动过期");
+        }
+        try {
+            shardDirectory.reload();
+            Map<Integer, Integer> sourceByBucket = new LinkedHashMap<>();
+            for (ShardBucket bucket : shardDirectory.getRegistered(tablePrefix)) {
+                // 迁移中读旧表，已切换双写旧表
+                if (ShardBucketStateEnum.MIGRATING.getState().equals(bucket.getState())) {
+                    sourceByBucket.put(bucket.getBucket(), bucket.getTableIndex());
+                } else if (ShardBucketStateEnum.SWITCHED.getState().equals(bucket.getState())) {
+                    sourceByBucket.put(bucket.getBucket(), bucket.getDualWriteIndex());
+                }
+            }
+            if (sourceByBucket.isEmpty()) {
+                throw new BusinessException("没有迁移中的桶");
+            }
+            updateDirectory(tablePrefix, sourceByBucket, ShardBucketStateEnum.NORMAL, null);
+            ShardMigrationStatusVo status = loadStatus();
+            if (status != null && status.getFinishTime() == null) {
+                status.setPhase("ABORTED");
+                status.setFinishTime(System.currentTimeMillis());
+                redisUtils.set(Constants.REDIS_KEY_SHARD_MIGRATION_TASK, status);
+            }
+            log.warn("分表迁移已回滚: {} 桶 {} 恢复到旧表", tablePrefix, sourceByBucket);
+        } finally {
+            unlock(token);
+        }
+    }
+
+    @Override
+    public ShardMigrationStatusVo getStatus() {
+        Task current = task;
+        if (current != null && current.finishTime == null) {
+            return toStatus(current);
+        }
+        try {
+            ShardMigrationStatusVo status = loadStatus();
+            if (status != null && status.getFinishTime() == null
+                    && redisUtils.getString(Constants.REDIS_KEY_SHARD_MIGRATION_LOCK) == null) {
+                status.setError("执行节点已退出，任务未完成，可调用回滚恢复目录");
+            }
+            if (status != null) {
+                return status;
+            }
+        } catch (Exception e) {
+            log.warn("读取分表任务进度失败: {}", e.getMessage());
+        }
+        return current == null ? null : toStatus(current);
+    }
+
+    private void startWorker(Task newTask, Runnable work) {
+        task = newTask;
+        Thread worker = new Thread(() -> {
+            try {
+                save(newTask);
+                work.run();
+                newTask.phase = "DONE";
+            } catch (Exception e) {
+                log.error("分表任务执行失败: {} {}", newTask.type, newTask.tablePrefix, e);
+                newTask.phase = "FAILED";
+                newTask.error = e.getMessage();
+            } finally {
+                newTask.finishTime = System.currentTimeMillis();
+                try {
+                    save(newTask);
+                } catch (Exception e) {
+                    log.warn("保存分表任务进度失败: {}", e.getMessage());
+                }
+                unlock(newTask.lockToken);
+            }
+        }, "shard-migration");
+        // 非守护线程：关闭时由 destroy 取消并等待任务恢复目录
+        worker.setDaemon(false);
+        newTask.worker = worker;
+        worker.start();
+    }
+
+    private <T> void migrate(Task task, MessageTableOps<T> ops, Map<Integer, Integer> sourceByBucket) {
+        String tablePrefix = task.tablePrefix;
+        int targetIndex = task.tableIndex;
+        String targetTable = TableSplitUtils.formatTableName(tablePrefix, targetIndex);
+
+        task.phase = "PREPARE";
+        checkpoint(task);
+        // 按表名路由到目标实例，模板取同一实例上的原有分表
+        shardBucketMapper.createTableLike(targetTable,
+                TableSplitUtils.formatTableName(tablePrefix, shardDataSourceRouter.getTemplateIndex(targetIndex)));
+
+        task.phase = "DUAL_WRITE";
+        checkpoint(task);
+        long version = updateDirectory(tablePrefix, sourceByBucket, ShardBucketStateEnum.MIGRATING, targetIndex);
+        try {
+            awaitPropagation(task, version);
+
+            task.phase = "COPY";
+            Map<Integer, Set<Integer>> bucketsBySource = new LinkedHashMap<>();
+            sourceByBucket.forEach((bucket, source) -> bucketsBySource.computeIfAbsent(source, k -> new HashSet<>()).add(bucket));
+            for (Map.Entry<Integer, Set<Integer>> entry : bucketsBySource.entrySet()) {
+                String sourceTable = TableSplitUtils.formatTableName(tablePrefix, entry.getKey());
+                copy(task, ops, sourceTable, targetTable, entry.getValue());
+                log.info("分表迁移复制完成: {} -> {}，桶: {}", sourceTable, targetTable, entry.getValue());
+            }
+
+            task.phase = "SWITCH";
+            checkpoint(task);
+            version = updateDirectory(tablePrefix, sourceByBucket, ShardBucketStateEnum.SWITCHED, targetIndex);
+            awaitPropagation(task, version);
+        } catch (RuntimeException e) {
+            // 完成前失败：恢复读写旧表（迁移中/已切换期间旧表一直双写）；先清除中断标记，避免恢复目录的调用被中断
+            boolean interrupted = Thread.interrupted();
+            updateDirectory(tablePrefix, sourceByBucket, ShardBucketStateEnum.NORMAL, null);
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            throw e;
+        }
+
+        Map<Integer, Integer> targetByBucket = new LinkedHashMap<>();
+        sourceByBucket.keySet().forEach(bucket -> targetByBucket.put(bucket, targetIndex));
+        updateDirectory(tablePrefix, targetByBucket, ShardBucketStateEnum.NORMAL, null);
+        log.info("分表迁移完成: {} 桶 {} -> {}", tablePrefix, sourceByBucket.keySet(), targetTable);
+    }
+
+    /**
+     * 分批复制：每批在事务中加锁读取旧表，属于迁移桶的行覆盖写入目标表
+     */
+    private <T> void copy(Task task, MessageTableOps<T> ops, String sourceTable, String targetTable, Set<Integer> buckets) {
+        String sourceKey = shardDataSourceRouter.getDataSourceKey(sourceTable);
+        String targetKey = shardDataSourceRouter.getDataSourceKey(targetTable);
+        long afterId = 0;
+        while (true) {
+            long from = afterId;
+            Long lastId = ShardRoutingDataSource.executeOn(sourceKey, () -> transactionTemplate.execute(status -> {
+                List<T> rows = ops.selectAfterId(sourceTable, from, chunkSize, true);
+                if (rows.isEmpty()) {
+                    return null;
+                }
+                List<T> matched = new ArrayList<>();
+                for (T row : rows) {
+                    if (buckets.contains(TableSplitUtils.getBucket(ops.shardKey(row)))) {
+                        matched.add(row);
+                    }
+                }
+                if (!matched.isEmpty()) {
+                    if (sourceKey.equals(targetKey)) {
+                        ops.upsertBatch(targetTable, matched);
+                    } else {
+                        ShardRoutingDataSource.executeOn(targetKey, () -> targetTransactionTemplate.execute(s -> {
+                            ops.upsertBatch(targetTable, matched);
+                            return null;
+                        }));
+                    }
+                }
+                task.scannedRows.addAndGet(rows.size());
+                task.affectedRows.addAndGet(matched.size());
+                return ops.messageId(rows.get(rows.size() - 1));
+            }));
+            if (lastId == null) {
+                return;
+            }
+            afterId = lastId;
+            pause(task, chunkPauseMs);
+        }
+    }
+
+    /**
+     * 分批删除表中不再路由到该表的行（迁移中/已切换的桶仍会双写该表，不会被删除）
+     */
+    private <T> void cleanup(Task task, MessageTableOps<T> ops) {
+        task.phase = "CLEANUP";
+        String tableName = TableSplitUtils.formatTableName(task.tablePrefix, task.tableIndex);
+        long afterId = 0;
+        List<T> rows;
+        while (!(rows = ops.selectAfterId(tableName, afterId, chunkSize, false)).isEmpty()) {
+            List<Long> moved = new ArrayList<>();
+            for (T row : rows) {
+                if (!shardDirectory.route(task.tablePrefix, ops.shardKey(row)).writeTables().contains(tableName)) {
+                    moved.add(ops.messageId(row));
+                }
+            }
+            if (!moved.isEmpty()) {
+                ops.deleteByIds(tableName, moved);
+            }
+            task.scannedRows.addAndGet(rows.size());
+            task.affectedRows.addAndGet(moved.size());
+            afterId = ops.messageId(rows.get(rows.size() - 1));
+            pause(task, chunkPauseMs);
+        }
+        log.info("分表清理完成: {}，删除 {} 行", tableName, task.affectedRows.get());
+    }
+
+    private long updateDirectory(String tablePrefix, Map<Integer, Integer> tableByBucket,
+                                 ShardBucketStateEnum state, Integer otherIndex) {
+        List<ShardBucket> rows = new ArrayList<>(tableByBucket.size());
+        tableByBucket.forEach((bucket, tableIndex) -> {
+            ShardBucket row = new ShardBucket();
+            row.setTablePrefix(tablePrefix);
+            row.setBucket(bucket);
+            // 已切换：读目标表，双写旧表；迁移中：读旧表，双写目标表
+            if (state == ShardBucketStateEnum.SWITCHED) {
+                row.setTableIndex(otherIndex);
+                row.setDualWriteIndex(tableIndex);
+            } else {
+                row.setTableIndex(tableIndex);
+                row.setDualWriteIndex(otherIndex);
+            }
+            row.setState(state.getState());
+            rows.add(row);
+        });
+        return shardDirectory.update(rows);
+    }
+
+    /**
+     * 等待所有存活节点加载到指定版本的目录，再等待 settle-ms 让按旧目录路由、尚未执行完的请求结束；
+     * 超时仍有节点未加载时失败（由调用方恢复目录）
+     */
+    private void awaitPropagation(Task task, long version) {
+        long deadline = System.currentTimeMillis() + propagationTimeoutMs;
+        List<String> lagging;
+        while (!(lagging = shardDirectory.getLaggingNodes(version)).isEmpty()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new BusinessException("节点 " + lagging + " 未加载最新分表目录");
+            }
+            pause(task, PROPAGATION_POLL_MS);
+        }
+        pause(task, settleMs);
+    }
+
+    /**
+     * 分批之间检查取消、续期任务锁并保存进度后停顿
+     */
+    private void pause(Task task, long millis) {
+        checkpoint(task);
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("分表任务被中断");
+        }
+    }
+
+    private void checkpoint(Task task) {
+        if (task.cancelled) {
+            throw new BusinessException("分表任务已取消");
+        }
+        if (!renewLock(task.lockToken)) {
+            throw new BusinessException("分表任务锁已丢失");
+        }
+        save(task);
+    }
+
+    private void save(Task task) {
+        redisUtils.set(Constants.REDIS_KEY_SHARD_MIGRATION_TASK, toStatus(task));
+    }
+
+    private ShardMigrationStatusVo loadStatus() {
+        return redisUtils.get(Constants.REDIS_KEY_SHARD_MIGRATION_TASK, ShardMigrationStatusVo.class);
+    }
+
+    private void lockOrThrow(Task newTask) {
+        if (!lock(newTask.lockToken)) {
+            throw new BusinessException("已有分表任务在执行");
+        }
+    }
+
+    private boolean lock(String token) {
+        try {
+            Long locked = redisUtils.executeStringScript(LOCK_SCRIPT,
+                    Collections.singletonList(Constants.REDIS_KEY_SHARD_MIGRATION_LOCK), token, LOCK_MILLIS);
+            return locked != null && locked == 1L;
+        } catch (Exception e) {
+            log.warn("分表任务加锁失败: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean renewLock(String token) {
+        try {
+            Long renewed = redisUtils.executeStringScript(RENEW_SCRIPT,
+                    Collections.singletonList(Constants.REDIS_KEY_SHARD_MIGRATION_LOCK), token, LOCK_MILLIS);
+            return renewed != null && renewed == 1L;
+        } catch (Exception e) {
+            log.warn("分表任务锁续期失败: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void unlock(String token) {
+        try {
+            redisUtils.executeStringScript(UNLOCK_SCRIPT, Collections.singletonList(Constants.REDIS_KEY_SHARD_MIGRATION_LOCK), token);
+        } catch (Exception e) {
+            log.warn("分表任务解锁失败，锁将自动过期: {}", e.getMessage());
+        }
+    }
+
+    private String newLockToken() {
+        return appConfig.getNodeId() + ":" + UUID.randomUUID();
+    }
+
+    private MessageTableOps<?> getOps(String tablePrefix) {
+        if (TableSplitUtils.SPLIT_TABLE_CHAT_MESSAGE.equals(tablePrefix)) {
+            return new ChatMessageOps();
+        }
+        if (TableSplitUtils.SPLIT_TABLE_PRIVATE_CHAT_MESSAGE.equals(tablePrefix)) {
+            return new PrivateChatMessageOps();
+        }
+        throw new BusinessException("不支持的分表前缀");
+    }
+
+    private Task newTask(String type, String tablePrefix, List<Integer> buckets, Integer tableIndex) {
+        Task task = new Task();
+        task.type = type;
+        task.tablePrefix = tablePrefix;
+        task.buckets = buckets;
+        task.tableIndex = tableIndex;
+        task.nodeId = appConfig.getNodeId();
+        task.lockToken = newLockToken();
+        task.phase = "PREPARE";
+        task.startTime = System.currentTimeMillis();
+        return task;
+    }
+
+    private static ShardMigrationStatusVo toStatus(Task task) {
+        ShardMigrationStatusVo status = new ShardMigrationStatusVo();
+        status.setTask(task.type);
+        status.setTablePrefix(task.tablePrefix);
+        status.setBuckets(task.buckets);
+        status.setTableIndex(task.tableIndex);
+        status.setNodeId(task.nodeId);
+        status.setPhase(task.phase);
+        status.setScannedRows(task.scannedRows.get());
+        status.setAffectedRows(task.affectedRows.get());
+        status.setStartTime(task.startTime);
+        status.setFinishTime(task.finishTime);
+        status.setError(task.error);
+        return status;
+    }
+
+    /**
+     * 不同消息表的扫描/写入操作
+     */
+    private interface MessageTableOps<T> {
+        List<T> selectAfterId(String tableName, long afterId, int limit, boolean forUpdate);
+
+        void upsertBatch(String tableName, List<T> rows);
+
+        void deleteByIds(String tableName, List<Long> messageIds);
+
+        String shardKey(T row);
+
+        Long messageId(T row);
+    }
+
+    private class ChatMessageOps implements MessageTableOps<ChatMessage> {
+        @Override
+        public List<ChatMessage> selectAfterId(String tableName, long afterId, int limit, boolean forUpdate) {
+            return chatMessageMapper.selectAfterId(tableName, afterId, limit, forUpdate);
+        }
+
+        @Override
+        public void upsertBatch(String tableName, List<ChatMessage> rows) {
+            chatMessageMapper.upsertBatch(tableName, rows);
+        }
+
+        @Override
+        public void deleteByIds(String tableName, List<Long> messageIds) {
+            chatMessageMapper.deleteByIds(tableName, messageIds);
+        }
+
+        @Override
+        public String shardKey(ChatMessage row) {
+            return row.getMeetingId();
+        }
+
+        @Override
+        public Long messageId(ChatMessage row) {
+            return row.getMessageId();
+        }
+    }
+
+    private class PrivateChatMessageOps implements MessageTableOps<PrivateChatMessage> {
+        @Override
+        public List<PrivateChatMessage> selectAfterId(String tableName, long afterId, int limit, boolean forUpdate) {
+            return privateChatMessageMapper.selectAfterId(tableName, afterId, limit, forUpdate);
+        }
+
+        @Override
+        public void upsertBatch(String tableName, List<PrivateChatMessage> rows) {
+            privateChatMessageMapper.upsertBatch(tableName, rows);
+        }
+
+        @Override
+        public void deleteByIds(String tableName, List<Long> messageIds) {
+            privateChatMessageMapper.deleteByIds(tableName, messageIds);
+        }
+
+        @Override
+        public String shardKey(PrivateChatMessage row) {
+            return row.getSessionId();
+        }
+
+        @Override
+        public Long messageId(PrivateChatMessage row) {
+            return row.getMessageId();
+        }
+    }
+
+    private static class Task {
+        private String type;
+        private String tablePrefix;
+        private List<Integer> buckets;
+        private Integer tableIndex;
+        private String nodeId;
+        private String lockToken;
+        private Thread worker;
+        private volatile boolean cancelled;
+        private volatile String phase;
+        private final AtomicLong scannedRows = new AtomicLong();
+        private final AtomicLong affectedRows = new AtomicLong();
+        private long startTime;
+        private volatile Long finishTime;
+        private volatile String error;
+    }
+}
@@ -0,0 +1,298 @@
+package com.easymeeting.service.impl;
+
+import com.easymeeting.entity.config.AppConfig;
+import com.easymeeting.entity.constants.Constants;
+import com.easymeeting.exception.BusinessException;
+import com.easymeeting.redis.RedisUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 消息ID生成器（雪花算法）
+ * ID 结构：毫秒时间戳（左移 22 位）| workerId（10 位）| 序列号（12 位），
+ * 时间戳不减纪元偏移，与原 (timestamp << 22) | sequence 生成的ID同一量级、按时间有序（可用到 2039 年）
+ *
+ * - workerId 从 Redis 租用，定时续期；续期失败时在租约到期前继续使用，到期后停止生成，避免与其他节点重复。
+ *   本地有效期从发起请求前的时间算起并减去 lease-safety-ms，留出时钟误差与请求耗时的余量
+ * - 租约值为 令牌|最后发出的毫秒时间戳，续期与释放时更新；释放后令牌置空、保留时间戳，
+ *   之后租到该 workerId 的节点从 max(当前时间, 保存的时间戳) 开始生成，避免时钟较慢的节点生成重复ID
+ * - 时间戳与序列号打包在一个 AtomicLong 中用 CAS 更新，不加锁；同一毫秒序列号用完时进位到下一毫秒（借用未来时间）
+ * - 时钟回拨不超过 max-clock-backward-ms 时沿用上次的时间戳继续递增，超过时拒绝生成
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class SnowflakeIdGenerator {
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final int WORKER_BITS = 10;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int MAX_WORKER_COUNT = 1 << WORKER_BITS;
+
+    /**
+     * 租用：空闲（不存在或已释放）时写入 令牌|保存的时间戳，返回保存的时间戳；已被占用返回 -1
+     */
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>("""
+            local value = redis.call('GET', KEYS[1])
+            if value and string.sub(value, 1, 1) ~= '|' then
+                return -1
+            end
+            local last = 0
+            if value then
+                last = tonumber(string.sub(value, 2)) or 0
+            end
+            redis.call('SET', KEYS[1], ARGV[1] .. '|' .. last, 'PX', ARGV[2])
+            return last
+            """, Long.class);
+
+    /**
+     * 续期：令牌一致时写入最后发出的时间戳并延长有效期
+     */
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>("""
+            local value = redis.call('GET', KEYS[1])
+            if value and string.sub(value, 1, #ARGV[1] + 1) == ARGV[1] .. '|' then
+                redis.call('SET', KEYS[1], ARGV[1] .. '|' .. ARGV[3], 'PX', ARGV[2])
+                return 1
+            end
+            return 0
+            """, Long.class);
+
+    /**
+     * 释放：令牌一致时置空令牌，保留最后发出的时间戳
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            local value = redis.call('GET', KEYS[1])
+            if value and string.sub(value, 1, #ARGV[1] + 1) == ARGV[1] .. '|' then
+                redis.call('SET', KEYS[1], '|' .. ARGV[3], 'PX', ARGV[2])
+                return 1
+            end
+            return 0
+            """, Long.class);
+
+    /**
+     * 释放后保留最后发出时间戳的时长
+     */
+    private static final long RELEASED_RETENTION_MS = TimeUnit.DAYS.toMillis(1);
+
+    private final RedisUtils redisUtils;
+    private final AppConfig appConfig;
+
+    @Value("${id.worker.lease-seconds:30}")
+    private long leaseSeconds;
+
+    @Value("${id.worker.lease-safety-ms:3000}")
+    private long leaseSafetyMs;
+
+    @Value("${id.max-clock-backward-ms:5000}")
+    private long maxClockBackwardMs;
+
+    /**
+     * (时间戳 << 12) | 序列号
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    private volatile long workerId = -1;
+    private volatile String leaseToken;
+    /**
+     * 租约有效期（本地时间），超过后不再生成ID
+     */
+    private volatile long leaseValidUntil;
+
+    @PostConstruct
+    public void init() {
+        if (!acquire()) {
+            throw new IllegalStateException("消息ID生成器无法租用 workerId（0~" + (MAX_WORKER_COUNT - 1) + " 均已被占用）");
+        }
+    }
+
+    /**
+     * 生成一个ID
+     */
+    public long nextId() {
+        long worker = currentWorker();
+        while (true) {
+            long current = state.get();
+            long next = nextWord(current, System.currentTimeMillis());
+            if (state.compareAndSet(current, next)) {
+                return compose(next, worker);
+            }
+        }
+    }
+
+    /**
+     * 一次预留多个连续的ID（一次 CAS）
+     *
+     * @param count 数量，1 ~ 4096
+     * @return 递增的ID
+     */
+    public long[] nextIds(int count) {
+        if (count < 1 || count > SEQUENCE_MASK + 1) {
+            throw new IllegalArgumentException("批量生成ID数量需在 1 ~ " + (SEQUENCE_MASK + 1) + " 之间");
+        }
+        long worker = currentWorker();
+        while (true) {
+            long current = state.get();
+            long first = nextWord(current, System.currentTimeMillis());
+            long last = first + count - 1;
+            if (state.compareAndSet(current, last)) {
+                long[] ids = new long[count];
+                for (int i = 0; i < count; i++) {
+                    ids[i] = compose(first + i, worker);
+                }
+                return ids;
+            }
+        }
+    }
+
+    /**
+     * 当前持有的 workerId，未持有时为 -1
+     */
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    /**
+     * 消息ID中的毫秒时间戳
+     */
+    public static long timestampOf(long id) {
+        return id >>> (WORKER_BITS + SEQUENCE_BITS);
+    }
+
+    /**
+     * 该毫秒内可能生成的最小消息ID（用于按时间定位消息ID区间）
+     */
+    public static long firstIdAt(long timestamp) {
+        return Math.max(timestamp, 0) << (WORKER_BITS + SEQUENCE_BITS);
+    }
+
+    /**
+     * 续期租约；租约丢失（过期后被其他节点占用）时重新租用
+     */
+    @Scheduled(fixedDelayString = "${id.worker.renew-ms:10000}")
+    public void renew() {
+        long worker = workerId;
+        if (worker < 0) {
+            acquire();
+            return;
+        }
+        try {
+            long requestedAt = System.currentTimeMillis();
+            Long renewed = redisUtils.executeStringScript(RENEW_SCRIPT,
+                    Collections.singletonList(Constants.REDIS_KEY_ID_WORKER + worker),
+                    leaseToken, String.valueOf(TimeUnit.SECONDS.toMillis(leaseSeconds)), String.valueOf(lastIssuedMillis()));
+            if (renewed != null && renewed == 1) {
+                leaseValidUntil = leaseDeadline(requestedAt);
+                return;
+            }
+            log.error("消息ID生成器 workerId={} 的租约已丢失，重新租用", worker);
+            workerId = -1;
+            acquire();
+        } catch (Exception e) {
+            log.warn("消息ID生成器 workerId={} 续期失败，租约剩余 {} ms: {}", worker,
+                    leaseValidUntil - System.currentTimeMillis(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        long worker = workerId;
+        if (worker < 0) {
+            return;
+        }
+        workerId = -1;
+        try {
+            redisUtils.executeStringScript(RELEASE_SCRIPT,
+                    Collections.singletonList(Constants.REDIS_KEY_ID_WORKER + worker),
+                    leaseToken, String.valueOf(RELEASED_RETENTION_MS), String.valueOf(lastIssuedMillis()));
+        } catch (Exception e) {
+            log.warn("释放消息ID生成器 workerId={} 失败: {}", worker, e.getMessage());
+        }
+    }
+
+    /**
+     * 从随机位置开始依次尝试租用空闲的 workerId，租到后从 max(当前时间, 该 workerId 最后发出的时间戳) 开始生成
+     */
+    private synchronized boolean acquire() {
+        if (workerId >= 0) {
+            return true;
+        }
+        String token = appConfig.getNodeId() + ":" + UUID.randomUUID();
+        int start = ThreadLocalRandom.current().nextInt(MAX_WORKER_COUNT);
+        try {
+            for (int i = 0; i < MAX_WORKER_COUNT; i++) {
+                int candidate = (start + i) % MAX_WORKER_COUNT;
+                long requestedAt = System.currentTimeMillis();
+                Long last = redisUtils.executeStringScript(ACQUIRE_SCRIPT,
+                        Collections.singletonList(Constants.REDIS_KEY_ID_WORKER + candidate),
+                        token, String.valueOf(TimeUnit.SECONDS.toMillis(leaseSeconds)));
+                if (last != null && last >= 0) {
+                    // 之后的ID时间戳大于保存的时间戳（超过允许的回拨范围时 nextId 拒绝生成，直到本地时钟追上）
+                    long floor = (last << SEQUENCE_BITS) | SEQUENCE_MASK;
+                    state.accumulateAndGet(floor, Math::max);
+                    leaseToken = token;
+                    leaseValidUntil = leaseDeadline(requestedAt);
+                    workerId = candidate;
+                    log.info("消息ID生成器租用 workerId={}，上次使用到 {}", candidate, last);
+                    return true;
+                }
+            }
+        } catch (Exception e) {
+            log.error("消息ID生成器租用 workerId 失败", e);
+        }
+        return false;
+    }
+
+    /**
+     * 本地租约有效期：从发起请求前算起，减去安全余量
+     */
+    private long leaseDeadline(long requestedAt) {
+        return requestedAt + TimeUnit.SECONDS.toMillis(leaseSeconds) - leaseSafetyMs;
+    }
+
+    /**
+     * 已发出（或正在发出）的最大毫秒时间戳：借用未来时间时为状态中的时间戳，否则为当前时间
+     */
+    private long lastIssuedMillis() {
+        return Math.max(state.get() >>> SEQUENCE_BITS, System.currentTimeMillis());
+    }
+
+    private long currentWorker() {
+        long worker = workerId;
+        if (worker < 0 || System.currentTimeMillis() > leaseValidUntil) {
+            throw new BusinessException("消息ID生成暂不可用，请稍后重试");
+        }
+        return worker;
+    }
+
+    /**
+     * 下一个 (时间戳, 序列号)：时钟前进时从新毫秒的 0 号开始，否则在上次基础上加一（序列号溢出自然进位到下一毫秒）
+     */
+    private long nextWord(long current, long now) {
+        long lastTimestamp = current >>> SEQUENCE_BITS;
+        if (now > lastTimestamp) {
+            return now << SEQUENCE_BITS;
+        }
+        if (lastTimestamp - now > maxClockBackwardMs) {
+            throw new IllegalStateException("系统时钟回拨 " + (lastTimestamp - now) + " ms，暂停生成消息ID");
+        }
+        return current + 1;
+    }
+
+    private static long compose(long word, long worker) {
+        long timestamp = word >>> SEQUENCE_BITS;
+        return (timestamp << (WORKER_BITS + SEQUENCE_BITS)) | (worker << SEQUENCE_BITS) | (word & SEQUENCE_MASK);
+    }
+}
@@ -1,6 +1,7 @@
 package com.easymeeting.service.impl;
 
 import com.easymeeting.dto.MessageSendDto;
+import com.easymeeting.dto.UserProfileDto;
 import com.easymeeting.entity.UserContact;
 import com.easymeeting.entity.UserContactApply;
 import com.easymeeting.enums.MessageSendToTypeEnum;
@@ -10,14 +11,19 @@ import com.easymeeting.enums.UserContactStatusEnum;
 import com.easymeeting.exception.BusinessException;
 import com.easymeeting.mapper.UserContactApplyMapper;
 import com.easymeeting.mapper.UserContactMapper;
+import com.easymeeting.redis.ContactGraphCache;
 import com.easymeeting.service.UserContactApplyService;
+import com.easymeeting.service.UserProfileService;
 import com.easymeeting.vo.UserContactApplyVo;
 import com.easymeeting.websocket.message.MessageHandler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -27,6 +33,8 @@ public class UserContactApplyServiceImpl implements UserContactApplyService {
     private final UserContactApplyMapper userContactApplyMapper;
     private final UserContactMapper userContactMapper;
     private final MessageHandler messageHandler;
+    private final ContactGraphCache contactGraphCache;
+    private final UserProfileService userProfileService;
 
     @Override
     public UserContactApply createApply(UserContactApply userContactApply) {
@@ -154,6 +162,7 @@ public class UserContactApplyServiceImpl implements UserContactApplyService {
             myContact.setContactId(receiveUserId);
             myContact.setStatus(UserContactStatusEnum.NORMAL.getStatus());
             userContactMapper.insertOrUpdate(myContact);
+            contactGraphCache.invalidate(applyUserId);
             log.info("对方已是好友，直接互加成功: applyUserId={}, receiveUserId={}", applyUserId, receiveUserId);
             return UserContactApplyStatusEnum.PASS.getStatus(); // 返回已通过状态
         }
@@ -219,6 +228,7 @@ public class UserContactApplyServiceImpl implements UserContactApplyService {
             contact2.setStatus(UserContactStatusEnum.NORMAL.getStatus());
             userContactMapper.insertOrUpdate(contact2);
             
+            contactGraphCache.invalidate(applyUserId, userId);
             log.info("好友添加成功: {} <-> {}", applyUserId, userId);
         }
         
@@ -229,6 +239,7 @@ public class UserContactApplyServiceImpl implements UserContactApplyService {
             blackContact.setContactId(applyUserId);
             blackContact.setStatus(UserContactStatusEnum.BLACK.getStatus());
             userContactMapper.insertOrUpdate(blackContact);
+            contactGraphCache.invalidate(userId);
             log.info("已拉黑用户: {} -> {}", userId, applyUserId);
         }
         
@@ -254,7 +265,23 @@ public class UserContactApplyServiceImpl implements UserContactApplyService {
 
     @Override
     public List<UserContactApplyVo> getReceivedAppliesWithNickName(String receiveUserId) {
-        return userContactApplyMapper.selectReceivedAppliesWithNickName(receiveUserId);
+        List<UserContactApply> applyList = userContactApplyMapper.selectByReceiveUserId(receiveUserId);
+        // 批量解析申请人昵称（用户资料缓存，不关联查询 user_info）
+        Map<String, UserProfileDto> profiles = userProfileService.getProfiles(
+                applyList.stream().map(UserContactApply::getApplyUserId).collect(Collectors.toList()));
+        List<UserContactApplyVo> result = new ArrayList<>(applyList.size());
+        for (UserContactApply apply : applyList) {
+            UserContactApplyVo applyVo = new UserContactApplyVo();
+            applyVo.setApplyId(apply.getApplyId());
+            applyVo.setApplyUserId(apply.getApplyUserId());
+            applyVo.setReceiveUserId(apply.getReceiveUserId());
+            applyVo.setLastApplyTime(apply.getLastApplyTime());
+            applyVo.setStatus(apply.getStatus());
+            UserProfileDto profile = profiles.get(apply.getApplyUserId());
+            applyVo.setApplyUserNickName(profile == null ? null : profile.getNickName());
+            result.add(applyVo);
+        }
+        return result;
     }
 
 }
@@ -1,25 +1,27 @@
 package com.easymeeting.service.impl;
 
+import com.easymeeting.dto.UserProfileDto;
 import com.easymeeting.entity.PrivateChatUnread;
 import com.easymeeting.entity.UserContact;
 import com.easymeeting.entity.UserContactApply;
-import com.easymeeting.entity.UserInfo;
 import com.easymeeting.enums.ContactSearchStatusEnum;
 import com.easymeeting.enums.UserContactApplyStatusEnum;
 import com.easymeeting.enums.UserContactStatusEnum;
 import com.easymeeting.exception.BusinessException;
-import com.easymeeting.mapper.PrivateChatUnreadMapper;
 import com.easymeeting.mapper.UserContactApplyMapper;
 import com.easymeeting.mapper.UserContactMapper;
-import com.easymeeting.mapper.UserMapper;
+import com.easymeeting.redis.ContactGraphCache;
+import com.easymeeting.redis.UnreadCounterStore;
 import com.easymeeting.service.UserContactService;
+import com.easymeeting.service.UserProfileService;
 import com.easymeeting.vo.UserContactVo;
 import com.easymeeting.vo.UserInfoVoForSearch;
-import com.easymeeting.websocket.ChannelContextUtils;
+import com.easymeeting.websocket.presence.PresenceService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -30,10 +32,11 @@ import java.util.stream.Collectors;
 public class UserContactServiceImpl implements UserContactService {
 
     private final UserContactMapper userContactMapper;
-    private final UserMapper userMapper;
+    private final UserProfileService userProfileService;
     private final UserContactApplyMapper userContactApplyMapper;
-    private final ChannelContextUtils channelContextUtils;
-    private final PrivateChatUnreadMapper privateChatUnreadMapper;
+    private final PresenceService presenceService;
+    private final UnreadCounterStore unreadCounterStore;
+    private final ContactGraphCache contactGraphCache;
 
     @Override
     public UserContact addContact(UserContact userContact) {
@@ -48,10 +51,12 @@ public class UserContactServiceImpl implements UserContactService {
             // 如果已存在但状态为删除或拉黑，更新状态为正常
             userContactMapper.updateStatus(userContact.getUserId(), userContact.getContactId(), 
                     UserContactStatusEnum.NORMAL.getStatus());
+            contactGraphCache.invalidate(userContact.getUserId());
             log.info("恢复联系人成功: userId={}, contactId={}", userContact.getUserId(), userContact.getContactId());
             return userContactMapper.selectByUserIdAndContactId(userContact.getUserId(), userContact.getContactId());
         }
         userContactMapper.insert(userContact);
+        contactGraphCache.invalidate(userContact.getUserId());
         log.info("添加联系人成功: userId={}, contactId={}", userContact.getUserId(), userContact.getContactId());
         return userContact;
     }
@@ -63,18 +68,21 @@ public class UserContactServiceImpl implements UserContactService {
             throw new BusinessException("联系人不存在");
         }
         userContactMapper.updateByUserId(userContact);
+        contactGraphCache.invalidate(userContact.getUserId());
         return userContactMapper.selectByUserId(userContact.getUserId());
     }
 
     @Override
     public void deleteByUserId(String userId) {
         userContactMapper.deleteByUserId(userId);
+        contactGraphCache.invalidate(userId);
         log.info("删除联系人成功: userId={}", userId);
     }
 
     @Override
     public void deleteByContactId(String contactId) {
         userContactMapper.deleteByContactId(contactId);
+        contactGraphCache.invalidateAll();
         log.info("删除联系人成功: contactId={}", contactId);
     }
 
@@ -116,25 +124,30 @@ public class UserContactServiceImpl implements UserContactService {
     @Override
     public void updateStatus(String userId, String contactId, Integer status) {
         userContactMapper.updateStatus(userId, contactId, status);
+        contactGraphCache.invalidate(userId);
         log.info("更新联系人状态: userId={}, contactId={}, status={}", userId, contactId, status);
     }
 
     @Override
     public boolean isContact(String userId, String contactId) {
-        UserContact contact = userContactMapper.selectByUserIdAndContactId(userId, contactId);
-        return contact != null && UserContactStatusEnum.NORMAL.getStatus().equals(contact.getStatus());
+        return contactGraphCache.isNormalContact(userId, contactId);
+    }
+
+    @Override
+    public Integer getContactStatus(String userId, String contactId) {
+        return contactGraphCache.getStatus(userId, contactId);
     }
 
     @Override
     public UserInfoVoForSearch searchContact(String userId, String contactId) {
-        UserInfo userInfo = userMapper.selectById(contactId);
-        if (userInfo == null) {
+        UserProfileDto profile = userProfileService.getProfile(contactId);
+        if (profile == null) {
             return null;
         }
 
         UserInfoVoForSearch result = new UserInfoVoForSearch();
-        result.setUserId(userInfo.getUserId());
-        result.setNickName(userInfo.getNickName());
+        result.setUserId(profile.getUserId());
+        result.setNickName(profile.getNickName());
 
         // 1. 搜索自己
         if (userId.equals(contactId)) {
@@ -189,18 +202,37 @@ public class UserContactServiceImpl implements UserContactService {
 
     @Override
     public List<UserContactVo> getNormalContactsWithNickName(String userId) {
-        List<UserContactVo> contacts = userContactMapper.selectNormalContactsWithNickName(userId);
+        List<UserContact> contactList = userContactMapper.selectNormalContactsByUserId(userId);
+        List<String> contactIds = contactList.stream().map(UserContact::getContactId).collect(Collectors.toList());
+
+        // 批量解析联系人资料（用户资料缓存，不关联查询 user_info）
+        Map<String, UserProfileDto> profiles = userProfileService.getProfiles(contactIds);
+        List<UserContactVo> contacts = new ArrayList<>(contactList.size());
+        for (UserContact userContact : contactList) {
+            UserContactVo contact = new UserContactVo();
+            contact.setUserId(userContact.getUserId());
+            contact.setContactId(userContact.getContactId());
+            contact.setStatus(userContact.getStatus());
+            contact.setLastUpdateTime(userContact.getLastUpdateTime());
+            UserProfileDto profile = profiles.get(userContact.getContactId());
+            if (profile != null) {
+                contact.setContactNickName(profile.getNickName());
+                contact.setSex(profile.getSex());
+                contact.setLastLoginTime(profile.getLastLoginTime());
+            }
+            contacts.add(contact);
+        }
         
-        // 批量设置实时在线状态（优化：一次性获取所有在线用户ID）
-        java.util.Set<String> onlineUserIds = channelContextUtils.getOnlineUserIds();
+        // 批量查询实时在线状态（集群在线表，本地读取）
+        Map<String, Boolean> onlineStatus = presenceService.getOnlineStatus(contactIds);
         
-        // 获取所有未读消息记录
-        List<PrivateChatUnread> unreadList = privateChatUnreadMapper.selectByUserId(userId);
+        // 获取所有会话的未读数与最后消息（Redis 为准，数据库由定时任务写回，可能落后）
+        List<PrivateChatUnread> unreadList = unreadCounterStore.getConversations(userId);
         Map<String, PrivateChatUnread> unreadMap = unreadList.stream()
                 .collect(Collectors.toMap(PrivateChatUnread::getContactId, u -> u, (a, b) -> a));
         
         for (UserContactVo contact : contacts) {
-            contact.setOnline(onlineUserIds.contains(contact.getContactId()));
+            contact.setOnline(Boolean.TRUE.equals(onlineStatus.get(contact.getContactId())));
             
             // 设置未读消息信息
             PrivateChatUnread unread = unreadMap.get(contact.getContactId());
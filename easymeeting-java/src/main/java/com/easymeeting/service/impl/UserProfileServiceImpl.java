@@ -0,0 +1,227 @@
+package com.easymeeting.service.impl;
+
+import com.easymeeting.dto.UserProfileDto;
+import com.easymeeting.dto.UserProfileEventDto;
+import com.easymeeting.entity.UserInfo;
+import com.easymeeting.entity.constants.Constants;
+import com.easymeeting.mapper.UserMapper;
+import com.easymeeting.redis.RedisUtils;
+import com.easymeeting.service.UserProfileService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用户资料缓存
+ * 昵称、性别等资料读多写少，列表接口按 ID 批量解析资料，不再关联查询 user_info：
+ * 本地 LRU 未命中的走 Redis MGET，仍未命中的一次 IN 查询数据库并管道回填 Redis。
+ * 回源期间发生过失效时不回填；回源与资料修改并发时仍可能把旧资料写回 Redis，因此清除后延迟一段时间再清除一次
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class UserProfileServiceImpl implements UserProfileService, MessageListener {
+
+    /**
+     * 单次 IN 查询的最大 ID 数
+     */
+    private static final int DB_BATCH_SIZE = 500;
+
+    /**
+     * 延迟二次清除的间隔（毫秒）
+     */
+    private static final long DELAYED_EVICT_MS = 1000;
+
+    private final UserMapper userMapper;
+    private final RedisUtils redisUtils;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final TaskScheduler taskScheduler;
+
+    @Value("${user.profile.local-size:50000}")
+    private int localSize;
+
+    @Value("${user.profile.local-seconds:60}")
+    private long localSeconds;
+
+    private Map<String, CachedProfile> profiles;
+
+    /**
+     * 失效序号：回源期间发生过失效则不写入本地缓存
+     */
+    private final AtomicLong invalidateSequence = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        profiles = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedProfile> eldest) {
+                return size() > localSize;
+            }
+        });
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(Constants.REDIS_CHANNEL_USER_PROFILE));
+    }
+
+    @Override
+    public UserProfileDto getProfile(String userId) {
+        if (userId == null) {
+            return null;
+        }
+        return getProfiles(Collections.singletonList(userId)).get(userId);
+    }
+
+    @Override
+    public Map<String, UserProfileDto> getProfiles(Collection<String> userIds) {
+        Map<String, UserProfileDto> result = new HashMap<>(userIds.size() * 2);
+        long now = System.currentTimeMillis();
+        List<String> misses = new ArrayList<>();
+        for (String userId : new LinkedHashSet<>(userIds)) {
+            CachedProfile cached = profiles.get(userId);
+            if (cached != null && now - cached.loadTime <= localSeconds * 1000) {
+                result.put(userId, copy(cached.profile));
+            } else if (userId != null) {
+                misses.add(userId);
+            }
+        }
+        if (misses.isEmpty()) {
+            return result;
+        }
+
+        long stamp = invalidateSequence.get();
+        Map<String, UserProfileDto> loaded = new HashMap<>(misses.size() * 2);
+        List<String> dbMisses = loadFromRedis(misses, loaded);
+        if (!dbMisses.isEmpty()) {
+            Map<String, Object> backfill = new HashMap<>(dbMisses.size() * 2);
+            for (int from = 0; from < dbMisses.size(); from += DB_BATCH_SIZE) {
+                List<String> batch = dbMisses.subList(from, Math.min(from + DB_BATCH_SIZE, dbMisses.size()));
+                for (UserInfo userInfo : userMapper.selectByIds(batch)) {
+                    UserProfileDto profile = toProfile(userInfo);
+                    loaded.put(profile.getUserId(), profile);
+                    backfill.put(Constants.REDIS_KEY_USER_INFO + profile.getUserId(), profile);
+                }
+            }
+            try {
+                if (invalidateSequence.get() == stamp) {
+                    redisUtils.multiSet(backfill, Constants.REDIS_EXPIRE_USER_INFO, TimeUnit.SECONDS);
+                }
+            } catch (Exception e) {
+                log.warn("回填用户资料缓存失败: {}", e.getMessage());
+            }
+        }
+
+        boolean cacheable = invalidateSequence.get() == stamp;
+        long loadTime = System.currentTimeMillis();
+        loaded.forEach((userId, profile) -> {
+            if (cacheable) {
+                profiles.put(userId, new CachedProfile(profile, loadTime));
+            }
+            result.put(userId, copy(profile));
+        });
+        return result;
+    }
+
+    @Override
+    public void evict(Collection<String> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        List<String> ids = new ArrayList<>(userIds);
+        evictNow(ids);
+        taskScheduler.schedule(() -> evictNow(ids), Instant.now().plusMillis(DELAYED_EVICT_MS));
+    }
+
+    private void evictNow(Collection<String> userIds) {
+        applyEvict(userIds);
+        List<String> keys = new ArrayList<>(userIds.size());
+        userIds.forEach(userId -> keys.add(Constants.REDIS_KEY_USER_INFO + userId));
+        try {
+            redisUtils.delete(keys);
+            UserProfileEventDto event = new UserProfileEventDto();
+            event.setUserIds(new ArrayList<>(userIds));
+            redisUtils.publish(Constants.REDIS_CHANNEL_USER_PROFILE, event);
+        } catch (Exception e) {
+            log.error("用户资料缓存清除失败，数量: {}", userIds.size(), e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            UserProfileEventDto event = (UserProfileEventDto) redisUtils.deserializeValue(message.getBody());
+            if (event != null && event.getUserIds() != null) {
+                applyEvict(event.getUserIds());
+            }
+        } catch (Exception e) {
+            log.error("用户资料广播处理失败", e);
+        }
+    }
+
+    /**
+     * Redis MGET，命中的放入 loaded，返回未命中的 ID（Redis 不可用时全部视为未命中）
+     */
+    private List<String> loadFromRedis(List<String> userIds, Map<String, UserProfileDto> loaded) {
+        List<String> keys = new ArrayList<>(userIds.size());
+        userIds.forEach(userId -> keys.add(Constants.REDIS_KEY_USER_INFO + userId));
+        List<Object> values;
+        try {
+            values = redisUtils.multiGet(keys);
+        } catch (Exception e) {
+            log.warn("读取用户资料缓存失败，回源数据库: {}", e.getMessage());
+            return userIds;
+        }
+        List<String> misses = new ArrayList<>();
+        for (int i = 0; i < userIds.size(); i++) {
+            Object value = i < values.size() ? values.get(i) : null;
+            if (value instanceof UserProfileDto profile) {
+                loaded.put(userIds.get(i), profile);
+            } else {
+                misses.add(userIds.get(i));
+            }
+        }
+        return misses;
+    }
+
+    private void applyEvict(Collection<String> userIds) {
+        invalidateSequence.incrementAndGet();
+        userIds.forEach(profiles::remove);
+    }
+
+    private static UserProfileDto toProfile(UserInfo userInfo) {
+        UserProfileDto profile = new UserProfileDto();
+        profile.setUserId(userInfo.getUserId());
+        profile.setNickName(userInfo.getNickName());
+        profile.setSex(userInfo.getSex());
+        profile.setMeetingNo(userInfo.getMeetingNo());
+        profile.setLastLoginTime(userInfo.getLastLoginTime());
+        profile.setLastOffTime(userInfo.getLastOffTime());
+        return profile;
+    }
+
+    private static UserProfileDto copy(UserProfileDto profile) {
+        UserProfileDto copy = new UserProfileDto();
+        BeanUtils.copyProperties(profile, copy);
+        return copy;
+    }
+
+    private record CachedProfile(UserProfileDto profile, long loadTime) {
+    }
+}
@@ -7,15 +7,18 @@ import com.easymeeting.enums.UserStatusEnum;
 import com.easymeeting.exception.BusinessException;
 import com.easymeeting.mapper.UserMapper;
 import com.easymeeting.redis.RedisComponent;
+import com.easymeeting.service.UserProfileService;
 import com.easymeeting.service.UserService;
 import com.easymeeting.utils.JwtUtils;
 import com.easymeeting.utils.MD5Utils;
 import com.easymeeting.utils.StringUtils;
 import com.easymeeting.vo.PageResult;
 import com.easymeeting.vo.UserInfoVo;
+import com.easymeeting.websocket.presence.UserActivityWriter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 
 @Service
@@ -25,6 +28,8 @@ public class UserServiceImpl implements UserService {
     private final UserMapper userMapper;
     private final RedisComponent redisComponent;
     private final AppConfig appConfig;
+    private final UserActivityWriter userActivityWriter;
+    private final UserProfileService userProfileService;
 
     @Override
     public UserInfo createUser(UserCreateDTO dto) {
@@ -62,6 +67,7 @@ public class UserServiceImpl implements UserService {
         updateUser.setSex(dto.getSex());
 
         userMapper.updateById(updateUser);
+        userProfileService.evict(Collections.singletonList(dto.getUserId()));
 
         UserInfo result = userMapper.selectById(dto.getUserId());
         result.setPassword(null);
@@ -114,6 +120,7 @@ public class UserServiceImpl implements UserService {
             throw new BusinessException(404, "用户不存在");
         }
         userMapper.deleteById(userId);
+        userProfileService.evict(Collections.singletonList(userId));
     }
 
     @Override
@@ -162,9 +169,9 @@ public class UserServiceImpl implements UserService {
         // 4. 单设备登录：新登录会自动踢掉旧登录（在 RedisComponent.saveTokenUserInfo 中实现）
         // 旧设备的 token 会被删除，下次请求时拦截器会返回 401
         
-        // 5. 更新最后登录时间
+        // 5. 更新最后登录时间（异步批量写入）
         long currentTime = System.currentTimeMillis();
-        userMapper.updateLastLoginTime(userInfo.getUserId(), currentTime);
+        userActivityWriter.recordLogin(userInfo.getUserId(), currentTime);
         
         // 6. 生成JWT Token
         String token = JwtUtils.generateToken(userInfo.getUserId());
@@ -0,0 +1,49 @@
+package com.easymeeting.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * 只读路由范围
+ * 由 ReadOnlyRouteAspect 在执行 @ReadOnlyRoute 方法期间开启，范围内的非事务查询可路由到从库
+ */
+public final class ReadRouteContext {
+
+    private static final ThreadLocal<Boolean> READ_ONLY = new ThreadLocal<>();
+
+    private ReadRouteContext() {
+    }
+
+    public static boolean isReadOnly() {
+        return Boolean.TRUE.equals(READ_ONLY.get());
+    }
+
+    /**
+     * 开启只读范围，返回外层状态，结束时传给 restore
+     */
+    public static boolean enter() {
+        boolean previous = isReadOnly();
+        READ_ONLY.set(Boolean.TRUE);
+        return previous;
+    }
+
+    public static void restore(boolean previous) {
+        if (previous) {
+            READ_ONLY.set(Boolean.TRUE);
+        } else {
+            READ_ONLY.remove();
+        }
+    }
+
+    /**
+     * 在只读范围内临时读主库（用于必须读到最新数据的查询）
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        boolean previous = isReadOnly();
+        READ_ONLY.remove();
+        try {
+            return action.get();
+        } finally {
+            restore(previous);
+        }
+    }
+}
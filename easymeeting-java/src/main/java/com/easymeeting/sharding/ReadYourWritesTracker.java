@@ -0,0 +1,92 @@
+package com.easymeeting.sharding;
+
+import com.easymeeting.dto.TokenUserInfoDto;
+import com.easymeeting.entity.constants.Constants;
+import com.easymeeting.interceptor.TokenInterceptor;
+import com.easymeeting.redis.RedisUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读己之写
+ * 用户写入后的一小段时间内，其读请求固定走主库，避免从库延迟导致刚写入的数据“消失”；
+ * 写入标记保存在 Redis（跨节点生效），本地记录最近标记时间以合并同一窗口内的重复写入
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ReadYourWritesTracker {
+
+    private final RedisUtils redisUtils;
+    private final ShardDataSourceProperties shardDataSourceProperties;
+
+    /**
+     * 本节点标记过的用户：userId -> 标记过期时间
+     */
+    private final Map<String, Long> marked = new ConcurrentHashMap<>();
+
+    /**
+     * 记录用户写入
+     */
+    public void markWrite(String userId) {
+        if (userId == null || shardDataSourceProperties.getReplicas().isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long windowMs = TimeUnit.SECONDS.toMillis(shardDataSourceProperties.getStickySeconds());
+        Long expireAt = marked.get(userId);
+        // 标记剩余时间超过半个窗口时不再重复写 Redis
+        if (expireAt != null && expireAt - now > windowMs / 2) {
+            return;
+        }
+        marked.put(userId, now + windowMs);
+        try {
+            redisUtils.setString(Constants.REDIS_KEY_READ_STICKY + userId, "1",
+                    shardDataSourceProperties.getStickySeconds(), TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("记录用户写入标记失败 userId={}: {}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * 用户是否处于写入后的主库读取窗口（Redis 不可用时按是处理）
+     */
+    public boolean isSticky(String userId) {
+        Long expireAt = marked.get(userId);
+        if (expireAt != null && expireAt > System.currentTimeMillis()) {
+            return true;
+        }
+        try {
+            return redisUtils.getString(Constants.REDIS_KEY_READ_STICKY + userId) != null;
+        } catch (Exception e) {
+            log.warn("读取用户写入标记失败，走主库 userId={}: {}", userId, e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * 当前 HTTP 请求的用户，非请求线程返回 null
+     */
+    public String currentUserId() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Object user = attributes.getAttribute(TokenInterceptor.CURRENT_USER, RequestAttributes.SCOPE_REQUEST);
+        return user instanceof TokenUserInfoDto tokenUserInfoDto ? tokenUserInfoDto.getUserId() : null;
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        marked.values().removeIf(expireAt -> expireAt <= now);
+    }
+}
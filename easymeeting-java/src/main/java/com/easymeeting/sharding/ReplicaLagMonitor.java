@@ -0,0 +1,190 @@
+package com.easymeeting.sharding;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 从库延迟检测
+ * 定时查询每个从库的复制状态，延迟不超过 replica-max-lag-seconds 且复制线程正常的从库才参与读路由；
+ * 无法连接、复制中断或延迟超限的从库暂停使用，恢复后自动加回（启动后首次检测前读请求全部走主库）
+ *
+ * - 检测在独立线程上执行，不占用 @Scheduled 的共享调度线程；各从库并行查询，
+ *   超过 replica-probe-timeout-ms 未返回的视为不可用，上一次查询仍未返回时不重复发起
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ReplicaLagMonitor {
+
+    private final ShardDataSourceProperties shardDataSourceProperties;
+    private final ShardRoutingDataSource shardRoutingDataSource;
+
+    /**
+     * 从库名称 -> 最近一次检测的延迟（秒），不可用为 null
+     */
+    private final Map<String, Long> lastLag = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> usableState = new ConcurrentHashMap<>();
+
+    /**
+     * 从库名称 -> 尚未返回的查询
+     */
+    private final Map<String, Future<Long>> probes = new ConcurrentHashMap<>();
+
+    @Value("${shard.datasource.replica-check-ms:1000}")
+    private long checkIntervalMs;
+
+    @Value("${shard.datasource.replica-probe-timeout-ms:500}")
+    private long probeTimeoutMs;
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService probeExecutor;
+
+    @PostConstruct
+    public void init() {
+        if (shardDataSourceProperties.getReplicas().isEmpty()) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("replica-lag-monitor"));
+        probeExecutor = Executors.newCachedThreadPool(daemonThreads("replica-lag-probe-"));
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                check();
+            } catch (Exception e) {
+                log.error("从库延迟检测失败", e);
+            }
+        }, 0, checkIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            probeExecutor.shutdownNow();
+        }
+    }
+
+    private void check() {
+        Map<String, ShardDataSourceProperties.Replica> replicas = shardDataSourceProperties.getReplicas();
+        Map<Object, DataSource> dataSources = shardRoutingDataSource.getResolvedDataSources();
+        replicas.keySet().forEach(key -> probes.computeIfAbsent(key,
+                k -> probeExecutor.submit(() -> queryLag(k, dataSources.get(k)))));
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(probeTimeoutMs);
+        Map<String, List<String>> available = new HashMap<>();
+        replicas.forEach((key, replica) -> {
+            Long lag = awaitProbe(key, deadline);
+            boolean usable = lag != null && lag <= shardDataSourceProperties.getReplicaMaxLagSeconds();
+            Boolean previous = usableState.put(key, usable);
+            if (previous == null || previous != usable) {
+                if (usable) {
+                    log.info("从库 {} 可用，复制延迟 {} 秒", key, lag);
+                } else {
+                    log.warn("从库 {} 暂停读路由，复制延迟: {}", key, lag == null ? "未知" : lag + " 秒");
+                }
+            }
+            if (lag == null) {
+                lastLag.remove(key);
+            } else {
+                lastLag.put(key, lag);
+            }
+            if (usable) {
+                available.computeIfAbsent(replica.getPrimary(), k -> new ArrayList<>()).add(key);
+            }
+        });
+        shardRoutingDataSource.setAvailableReplicas(available);
+    }
+
+    /**
+     * 从库最近一次检测的延迟（秒），不可用的从库为 null
+     */
+    public Map<String, Long> getLastLag() {
+        Map<String, Long> result = new HashMap<>();
+        shardDataSourceProperties.getReplicas().keySet().forEach(key -> result.put(key, lastLag.get(key)));
+        return result;
+    }
+
+    /**
+     * 等待查询结果，超时返回 null（查询继续执行，返回前不再对该从库发起新查询）
+     */
+    private Long awaitProbe(String key, long deadline) {
+        Future<Long> probe = probes.get(key);
+        try {
+            Long lag = probe.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            probes.remove(key, probe);
+            return lag;
+        } catch (TimeoutException e) {
+            log.debug("从库 {} 复制状态查询超过 {} ms 未返回", key, probeTimeoutMs);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            probes.remove(key, probe);
+            return null;
+        }
+    }
+
+    /**
+     * 查询复制延迟（秒）：MySQL 8.0.22 起为 SHOW REPLICA STATUS，旧版本为 SHOW SLAVE STATUS；
+     * 复制线程停止时延迟为 NULL，视为不可用
+     */
+    private Long queryLag(String key, DataSource dataSource) {
+        if (dataSource == null) {
+            return null;
+        }
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(probeTimeoutMs + 999)));
+            try (ResultSet rs = statement.executeQuery("SHOW REPLICA STATUS")) {
+                return readLag(rs, "Seconds_Behind_Source");
+            } catch (SQLException e) {
+                try (ResultSet rs = statement.executeQuery("SHOW SLAVE STATUS")) {
+                    return readLag(rs, "Seconds_Behind_Master");
+                }
+            }
+        } catch (Exception e) {
+            log.debug("从库 {} 复制状态查询失败: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger index = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix.endsWith("-") ? prefix + index.incrementAndGet() : prefix);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static Long readLag(ResultSet rs, String column) throws SQLException {
+        if (!rs.next()) {
+            // 未配置复制
+            return null;
+        }
+        long lag = rs.getLong(column);
+        return rs.wasNull() ? null : lag;
+    }
+}
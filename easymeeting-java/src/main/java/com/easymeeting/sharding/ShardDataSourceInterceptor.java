@@ -0,0 +1,74 @@
+package com.easymeeting.sharding;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+
+/**
+ * 分表语句的数据源路由
+ * 带 tableName 参数的语句（ChatMessageMapper、PrivateChatMessageMapper 等）在执行期间绑定表所在的数据源，
+ * 非事务语句在执行时才获取连接，因此会从对应实例的连接池取得连接，调用方无需改动；
+ * 事务中的连接在开启时已确定，表不在该数据源上时直接报错，避免写到错误的实例。
+ * 只读范围（@ReadOnlyRoute）内的非事务查询允许读从库；写语句记录当前用户的写入，用于读己之写
+ */
+@Component
+@RequiredArgsConstructor
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class})
+})
+public class ShardDataSourceInterceptor implements Interceptor {
+
+    private static final String TABLE_NAME_PARAM = "tableName";
+
+    private final ShardDataSourceRouter shardDataSourceRouter;
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        boolean query = "query".equals(invocation.getMethod().getName());
+        if (!query) {
+            readYourWritesTracker.markWrite(readYourWritesTracker.currentUserId());
+        }
+        String tableName = null;
+        if (invocation.getArgs()[1] instanceof Map<?, ?> params && params.containsKey(TABLE_NAME_PARAM)
+                && params.get(TABLE_NAME_PARAM) instanceof String name) {
+            tableName = name;
+        }
+        String key = tableName == null ? null : shardDataSourceRouter.getDataSourceKey(tableName);
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            String bound = ShardRoutingDataSource.currentKey();
+            if (key != null && !key.equals(bound)) {
+                throw new IllegalStateException("分表 " + tableName + " 位于数据源 " + key + "，当前事务使用的是 " + bound);
+            }
+            return invocation.proceed();
+        }
+        boolean replicaRead = query && ReadRouteContext.isReadOnly();
+        if (key == null && !replicaRead) {
+            return invocation.proceed();
+        }
+        String previous = key == null ? null : ShardRoutingDataSource.bind(key);
+        ShardRoutingDataSource.setReplicaRead(replicaRead);
+        try {
+            return invocation.proceed();
+        } finally {
+            ShardRoutingDataSource.setReplicaRead(false);
+            if (key != null) {
+                ShardRoutingDataSource.restore(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.easymeeting.sharding;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 分库配置（前缀 shard.datasource）
+ * 默认数据源 ds0 即 spring.datasource，未分配的分表都在默认数据源上；
+ * 额外的 MySQL 实例在 nodes 下配置，各自独立连接池，并声明承载的分表序号；
+ * 各实例的只读从库在 replicas 下配置，供标注了 @ReadOnlyRoute 的查询使用
+ */
+@Data
+public class ShardDataSourceProperties {
+
+    /**
+     * 启动时校验拓扑（各实例可连接、分配到的分表存在）
+     */
+    private boolean validateOnStartup = true;
+
+    /**
+     * 数据源名称 -> 配置
+     */
+    private Map<String, Node> nodes = new LinkedHashMap<>();
+
+    /**
+     * 从库名称 -> 配置
+     */
+    private Map<String, Replica> replicas = new LinkedHashMap<>();
+
+    /**
+     * 从库复制延迟超过该秒数时不再路由读请求，回到主库
+     */
+    private int replicaMaxLagSeconds = 2;
+
+    /**
+     * 用户写入后该秒数内的读请求固定走主库（读己之写）
+     */
+    private int stickySeconds = 5;
+
+    @Data
+    public static class Node {
+        private String url;
+        private String username;
+        private String password;
+        /**
+         * 驱动类，不配置时与默认数据源相同
+         */
+        private String driverClassName;
+        private Integer maximumPoolSize;
+        private Integer minimumIdle;
+        /**
+         * 承载的分表序号，逗号分隔，支持区间，如 17-32 或 17-24,33
+         * （聊天消息与私聊消息同序号的分表在同一实例上）
+         */
+        private String tables;
+    }
+
+    @Data
+    public static class Replica {
+        /**
+         * 所属主库的数据源名称（ds0 或 nodes 中的名称）
+         */
+        private String primary = "ds0";
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+        private Integer maximumPoolSize;
+        private Integer minimumIdle;
+    }
+}
@@ -0,0 +1,133 @@
+package com.easymeeting.sharding;
+
+import com.easymeeting.utils.TableSplitUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 分表 -> 数据源的路由
+ * 按分表序号分配数据源，聊天消息与私聊消息同序号的分表在同一实例；非分表一律走默认数据源
+ */
+public class ShardDataSourceRouter {
+
+    /**
+     * 默认数据源（spring.datasource）
+     */
+    public static final String DEFAULT_KEY = "ds0";
+
+    private static final String[] SHARDED_PREFIXES = {
+            TableSplitUtils.SPLIT_TABLE_CHAT_MESSAGE + "_",
+            TableSplitUtils.SPLIT_TABLE_PRIVATE_CHAT_MESSAGE + "_"
+    };
+
+    /**
+     * 分表序号 -> 数据源（未出现的序号在默认数据源上）
+     */
+    private final Map<Integer, String> keyByIndex;
+    private final List<String> keys;
+    private final Map<String, String> keyByTable = new ConcurrentHashMap<>();
+
+    public ShardDataSourceRouter(ShardDataSourceProperties properties) {
+        Map<Integer, String> assigned = new HashMap<>();
+        List<String> nodeKeys = new ArrayList<>();
+        nodeKeys.add(DEFAULT_KEY);
+        properties.getNodes().forEach((key, node) -> {
+            if (DEFAULT_KEY.equals(key)) {
+                throw new IllegalStateException("分库数据源名称 " + DEFAULT_KEY + " 保留给默认数据源");
+            }
+            for (int tableIndex : parseTables(key, node.getTables())) {
+                String previous = assigned.put(tableIndex, key);
+                if (previous != null) {
+                    throw new IllegalStateException("分表序号 " + tableIndex + " 同时分配给了 " + previous + " 和 " + key);
+                }
+            }
+            nodeKeys.add(key);
+        });
+        this.keyByIndex = assigned;
+        this.keys = Collections.unmodifiableList(nodeKeys);
+    }
+
+    /**
+     * 全部数据源名称（第一个为默认数据源）
+     */
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    /**
+     * 分表序号所在的数据源
+     */
+    public String getDataSourceKey(int tableIndex) {
+        return keyByIndex.getOrDefault(tableIndex, DEFAULT_KEY);
+    }
+
+    /**
+     * 表所在的数据源（非分表返回默认数据源）
+     */
+    public String getDataSourceKey(String tableName) {
+        return keyByTable.computeIfAbsent(tableName, name -> {
+            Integer tableIndex = parseTableIndex(name);
+            return tableIndex == null ? DEFAULT_KEY : getDataSourceKey(tableIndex);
+        });
+    }
+
+    /**
+     * 与指定分表在同一数据源上、可作为建表模板的原有分表序号
+     *
+     * @return 序号，该数据源上没有原有分表时返回 null
+     */
+    public Integer getTemplateIndex(int tableIndex) {
+        String key = getDataSourceKey(tableIndex);
+        for (int i = 1; i <= TableSplitUtils.DEFAULT_TABLE_COUNT; i++) {
+            if (getDataSourceKey(i).equals(key)) {
+                return i;
+            }
+        }
+        return null;
+    }
+
+    private static Integer parseTableIndex(String tableName) {
+        for (String prefix : SHARDED_PREFIXES) {
+            if (tableName.startsWith(prefix)) {
+                try {
+                    return Integer.parseInt(tableName.substring(prefix.length()));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static List<Integer> parseTables(String key, String tables) {
+        List<Integer> result = new ArrayList<>();
+        if (tables == null || tables.isBlank()) {
+            return result;
+        }
+        for (String part : tables.split(",")) {
+            String range = part.trim();
+            if (range.isEmpty()) {
+                continue;
+            }
+            try {
+                int dash = range.indexOf('-');
+                int from = Integer.parseInt((dash < 0 ? range : range.substring(0, dash)).trim());
+                int to = dash < 0 ? from : Integer.parseInt(range.substring(dash + 1).trim());
+                if (from < 1 || to < from) {
+                    throw new NumberFormatException(range);
+                }
+                for (int i = from; i <= to; i++) {
+                    result.add(i);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalStateException("数据源 " + key + " 的分表序号配置不正确: " + range);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,230 @@
+package com.easymeeting.sharding;
+
+import com.easymeeting.dto.ShardDirectoryEventDto;
+import com.easymeeting.entity.ShardBucket;
+import com.easymeeting.entity.config.AppConfig;
+import com.easymeeting.entity.constants.Constants;
+import com.easymeeting.enums.ShardBucketStateEnum;
+import com.easymeeting.mapper.ShardBucketMapper;
+import com.easymeeting.redis.RedisUtils;
+import com.easymeeting.utils.TableSplitUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分表桶目录
+ * 分表键先哈希到虚拟桶，再按目录映射到物理表；目录保存在 shard_bucket 中，每个节点缓存一份，
+ * 目录变更后广播通知各节点重新加载，同时定时重新加载兜底
+ *
+ * - 每次变更目录时 Redis 中的目录版本号加一；各节点加载目录后上报已加载的版本并续期存活标记，
+ *   迁移流程在每次变更后等待所有存活节点上报到该版本再继续（存活标记过期的节点视为下线，不再等待）
+ *
+ * - 未登记的桶：按 bucket % 32 + 1 落表，与原固定 32 张表的路由一致
+ * - 迁移中：读旧表，同时写旧表和新表
+ * - 已切换：读新表，同时写新表和旧表（等待所有节点切换完成后再停止写旧表）
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ShardDirectory implements MessageListener {
+
+    private final ShardBucketMapper shardBucketMapper;
+    private final RedisUtils redisUtils;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final AppConfig appConfig;
+
+    @Value("${shard.directory.reload-ms:30000}")
+    private long reloadMs;
+
+    /**
+     * 表前缀 -> 桶目录（下标为桶编号，未登记的为 null）
+     */
+    private volatile Map<String, ShardBucket[]> directory = new HashMap<>();
+
+    /**
+     * 本节点已加载的目录版本（加载前读取，目录内容不早于该版本）
+     */
+    private volatile long loadedVersion;
+
+    @PostConstruct
+    public void init() {
+        reload();
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(Constants.REDIS_CHANNEL_SHARD_DIRECTORY));
+    }
+
+    /**
+     * 分表键的路由
+     *
+     * @param tablePrefix 表前缀
+     * @param key         分表键（meeting_id 或 session_id）
+     */
+    public ShardRoute route(String tablePrefix, String key) {
+        ShardBucket bucket = getBucket(tablePrefix, TableSplitUtils.getBucket(key));
+        String readTable = TableSplitUtils.formatTableName(tablePrefix, bucket.getTableIndex());
+        if (bucket.getDualWriteIndex() == null || ShardBucketStateEnum.NORMAL.getState().equals(bucket.getState())) {
+            return new ShardRoute(readTable, List.of(readTable));
+        }
+        return new ShardRoute(readTable, List.of(readTable, TableSplitUtils.formatTableName(tablePrefix, bucket.getDualWriteIndex())));
+    }
+
+    /**
+     * 桶的当前目录项（未登记时返回默认位置）
+     */
+    public ShardBucket getBucket(String tablePrefix, int bucket) {
+        ShardBucket[] buckets = directory.get(tablePrefix);
+        ShardBucket registered = buckets == null ? null : buckets[bucket];
+        if (registered != null) {
+            return registered;
+        }
+        ShardBucket defaultBucket = new ShardBucket();
+        defaultBucket.setTablePrefix(tablePrefix);
+        defaultBucket.setBucket(bucket);
+        defaultBucket.setTableIndex(TableSplitUtils.getDefaultTableIndex(bucket));
+        defaultBucket.setState(ShardBucketStateEnum.NORMAL.getState());
+        return defaultBucket;
+    }
+
+    /**
+     * 已登记的桶（非默认位置或迁移中）
+     */
+    public List<ShardBucket> getRegistered(String tablePrefix) {
+        ShardBucket[] buckets = directory.get(tablePrefix);
+        List<ShardBucket> result = new ArrayList<>();
+        if (buckets != null) {
+            for (ShardBucket bucket : buckets) {
+                if (bucket != null) {
+                    result.add(bucket);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 更新目录（单条语句写入，多个桶同时生效），本地立即重新加载并通知其他节点
+     *
+     * @return 新的目录版本，各节点上报到该版本后即已按新目录路由
+     */
+    public long update(List<ShardBucket> buckets) {
+        if (buckets.isEmpty()) {
+            return loadedVersion;
+        }
+        shardBucketMapper.upsertBatch(buckets);
+        Long version = redisUtils.increment(Constants.REDIS_KEY_SHARD_DIRECTORY_VERSION, 1);
+        reload();
+        ShardDirectoryEventDto event = new ShardDirectoryEventDto();
+        event.setTablePrefix(buckets.get(0).getTablePrefix());
+        try {
+            redisUtils.publish(Constants.REDIS_CHANNEL_SHARD_DIRECTORY, event);
+        } catch (Exception e) {
+            log.error("分表桶目录广播发送失败，其他节点将在定时加载后生效", e);
+        }
+        return version == null ? loadedVersion : version;
+    }
+
+    /**
+     * 所有存活节点是否都已加载到指定版本
+     *
+     * @return 尚未加载到该版本的节点，全部加载后返回空列表
+     */
+    public List<String> getLaggingNodes(long version) {
+        List<String> lagging = new ArrayList<>();
+        for (Map.Entry<String, String> entry : redisUtils.hGetAllString(Constants.REDIS_KEY_SHARD_DIRECTORY_NODES).entrySet()) {
+            String nodeId = entry.getKey();
+            if (redisUtils.getString(Constants.REDIS_KEY_SHARD_DIRECTORY_NODE_ALIVE + nodeId) == null) {
+                redisUtils.hDelete(Constants.REDIS_KEY_SHARD_DIRECTORY_NODES, nodeId);
+                log.info("分表桶目录节点 {} 存活标记已过期，从登记中移除", nodeId);
+                continue;
+            }
+            if (Long.parseLong(entry.getValue()) < version) {
+                lagging.add(nodeId);
+            }
+        }
+        return lagging;
+    }
+
+    @Scheduled(fixedDelayString = "${shard.directory.reload-ms:30000}")
+    public void reload() {
+        try {
+            load();
+        } finally {
+            report();
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        String nodeId = appConfig.getNodeId();
+        try {
+            redisUtils.hDelete(Constants.REDIS_KEY_SHARD_DIRECTORY_NODES, nodeId);
+            redisUtils.delete(Constants.REDIS_KEY_SHARD_DIRECTORY_NODE_ALIVE + nodeId);
+        } catch (Exception e) {
+            log.warn("注销分表桶目录节点失败，存活标记将自动过期: {}", e.getMessage());
+        }
+    }
+
+    private void load() {
+        List<ShardBucket> rows;
+        long version;
+        try {
+            // 先读版本再读目录：变更时先写目录再加版本，读到的目录不会早于该版本
+            String current = redisUtils.getString(Constants.REDIS_KEY_SHARD_DIRECTORY_VERSION);
+            version = current == null ? 0 : Long.parseLong(current);
+            rows = shardBucketMapper.selectAll();
+        } catch (Exception e) {
+            log.warn("加载分表桶目录失败，继续使用当前目录: {}", e.getMessage());
+            return;
+        }
+        Map<String, ShardBucket[]> loaded = new HashMap<>();
+        for (ShardBucket row : rows) {
+            if (row.getBucket() == null || row.getBucket() < 0 || row.getBucket() >= TableSplitUtils.BUCKET_COUNT) {
+                log.error("分表桶目录中存在非法桶编号: {}", row);
+                continue;
+            }
+            loaded.computeIfAbsent(row.getTablePrefix(), prefix -> new ShardBucket[TableSplitUtils.BUCKET_COUNT])[row.getBucket()] = row;
+        }
+        directory = loaded;
+        loadedVersion = Math.max(loadedVersion, version);
+    }
+
+    /**
+     * 上报本节点已加载的版本并续期存活标记（加载失败时仍上报旧版本，迁移会等待本节点而不是把它当作下线）
+     */
+    private void report() {
+        String nodeId = appConfig.getNodeId();
+        String version = String.valueOf(loadedVersion);
+        long aliveSeconds = Math.max(TimeUnit.MILLISECONDS.toSeconds(reloadMs * 3), 3);
+        try {
+            redisUtils.stringPipelined(connection -> {
+                connection.hSet(Constants.REDIS_KEY_SHARD_DIRECTORY_NODES, nodeId, version);
+                connection.setEx(Constants.REDIS_KEY_SHARD_DIRECTORY_NODE_ALIVE + nodeId, aliveSeconds, version);
+            });
+        } catch (Exception e) {
+            log.warn("上报分表桶目录版本失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("分表桶目录广播处理失败", e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.easymeeting.sharding;
+
+import java.util.List;
+
+/**
+ * 分表键的路由结果
+ *
+ * @param readTable   读取的表
+ * @param writeTables 需要写入的表（第一张为读取的表；迁移中/切换后还包含另一张表）
+ */
+public record ShardRoute(String readTable, List<String> writeTables) {
+
+    /**
+     * 是否需要双写
+     */
+    public boolean dualWrite() {
+        return writeTables.size() > 1;
+    }
+}
@@ -0,0 +1,110 @@
+package com.easymeeting.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 分库路由数据源
+ * 获取连接时按当前线程绑定的数据源名称选择连接池，未绑定时使用默认数据源；
+ * 分表语句由 ShardDataSourceInterceptor 按表名自动绑定，事务需在开启前通过 executeOn 绑定。
+ * 语句允许读从库时，在该主库当前可用（延迟未超限）的从库间轮询，无可用从库时仍走主库
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    private static final ThreadLocal<String> CURRENT_KEY = new ThreadLocal<>();
+
+    /**
+     * 当前语句是否允许读从库（仅在执行只读查询期间为 true）
+     */
+    private static final ThreadLocal<Boolean> REPLICA_READ = new ThreadLocal<>();
+
+    /**
+     * 主库数据源名称 -> 可用的从库数据源名称（由 ReplicaLagMonitor 定时刷新）
+     */
+    private volatile Map<String, List<String>> availableReplicas = new HashMap<>();
+    private final AtomicInteger roundRobin = new AtomicInteger();
+
+    /**
+     * 在指定数据源上执行（可嵌套，结束后恢复外层绑定）
+     */
+    public static <T> T executeOn(String key, Supplier<T> action) {
+        String previous = CURRENT_KEY.get();
+        CURRENT_KEY.set(key);
+        try {
+            return action.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * 当前线程绑定的数据源名称，未绑定时为默认数据源
+     */
+    public static String currentKey() {
+        String key = CURRENT_KEY.get();
+        return key == null ? ShardDataSourceRouter.DEFAULT_KEY : key;
+    }
+
+    static String bind(String key) {
+        String previous = CURRENT_KEY.get();
+        CURRENT_KEY.set(key);
+        return previous;
+    }
+
+    static void restore(String previous) {
+        if (previous == null) {
+            CURRENT_KEY.remove();
+        } else {
+            CURRENT_KEY.set(previous);
+        }
+    }
+
+    static void setReplicaRead(boolean replicaRead) {
+        if (replicaRead) {
+            REPLICA_READ.set(Boolean.TRUE);
+        } else {
+            REPLICA_READ.remove();
+        }
+    }
+
+    /**
+     * 更新可用从库
+     */
+    public void setAvailableReplicas(Map<String, List<String>> availableReplicas) {
+        this.availableReplicas = availableReplicas;
+    }
+
+    public Map<String, List<String>> getAvailableReplicas() {
+        return availableReplicas;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String key = CURRENT_KEY.get();
+        if (!Boolean.TRUE.equals(REPLICA_READ.get())) {
+            return key;
+        }
+        List<String> replicas = availableReplicas.get(key == null ? ShardDataSourceRouter.DEFAULT_KEY : key);
+        if (replicas == null || replicas.isEmpty()) {
+            return key;
+        }
+        return replicas.get(Math.floorMod(roundRobin.getAndIncrement(), replicas.size()));
+    }
+
+    @Override
+    public void destroy() {
+        for (DataSource dataSource : getResolvedDataSources().values()) {
+            if (dataSource instanceof HikariDataSource hikari) {
+                hikari.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.easymeeting.sharding;
+
+import com.easymeeting.entity.ShardBucket;
+import com.easymeeting.utils.TableSplitUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 启动时校验分库拓扑：每个数据源都能连接，路由到该数据源的分表（原有 32 张及桶目录中登记的）都存在，
+ * 任一项不满足则启动失败，避免上线后消息写到不存在的表或不可用的实例
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ShardTopologyValidator {
+
+    private static final String[] SHARDED_PREFIXES = {
+            TableSplitUtils.SPLIT_TABLE_CHAT_MESSAGE,
+            TableSplitUtils.SPLIT_TABLE_PRIVATE_CHAT_MESSAGE
+    };
+
+    private final ShardDataSourceProperties shardDataSourceProperties;
+    private final ShardDataSourceRouter shardDataSourceRouter;
+    private final ShardRoutingDataSource shardRoutingDataSource;
+    private final ShardDirectory shardDirectory;
+
+    @PostConstruct
+    public void validate() {
+        if (!shardDataSourceProperties.isValidateOnStartup()) {
+            log.warn("已关闭分库拓扑校验");
+            return;
+        }
+        Map<Object, DataSource> dataSources = shardRoutingDataSource.getResolvedDataSources();
+        List<String> errors = new ArrayList<>();
+        for (String key : shardDataSourceRouter.getKeys()) {
+            List<String> tables = new ArrayList<>();
+            for (String prefix : SHARDED_PREFIXES) {
+                for (int tableIndex : getTableIndexes(prefix)) {
+                    if (shardDataSourceRouter.getDataSourceKey(tableIndex).equals(key)) {
+                        tables.add(TableSplitUtils.formatTableName(prefix, tableIndex));
+                    }
+                }
+            }
+            if (tables.isEmpty()) {
+                log.warn("分库数据源 {} 上没有分配任何分表", key);
+            }
+            checkDataSource(key, dataSources.get(key), tables, errors);
+        }
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("分库拓扑校验失败: " + String.join("; ", errors));
+        }
+        log.info("分库拓扑校验通过，数据源: {}", shardDataSourceRouter.getKeys());
+    }
+
+    /**
+     * 需要存在的分表序号：原有分表及桶目录中正在使用的表
+     */
+    private TreeSet<Integer> getTableIndexes(String prefix) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (int i = 1; i <= TableSplitUtils.DEFAULT_TABLE_COUNT; i++) {
+            indexes.add(i);
+        }
+        for (ShardBucket bucket : shardDirectory.getRegistered(prefix)) {
+            indexes.add(bucket.getTableIndex());
+            if (bucket.getDualWriteIndex() != null) {
+                indexes.add(bucket.getDualWriteIndex());
+            }
+        }
+        return indexes;
+    }
+
+    private void checkDataSource(String key, DataSource dataSource, List<String> tables, List<String> errors) {
+        if (dataSource == null) {
+            errors.add("数据源 " + key + " 未创建");
+            return;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String table : tables) {
+                try (ResultSet rs = metaData.getTables(connection.getCatalog(), null, table, new String[]{"TABLE"})) {
+                    if (!rs.next()) {
+                        errors.add("数据源 " + key + " 缺少分表 " + table);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            errors.add("数据源 " + key + " 无法连接: " + e.getMessage());
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.easymeeting.utils;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import javax.crypto.SecretKey;
@@ -43,6 +44,29 @@ public class JwtUtils {
         return claims.getSubject();
     }
 
+    /**
+     * 本地校验签名并解析 Claims，不校验过期时间（会话有效期以 Redis 会话为准，续期后可超过 JWT 的过期时间）
+     * @return 签名校验失败返回 null
+     */
+    public static Claims parseClaimsIgnoringExpiry(String token) {
+        try {
+            return parseSignedClaims(token);
+        } catch (ExpiredJwtException e) {
+            // 签名校验先于过期校验，过期异常中的 Claims 已通过签名校验
+            return e.getClaims();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static Claims parseSignedClaims(String token) {
+        return Jwts.parser()
+                .verifyWith(KEY)
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
     /**
      * 验证Token是否有效
      */
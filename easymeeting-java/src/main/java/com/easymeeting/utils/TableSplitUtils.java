@@ -23,6 +23,13 @@ public class TableSplitUtils {
      */
     public static final Integer DEFAULT_TABLE_COUNT = 32;
 
+    /**
+     * 虚拟桶数量
+     * 分表键先哈希到固定数量的桶，再由桶目录（shard_bucket）映射到物理表，扩容时按桶迁移；
+     * 桶数为 DEFAULT_TABLE_COUNT 的整数倍，未登记的桶按 bucket % 32 落表，与原 hash % 32 的结果一致
+     */
+    public static final int BUCKET_COUNT = 1024;
+
     /**
      * 创建分表 SQL 模板
      */
@@ -86,16 +93,42 @@ public class TableSplitUtils {
      * @return 分表名，带零填充后缀
      */
     public static String getTableName(String prefix, Integer tableCount, String key) {
-        int hashCode = Math.abs(murmurHash3(key, 0));
-        // 处理 Integer.MIN_VALUE 的特殊情况
-        if (hashCode == Integer.MIN_VALUE) {
-            hashCode = 0;
-        }
-        int tableNum = hashCode % tableCount + 1;
+        int tableNum = positiveHash(key) % tableCount + 1;
         int padLen = String.valueOf(tableCount).length();
         return prefix + "_" + String.format("%0" + padLen + "d", tableNum);
     }
 
+    /**
+     * 分表键所在的虚拟桶
+     *
+     * @param key 分表键（meeting_id 或 session_id）
+     * @return 桶编号，0 ~ BUCKET_COUNT-1
+     */
+    public static int getBucket(String key) {
+        return positiveHash(key) % BUCKET_COUNT;
+    }
+
+    /**
+     * 未登记在桶目录中的桶默认所在的表序号
+     *
+     * @param bucket 桶编号
+     * @return 表序号（从1开始）
+     */
+    public static int getDefaultTableIndex(int bucket) {
+        return bucket % DEFAULT_TABLE_COUNT + 1;
+    }
+
+    /**
+     * 按表序号生成表名（至少两位零填充，序号超过 99 时自然扩展）
+     *
+     * @param prefix     表名前缀
+     * @param tableIndex 表序号（从1开始）
+     * @return 分表名，如 message_chat_message_33
+     */
+    public static String formatTableName(String prefix, int tableIndex) {
+        return prefix + "_" + String.format("%02d", tableIndex);
+    }
+
     /**
      * 根据整数 key 获取表名（兼容旧接口）
      *
@@ -211,6 +244,18 @@ public class TableSplitUtils {
         return h1;
     }
 
+    /**
+     * 非负哈希值（MurmurHash3 取绝对值，Integer.MIN_VALUE 视为 0）
+     */
+    private static int positiveHash(String key) {
+        int hashCode = Math.abs(murmurHash3(key, 0));
+        // 处理 Integer.MIN_VALUE 的特殊情况
+        if (hashCode == Integer.MIN_VALUE) {
+            hashCode = 0;
+        }
+        return hashCode;
+    }
+
     /**
      * MurmurHash3 finalization mix
      */
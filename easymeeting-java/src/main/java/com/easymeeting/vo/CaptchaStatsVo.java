@@ -0,0 +1,30 @@
+package com.easymeeting.vo;
+
+import lombok.Data;
+
+/**
+ * 验证码预生成池运行指标
+ */
+@Data
+public class CaptchaStatsVo {
+    /**
+     * 池容量
+     */
+    private Integer capacity;
+    /**
+     * 当前可用数量
+     */
+    private Integer available;
+    /**
+     * 从池中取出的数量
+     */
+    private Long served;
+    /**
+     * 池为空时同步生成的数量
+     */
+    private Long fallback;
+    /**
+     * 后台补充线程已生成的数量
+     */
+    private Long rendered;
+}
@@ -0,0 +1,42 @@
+package com.easymeeting.vo;
+
+import lombok.Data;
+
+/**
+ * 聊天消息批量写入运行指标
+ */
+@Data
+public class ChatWriteStatsVo {
+    /**
+     * 写入线程数
+     */
+    private Integer threads;
+    /**
+     * 缓冲容量
+     */
+    private Integer bufferCapacity;
+    /**
+     * 当前缓冲中尚未落库的消息数
+     */
+    private Integer buffered;
+    /**
+     * 已提交的写入行数（分表迁移双写时一条消息计两行）
+     */
+    private Long submitted;
+    /**
+     * 已落库的行数
+     */
+    private Long written;
+    /**
+     * 成功执行的多行 INSERT 次数
+     */
+    private Long batches;
+    /**
+     * 重试后仍写入失败的消息数
+     */
+    private Long failed;
+    /**
+     * 缓冲已满被拒绝的消息数
+     */
+    private Long rejected;
+}
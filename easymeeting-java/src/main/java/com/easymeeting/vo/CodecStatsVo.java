@@ -0,0 +1,27 @@
+package com.easymeeting.vo;
+
+import lombok.Data;
+
+/**
+ * Redis 值编码对比报告（JSON 与紧凑二进制）
+ */
+@Data
+public class CodecStatsVo {
+    /**
+     * 参与对比的值数量（如会议房间成员数）
+     */
+    private Integer count;
+    private Long jsonBytes;
+    private Long compactBytes;
+    private Double jsonBytesPerValue;
+    private Double compactBytesPerValue;
+    /**
+     * 全部值解码总耗时（纳秒）
+     */
+    private Long jsonDecodeNanos;
+    private Long compactDecodeNanos;
+    /**
+     * 当前是否以紧凑编码写入
+     */
+    private Boolean compactWrite;
+}
@@ -0,0 +1,36 @@
+package com.easymeeting.vo;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 游标分页结果
+ * 下一页请求携带 nextCursor，不使用偏移量，翻页深度不影响查询耗时
+ */
+@Data
+public class CursorPageResult<T> {
+
+    private List<T> list;
+
+    /**
+     * 下一页游标，没有更多数据时为 null
+     */
+    private Long nextCursor;
+
+    private Boolean hasMore;
+
+    /**
+     * 总数（近似值，仅首页返回，来自缓存的计数）
+     */
+    private Long total;
+
+    public static <T> CursorPageResult<T> of(List<T> list, Long nextCursor, Long total) {
+        CursorPageResult<T> result = new CursorPageResult<>();
+        result.setList(list);
+        result.setNextCursor(nextCursor);
+        result.setHasMore(nextCursor != null);
+        result.setTotal(total);
+        return result;
+    }
+}
@@ -0,0 +1,42 @@
+package com.easymeeting.vo;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 本机消息投递队列运行指标
+ */
+@Data
+public class DeliveryStatsVo {
+    /**
+     * 投递通道数
+     */
+    private Integer lanes;
+    /**
+     * 每个通道的队列容量
+     */
+    private Integer queueCapacity;
+    /**
+     * 各通道当前排队数
+     */
+    private List<Integer> queueDepths;
+    private Long enqueued;
+    private Long delivered;
+    /**
+     * 队列满被丢弃的瞬时消息数（视频状态、ICE 候选等）
+     */
+    private Long droppedEphemeral;
+    /**
+     * 等待超时后被丢弃的普通消息数
+     */
+    private Long droppedReliable;
+    /**
+     * 入队到投递的平均延迟（毫秒）
+     */
+    private Double avgLagMs;
+    /**
+     * 上次采集以来的最大延迟（毫秒）
+     */
+    private Long maxLagMs;
+}
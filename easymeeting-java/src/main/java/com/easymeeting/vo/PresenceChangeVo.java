@@ -0,0 +1,18 @@
+package com.easymeeting.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 好友在线状态变化（推送给在线好友）
+ */
+@Data
+public class PresenceChangeVo implements Serializable {
+    private String userId;
+    private Boolean online;
+    /**
+     * 状态变化时间
+     */
+    private Long changeTime;
+}
@@ -0,0 +1,51 @@
+package com.easymeeting.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 分表迁移/清理任务进度
+ */
+@Data
+public class ShardMigrationStatusVo implements Serializable {
+    /**
+     * 任务类型：MIGRATE 迁移，CLEANUP 清理旧表
+     */
+    private String task;
+    /**
+     * 分表前缀
+     */
+    private String tablePrefix;
+    /**
+     * 迁移的桶
+     */
+    private List<Integer> buckets;
+    /**
+     * 迁移目标表序号 / 清理的表序号
+     */
+    private Integer tableIndex;
+    /**
+     * 执行任务的节点
+     */
+    private String nodeId;
+    /**
+     * 当前阶段：PREPARE、DUAL_WRITE、COPY、SWITCH、CLEANUP、DONE、FAILED、ABORTED（锁过期后回滚）
+     */
+    private String phase;
+    /**
+     * 已扫描行数
+     */
+    private Long scannedRows;
+    /**
+     * 已复制（迁移）或已删除（清理）行数
+     */
+    private Long affectedRows;
+    private Long startTime;
+    private Long finishTime;
+    /**
+     * 失败原因
+     */
+    private String error;
+}
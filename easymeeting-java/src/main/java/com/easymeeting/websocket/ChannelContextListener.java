@@ -0,0 +1,33 @@
+package com.easymeeting.websocket;
+
+/**
+ * 本机连接上下文变化监听器
+ * ChannelContextUtils 在用户上下线、会议房间创建/清空时回调，
+ * 用于维护集群级的用户/房间目录等（默认方法为空实现，按需覆盖）
+ */
+public interface ChannelContextListener {
+
+    /**
+     * 用户在本机建立连接
+     */
+    default void onUserOnline(String userId) {
+    }
+
+    /**
+     * 用户在本机的连接已移除
+     */
+    default void onUserOffline(String userId) {
+    }
+
+    /**
+     * 会议房间在本机有了第一个 Channel
+     */
+    default void onRoomActive(String meetingId) {
+    }
+
+    /**
+     * 会议房间在本机的最后一个 Channel 已离开
+     */
+    default void onRoomInactive(String meetingId) {
+    }
+}
@@ -12,6 +12,7 @@ import io.netty.util.AttributeKey;
 import io.netty.util.concurrent.GlobalEventExecutor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 
 import java.util.concurrent.ConcurrentHashMap;
@@ -22,6 +23,7 @@ import java.util.concurrent.ConcurrentHashMap;
 public class ChannelContextUtils {
 
     private final RedisComponent redisComponent;
+    private final ObjectProvider<ChannelContextListener> channelContextListeners;
 
     // Channel 上存储 userId 的 AttributeKey（Channel → UserId）
     public static final AttributeKey<String> USER_ID_KEY = AttributeKey.valueOf("userId");
@@ -72,6 +74,7 @@ public class ChannelContextUtils {
         channel.attr(USER_ID_KEY).set(userId);              // Channel → UserId
         channel.attr(TOKEN_USER_INFO_KEY).set(userInfo);    // Channel → TokenUserInfoDto
         USER_CONTEXT_MAP.put(userId, channel);              // UserId → Channel
+        channelContextListeners.forEach(listener -> listener.onUserOnline(userId));
 
         log.info("用户 {} 已添加到在线列表，ChannelId: {}", userId, channel.id().asShortText());
 
@@ -104,6 +107,7 @@ public class ChannelContextUtils {
             }
             channel.attr(USER_ID_KEY).set(null);
             channel.attr(TOKEN_USER_INFO_KEY).set(null);
+            channelContextListeners.forEach(listener -> listener.onUserOffline(userId));
         }
         log.info("用户 {} 已从在线列表移除", userId);
     }
@@ -130,7 +134,9 @@ public class ChannelContextUtils {
         channel.attr(TOKEN_USER_INFO_KEY).set(null);
         
         // 只有当前 Channel 匹配时才移除，防止误删新连接
-        USER_CONTEXT_MAP.remove(userId, channel);
+        if (USER_CONTEXT_MAP.remove(userId, channel)) {
+            channelContextListeners.forEach(listener -> listener.onUserOffline(userId));
+        }
         
         log.info("用户 {} 连接已断开，ChannelId: {}", userId, channel.id().asShortText());
     }
@@ -199,6 +205,13 @@ public class ChannelContextUtils {
         return new java.util.HashSet<>(USER_CONTEXT_MAP.keySet());
     }
 
+    /**
+     * 获取本节点所有活跃的会议房间ID
+     */
+    public java.util.Set<String> getActiveMeetingIds() {
+        return new java.util.HashSet<>(MEETING_ROOM_CONTEXT_MAP.keySet());
+    }
+
     // ==================== 会议房间相关 ====================
 
     /**
@@ -211,11 +224,18 @@ public class ChannelContextUtils {
             log.warn("尝试加入会议房间 {} 但 channel 为 null，跳过 WebSocket 房间加入（用户将在建立 WebSocket 连接后自动加入）", meetingId);
             return;
         }
+        boolean[] created = new boolean[1];
         ChannelGroup channelGroup = MEETING_ROOM_CONTEXT_MAP.computeIfAbsent(
                 meetingId,
-                k -> new DefaultChannelGroup(GlobalEventExecutor.INSTANCE)
+                k -> {
+                    created[0] = true;
+                    return new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+                }
         );
         channelGroup.add(channel);
+        if (created[0]) {
+            channelContextListeners.forEach(listener -> listener.onRoomActive(meetingId));
+        }
         log.info("Channel {} 加入会议房间 {}", channel.id().asShortText(), meetingId);
     }
 
@@ -228,8 +248,8 @@ public class ChannelContextUtils {
             channelGroup.remove(channel);
             log.info("Channel {} 离开会议房间 {}", channel.id().asShortText(), meetingId);
             // 如果房间为空，移除房间
-            if (channelGroup.isEmpty()) {
-                MEETING_ROOM_CONTEXT_MAP.remove(meetingId);
+            if (channelGroup.isEmpty() && MEETING_ROOM_CONTEXT_MAP.remove(meetingId, channelGroup)) {
+                channelContextListeners.forEach(listener -> listener.onRoomInactive(meetingId));
                 log.info("会议房间 {} 已清空并移除", meetingId);
             }
         }
@@ -314,13 +334,19 @@ public class ChannelContextUtils {
      */
     public void sendMeetingMemberUpdate(String meetingId, String newUserId, String newUserNickName) {
         // 获取会议成员列表
-        com.easymeeting.dto.MeetingMemberDto newMember = redisComponent.getMeetingMember(meetingId, newUserId);
-        java.util.List<com.easymeeting.dto.MeetingMemberDto> memberList = redisComponent.getMeetingMemberList(meetingId);
+        // 一次读取版本号与成员快照，保证两者一致
+        com.easymeeting.dto.MeetingRoomStateDto roomState = redisComponent.getMeetingRoomState(meetingId);
+        java.util.List<com.easymeeting.dto.MeetingMemberDto> memberList = roomState.getMeetingMemberList();
+        com.easymeeting.dto.MeetingMemberDto newMember = memberList.stream()
+                .filter(member -> newUserId.equals(member.getUserId()))
+                .findFirst()
+                .orElse(null);
         
         // 构建消息内容
         com.easymeeting.dto.MeetingJoinDto meetingJoinDto = new com.easymeeting.dto.MeetingJoinDto();
         meetingJoinDto.setNewMember(newMember);
         meetingJoinDto.setMeetingMemberList(memberList);
+        meetingJoinDto.setRoomVersion(roomState.getVersion());
         
         // 构建消息
         MessageSendDto<com.easymeeting.dto.MeetingJoinDto> messageSendDto = new MessageSendDto<>();
@@ -384,7 +410,9 @@ public class ChannelContextUtils {
             // 清理映射
             channel.attr(USER_ID_KEY).set(null);
             channel.attr(TOKEN_USER_INFO_KEY).set(null);
-            USER_CONTEXT_MAP.remove(userId);
+            if (USER_CONTEXT_MAP.remove(userId, channel)) {
+                channelContextListeners.forEach(listener -> listener.onUserOffline(userId));
+            }
             
             // 关闭连接
             channel.close();
@@ -95,7 +95,7 @@ public class MeetingBusinessHandler implements MessageTypeHandler {
         if (tokenUserInfo == null) {
             log.warn("无法获取用户信息，userId={}", userId);
             // 降级处理：直接从 Redis 移除
-            redisComponent.removeMeetingMember(meetingId, userId);
+            redisComponent.exitMeeting(meetingId, userId, MeetingMemberStatusEnum.EXIT_MEETING);
             messageHandler.sendMessage(message);
             return;
         }
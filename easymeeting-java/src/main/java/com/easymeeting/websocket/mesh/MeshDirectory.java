@@ -0,0 +1,120 @@
+package com.easymeeting.websocket.mesh;
+
+import com.easymeeting.entity.config.AppConfig;
+import com.easymeeting.entity.constants.Constants;
+import com.easymeeting.redis.RedisKeys;
+import com.easymeeting.redis.RedisUtils;
+import com.easymeeting.websocket.ChannelContextListener;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mesh 路由目录
+ * 记录用户连接在哪个节点、会议房间分布在哪些节点，供消息转发时选择目标节点
+ * - easymeeting:mesh:user:{userId}     -> nodeId
+ * - easymeeting:mesh:room:{meetingId}  -> Set<nodeId>
+ * 两类记录都带过期时间，由本节点心跳续期；节点宕机后其用户记录自然过期，
+ * 房间集合中心跳已过期的节点在查询时剔除
+ */
+@Component
+@ConditionalOnProperty(name = Constants.MESSAGE_HANDLE_CHANNEL, havingValue = Constants.MESSAGE_CHANNEL_MESH)
+@Slf4j
+@RequiredArgsConstructor
+public class MeshDirectory implements ChannelContextListener {
+
+    private final RedisUtils redisUtils;
+    private final AppConfig appConfig;
+
+    /**
+     * 最近一次心跳时存活的其他节点，未同步过时为 null（不剔除）
+     */
+    private volatile Set<String> livePeers;
+
+    @Override
+    public void onUserOnline(String userId) {
+        redisUtils.set(Constants.REDIS_KEY_MESH_USER + userId, appConfig.getNodeId(),
+                Constants.REDIS_EXPIRE_MESH_ROUTE, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void onUserOffline(String userId) {
+        // 只删除指向本节点的记录，避免用户已在其他节点重连时误删
+        if (appConfig.getNodeId().equals(getUserNode(userId))) {
+            redisUtils.delete(Constants.REDIS_KEY_MESH_USER + userId);
+        }
+    }
+
+    @Override
+    public void onRoomActive(String meetingId) {
+        redisUtils.sAdd(RedisKeys.meshRoom(meetingId), appConfig.getNodeId());
+        redisUtils.expire(RedisKeys.meshRoom(meetingId), Constants.REDIS_EXPIRE_MESH_ROUTE, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void onRoomInactive(String meetingId) {
+        redisUtils.sRemove(RedisKeys.meshRoom(meetingId), appConfig.getNodeId());
+    }
+
+    /**
+     * 心跳时续期本节点的路由记录，并记录存活的其他节点
+     *
+     * @param peers      存活的其他节点
+     * @param userIds    本节点在线用户
+     * @param meetingIds 本节点活跃的会议房间
+     */
+    public void refresh(Set<String> peers, Set<String> userIds, Set<String> meetingIds) {
+        livePeers = new HashSet<>(peers);
+        String nodeId = appConfig.getNodeId();
+        Map<String, Object> users = new HashMap<>();
+        userIds.forEach(userId -> users.put(Constants.REDIS_KEY_MESH_USER + userId, nodeId));
+        redisUtils.multiSet(users, Constants.REDIS_EXPIRE_MESH_ROUTE, TimeUnit.SECONDS);
+        for (String meetingId : meetingIds) {
+            onRoomActive(meetingId);
+        }
+    }
+
+    /**
+     * 获取用户所在节点
+     */
+    public String getUserNode(String userId) {
+        Object value = redisUtils.get(Constants.REDIS_KEY_MESH_USER + userId);
+        if (value == null) {
+            return null;
+        }
+        String nodeId = value.toString();
+        return isLive(nodeId) ? nodeId : null;
+    }
+
+    /**
+     * 获取会议房间所在的全部节点
+     */
+    public Set<String> getRoomNodes(String meetingId) {
+        Set<Object> members = redisUtils.sMembers(RedisKeys.meshRoom(meetingId));
+        Set<String> nodeIds = new HashSet<>();
+        if (members == null) {
+            return nodeIds;
+        }
+        for (Object member : members) {
+            String nodeId = member.toString();
+            if (isLive(nodeId)) {
+                nodeIds.add(nodeId);
+            } else {
+                redisUtils.sRemove(RedisKeys.meshRoom(meetingId), nodeId);
+            }
+        }
+        return nodeIds;
+    }
+
+    private boolean isLive(String nodeId) {
+        Set<String> peers = livePeers;
+        return peers == null || peers.contains(nodeId) || appConfig.getNodeId().equals(nodeId);
+    }
+}
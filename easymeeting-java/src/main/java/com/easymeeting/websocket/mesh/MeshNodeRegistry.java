@@ -0,0 +1,83 @@
+package com.easymeeting.websocket.mesh;
+
+import com.easymeeting.entity.config.AppConfig;
+import com.easymeeting.entity.constants.Constants;
+import com.easymeeting.redis.RedisUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mesh 节点注册表（Redis 控制面）
+ * - easymeeting:mesh:nodes              Hash：nodeId -> host:port
+ * - easymeeting:mesh:node:alive:{id}    存活标记，心跳续期，过期即视为下线
+ */
+@Component
+@ConditionalOnProperty(name = Constants.MESSAGE_HANDLE_CHANNEL, havingValue = Constants.MESSAGE_CHANNEL_MESH)
+@Slf4j
+@RequiredArgsConstructor
+public class MeshNodeRegistry {
+
+    private final RedisUtils redisUtils;
+    private final AppConfig appConfig;
+
+    /**
+     * 本节点对外地址
+     */
+    public String getLocalAddress() {
+        return appConfig.getMeshHost() + ":" + appConfig.getMeshPort();
+    }
+
+    /**
+     * 注册/续期本节点
+     */
+    public void heartbeat() {
+        String nodeId = appConfig.getNodeId();
+        redisUtils.hSet(Constants.REDIS_KEY_MESH_NODES, nodeId, getLocalAddress());
+        redisUtils.set(Constants.REDIS_KEY_MESH_NODE_ALIVE + nodeId, getLocalAddress(),
+                Constants.REDIS_EXPIRE_MESH_NODE, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 注销本节点（应用关闭时调用）
+     */
+    public void unregister() {
+        String nodeId = appConfig.getNodeId();
+        redisUtils.hDelete(Constants.REDIS_KEY_MESH_NODES, nodeId);
+        redisUtils.delete(Constants.REDIS_KEY_MESH_NODE_ALIVE + nodeId);
+        log.info("Mesh 节点 {} 已注销", nodeId);
+    }
+
+    /**
+     * 获取存活的其他节点
+     * 存活标记已过期的节点会从注册表中清理
+     *
+     * @return nodeId -> host:port
+     */
+    public Map<String, String> getLivePeers() {
+        Map<Object, Object> nodes = redisUtils.hGetAll(Constants.REDIS_KEY_MESH_NODES);
+        Map<String, String> peers = new HashMap<>();
+        if (nodes == null || nodes.isEmpty()) {
+            return peers;
+        }
+        String localNodeId = appConfig.getNodeId();
+        for (Map.Entry<Object, Object> entry : nodes.entrySet()) {
+            String nodeId = entry.getKey().toString();
+            if (localNodeId.equals(nodeId)) {
+                continue;
+            }
+            if (!redisUtils.hasKey(Constants.REDIS_KEY_MESH_NODE_ALIVE + nodeId)) {
+                redisUtils.hDelete(Constants.REDIS_KEY_MESH_NODES, nodeId);
+                log.info("Mesh 节点 {} 心跳已过期，从注册表移除", nodeId);
+                continue;
+            }
+            peers.put(nodeId, entry.getValue().toString());
+        }
+        return peers;
+    }
+}
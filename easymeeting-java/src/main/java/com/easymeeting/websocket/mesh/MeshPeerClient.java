@@ -0,0 +1,187 @@
+package com.easymeeting.websocket.mesh;
+
+import com.easymeeting.entity.constants.Constants;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.LengthFieldPrepender;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mesh 节点客户端
+ * 与每个存活的对端节点保持一条 TCP 长连接，断线后按指数退避自动重连
+ */
+@Component
+@ConditionalOnProperty(name = Constants.MESSAGE_HANDLE_CHANNEL, havingValue = Constants.MESSAGE_CHANNEL_MESH)
+@Slf4j
+public class MeshPeerClient {
+
+    /**
+     * 重连退避：初始 500 毫秒，最长 30 秒
+     */
+    private static final long RECONNECT_MIN_DELAY_MS = 500;
+    private static final long RECONNECT_MAX_DELAY_MS = 30_000;
+
+    private final EventLoopGroup group = new NioEventLoopGroup();
+    private final Bootstrap bootstrap;
+
+    // nodeId -> 对端连接
+    private final Map<String, PeerConnection> peers = new ConcurrentHashMap<>();
+
+    public MeshPeerClient() {
+        bootstrap = new Bootstrap()
+                .group(group)
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 3000)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel channel) {
+                        channel.pipeline().addLast(new LengthFieldBasedFrameDecoder(MeshServer.MAX_FRAME_LENGTH, 0, 4, 0, 4));
+                        channel.pipeline().addLast(new LengthFieldPrepender(4));
+                        channel.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+                            @Override
+                            public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                                log.warn("Mesh 出站连接异常: {}", ctx.channel().remoteAddress(), cause);
+                                ctx.close();
+                            }
+                        });
+                    }
+                });
+    }
+
+    /**
+     * 同步对端列表：新节点建立连接，下线节点关闭连接，地址变化的节点重建连接
+     *
+     * @param livePeers nodeId -> host:port
+     */
+    public void syncPeers(Map<String, String> livePeers) {
+        peers.entrySet().removeIf(entry -> {
+            String address = livePeers.get(entry.getKey());
+            if (address == null || !address.equals(entry.getValue().address)) {
+                entry.getValue().close();
+                log.info("Mesh 对端 {} 已移除", entry.getKey());
+                return true;
+            }
+            return false;
+        });
+        livePeers.forEach((nodeId, address) -> peers.computeIfAbsent(nodeId, id -> {
+            PeerConnection connection = new PeerConnection(id, address);
+            connection.connect();
+            return connection;
+        }));
+    }
+
+    /**
+     * 向指定节点发送一帧
+     *
+     * @return false 表示对端未连接，消息被丢弃
+     */
+    public boolean send(String nodeId, byte[] frame) {
+        PeerConnection connection = peers.get(nodeId);
+        if (connection == null) {
+            return false;
+        }
+        return connection.send(frame);
+    }
+
+    @PreDestroy
+    public void close() {
+        peers.values().forEach(PeerConnection::close);
+        peers.clear();
+        group.shutdownGracefully();
+    }
+
+    /**
+     * 到单个对端节点的连接
+     */
+    private class PeerConnection {
+        private final String nodeId;
+        private final String address;
+        private final String host;
+        private final int port;
+        private volatile Channel channel;
+        private volatile boolean closed;
+        private long reconnectDelayMs = RECONNECT_MIN_DELAY_MS;
+
+        PeerConnection(String nodeId, String address) {
+            this.nodeId = nodeId;
+            this.address = address;
+            int index = address.lastIndexOf(':');
+            this.host = address.substring(0, index);
+            this.port = Integer.parseInt(address.substring(index + 1));
+        }
+
+        void connect() {
+            if (closed) {
+                return;
+            }
+            ChannelFuture future = bootstrap.connect(host, port);
+            future.addListener(f -> {
+                if (!f.isSuccess()) {
+                    log.warn("Mesh 连接对端 {}({}) 失败，{} 毫秒后重试", nodeId, address, reconnectDelayMs);
+                    scheduleReconnect();
+                    return;
+                }
+                Channel connected = future.channel();
+                if (closed) {
+                    connected.close();
+                    return;
+                }
+                channel = connected;
+                reconnectDelayMs = RECONNECT_MIN_DELAY_MS;
+                log.info("Mesh 已连接对端 {}({})", nodeId, address);
+                connected.closeFuture().addListener(cf -> {
+                    channel = null;
+                    if (!closed) {
+                        log.warn("Mesh 与对端 {} 的连接断开，准备重连", nodeId);
+                        scheduleReconnect();
+                    }
+                });
+            });
+        }
+
+        private void scheduleReconnect() {
+            if (closed) {
+                return;
+            }
+            long delay = reconnectDelayMs;
+            reconnectDelayMs = Math.min(reconnectDelayMs * 2, RECONNECT_MAX_DELAY_MS);
+            group.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+        }
+
+        boolean send(byte[] frame) {
+            Channel current = channel;
+            if (current == null || !current.isActive()) {
+                return false;
+            }
+            current.writeAndFlush(Unpooled.wrappedBuffer(frame));
+            return true;
+        }
+
+        void close() {
+            closed = true;
+            Channel current = channel;
+            if (current != null) {
+                current.close();
+            }
+        }
+    }
+}
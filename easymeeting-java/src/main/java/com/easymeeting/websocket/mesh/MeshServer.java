@@ -0,0 +1,116 @@
+package com.easymeeting.websocket.mesh;
+
+import com.alibaba.fastjson.JSON;
+import com.easymeeting.dto.MessageSendDto;
+import com.easymeeting.entity.config.AppConfig;
+import com.easymeeting.entity.constants.Constants;
+import com.easymeeting.websocket.message.LocalDeliveryDispatcher;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.LengthFieldPrepender;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Mesh 节点服务端
+ * 接收其他节点转发过来的消息，只投递给本机连接，不再向外转发
+ *
+ * 帧格式：4 字节长度 + 消息 JSON（与 WebSocket 文本帧中的 JSON 内容一致）
+ */
+@Component
+@ConditionalOnProperty(name = Constants.MESSAGE_HANDLE_CHANNEL, havingValue = Constants.MESSAGE_CHANNEL_MESH)
+@Slf4j
+@RequiredArgsConstructor
+public class MeshServer {
+
+    /**
+     * 单帧最大长度，与 WebSocket 最大帧长度保持一致
+     */
+    public static final int MAX_FRAME_LENGTH = 65535;
+
+    private final AppConfig appConfig;
+    private final LocalDeliveryDispatcher localDeliveryDispatcher;
+
+    private final EventLoopGroup bossGroup = new NioEventLoopGroup(1);
+    private final EventLoopGroup workerGroup = new NioEventLoopGroup();
+    private Channel serverChannel;
+
+    /**
+     * 启动服务端（绑定完成后立即返回）
+     */
+    public synchronized void start() throws InterruptedException {
+        if (serverChannel != null) {
+            return;
+        }
+        MeshInboundHandler inboundHandler = new MeshInboundHandler(localDeliveryDispatcher);
+        ServerBootstrap serverBootstrap = new ServerBootstrap();
+        serverBootstrap.group(bossGroup, workerGroup)
+                .channel(NioServerSocketChannel.class)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childOption(ChannelOption.SO_KEEPALIVE, true)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel channel) {
+                        ChannelPipeline pipeline = channel.pipeline();
+                        pipeline.addLast(new LengthFieldBasedFrameDecoder(MAX_FRAME_LENGTH, 0, 4, 0, 4));
+                        pipeline.addLast(new LengthFieldPrepender(4));
+                        pipeline.addLast(inboundHandler);
+                    }
+                });
+        serverChannel = serverBootstrap.bind(appConfig.getMeshPort()).sync().channel();
+        log.info("Mesh 节点服务端启动成功，节点: {}，端口: {}", appConfig.getNodeId(), appConfig.getMeshPort());
+    }
+
+    @PreDestroy
+    public void close() {
+        if (serverChannel != null) {
+            serverChannel.close();
+        }
+        bossGroup.shutdownGracefully();
+        workerGroup.shutdownGracefully();
+    }
+
+    /**
+     * 入站帧处理：解析 JSON 并投递给本机连接
+     */
+    @ChannelHandler.Sharable
+    @Slf4j
+    @RequiredArgsConstructor
+    static class MeshInboundHandler extends SimpleChannelInboundHandler<ByteBuf> {
+
+        private final LocalDeliveryDispatcher localDeliveryDispatcher;
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, ByteBuf frame) {
+            String json = frame.toString(StandardCharsets.UTF_8);
+            try {
+                MessageSendDto<?> messageSendDto = JSON.parseObject(json, MessageSendDto.class);
+                localDeliveryDispatcher.dispatch(messageSendDto);
+            } catch (Exception e) {
+                log.error("Mesh 消息处理失败: {}", json, e);
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            log.warn("Mesh 入站连接异常，关闭连接: {}", ctx.channel().remoteAddress(), cause);
+            ctx.close();
+        }
+    }
+}
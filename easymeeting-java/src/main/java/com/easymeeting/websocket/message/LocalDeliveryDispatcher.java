@@ -0,0 +1,174 @@
+package com.easymeeting.websocket.message;
+
+import com.easymeeting.dto.MessageSendDto;
+import com.easymeeting.enums.MessageSendToTypeEnum;
+import com.easymeeting.enums.MessageTypeEnum;
+import com.easymeeting.vo.DeliveryStatsVo;
+import com.easymeeting.websocket.ChannelContextUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本机消息投递分发器
+ * 消息总线（Redis 订阅线程、Mesh 入站线程）收到消息后不在自身线程上序列化和写 Channel，
+ * 而是交给这里的投递通道异步处理，避免慢扇出拖住整个订阅
+ *
+ * - 按会议ID（群组消息）或接收者ID（个人消息）哈希到固定通道，保证同一会议/用户的消息有序
+ * - 每个通道使用有界队列；队列满时瞬时类消息直接丢弃，其余消息短暂等待后丢弃并告警
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class LocalDeliveryDispatcher {
+
+    /**
+     * 可丢弃的瞬时消息类型：后续消息会覆盖其状态，或可由 WebRTC 自身机制恢复
+     */
+    private static final Set<MessageTypeEnum> EPHEMERAL_TYPES = EnumSet.of(
+            MessageTypeEnum.MEETING_USER_VIDEO_CHANGE,
+            MessageTypeEnum.WEBRTC_ICE_CANDIDATE
+    );
+
+    /**
+     * 普通消息在队列满时的最长等待时间（毫秒）
+     */
+    private static final long RELIABLE_OFFER_TIMEOUT_MS = 100;
+
+    private final ChannelContextUtils channelContextUtils;
+
+    @Value("${messaging.delivery.lanes:0}")
+    private int laneCount;
+
+    @Value("${messaging.delivery.queue-capacity:2048}")
+    private int queueCapacity;
+
+    private final List<BlockingQueue<DeliveryTask>> lanes = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder droppedEphemeral = new LongAdder();
+    private final LongAdder droppedReliable = new LongAdder();
+    private final LongAdder totalLagNanos = new LongAdder();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        if (laneCount <= 0) {
+            laneCount = Runtime.getRuntime().availableProcessors();
+        }
+        for (int i = 0; i < laneCount; i++) {
+            BlockingQueue<DeliveryTask> queue = new ArrayBlockingQueue<>(queueCapacity);
+            lanes.add(queue);
+            Thread worker = new Thread(() -> drain(queue), "ws-delivery-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        log.info("本机消息投递分发器已启动，通道数: {}，队列容量: {}", laneCount, queueCapacity);
+    }
+
+    /**
+     * 提交一条需要投递给本机连接的消息（非阻塞或短暂阻塞）
+     */
+    public void dispatch(MessageSendDto<?> messageSendDto) {
+        if (messageSendDto == null) {
+            return;
+        }
+        BlockingQueue<DeliveryTask> queue = lanes.get(laneIndex(messageSendDto));
+        DeliveryTask task = new DeliveryTask(messageSendDto, System.nanoTime());
+        if (queue.offer(task)) {
+            enqueued.increment();
+            return;
+        }
+        if (EPHEMERAL_TYPES.contains(MessageTypeEnum.getByType(messageSendDto.getMessageType()))) {
+            droppedEphemeral.increment();
+            log.debug("投递队列已满，丢弃瞬时消息 type={}, meetingId={}",
+                    messageSendDto.getMessageType(), messageSendDto.getMeetingId());
+            return;
+        }
+        try {
+            if (queue.offer(task, RELIABLE_OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                enqueued.increment();
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        droppedReliable.increment();
+        log.error("投递队列已满，消息被丢弃 type={}, meetingId={}, receiveUserId={}",
+                messageSendDto.getMessageType(), messageSendDto.getMeetingId(), messageSendDto.getReceiveUserId());
+    }
+
+    /**
+     * 采集运行指标（maxLagMs 采集后重置）
+     */
+    public DeliveryStatsVo getStats() {
+        DeliveryStatsVo stats = new DeliveryStatsVo();
+        stats.setLanes(laneCount);
+        stats.setQueueCapacity(queueCapacity);
+        List<Integer> depths = new ArrayList<>(lanes.size());
+        lanes.forEach(queue -> depths.add(queue.size()));
+        stats.setQueueDepths(depths);
+        long deliveredCount = delivered.sum();
+        stats.setEnqueued(enqueued.sum());
+        stats.setDelivered(deliveredCount);
+        stats.setDroppedEphemeral(droppedEphemeral.sum());
+        stats.setDroppedReliable(droppedReliable.sum());
+        stats.setAvgLagMs(deliveredCount == 0 ? 0D : totalLagNanos.sum() / 1_000_000D / deliveredCount);
+        stats.setMaxLagMs(TimeUnit.NANOSECONDS.toMillis(maxLagNanos.getAndSet(0)));
+        return stats;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+
+    private int laneIndex(MessageSendDto<?> messageSendDto) {
+        String key = MessageSendToTypeEnum.USER.getType().equals(messageSendDto.getMessageSendToType())
+                ? messageSendDto.getReceiveUserId()
+                : messageSendDto.getMeetingId();
+        return key == null ? 0 : Math.floorMod(key.hashCode(), laneCount);
+    }
+
+    private void drain(BlockingQueue<DeliveryTask> queue) {
+        while (running) {
+            DeliveryTask task;
+            try {
+                task = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long lag = System.nanoTime() - task.enqueueNanos;
+            totalLagNanos.add(lag);
+            maxLagNanos.accumulateAndGet(lag, Math::max);
+            try {
+                channelContextUtils.sendMessage(task.messageSendDto);
+            } catch (Exception e) {
+                log.error("本机消息投递失败 type={}", task.messageSendDto.getMessageType(), e);
+            }
+            delivered.increment();
+        }
+    }
+
+    private record DeliveryTask(MessageSendDto<?> messageSendDto, long enqueueNanos) {
+    }
+}
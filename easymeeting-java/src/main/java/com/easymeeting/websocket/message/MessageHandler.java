@@ -4,7 +4,7 @@ import com.easymeeting.dto.MessageSendDto;
 
 /**
  * 消息处理器接口
- * 支持多种实现：Local（单机）、Redis、RabbitMQ、Kafka
+ * 支持多种实现：Local（单机）、Redis、Mesh（节点直连）、RabbitMQ、Kafka
  */
 public interface MessageHandler {
     
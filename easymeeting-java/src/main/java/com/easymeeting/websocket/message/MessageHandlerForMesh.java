@@ -0,0 +1,131 @@
+package com.easymeeting.websocket.message;
+
+import com.alibaba.fastjson.JSON;
+import com.easymeeting.dto.MessageSendDto;
+import com.easymeeting.entity.config.AppConfig;
+import com.easymeeting.entity.constants.Constants;
+import com.easymeeting.enums.MessageSendToTypeEnum;
+import com.easymeeting.utils.StringUtils;
+import com.easymeeting.websocket.ChannelContextUtils;
+import com.easymeeting.websocket.mesh.MeshDirectory;
+import com.easymeeting.websocket.mesh.MeshNodeRegistry;
+import com.easymeeting.websocket.mesh.MeshPeerClient;
+import com.easymeeting.websocket.mesh.MeshServer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 节点直连消息处理器（集群模式，低延迟）
+ * 消息负载不经过 Redis，节点之间通过 Netty TCP 长连接直接转发
+ * Redis 只作为控制面：节点注册/心跳、用户与会议房间所在节点的目录
+ *
+ * 转发规则：
+ * - 群组消息：先投递本机房间，再转发给目录中登记了该会议房间的其他节点
+ * - 个人消息：用户在本机则直接投递，否则转发给目录中用户所在的节点
+ *
+ * 当配置 messaging.handle.channel=mesh 时启用
+ */
+@Component
+@ConditionalOnProperty(name = Constants.MESSAGE_HANDLE_CHANNEL, havingValue = Constants.MESSAGE_CHANNEL_MESH)
+@Slf4j
+@RequiredArgsConstructor
+public class MessageHandlerForMesh implements MessageHandler {
+
+    private final ChannelContextUtils channelContextUtils;
+    private final MeshServer meshServer;
+    private final MeshPeerClient meshPeerClient;
+    private final MeshNodeRegistry meshNodeRegistry;
+    private final MeshDirectory meshDirectory;
+    private final AppConfig appConfig;
+
+    @PostConstruct
+    public void init() {
+        listenMessage();
+    }
+
+    @Override
+    public void listenMessage() {
+        try {
+            meshServer.start();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Mesh 节点服务端启动被中断", e);
+        }
+        refreshPeers();
+        log.info("Mesh 消息处理器已启动，节点: {}，地址: {}", appConfig.getNodeId(), meshNodeRegistry.getLocalAddress());
+    }
+
+    /**
+     * 节点心跳、同步对端连接并续期路由记录
+     */
+    @Scheduled(fixedDelay = 10_000, initialDelay = 10_000)
+    public void refreshPeers() {
+        try {
+            meshNodeRegistry.heartbeat();
+            Map<String, String> peers = meshNodeRegistry.getLivePeers();
+            meshPeerClient.syncPeers(peers);
+            meshDirectory.refresh(peers.keySet(), channelContextUtils.getOnlineUserIds(), channelContextUtils.getActiveMeetingIds());
+        } catch (Exception e) {
+            log.error("Mesh 节点心跳失败", e);
+        }
+    }
+
+    @Override
+    public void sendMessage(MessageSendDto messageSendDto) {
+        // 先投递本机
+        channelContextUtils.sendMessage(messageSendDto);
+
+        Set<String> targetNodes = resolveTargetNodes(messageSendDto);
+        if (targetNodes.isEmpty()) {
+            return;
+        }
+        byte[] frame = JSON.toJSONString(messageSendDto).getBytes(StandardCharsets.UTF_8);
+        String localNodeId = appConfig.getNodeId();
+        for (String nodeId : targetNodes) {
+            if (localNodeId.equals(nodeId)) {
+                continue;
+            }
+            if (!meshPeerClient.send(nodeId, frame)) {
+                log.warn("Mesh 对端 {} 未连接，消息已丢弃，type={}", nodeId, messageSendDto.getMessageType());
+            }
+        }
+    }
+
+    /**
+     * 根据目录计算需要转发的节点
+     */
+    private Set<String> resolveTargetNodes(MessageSendDto<?> messageSendDto) {
+        Integer sendToType = messageSendDto.getMessageSendToType();
+        if (MessageSendToTypeEnum.GROUP.getType().equals(sendToType)) {
+            if (StringUtils.isEmpty(messageSendDto.getMeetingId())) {
+                return Collections.emptySet();
+            }
+            return meshDirectory.getRoomNodes(messageSendDto.getMeetingId());
+        }
+        if (MessageSendToTypeEnum.USER.getType().equals(sendToType)) {
+            String receiveUserId = messageSendDto.getReceiveUserId();
+            if (StringUtils.isEmpty(receiveUserId) || channelContextUtils.isUserOnline(receiveUserId)) {
+                return Collections.emptySet();
+            }
+            String nodeId = meshDirectory.getUserNode(receiveUserId);
+            return nodeId == null ? Collections.emptySet() : Collections.singleton(nodeId);
+        }
+        return Collections.emptySet();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        meshNodeRegistry.unregister();
+        log.info("Mesh 消息处理器已关闭");
+    }
+}
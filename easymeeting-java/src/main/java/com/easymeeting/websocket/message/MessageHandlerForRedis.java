@@ -1,23 +1,31 @@
 package com.easymeeting.websocket.message;
 
-import com.alibaba.fastjson.JSONObject;
 import com.easymeeting.dto.MessageSendDto;
 import com.easymeeting.entity.constants.Constants;
-import com.easymeeting.websocket.ChannelContextUtils;
+import com.easymeeting.redis.RedisKeys;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RTopic;
 import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Redis 消息处理器（集群模式）
  * 使用 Redis Pub/Sub 实现跨服务器消息传递
  * 视频会议信令对实时性要求高，Redis 延迟更低
  * 信令消息丢失可以通过 WebRTC 的 ICE 重连机制恢复
+ *
+ * Redis Cluster 下普通 PUBLISH 会广播到集群所有节点，开启 messaging.redis.sharded-pubsub
+ * 后改用 Redis 7 分片发布订阅（SPUBLISH/SSUBSCRIBE），消息只在频道所在分片内传播；
+ * 分片模式下消息总线拆成 shard-channels 个频道（频道名带不同的 hash tag，分布到不同的 slot），
+ * 按会议ID（无会议时按接收用户ID）选择频道，同一会议的消息始终走同一频道、保持顺序，各节点订阅全部频道
  * 
  * 当配置 messaging.handle.channel=redis 时启用
  */
@@ -28,9 +36,16 @@ import org.springframework.stereotype.Component;
 public class MessageHandlerForRedis implements MessageHandler {
 
     private final RedissonClient redissonClient;
-    private final ChannelContextUtils channelContextUtils;
+    private final LocalDeliveryDispatcher localDeliveryDispatcher;
+
+    @Value("${messaging.redis.sharded-pubsub:false}")
+    private boolean shardedPubSub;
+
+    @Value("${messaging.redis.shard-channels:16}")
+    private int shardChannels;
     
-    private int listenerId;
+    private List<RTopic> topics;
+    private List<Integer> listenerIds;
 
     /**
      * 应用启动后自动开始监听
@@ -38,32 +53,60 @@ public class MessageHandlerForRedis implements MessageHandler {
     @PostConstruct
     public void init() {
         listenMessage();
-        log.info("Redis 消息监听器已启动，Topic: {}", Constants.REDIS_CHANNEL_MESSAGE);
+        log.info("Redis 消息监听器已启动，Topic: {}，分片发布订阅: {}，频道数: {}",
+                Constants.REDIS_CHANNEL_MESSAGE, shardedPubSub, topics.size());
     }
 
     @Override
     public void listenMessage() {
-        RTopic topic = redissonClient.getTopic(Constants.REDIS_CHANNEL_MESSAGE);
-        
+        topics = createTopics();
+        listenerIds = new ArrayList<>(topics.size());
+
         // 添加监听器
-        listenerId = topic.addListener(MessageSendDto.class, (channel, sendDto) -> {
-            log.info("Redis 收到消息：{}", JSONObject.toJSONString(sendDto));
-            // 在本机尝试发送消息
-            channelContextUtils.sendMessage(sendDto);
-        });
+        // 订阅线程只做交接：序列化和写 Channel 交给投递分发器，避免慢扇出拖住订阅
+        for (RTopic topic : topics) {
+            listenerIds.add(topic.addListener(MessageSendDto.class, (channel, sendDto) -> {
+                log.debug("Redis 收到消息：type={}, meetingId={}", sendDto.getMessageType(), sendDto.getMeetingId());
+                localDeliveryDispatcher.dispatch(sendDto);
+            }));
+        }
     }
 
     @Override
     public void sendMessage(MessageSendDto messageSendDto) {
-        RTopic topic = redissonClient.getTopic(Constants.REDIS_CHANNEL_MESSAGE);
+        RTopic topic = topicFor(messageSendDto);
         long receiversCount = topic.publish(messageSendDto);
         log.info("消息已发布到 Redis，接收者数量: {}", receiversCount);
     }
 
+    /**
+     * 消息总线 Topic：普通模式一个频道，分片模式 easymeeting:channel:message:{0} ~ {n-1}
+     */
+    private List<RTopic> createTopics() {
+        if (!shardedPubSub) {
+            return List.of(redissonClient.getTopic(Constants.REDIS_CHANNEL_MESSAGE));
+        }
+        List<RTopic> result = new ArrayList<>();
+        for (int i = 0; i < Math.max(shardChannels, 1); i++) {
+            result.add(redissonClient.getShardedTopic(Constants.REDIS_CHANNEL_MESSAGE + ":" + RedisKeys.hashTag(String.valueOf(i))));
+        }
+        return result;
+    }
+
+    private RTopic topicFor(MessageSendDto<?> messageSendDto) {
+        if (topics.size() == 1) {
+            return topics.get(0);
+        }
+        String routeKey = messageSendDto.getMeetingId() != null ? messageSendDto.getMeetingId() : messageSendDto.getReceiveUserId();
+        int index = routeKey == null ? 0 : Math.floorMod(routeKey.hashCode(), topics.size());
+        return topics.get(index);
+    }
+
     @PreDestroy
     public void destroy() {
-        RTopic topic = redissonClient.getTopic(Constants.REDIS_CHANNEL_MESSAGE);
-        topic.removeListener(listenerId);
+        for (int i = 0; i < topics.size(); i++) {
+            topics.get(i).removeListener(listenerIds.get(i));
+        }
         log.info("Redis 消息监听器已关闭");
     }
 }
@@ -0,0 +1,11 @@
+package com.easymeeting.websocket.presence;
+
+/**
+ * 集群级在线状态变化监听器
+ * 只在用户真正上线（此前在任何节点都不在线）或真正离线（不再登记在任何节点）时，
+ * 由发生变化的节点回调一次
+ */
+public interface PresenceChangeListener {
+
+    void onPresenceChange(String userId, boolean online);
+}
@@ -0,0 +1,112 @@
+package com.easymeeting.websocket.presence;
+
+import com.easymeeting.dto.MessageSendDto;
+import com.easymeeting.enums.MessageSendToTypeEnum;
+import com.easymeeting.enums.MessageTypeEnum;
+import com.easymeeting.redis.ContactGraphCache;
+import com.easymeeting.vo.PresenceChangeVo;
+import com.easymeeting.websocket.message.MessageHandler;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 好友在线状态变化推送
+ * - 防抖：用户状态首次变化后等待一个窗口期，窗口结束时状态与变化前相同（如断线重连）则不推送
+ * - 合并：同一轮到期的所有变化按接收者分组，每个在线好友只收到一条消息
+ * - 接收者由联系人关系图缓存计算，双方互为正常好友且接收者在线才推送
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class PresenceNotifier implements PresenceChangeListener {
+
+    /**
+     * 单条推送消息最多携带的状态变化数
+     */
+    private static final int MAX_CHANGES_PER_MESSAGE = 200;
+
+    private final PresenceService presenceService;
+    private final ContactGraphCache contactGraphCache;
+    private final MessageHandler messageHandler;
+
+    @Value("${presence.notify.debounce-ms:2000}")
+    private long debounceMs;
+
+    /**
+     * userId -> 窗口内首次变化
+     */
+    private final Map<String, PendingChange> pending = new ConcurrentHashMap<>();
+
+    @Override
+    public void onPresenceChange(String userId, boolean online) {
+        pending.putIfAbsent(userId, new PendingChange(!online, System.currentTimeMillis()));
+    }
+
+    @Scheduled(fixedDelayString = "${presence.notify.flush-interval-ms:500}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Map<String, List<PresenceChangeVo>> batches = new HashMap<>();
+        for (Map.Entry<String, PendingChange> entry : pending.entrySet()) {
+            String userId = entry.getKey();
+            PendingChange change = entry.getValue();
+            if (now - change.firstTime < debounceMs || !pending.remove(userId, change)) {
+                continue;
+            }
+            boolean online = presenceService.isOnline(userId);
+            if (online == change.wasOnline) {
+                continue;
+            }
+            PresenceChangeVo changeVo = new PresenceChangeVo();
+            changeVo.setUserId(userId);
+            changeVo.setOnline(online);
+            changeVo.setChangeTime(now);
+            try {
+                List<String> onlineContacts = new ArrayList<>();
+                for (String contactId : contactGraphCache.getNormalContactIds(userId)) {
+                    if (presenceService.isOnline(contactId)) {
+                        onlineContacts.add(contactId);
+                    }
+                }
+                // 反向关系批量判断：缓存未命中的好友合并为一次查询
+                for (String contactId : contactGraphCache.filterNormalContactOf(onlineContacts, userId)) {
+                    batches.computeIfAbsent(contactId, k -> new ArrayList<>()).add(changeVo);
+                }
+            } catch (Exception e) {
+                log.error("计算用户 {} 在线状态推送对象失败", userId, e);
+            }
+        }
+        batches.forEach(this::send);
+    }
+
+    private void send(String receiveUserId, List<PresenceChangeVo> changes) {
+        for (int from = 0; from < changes.size(); from += MAX_CHANGES_PER_MESSAGE) {
+            MessageSendDto<List<PresenceChangeVo>> messageSendDto = new MessageSendDto<>();
+            messageSendDto.setMessageSendToType(MessageSendToTypeEnum.USER.getType());
+            messageSendDto.setMessageType(MessageTypeEnum.CONTACT_PRESENCE_CHANGE.getType());
+            messageSendDto.setReceiveUserId(receiveUserId);
+            messageSendDto.setMessageContent(new ArrayList<>(
+                    changes.subList(from, Math.min(from + MAX_CHANGES_PER_MESSAGE, changes.size()))));
+            messageSendDto.setSendTime(System.currentTimeMillis());
+            try {
+                messageHandler.sendMessage(messageSendDto);
+            } catch (Exception e) {
+                log.error("好友在线状态推送失败，receiveUserId={}", receiveUserId, e);
+            }
+        }
+    }
+
+    private record PendingChange(boolean wasOnline, long firstTime) {
+    }
+}
@@ -0,0 +1,282 @@
+package com.easymeeting.websocket.presence;
+
+import com.easymeeting.dto.PresenceEventDto;
+import com.easymeeting.entity.config.AppConfig;
+import com.easymeeting.entity.constants.Constants;
+import com.easymeeting.redis.RedisUtils;
+import com.easymeeting.websocket.ChannelContextListener;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 集群在线状态服务
+ * Redis 中维护 userId -> 连接所在节点，每个节点心跳续期存活标记，节点宕机后由其他节点清理其在线用户；
+ * 每个节点在本地保存一份完整的在线表，通过 Pub/Sub 增量更新，并定期全量校准，
+ * 批量查询在线状态只读本地表，不访问 Redis
+ *
+ * - easymeeting:{presence}:users          Hash：userId -> nodeId
+ * - easymeeting:{presence}:node:{nodeId}   Set：节点上的在线用户
+ * - easymeeting:{presence}:nodes          Set：已登记的节点
+ * - easymeeting:presence:alive:{nodeId}    存活标记，心跳续期
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class PresenceService implements ChannelContextListener, MessageListener {
+
+    /**
+     * 上线：登记用户所在节点
+     */
+    private static final RedisScript<String> ONLINE_SCRIPT = new DefaultRedisScript<>("""
+            local old = redis.call('HGET', KEYS[1], ARGV[1])
+            redis.call('HSET', KEYS[1], ARGV[1], ARGV[2])
+            redis.call('SADD', KEYS[2], ARGV[1])
+            return old or ''
+            """, String.class);
+
+    /**
+     * 下线：只有用户仍登记在本节点时才删除（用户可能已重连到其他节点）
+     */
+    private static final RedisScript<Long> OFFLINE_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('SREM', KEYS[2], ARGV[1])
+            if redis.call('HGET', KEYS[1], ARGV[1]) == ARGV[2] then
+                redis.call('HDEL', KEYS[1], ARGV[1])
+                return 1
+            end
+            return 0
+            """, Long.class);
+
+    /**
+     * 清理节点：删除仍登记在该节点的全部用户，返回被删除的用户
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> SWEEP_SCRIPT = new DefaultRedisScript<>("""
+            local users = redis.call('SMEMBERS', KEYS[2])
+            local removed = {}
+            for _, userId in ipairs(users) do
+                if redis.call('HGET', KEYS[1], userId) == ARGV[1] then
+                    redis.call('HDEL', KEYS[1], userId)
+                    removed[#removed + 1] = userId
+                end
+            end
+            redis.call('DEL', KEYS[2])
+            redis.call('SREM', KEYS[3], ARGV[1])
+            return removed
+            """, List.class);
+
+    private final RedisUtils redisUtils;
+    private final AppConfig appConfig;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final UserActivityWriter userActivityWriter;
+    private final ObjectProvider<PresenceChangeListener> presenceChangeListeners;
+
+    /**
+     * 本地在线表：userId -> nodeId
+     */
+    private final Map<String, String> onlineUsers = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(Constants.REDIS_CHANNEL_PRESENCE));
+        // 以固定 nodeId 重启时，上次运行遗留的在线用户已全部断开
+        sweepNode(appConfig.getNodeId());
+        heartbeat();
+        resync();
+        log.info("在线状态服务已启动，节点: {}，当前在线用户: {}", appConfig.getNodeId(), onlineUsers.size());
+    }
+
+    // ==================== 查询 ====================
+
+    public boolean isOnline(String userId) {
+        return onlineUsers.containsKey(userId);
+    }
+
+    /**
+     * 批量查询在线状态（只读本地在线表）
+     */
+    public Map<String, Boolean> getOnlineStatus(Collection<String> userIds) {
+        Map<String, Boolean> result = new HashMap<>(userIds.size() * 2);
+        for (String userId : userIds) {
+            result.put(userId, onlineUsers.containsKey(userId));
+        }
+        return result;
+    }
+
+    /**
+     * 用户连接所在节点，不在线返回 null
+     */
+    public String getUserNode(String userId) {
+        return onlineUsers.get(userId);
+    }
+
+    public int getOnlineCount() {
+        return onlineUsers.size();
+    }
+
+    // ==================== 本机连接事件 ====================
+
+    @Override
+    public void onUserOnline(String userId) {
+        String nodeId = appConfig.getNodeId();
+        String oldNodeId = null;
+        try {
+            oldNodeId = redisUtils.executeStringScript(ONLINE_SCRIPT, presenceKeys(nodeId), userId, nodeId);
+        } catch (Exception e) {
+            log.error("登记用户 {} 在线状态失败", userId, e);
+        }
+        onlineUsers.put(userId, nodeId);
+        publish(nodeId, true, Collections.singletonList(userId));
+        if (oldNodeId != null && oldNodeId.isEmpty()) {
+            presenceChangeListeners.forEach(listener -> listener.onPresenceChange(userId, true));
+        }
+    }
+
+    @Override
+    public void onUserOffline(String userId) {
+        String nodeId = appConfig.getNodeId();
+        Long removed;
+        try {
+            removed = redisUtils.executeStringScript(OFFLINE_SCRIPT, presenceKeys(nodeId), userId, nodeId);
+        } catch (Exception e) {
+            log.error("登记用户 {} 离线状态失败", userId, e);
+            return;
+        }
+        if (removed == null || removed == 0) {
+            // 用户已重连到其他节点
+            return;
+        }
+        onlineUsers.remove(userId, nodeId);
+        userActivityWriter.recordOff(userId, System.currentTimeMillis());
+        publish(nodeId, false, Collections.singletonList(userId));
+        presenceChangeListeners.forEach(listener -> listener.onPresenceChange(userId, false));
+    }
+
+    // ==================== 节点心跳与校准 ====================
+
+    /**
+     * 续期本节点存活标记，并清理存活标记已过期的节点
+     */
+    @Scheduled(fixedDelay = 10_000, initialDelay = 10_000)
+    public void heartbeat() {
+        String nodeId = appConfig.getNodeId();
+        try {
+            redisUtils.stringPipelined(connection -> {
+                connection.set(Constants.REDIS_KEY_PRESENCE_NODE_ALIVE + nodeId, String.valueOf(System.currentTimeMillis()));
+                connection.expire(Constants.REDIS_KEY_PRESENCE_NODE_ALIVE + nodeId, Constants.REDIS_EXPIRE_PRESENCE_NODE);
+                connection.sAdd(Constants.REDIS_KEY_PRESENCE_NODES, nodeId);
+            });
+            Set<String> nodes = redisUtils.sMembersString(Constants.REDIS_KEY_PRESENCE_NODES);
+            if (nodes == null) {
+                return;
+            }
+            for (String node : nodes) {
+                if (!node.equals(nodeId) && !redisUtils.hasKey(Constants.REDIS_KEY_PRESENCE_NODE_ALIVE + node)) {
+                    sweepNode(node);
+                }
+            }
+        } catch (Exception e) {
+            log.error("在线状态节点心跳失败", e);
+        }
+    }
+
+    /**
+     * 全量校准本地在线表，修复可能错过的增量广播
+     */
+    @Scheduled(fixedDelay = 60_000, initialDelay = 60_000)
+    public void resync() {
+        try {
+            Map<String, String> snapshot = redisUtils.hGetAllString(Constants.REDIS_KEY_PRESENCE_USERS);
+            onlineUsers.keySet().retainAll(snapshot.keySet());
+            onlineUsers.putAll(snapshot);
+        } catch (Exception e) {
+            log.error("在线状态全量校准失败", e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        String nodeId = appConfig.getNodeId();
+        sweepNode(nodeId);
+        redisUtils.delete(Constants.REDIS_KEY_PRESENCE_NODE_ALIVE + nodeId);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void sweepNode(String nodeId) {
+        try {
+            List<String> removed = redisUtils.executeStringScript(SWEEP_SCRIPT, Arrays.asList(
+                    Constants.REDIS_KEY_PRESENCE_USERS,
+                    Constants.REDIS_KEY_PRESENCE_NODE + nodeId,
+                    Constants.REDIS_KEY_PRESENCE_NODES), nodeId);
+            if (removed == null || removed.isEmpty()) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            for (String userId : removed) {
+                onlineUsers.remove(userId, nodeId);
+                userActivityWriter.recordOff(userId, now);
+            }
+            publish(nodeId, false, removed);
+            presenceChangeListeners.forEach(listener -> removed.forEach(userId -> listener.onPresenceChange(userId, false)));
+            log.info("已清理节点 {} 的在线用户 {} 个", nodeId, removed.size());
+        } catch (Exception e) {
+            log.error("清理节点 {} 在线状态失败", nodeId, e);
+        }
+    }
+
+    // ==================== 增量广播 ====================
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            PresenceEventDto event = (PresenceEventDto) redisUtils.deserializeValue(message.getBody());
+            if (event == null || event.getUserIds() == null) {
+                return;
+            }
+            for (String userId : event.getUserIds()) {
+                if (Boolean.TRUE.equals(event.getOnline())) {
+                    onlineUsers.put(userId, event.getNodeId());
+                } else {
+                    onlineUsers.remove(userId, event.getNodeId());
+                }
+            }
+        } catch (Exception e) {
+            log.error("在线状态广播处理失败", e);
+        }
+    }
+
+    private void publish(String nodeId, boolean online, List<String> userIds) {
+        PresenceEventDto event = new PresenceEventDto();
+        event.setNodeId(nodeId);
+        event.setOnline(online);
+        event.setUserIds(userIds);
+        try {
+            redisUtils.publish(Constants.REDIS_CHANNEL_PRESENCE, event);
+        } catch (Exception e) {
+            log.error("在线状态广播发送失败，其他节点将在下次校准时更新", e);
+        }
+    }
+
+    private List<String> presenceKeys(String nodeId) {
+        return Arrays.asList(Constants.REDIS_KEY_PRESENCE_USERS, Constants.REDIS_KEY_PRESENCE_NODE + nodeId);
+    }
+}
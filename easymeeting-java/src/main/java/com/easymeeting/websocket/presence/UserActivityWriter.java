@@ -0,0 +1,100 @@
+package com.easymeeting.websocket.presence;
+
+import com.easymeeting.entity.UserInfo;
+import com.easymeeting.mapper.UserMapper;
+import com.easymeeting.service.UserProfileService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 用户登录/离线时间批量写入
+ * 登录和离线事件只记录到内存（同一用户只保留最新时间），定时合并为批量 UPDATE 写入 user_info
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class UserActivityWriter {
+
+    /**
+     * 单条批量 UPDATE 的最大行数
+     */
+    private static final int BATCH_SIZE = 500;
+
+    private final UserMapper userMapper;
+    private final UserProfileService userProfileService;
+
+    private final Map<String, Long> pendingLogin = new ConcurrentHashMap<>();
+    private final Map<String, Long> pendingOff = new ConcurrentHashMap<>();
+
+    public void recordLogin(String userId, long time) {
+        pendingLogin.merge(userId, time, Math::max);
+    }
+
+    public void recordOff(String userId, long time) {
+        pendingOff.merge(userId, time, Math::max);
+    }
+
+    @Scheduled(fixedDelay = 5_000)
+    public void flush() {
+        flush(pendingLogin, true);
+        flush(pendingOff, false);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+
+    private void flush(Map<String, Long> pending, boolean login) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<UserInfo> batch = new ArrayList<>(Math.min(pending.size(), BATCH_SIZE));
+        for (String userId : new ArrayList<>(pending.keySet())) {
+            Long time = pending.remove(userId);
+            if (time == null) {
+                continue;
+            }
+            UserInfo userInfo = new UserInfo();
+            userInfo.setUserId(userId);
+            if (login) {
+                userInfo.setLastLoginTime(time);
+            } else {
+                userInfo.setLastOffTime(time);
+            }
+            batch.add(userInfo);
+            if (batch.size() >= BATCH_SIZE) {
+                write(batch, login);
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch, login);
+        }
+    }
+
+    private void write(List<UserInfo> batch, boolean login) {
+        try {
+            if (login) {
+                userMapper.updateLastLoginTimeBatch(batch);
+            } else {
+                userMapper.updateLastOffTimeBatch(batch);
+            }
+            // 用户资料缓存中包含登录/离线时间
+            userProfileService.evict(batch.stream().map(UserInfo::getUserId).toList());
+        } catch (Exception e) {
+            // 写入失败放回队列，下一轮重试（期间有更新的时间则保留更新的）
+            log.error("批量写入用户{}时间失败，数量: {}", login ? "登录" : "离线", batch.size(), e);
+            batch.forEach(userInfo -> (login ? pendingLogin : pendingOff).merge(userInfo.getUserId(),
+                    login ? userInfo.getLastLoginTime() : userInfo.getLastOffTime(), Math::max));
+        }
+    }
+}
@@ -0,0 +1,20 @@
+-- =====================================================
+-- 聊天消息归档记录（已有部署执行一次，可重复执行）
+-- 已结束会议的聊天消息归档到分段文件后从分表中删除，此表记录归档进度
+-- =====================================================
+
+USE `easymeeting`;
+
+CREATE TABLE IF NOT EXISTS `chat_message_archive` (
+    `meeting_id` VARCHAR(10) NOT NULL COMMENT '会议ID',
+    `table_name` VARCHAR(64) NOT NULL COMMENT '归档时消息所在的分表',
+    `segment_path` VARCHAR(255) NOT NULL COMMENT '归档分段文件路径',
+    `message_count` INT NOT NULL DEFAULT 0 COMMENT '已归档消息数',
+    `min_message_id` BIGINT DEFAULT NULL COMMENT '已归档的最小消息ID',
+    `max_message_id` BIGINT DEFAULT NULL COMMENT '已归档的最大消息ID（不大于该ID的消息以归档文件为准）',
+    `purged_count` INT NOT NULL DEFAULT 0 COMMENT '已从分表删除的行数',
+    `state` TINYINT NOT NULL DEFAULT 0 COMMENT '状态：0归档中，1清理中（读归档），2已完成',
+    `update_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (`meeting_id`),
+    KEY `idx_state` (`state`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='聊天消息归档记录';
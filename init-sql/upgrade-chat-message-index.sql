@@ -0,0 +1,56 @@
+-- =====================================================
+-- 会议聊天消息分表索引升级（已有部署执行一次，可重复执行）
+-- 历史消息改为按 message_id 游标分页，为 32 张分表增加 (meeting_id, message_id, status) 联合索引：
+-- 会议内按 message_id 有序扫描，status 在索引内过滤，不需要 filesort；
+-- 同时删除被其覆盖的 idx_meeting_id，以及早期版本本脚本创建的 (meeting_id, status, message_id) 索引
+-- （status IN (0, 1) 在该索引上是两段范围，ORDER BY message_id 需要 filesort）。
+-- 需要 MySQL 8.0.29 及以上（CREATE PROCEDURE IF NOT EXISTS）；MySQL 8.0 下为在线 DDL，不阻塞读写
+-- =====================================================
+
+USE `easymeeting`;
+
+DELIMITER //
+CREATE PROCEDURE IF NOT EXISTS upgrade_chat_message_index()
+BEGIN
+    DECLARE i INT DEFAULT 1;
+    DECLARE table_name_var VARCHAR(64);
+
+    WHILE i <= 32 DO
+        SET table_name_var = CONCAT('message_chat_message_', LPAD(i, 2, '0'));
+
+        IF NOT EXISTS (SELECT 1 FROM information_schema.statistics
+                       WHERE table_schema = DATABASE() AND table_name = table_name_var
+                         AND index_name = 'idx_meeting_message_status') THEN
+            SET @sql = CONCAT('ALTER TABLE `', table_name_var,
+                '` ADD KEY `idx_meeting_message_status` (`meeting_id`, `message_id`, `status`), ALGORITHM=INPLACE, LOCK=NONE');
+            PREPARE stmt FROM @sql;
+            EXECUTE stmt;
+            DEALLOCATE PREPARE stmt;
+        END IF;
+
+        IF EXISTS (SELECT 1 FROM information_schema.statistics
+                   WHERE table_schema = DATABASE() AND table_name = table_name_var
+                     AND index_name = 'idx_meeting_id') THEN
+            SET @sql = CONCAT('ALTER TABLE `', table_name_var, '` DROP KEY `idx_meeting_id`, ALGORITHM=INPLACE, LOCK=NONE');
+            PREPARE stmt FROM @sql;
+            EXECUTE stmt;
+            DEALLOCATE PREPARE stmt;
+        END IF;
+
+        IF EXISTS (SELECT 1 FROM information_schema.statistics
+                   WHERE table_schema = DATABASE() AND table_name = table_name_var
+                     AND index_name = 'idx_meeting_status_message') THEN
+            SET @sql = CONCAT('ALTER TABLE `', table_name_var, '` DROP KEY `idx_meeting_status_message`, ALGORITHM=INPLACE, LOCK=NONE');
+            PREPARE stmt FROM @sql;
+            EXECUTE stmt;
+            DEALLOCATE PREPARE stmt;
+        END IF;
+
+        SET i = i + 1;
+    END WHILE;
+END //
+DELIMITER ;
+
+CALL upgrade_chat_message_index();
+
+DROP PROCEDURE IF EXISTS upgrade_chat_message_index;
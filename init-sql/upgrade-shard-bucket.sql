@@ -0,0 +1,16 @@
+-- =====================================================
+-- 分表桶目录（已有部署执行一次，可重复执行）
+-- 未登记的桶按原 hash % 32 规则落表，新增此表不影响现有数据
+-- =====================================================
+
+USE `easymeeting`;
+
+CREATE TABLE IF NOT EXISTS `shard_bucket` (
+    `table_prefix` VARCHAR(50) NOT NULL COMMENT '分表前缀：message_chat_message / private_chat_message',
+    `bucket` INT NOT NULL COMMENT '虚拟桶编号（0-1023）',
+    `table_index` INT NOT NULL COMMENT '读取的物理表序号',
+    `dual_write_index` INT DEFAULT NULL COMMENT '需要同步写入的另一张表序号（迁移中/切换后）',
+    `state` TINYINT NOT NULL DEFAULT 0 COMMENT '状态：0正常，1迁移中（读旧表，双写），2已切换（读新表，双写旧表）',
+    `update_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (`table_prefix`, `bucket`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='分表桶目录';